@@ -0,0 +1,70 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.smscserver;
+
+/**
+ * Interface for providing the configuration of the temporary bans of the addresses failing to bind.
+ * 
+ * @author hceylan
+ */
+public interface BanConfig {
+
+    /**
+     * Returns how long an address is banned.
+     * 
+     * @return the ban period in seconds
+     */
+    int getBanPeriod();
+
+    /**
+     * Returns the period after which the failure counts of the addresses are halved.
+     * 
+     * @return the decay period in seconds
+     */
+    int getDecayPeriod();
+
+    /**
+     * Returns the expected number of addresses failing to bind within a decay period, sizes the failure counters.
+     * 
+     * @return the expected number of offenders
+     */
+    int getExpectedOffenders();
+
+    /**
+     * Returns the maximum number of addresses banned at the same time.
+     * 
+     * @return the maximum number of bans
+     */
+    int getMaxBans();
+
+    /**
+     * Returns the number of bind failures after which an address is banned.
+     * 
+     * @return the bind failure threshold, 0 if the bans are disabled
+     */
+    int getThreshold();
+
+    /**
+     * Returns if the bans are enabled.
+     * 
+     * @return true if the bans are enabled
+     */
+    boolean isEnabled();
+}
@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.smscserver;
+
+import org.apache.smscserver.impl.DefaultBanConfig;
+
+/**
+ * Factory for creating bind failure ban configurations
+ * 
+ * @author hceylan
+ */
+public class BanConfigFactory {
+
+    private int threshold = 0;
+    private int banPeriod = 600;
+    private int decayPeriod = 60;
+    private int maxBans = 10000;
+    private int expectedOffenders = 10000;
+
+    /**
+     * Create a ban configuration based on the configuration on this factory
+     * 
+     * @return The {@link BanConfig} instance
+     */
+    public BanConfig createBanConfig() {
+        return new DefaultBanConfig(this.threshold, this.banPeriod, this.decayPeriod, this.maxBans,
+                this.expectedOffenders);
+    }
+
+    /**
+     * Sets how long an address is banned, 600 seconds by default.
+     * 
+     * @param banPeriod
+     *            the ban period in seconds
+     */
+    public void setBanPeriod(int banPeriod) {
+        this.banPeriod = banPeriod;
+    }
+
+    /**
+     * Sets the period after which the failure counts of the addresses are halved, 60 seconds by default.
+     * 
+     * @param decayPeriod
+     *            the decay period in seconds
+     */
+    public void setDecayPeriod(int decayPeriod) {
+        this.decayPeriod = decayPeriod;
+    }
+
+    /**
+     * Sets the expected number of addresses failing to bind within a decay period, 10000 by default. The failure
+     * counters are sized from it, more offenders than that make the counts of the addresses less accurate.
+     * 
+     * @param expectedOffenders
+     *            the expected number of offenders
+     */
+    public void setExpectedOffenders(int expectedOffenders) {
+        this.expectedOffenders = expectedOffenders;
+    }
+
+    /**
+     * Sets the maximum number of addresses banned at the same time, 10000 by default.
+     * 
+     * @param maxBans
+     *            the maximum number of bans
+     */
+    public void setMaxBans(int maxBans) {
+        this.maxBans = maxBans;
+    }
+
+    /**
+     * Sets the number of bind failures after which an address is banned, 0 by default which disables the bans.
+     * 
+     * @param threshold
+     *            the bind failure threshold
+     */
+    public void setThreshold(int threshold) {
+        this.threshold = threshold;
+    }
+}
@@ -28,6 +28,21 @@ package org.apache.smscserver;
  */
 public interface ConnectionConfig {
 
+    /**
+     * Returns the maximum number of bind requests waiting for a thread to authenticate them. Bind requests beyond the
+     * queue are answered with <code>ESME_RTHROTTLED</code>.
+     * 
+     * @return the maximum number of bind requests waiting for authentication
+     */
+    int getAuthQueueSize();
+
+    /**
+     * Returns the number of threads authenticating bind requests.
+     * 
+     * @return the number of threads authenticating bind requests
+     */
+    int getAuthThreads();
+
     /**
      * The delay in number of milliseconds between bind failures. Important to make brute force attacks harder.
      * 
@@ -63,4 +78,20 @@ public interface ConnectionConfig {
      */
     int getMinThreads();
 
+    /**
+     * Returns the maximum number of requests waiting for a thread to process them. Requests beyond the queue are
+     * answered with <code>ESME_RTHROTTLED</code>.
+     * 
+     * @return the maximum number of requests waiting for processing
+     */
+    int getRequestQueueSize();
+
+    /**
+     * Returns the maximum number of requests a session may have in progress at a time. Once the window is full the
+     * server stops reading from the session until the requests in progress complete.
+     * 
+     * @return the maximum number of requests a session may have in progress at a time
+     */
+    int getRequestWindowSize();
+
 }
@@ -34,6 +34,10 @@ public class ConnectionConfigFactory {
     private int bindFailureDelay = 500;
     private int maxThreads = 8;
     private int minThreads = 2;
+    private int requestWindowSize = 10;
+    private int authThreads = 2;
+    private int authQueueSize = 256;
+    private int requestQueueSize = 4096;
 
     /**
      * Create a connection configuration instances based on the configuration on this factory
@@ -42,7 +46,25 @@ public class ConnectionConfigFactory {
      */
     public ConnectionConfig createConnectionConfig() {
         return new DefaultConnectionConfig(this.bindFailureDelay, this.maxBinds, this.maxBindFailures, this.minThreads,
-                this.maxThreads);
+                this.maxThreads, this.requestWindowSize, this.authThreads, this.authQueueSize, this.requestQueueSize);
+    }
+
+    /**
+     * Returns the maximum number of bind requests waiting for a thread to authenticate them.
+     * 
+     * @return the maximum number of bind requests waiting for authentication
+     */
+    public int getAuthQueueSize() {
+        return this.authQueueSize;
+    }
+
+    /**
+     * Returns the number of threads authenticating bind requests.
+     * 
+     * @return the number of threads authenticating bind requests
+     */
+    public int getAuthThreads() {
+        return this.authThreads;
     }
 
     /**
@@ -88,6 +110,46 @@ public class ConnectionConfigFactory {
         return this.minThreads;
     }
 
+    /**
+     * Returns the maximum number of requests waiting for a thread to process them.
+     * 
+     * @return the maximum number of requests waiting for processing
+     */
+    public int getRequestQueueSize() {
+        return this.requestQueueSize;
+    }
+
+    /**
+     * Returns the maximum number of requests a session may have in progress at a time.
+     * 
+     * @return the maximum number of requests a session may have in progress at a time
+     */
+    public int getRequestWindowSize() {
+        return this.requestWindowSize;
+    }
+
+    /**
+     * Sets the maximum number of bind requests waiting for a thread to authenticate them. Bind requests beyond the
+     * queue are answered with <code>ESME_RTHROTTLED</code>.
+     * 
+     * @param authQueueSize
+     *            the maximum number of bind requests waiting for authentication
+     */
+    public void setAuthQueueSize(int authQueueSize) {
+        this.authQueueSize = authQueueSize;
+    }
+
+    /**
+     * Sets the number of threads authenticating bind requests. Password verification is kept off the I/O and request
+     * threads so that a burst of binds does not hold up the traffic of bound sessions.
+     * 
+     * @param authThreads
+     *            the number of threads authenticating bind requests
+     */
+    public void setAuthThreads(int authThreads) {
+        this.authThreads = authThreads;
+    }
+
     /**
      * Set the delay in number of milliseconds between bind failures. Important to make brute force attacks harder.
      * 
@@ -138,4 +200,27 @@ public class ConnectionConfigFactory {
     public void setMinThreads(int minThreads) {
         this.minThreads = minThreads;
     }
+
+    /**
+     * Sets the maximum number of requests waiting for a thread to process them, 4096 by default. Requests beyond the
+     * queue are answered with <code>ESME_RTHROTTLED</code>.
+     * 
+     * @param requestQueueSize
+     *            the maximum number of requests waiting for processing
+     */
+    public void setRequestQueueSize(int requestQueueSize) {
+        this.requestQueueSize = requestQueueSize;
+    }
+
+    /**
+     * Sets the maximum number of requests a session may have in progress at a time. Bind and unbind requests are
+     * always processed one at a time. Once the window is full the server stops reading from the session until the
+     * requests in progress complete, thus a client pipelining more requests is held back by TCP flow control.
+     * 
+     * @param requestWindowSize
+     *            the maximum number of requests a session may have in progress at a time
+     */
+    public void setRequestWindowSize(int requestWindowSize) {
+        this.requestWindowSize = requestWindowSize;
+    }
 }
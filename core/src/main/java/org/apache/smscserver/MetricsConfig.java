@@ -0,0 +1,49 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.smscserver;
+
+/**
+ * Interface for providing the configuration of the HTTP endpoint publishing the server metrics.
+ * 
+ * @author hceylan
+ */
+public interface MetricsConfig {
+
+    /**
+     * Returns the address the metrics endpoint binds to.
+     * 
+     * @return the address, null to bind to all addresses
+     */
+    String getAddress();
+
+    /**
+     * Returns the port the metrics endpoint binds to.
+     * 
+     * @return the port, 0 to bind to any free port
+     */
+    int getPort();
+
+    /**
+     * Returns if the metrics endpoint is enabled.
+     * 
+     * @return true if the metrics endpoint is enabled
+     */
+    boolean isEnabled();
+}
@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.smscserver;
+
+import org.apache.smscserver.impl.DefaultMetricsConfig;
+
+/**
+ * Factory for creating metrics endpoint configurations
+ * 
+ * @author hceylan
+ */
+public class MetricsConfigFactory {
+
+    private String address;
+    private boolean enabled = false;
+    private int port = 9464;
+
+    /**
+     * Create a metrics endpoint configuration based on the configuration on this factory
+     * 
+     * @return The {@link MetricsConfig} instance
+     */
+    public MetricsConfig createMetricsConfig() {
+        return new DefaultMetricsConfig(this.enabled, this.address, this.port);
+    }
+
+    /**
+     * Sets the address the metrics endpoint binds to.
+     * 
+     * @param address
+     *            the address, null to bind to all addresses
+     */
+    public void setAddress(String address) {
+        this.address = address;
+    }
+
+    /**
+     * Enables or disables the metrics endpoint, disabled by default.
+     * 
+     * @param enabled
+     *            true to enable the metrics endpoint
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Sets the port the metrics endpoint binds to, 9464 by default.
+     * 
+     * @param port
+     *            the port, 0 to bind to any free port
+     */
+    public void setPort(int port) {
+        this.port = port;
+    }
+}
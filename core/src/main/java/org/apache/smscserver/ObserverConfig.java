@@ -0,0 +1,49 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.smscserver;
+
+/**
+ * Interface for providing the configuration of the dispatcher notifying the statistics and message observers.
+ * 
+ * @author hceylan
+ */
+public interface ObserverConfig {
+
+    /**
+     * Returns the maximum number of events passed to the observers in a row.
+     * 
+     * @return the batch size
+     */
+    int getBatchSize();
+
+    /**
+     * Returns the policy applied when the queue is full.
+     * 
+     * @return the overflow policy
+     */
+    ObserverOverflowPolicy getOverflowPolicy();
+
+    /**
+     * Returns the number of events that can be queued for the observers.
+     * 
+     * @return the queue size
+     */
+    int getQueueSize();
+}
@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.smscserver;
+
+import org.apache.smscserver.impl.DefaultObserverConfig;
+
+/**
+ * Factory for creating observer dispatcher configurations
+ * 
+ * @author hceylan
+ */
+public class ObserverConfigFactory {
+
+    private int batchSize = 64;
+    private ObserverOverflowPolicy overflowPolicy = ObserverOverflowPolicy.DROP_OLDEST;
+    private int queueSize = 8192;
+
+    /**
+     * Create an observer dispatcher configuration based on the configuration on this factory
+     * 
+     * @return The {@link ObserverConfig} instance
+     */
+    public ObserverConfig createObserverConfig() {
+        return new DefaultObserverConfig(this.queueSize, this.overflowPolicy, this.batchSize);
+    }
+
+    /**
+     * Sets the maximum number of events passed to the observers in a row, 64 by default.
+     * 
+     * @param batchSize
+     *            the batch size
+     */
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Sets the policy applied when the queue is full, {@link ObserverOverflowPolicy#DROP_OLDEST} by default.
+     * 
+     * @param overflowPolicy
+     *            the overflow policy
+     */
+    public void setOverflowPolicy(ObserverOverflowPolicy overflowPolicy) {
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    /**
+     * Sets the number of events that can be queued for the observers, 8192 by default. Rounded up to a power of two.
+     * 
+     * @param queueSize
+     *            the queue size
+     */
+    public void setQueueSize(int queueSize) {
+        this.queueSize = queueSize;
+    }
+}
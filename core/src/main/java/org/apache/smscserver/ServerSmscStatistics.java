@@ -23,6 +23,7 @@ import org.apache.smscserver.smsclet.SmscIoSession;
 import org.apache.smscserver.smsclet.SmscReply;
 import org.apache.smscserver.smsclet.SmscRequest;
 import org.apache.smscserver.smsclet.SmscStatistics;
+import org.apache.smscserver.smsclet.User;
 
 /**
  * <strong>Internal class, do not use directly.</strong>
@@ -34,6 +35,52 @@ import org.apache.smscserver.smsclet.SmscStatistics;
  */
 public interface ServerSmscStatistics extends SmscStatistics {
 
+    /**
+     * Add a statistics observer notified in addition to the one set with {@link #setObserver(StatisticsObserver)}.
+     */
+    void addObserver(StatisticsObserver observer);
+
+    /**
+     * Stop notifying the observers and release the resources.
+     */
+    void dispose();
+
+    /**
+     * Get the number of observer events dropped as the dispatcher queue was full.
+     */
+    long getDroppedObserverEventCount();
+
+    /**
+     * Get the number of connections closed for the reason.
+     */
+    long getTotalClosedConnectionNumber(SessionCloseReason reason);
+
+    /**
+     * Reserves a bind slot of the user for the session. The reservation is atomic, concurrent binds cannot exceed the
+     * limits. The slot is released when the session unbinds or closes.
+     * 
+     * @param session
+     *            the session binding
+     * @param user
+     *            the user binding
+     * @param maxBinds
+     *            the maximum number of concurrent binds of the user, 0 for no limit
+     * @param maxBindsPerIP
+     *            the maximum number of concurrent binds of the user from the same address, 0 for no limit
+     * @return true if reserved, false if a limit has been reached
+     */
+    boolean reserveBind(SmscIoSession session, User user, int maxBinds, int maxBindsPerIP);
+
+    /**
+     * Remove a statistics observer added with {@link #addObserver(StatisticsObserver)}.
+     */
+    void removeObserver(StatisticsObserver observer);
+
+    /**
+     * Reset the latency histograms, starting a new interval.
+     */
+    void resetLatencyHistograms();
+
     /**
      * Reset all cumulative total counters. Do not reset current counters, like current binds, otherwise these will
      * become negative when someone disconnects.
@@ -50,10 +97,35 @@ public interface ServerSmscStatistics extends SmscStatistics {
      */
     void setBindFail(SmscIoSession smscIoSession);
 
+    /**
+     * Record the execution latency of a command.
+     */
+    void setCommandLatency(SmscIoSession session, int commandId, long latencyNanos);
+
     /**
      * Decrement close connection count.
      */
-    void setCloseConnection(SmscIoSession session);
+    void setCloseConnection(SmscIoSession session, SessionCloseReason reason);
+
+    /**
+     * Record the round trip time of a deliver_sm request.
+     */
+    void setDeliverRoundTrip(SmscIoSession session, long latencyNanos);
+
+    /**
+     * Count a short message delivered to the session.
+     */
+    void setMessageDelivered(SmscIoSession session);
+
+    /**
+     * Count a short message expired before it could be delivered to the session.
+     */
+    void setMessageExpired(SmscIoSession session);
+
+    /**
+     * Record the latency of a message manager operation.
+     */
+    void setMessageManagerLatency(String operation, long latencyNanos);
 
     /**
      * Set message observer.
@@ -75,11 +147,26 @@ public interface ServerSmscStatistics extends SmscStatistics {
      */
     void setObserver(StatisticsObserver observer);
 
+    /**
+     * Set the configuration of the observer dispatcher, effective if set before the first observer.
+     */
+    void setObserverConfig(ObserverConfig observerConfig);
+
     /**
      * Increment current connection count.
      */
     void setOpenConnection(SmscIoSession session);
 
+    /**
+     * Count a short message that could not be stored.
+     */
+    void setSubmitFail(SmscIoSession session);
+
+    /**
+     * Enable or disable the per user latency histograms.
+     */
+    void setUserLatencyEnabled(boolean userLatencyEnabled);
+
     /**
      * Decrement current bind count.
      */
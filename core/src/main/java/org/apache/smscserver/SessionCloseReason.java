@@ -0,0 +1,62 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.smscserver;
+
+/**
+ * The reasons a session can be closed for.
+ * 
+ * @author hceylan
+ */
+public enum SessionCloseReason {
+    /**
+     * The client closed the connection, or the connection was closed for no recorded reason
+     */
+    DISCONNECTED,
+
+    /**
+     * The session was idle and not bound
+     */
+    IDLE,
+
+    /**
+     * The client did not respond to the enquire_link sent after the session became idle
+     */
+    ENQUIRE_LINK_TIMEOUT,
+
+    /**
+     * An exception was thrown while processing the session
+     */
+    EXCEPTION,
+
+    /**
+     * The client closed the connection before all the replies could be written
+     */
+    WRITE_TO_CLOSED,
+
+    /**
+     * A smsclet requested the session to be disconnected
+     */
+    SMSCLET,
+
+    /**
+     * The client failed to bind more than the maximum number of bind failures allowed
+     */
+    BIND_FAILURES
+}
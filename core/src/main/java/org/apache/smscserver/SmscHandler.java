@@ -26,7 +26,6 @@ import org.apache.mina.core.session.IdleStatus;
 import org.apache.mina.core.session.IoSession;
 import org.apache.smscserver.impl.DefaultSmscIoSession;
 import org.apache.smscserver.listener.Listener;
-import org.apache.smscserver.smsclet.SmscIoSession;
 import org.apache.smscserver.smsclet.SmscPacket;
 import org.apache.smscserver.smsclet.SmscReply;
 import org.apache.smscserver.smsclet.SmscRequest;
@@ -48,16 +47,20 @@ public interface SmscHandler {
     void init(SmscServerContext context, Listener listener);
 
     /**
-     * Invoked when a message is received.
-     * 
-     * @return the reply that should be sent back to the client
+     * Invoked when a message is received. The handler is responsible for writing the reply back to the client, which
+     * may happen after this method returns.
      */
-    SmscReply messageReceived(DefaultSmscIoSession session, SmscRequest request) throws Exception;
+    void messageReceived(DefaultSmscIoSession session, SmscRequest request) throws Exception;
 
     /**
      * Invoked when a message written by {@link IoSession#write(Object)} is sent out.
      */
-    void messageSent(SmscIoSession session, SmscPacket reply) throws Exception;
+    void messageSent(DefaultSmscIoSession session, SmscPacket packet) throws Exception;
+
+    /**
+     * Invoked when a reply to a request sent by the server, such as deliver_sm, is received.
+     */
+    void replyReceived(DefaultSmscIoSession session, SmscReply reply) throws Exception;
 
     /**
      * Invoked when a connection is closed.
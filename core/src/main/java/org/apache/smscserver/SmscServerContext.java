@@ -20,6 +20,7 @@
 package org.apache.smscserver;
 
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ThreadPoolExecutor;
 
 import org.apache.smscserver.command.CommandFactory;
@@ -44,6 +45,20 @@ public interface SmscServerContext extends SmscletContext {
      */
     void dispose();
 
+    /**
+     * Returns the executor that authenticates the bind requests.
+     * 
+     * @return the authentication executor
+     */
+    ExecutorService getAuthExecutor();
+
+    /**
+     * Returns the configuration of the bans of the addresses failing to bind.
+     * 
+     * @return the ban configuration
+     */
+    BanConfig getBanConfig();
+
     /**
      * Returns the command factory.
      * 
@@ -95,6 +110,20 @@ public interface SmscServerContext extends SmscletContext {
      */
     MessageManager getMessageManager();
 
+    /**
+     * Returns the configuration of the metrics endpoint.
+     * 
+     * @return the configuration of the metrics endpoint
+     */
+    MetricsConfig getMetricsConfig();
+
+    /**
+     * Returns the executor that processes the requests running concurrently on a session.
+     * 
+     * @return the request executor
+     */
+    ExecutorService getRequestExecutor();
+
     /**
      * Returns the timeout time in milliseconds for the session lock.
      * 
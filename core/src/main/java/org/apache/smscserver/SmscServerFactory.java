@@ -19,6 +19,7 @@
 
 package org.apache.smscserver;
 
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
@@ -29,6 +30,7 @@ import org.apache.smscserver.listener.Listener;
 import org.apache.smscserver.smsclet.MessageManager;
 import org.apache.smscserver.smsclet.Smsclet;
 import org.apache.smscserver.smsclet.UserManager;
+import org.apache.smscserver.smscletcontainer.SmscletPolicy;
 import org.apache.smscserver.smscletcontainer.impl.DefaultSmscletContainer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -44,6 +46,15 @@ public class SmscServerFactory {
 
     private final DefaultSmscServerContext serverContext;
 
+    private Map<String, SmscletPolicy> smscletPolicies = new HashMap<String, SmscletPolicy>();
+
+    private Map<String, Smsclet> smsclets = new LinkedHashMap<String, Smsclet>();
+
+    /**
+     * True if the smsclets or their policies changed since the smsclet container was last built
+     */
+    private boolean smscletsChanged;
+
     /**
      * Create a server with the default configuration.
      */
@@ -72,6 +83,12 @@ public class SmscServerFactory {
         SmscServerFactory.LOG.info("SMSC Server is starting with the context {}",
                 DefaultSmscServerContext.class.getCanonicalName());
 
+        // built once the configuration is complete, the container owns threads that only the server releases
+        if (this.smscletsChanged) {
+            this.serverContext.setSmscletContainer(new DefaultSmscletContainer(this.smsclets, this.smscletPolicies));
+            this.smscletsChanged = false;
+        }
+
         this.serverContext.info();
 
         return new DefaultSmscServer(this.serverContext);
@@ -84,6 +101,16 @@ public class SmscServerFactory {
         return this.serverContext;
     }
 
+    /**
+     * Set the configuration of the bans of the addresses failing to bind on servers created by this factory
+     * 
+     * @param banConfig
+     *            The {@link BanConfig}
+     */
+    public void setBanConfig(final BanConfig banConfig) {
+        this.serverContext.setBanConfig(banConfig);
+    }
+
     /**
      * Set the command factory to be used by servers created by this factory.
      * 
@@ -138,6 +165,27 @@ public class SmscServerFactory {
         this.serverContext.setMessageManager(messageManager);
     }
 
+    /**
+     * Set the configuration of the metrics endpoint of servers created by this factory
+     * 
+     * @param metricsConfig
+     *            The {@link MetricsConfig}
+     */
+    public void setMetricsConfig(final MetricsConfig metricsConfig) {
+        this.serverContext.setMetricsConfig(metricsConfig);
+    }
+
+    /**
+     * Set the configuration of the dispatcher notifying the statistics and message observers of servers created by
+     * this factory
+     * 
+     * @param observerConfig
+     *            The {@link ObserverConfig}
+     */
+    public void setObserverConfig(final ObserverConfig observerConfig) {
+        ((ServerSmscStatistics) this.serverContext.getSmscStatistics()).setObserverConfig(observerConfig);
+    }
+
     /**
      * Sets the session lock timeout in milliseconds
      * 
@@ -148,6 +196,18 @@ public class SmscServerFactory {
         this.serverContext.setSessionLockTimeout(sessionLockTimeout);
     }
 
+    /**
+     * Set the isolation policies of the {@link Smsclet}s. Smsclets without a policy are called on the server threads
+     * without any limit.
+     * 
+     * @param smscletPolicies
+     *            Policies with the name of the Smsclet as the key
+     */
+    public void setSmscletPolicies(final Map<String, SmscletPolicy> smscletPolicies) {
+        this.smscletPolicies = smscletPolicies;
+        this.smscletsChanged = true;
+    }
+
     /**
      * Set the {@link Smsclet}s to be active by servers created by this factory. Replaces existing {@link Smsclet}s
      * 
@@ -159,7 +219,19 @@ public class SmscServerFactory {
      *             If a custom server context has been set
      */
     public void setSmsclets(final Map<String, Smsclet> smsclets) {
-        this.serverContext.setSmscletContainer(new DefaultSmscletContainer(smsclets));
+        this.smsclets = smsclets;
+        this.smscletsChanged = true;
+    }
+
+    /**
+     * Enable or disable the per user command latency histograms of servers created by this factory. Disabled by
+     * default, as enabling it costs a set of histograms for every user that binds.
+     * 
+     * @param userLatencyEnabled
+     *            true to record the command latencies per user as well
+     */
+    public void setUserLatencyEnabled(final boolean userLatencyEnabled) {
+        ((ServerSmscStatistics) this.serverContext.getSmscStatistics()).setUserLatencyEnabled(userLatencyEnabled);
     }
 
     /**
@@ -32,8 +32,11 @@ public interface StatisticsObserver {
 
     /**
      * New user bind notification.
+     * 
+     * @param address
+     *            Remote address that the user bound from
      */
-    void notifyBind();
+    void notifyBind(InetAddress address);
 
     /**
      * Failed user bind notification.
@@ -34,4 +34,13 @@ public interface CommandFactory {
      * @return The {@link Command} matching the provided name, or null if no such command exists.
      */
     Command getCommand(int commandID);
+
+    /**
+     * Get the command instance wrapped with its interceptor chain. This is what the server executes for a request.
+     * 
+     * @param commandID
+     *            The id of the command
+     * @return The intercepted {@link Command}, or null if no such command exists.
+     */
+    Command getInterceptedCommand(int commandID);
 }
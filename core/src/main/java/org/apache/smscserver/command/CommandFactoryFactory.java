@@ -28,9 +28,11 @@ import java.util.List;
 import java.util.Map;
 
 import org.apache.smscserver.command.impl.BindCommand;
+import org.apache.smscserver.command.impl.BindStateInterceptor;
 import org.apache.smscserver.command.impl.CancelSMCommand;
 import org.apache.smscserver.command.impl.DefaultCommandFactory;
 import org.apache.smscserver.command.impl.EnquireLinkCommand;
+import org.apache.smscserver.command.impl.InterceptedCommand;
 import org.apache.smscserver.command.impl.SubmitSMCommand;
 import org.apache.smscserver.command.impl.UnbindCommand;
 import org.slf4j.Logger;
@@ -45,6 +47,11 @@ public class CommandFactoryFactory {
 
     private static final Logger LOG = LoggerFactory.getLogger(CommandFactoryFactory.class);
 
+    /**
+     * The size of the dense command table, covers all the command ids defined by SMPP v3.4 and v5.0
+     */
+    private static final int COMMAND_TABLE_SIZE = 0x200;
+
     private static final Map<Integer, Command> DEFAULT_COMMAND_MAP = new HashMap<Integer, Command>();
 
     static {
@@ -60,8 +67,19 @@ public class CommandFactoryFactory {
 
     private final Map<Integer, Command> commandMap = new HashMap<Integer, Command>();
 
+    private final List<CommandInterceptor> interceptors = new ArrayList<CommandInterceptor>();
+
+    private final Map<Integer, List<CommandInterceptor>> commandInterceptors =
+            new HashMap<Integer, List<CommandInterceptor>>();
+
     private boolean useDefaultCommands = true;
 
+    public CommandFactoryFactory() {
+        super();
+
+        this.interceptors.add(BindStateInterceptor.SINGLETON);
+    }
+
     /**
      * Add or override a command.
      * 
@@ -81,6 +99,60 @@ public class CommandFactoryFactory {
         this.commandMap.put(commandID, command);
     }
 
+    /**
+     * Add an interceptor that applies to the command with the id. Command specific interceptors run after the ones
+     * that apply to all commands, in the order they are added.
+     * 
+     * @param commandID
+     *            The Id of the command
+     * @param interceptor
+     *            The interceptor
+     */
+    public void addInterceptor(int commandID, CommandInterceptor interceptor) {
+        if (interceptor == null) {
+            throw new NullPointerException("interceptor can not be null");
+        }
+
+        List<CommandInterceptor> interceptors = this.commandInterceptors.get(commandID);
+        if (interceptors == null) {
+            interceptors = new ArrayList<CommandInterceptor>();
+            this.commandInterceptors.put(commandID, interceptors);
+        }
+
+        interceptors.add(interceptor);
+    }
+
+    /**
+     * Add an interceptor that applies to all the commands, after the ones already added.
+     * 
+     * @param interceptor
+     *            The interceptor
+     */
+    public void addInterceptor(CommandInterceptor interceptor) {
+        if (interceptor == null) {
+            throw new NullPointerException("interceptor can not be null");
+        }
+
+        this.interceptors.add(interceptor);
+    }
+
+    /**
+     * Wraps the command with the interceptors in order, the first interceptor ends up outermost.
+     */
+    private Command chain(int commandID, Command command) {
+        List<CommandInterceptor> chain = new ArrayList<CommandInterceptor>(this.interceptors);
+        if (this.commandInterceptors.containsKey(commandID)) {
+            chain.addAll(this.commandInterceptors.get(commandID));
+        }
+
+        Command chained = command;
+        for (int i = chain.size() - 1; i >= 0; i--) {
+            chained = new InterceptedCommand(chain.get(i), chained);
+        }
+
+        return chained;
+    }
+
     /**
      * Create an {@link CommandFactory} based on the configuration on the factory.
      * 
@@ -100,7 +172,27 @@ public class CommandFactoryFactory {
 
         mergedCommands.putAll(this.commandMap);
 
-        return new DefaultCommandFactory(mergedCommands);
+        // precompile the interceptor chains into the dispatch table
+        Command[] commandTable = new Command[CommandFactoryFactory.COMMAND_TABLE_SIZE];
+        Command[] interceptedCommandTable = new Command[CommandFactoryFactory.COMMAND_TABLE_SIZE];
+        Map<Integer, Command> extendedCommandMap = new HashMap<Integer, Command>();
+        Map<Integer, Command> extendedInterceptedCommandMap = new HashMap<Integer, Command>();
+
+        for (Map.Entry<Integer, Command> entry : mergedCommands.entrySet()) {
+            int commandID = entry.getKey();
+            Command command = entry.getValue();
+
+            if ((commandID >= 0) && (commandID < commandTable.length)) {
+                commandTable[commandID] = command;
+                interceptedCommandTable[commandID] = this.chain(commandID, command);
+            } else {
+                extendedCommandMap.put(commandID, command);
+                extendedInterceptedCommandMap.put(commandID, this.chain(commandID, command));
+            }
+        }
+
+        return new DefaultCommandFactory(commandTable, interceptedCommandTable, extendedCommandMap,
+                extendedInterceptedCommandMap);
     }
 
     /**
@@ -112,6 +204,15 @@ public class CommandFactoryFactory {
         return this.commandMap;
     }
 
+    /**
+     * Get the interceptors that apply to all the commands
+     * 
+     * @return The interceptors that apply to all the commands
+     */
+    public List<CommandInterceptor> getInterceptors() {
+        return this.interceptors;
+    }
+
     /**
      * Are default commands used?
      * 
@@ -151,6 +252,21 @@ public class CommandFactoryFactory {
         this.commandMap.putAll(commandMap);
     }
 
+    /**
+     * Set the interceptors that apply to all the commands, replacing the default ones.
+     * 
+     * @param interceptors
+     *            The interceptors in the order they should run
+     */
+    public void setInterceptors(final List<CommandInterceptor> interceptors) {
+        if (interceptors == null) {
+            throw new NullPointerException("interceptors can not be null");
+        }
+
+        this.interceptors.clear();
+        this.interceptors.addAll(interceptors);
+    }
+
     /**
      * Sets whether the default commands will be used.
      * 
@@ -0,0 +1,50 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.smscserver.command;
+
+import org.apache.smscserver.SmscServerContext;
+import org.apache.smscserver.impl.DefaultSmscIoSession;
+import org.apache.smscserver.smsclet.SmscReply;
+import org.apache.smscserver.smsclet.SmscRequest;
+
+/**
+ * Cross-cutting logic wrapped around a {@link Command}, such as authorization checks, throttling or metrics.
+ * <p>
+ * Interceptors are chained when the {@link CommandFactory} is created, so that resolving the chain of a command costs
+ * nothing per request. Implementations must be thread safe.
+ * 
+ * @author hceylan
+ */
+public interface CommandInterceptor {
+
+    /**
+     * Intercept the execution of a command.
+     * 
+     * @param session
+     *            The current {@link DefaultSmscIoSession}
+     * @param context
+     *            The current {@link SmscServerContext}
+     * @param request
+     *            The current {@link SmscRequest}
+     * @param next
+     *            The rest of the chain, ending with the command itself
+     * @return the reply to be sent to client, typically the one returned by <code>next</code>
+     */
+    SmscReply intercept(DefaultSmscIoSession session, SmscServerContext context, SmscRequest request, Command next);
+}
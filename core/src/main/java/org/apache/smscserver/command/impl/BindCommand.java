@@ -20,6 +20,7 @@ import ie.omk.smpp.message.SMPPPacket;
 
 import org.apache.smscserver.SmscServerContext;
 import org.apache.smscserver.command.Command;
+import org.apache.smscserver.impl.DefaultSessionRegistry;
 import org.apache.smscserver.impl.DefaultSmscIoSession;
 import org.apache.smscserver.packet.impl.SmscBindReplyImpl;
 import org.apache.smscserver.packet.impl.SmscStatusReplyImpl;
@@ -77,6 +78,11 @@ public class BindCommand implements Command {
 
             boolean receiving = bindRequest.getCommandId() != SMPPPacket.BIND_TRANSMITTER;
             session.setUser(user, receiving);
+
+            if (receiving) {
+                DefaultSessionRegistry registry = (DefaultSessionRegistry) context.getSessionRegistry();
+                registry.register(session, bindRequest.getAddressRange());
+            }
         } catch (AuthenticationFailedException e) {
             return new SmscStatusReplyImpl(request, SmscReply.ErrorCode.ESME_RBINDFAIL);
         } catch (SmscException e) {
@@ -0,0 +1,68 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.apache.smscserver.command.impl;
+
+import ie.omk.smpp.message.SMPPPacket;
+
+import org.apache.smscserver.SmscServerContext;
+import org.apache.smscserver.command.Command;
+import org.apache.smscserver.command.CommandInterceptor;
+import org.apache.smscserver.impl.DefaultSmscIoSession;
+import org.apache.smscserver.packet.impl.SmscStatusReplyImpl;
+import org.apache.smscserver.smsclet.SmscReply;
+import org.apache.smscserver.smsclet.SmscReply.ErrorCode;
+import org.apache.smscserver.smsclet.SmscRequest;
+
+/**
+ * <strong>Internal class, do not use directly.</strong>
+ * 
+ * Rejects the commands that require a bound session with <code>ESME_RINVBNDSTS</code> when the session is not bound.
+ * 
+ * @author hceylan
+ */
+public class BindStateInterceptor implements CommandInterceptor {
+
+    public static final BindStateInterceptor SINGLETON = new BindStateInterceptor();
+
+    private BindStateInterceptor() {
+        super();
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    public SmscReply intercept(DefaultSmscIoSession session, SmscServerContext context, SmscRequest request,
+            Command next) {
+        switch (request.getCommandId()) {
+        case SMPPPacket.BIND_RECEIVER:
+        case SMPPPacket.BIND_TRANSCEIVER:
+        case SMPPPacket.BIND_TRANSMITTER:
+        case SMPPPacket.ENQUIRE_LINK:
+        case SMPPPacket.GENERIC_NACK:
+        case SMPPPacket.OUTBIND:
+        case SMPPPacket.UNBIND:
+            break;
+        default:
+            if (!session.isBound()) {
+                return new SmscStatusReplyImpl(request, ErrorCode.ESME_RINVBNDSTS);
+            }
+        }
+
+        return next.execute(session, context, request);
+    }
+}
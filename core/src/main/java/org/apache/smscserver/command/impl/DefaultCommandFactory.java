@@ -29,6 +29,9 @@ import org.apache.smscserver.command.CommandFactoryFactory;
  * <strong>Internal class, do not use directly.</strong>
  * 
  * Command factory to return appropriate command implementation depending on the SMSC Command id.
+ * <p>
+ * Commands are looked up from a dense table indexed by the command id. Ids outside the table, such as vendor specific
+ * commands, are looked up from a map.
  * 
  * <strong><strong>Internal class, do not use directly.</strong></strong>
  * 
@@ -36,13 +39,23 @@ import org.apache.smscserver.command.CommandFactoryFactory;
  */
 public class DefaultCommandFactory implements CommandFactory {
 
-    private final Map<Integer, Command> commandMap;
+    private final Command[] commandTable;
+
+    private final Command[] interceptedCommandTable;
+
+    private final Map<Integer, Command> extendedCommandMap;
+
+    private final Map<Integer, Command> extendedInterceptedCommandMap;
 
     /**
      * Internal constructor, use {@link CommandFactoryFactory} instead
      */
-    public DefaultCommandFactory(Map<Integer, Command> commandMap) {
-        this.commandMap = commandMap;
+    public DefaultCommandFactory(Command[] commandTable, Command[] interceptedCommandTable,
+            Map<Integer, Command> extendedCommandMap, Map<Integer, Command> extendedInterceptedCommandMap) {
+        this.commandTable = commandTable;
+        this.interceptedCommandTable = interceptedCommandTable;
+        this.extendedCommandMap = extendedCommandMap;
+        this.extendedInterceptedCommandMap = extendedInterceptedCommandMap;
     }
 
     /**
@@ -50,7 +63,23 @@ public class DefaultCommandFactory implements CommandFactory {
      * 
      */
     public Command getCommand(int commandID) {
-        return this.commandMap.get(commandID);
+        if ((commandID >= 0) && (commandID < this.commandTable.length)) {
+            return this.commandTable[commandID];
+        }
+
+        return this.extendedCommandMap.get(commandID);
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    public Command getInterceptedCommand(int commandID) {
+        if ((commandID >= 0) && (commandID < this.interceptedCommandTable.length)) {
+            return this.interceptedCommandTable[commandID];
+        }
+
+        return this.extendedInterceptedCommandMap.get(commandID);
     }
 
 }
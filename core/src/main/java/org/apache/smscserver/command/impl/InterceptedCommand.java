@@ -0,0 +1,51 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.apache.smscserver.command.impl;
+
+import org.apache.smscserver.SmscServerContext;
+import org.apache.smscserver.command.Command;
+import org.apache.smscserver.command.CommandInterceptor;
+import org.apache.smscserver.impl.DefaultSmscIoSession;
+import org.apache.smscserver.smsclet.SmscReply;
+import org.apache.smscserver.smsclet.SmscRequest;
+
+/**
+ * <strong>Internal class, do not use directly.</strong>
+ * 
+ * A link of a precompiled interceptor chain, passes the execution to the interceptor with the rest of the chain.
+ * 
+ * @author hceylan
+ */
+public class InterceptedCommand implements Command {
+
+    private final CommandInterceptor interceptor;
+
+    private final Command next;
+
+    public InterceptedCommand(CommandInterceptor interceptor, Command next) {
+        this.interceptor = interceptor;
+        this.next = next;
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    public SmscReply execute(DefaultSmscIoSession session, SmscServerContext context, SmscRequest request) {
+        return this.interceptor.intercept(session, context, request, this.next);
+    }
+}
@@ -16,6 +16,7 @@
  */
 package org.apache.smscserver.command.impl;
 
+import org.apache.smscserver.ServerSmscStatistics;
 import org.apache.smscserver.SmscServerContext;
 import org.apache.smscserver.command.Command;
 import org.apache.smscserver.impl.DefaultSmscIoSession;
@@ -85,6 +86,11 @@ public class SubmitSMCommand implements Command {
         try {
             messageManager.submitSM(shortMessage);
         } catch (SmscException e) {
+            ServerSmscStatistics stats = (ServerSmscStatistics) context.getSmscStatistics();
+            if (stats != null) {
+                stats.setSubmitFail(session);
+            }
+
             return new SmscStatusReplyImpl(submitSMRequest, ErrorCode.ESME_RSUBMITFAIL);
         }
 
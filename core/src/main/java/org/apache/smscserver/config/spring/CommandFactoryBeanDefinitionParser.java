@@ -55,7 +55,7 @@ public class CommandFactoryBeanDefinitionParser extends AbstractSingleBeanDefini
         for (Element commandElm : childs) {
             String name = commandElm.getAttribute("protocol-id");
             Object bean = SpringUtil.parseSpringChildElement(commandElm, parserContext, builder);
-            commands.put(name, bean);
+            commands.put(Integer.decode(name), bean);
         }
 
         factoryBuilder.addPropertyValue("commandMap", commands);
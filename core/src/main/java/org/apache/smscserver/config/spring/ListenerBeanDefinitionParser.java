@@ -25,6 +25,8 @@ import org.apache.smscserver.SmscServerConfigurationException;
 import org.apache.smscserver.ipfilter.IpFilterType;
 import org.apache.smscserver.ipfilter.RemoteIpFilter;
 import org.apache.smscserver.listener.ListenerFactory;
+import org.apache.smscserver.listener.SocketConfiguration;
+import org.apache.smscserver.listener.SocketConfigurationFactory;
 import org.apache.smscserver.ssl.SslConfiguration;
 import org.apache.smscserver.ssl.SslConfigurationFactory;
 import org.slf4j.Logger;
@@ -63,6 +65,11 @@ public class ListenerBeanDefinitionParser extends AbstractSingleBeanDefinitionPa
             factoryBuilder.addPropertyValue("sslConfiguration", ssl);
         }
 
+        SocketConfiguration socket = this.parseSocket(element);
+        if (socket != null) {
+            factoryBuilder.addPropertyValue("socketConfiguration", socket);
+        }
+
         if (StringUtils.hasText(element.getAttribute("idle-timeout"))) {
             factoryBuilder.addPropertyValue("idleTimeout", SpringUtil.parseInt(element, "idle-timeout", 300));
         }
@@ -72,6 +79,8 @@ public class ListenerBeanDefinitionParser extends AbstractSingleBeanDefinitionPa
             factoryBuilder.addPropertyValue("serverAddress", localAddress);
         }
         factoryBuilder.addPropertyValue("implicitSsl", SpringUtil.parseBoolean(element, "implicit-ssl", false));
+        factoryBuilder.addPropertyValue("ioThreadDispatch",
+                SpringUtil.parseBoolean(element, "io-thread-dispatch", false));
 
         Element blacklistElm = SpringUtil.getChildElement(element, SmscServerNamespaceHandler.SMSCSERVER_NS,
                 "blacklist");
@@ -122,6 +131,48 @@ public class ListenerBeanDefinitionParser extends AbstractSingleBeanDefinitionPa
         return null;
     }
 
+    private SocketConfiguration parseSocket(final Element parent) {
+        Element socketElm = SpringUtil.getChildElement(parent, SmscServerNamespaceHandler.SMSCSERVER_NS, "socket");
+
+        if (socketElm != null) {
+            SocketConfigurationFactory socket = new SocketConfigurationFactory();
+
+            socket.setTcpNoDelay(SpringUtil.parseBoolean(socketElm, "tcp-no-delay", false));
+
+            if (StringUtils.hasText(socketElm.getAttribute("send-buffer-size"))) {
+                socket.setSendBufferSize(SpringUtil.parseInt(socketElm, "send-buffer-size"));
+            }
+
+            if (StringUtils.hasText(socketElm.getAttribute("receive-buffer-size"))) {
+                socket.setReceiveBufferSize(SpringUtil.parseInt(socketElm, "receive-buffer-size"));
+            }
+
+            if (StringUtils.hasText(socketElm.getAttribute("backlog"))) {
+                socket.setBacklog(SpringUtil.parseInt(socketElm, "backlog"));
+            }
+
+            if (StringUtils.hasText(socketElm.getAttribute("processors"))) {
+                socket.setProcessorCount(SpringUtil.parseInt(socketElm, "processors"));
+            }
+
+            if (StringUtils.hasText(socketElm.getAttribute("read-buffer-size"))) {
+                socket.setReadBufferSize(SpringUtil.parseInt(socketElm, "read-buffer-size"));
+            }
+
+            if (StringUtils.hasText(socketElm.getAttribute("min-read-buffer-size"))) {
+                socket.setMinReadBufferSize(SpringUtil.parseInt(socketElm, "min-read-buffer-size"));
+            }
+
+            if (StringUtils.hasText(socketElm.getAttribute("max-read-buffer-size"))) {
+                socket.setMaxReadBufferSize(SpringUtil.parseInt(socketElm, "max-read-buffer-size"));
+            }
+
+            return socket.createSocketConfiguration();
+        } else {
+            return null;
+        }
+    }
+
     private SslConfiguration parseSsl(final Element parent) {
         Element sslElm = SpringUtil.getChildElement(parent, SmscServerNamespaceHandler.SMSCSERVER_NS, "ssl");
 
@@ -19,14 +19,22 @@
 
 package org.apache.smscserver.config.spring;
 
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import org.apache.smscserver.BanConfigFactory;
 import org.apache.smscserver.ConnectionConfigFactory;
 import org.apache.smscserver.DeliveryManagerConfigFactory;
+import org.apache.smscserver.MetricsConfigFactory;
+import org.apache.smscserver.ObserverConfigFactory;
+import org.apache.smscserver.ObserverOverflowPolicy;
 import org.apache.smscserver.SmscServer;
 import org.apache.smscserver.SmscServerConfigurationException;
 import org.apache.smscserver.SmscServerFactory;
+import org.apache.smscserver.smscletcontainer.SmscletFallback;
+import org.apache.smscserver.smscletcontainer.SmscletPolicy;
+import org.apache.smscserver.smscletcontainer.SmscletPolicyFactory;
 import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.beans.factory.config.BeanDefinitionHolder;
 import org.springframework.beans.factory.support.BeanDefinitionBuilder;
@@ -64,6 +72,11 @@ public class ServerBeanDefinitionParser extends AbstractSingleBeanDefinitionPars
             } else if ("smsclets".equals(childName)) {
                 Map<?, ?> smsclets = this.parseSmsclets(childElm, parserContext, builder);
                 factoryBuilder.addPropertyValue("smsclets", smsclets);
+
+                Map<String, SmscletPolicy> smscletPolicies = this.parseSmscletPolicies(childElm);
+                if (smscletPolicies.size() > 0) {
+                    factoryBuilder.addPropertyValue("smscletPolicies", smscletPolicies);
+                }
             } else if ("message-manager".equals(childName)) {
                 Object userManager = parserContext.getDelegate().parseCustomElement(childElm,
                         builder.getBeanDefinition());
@@ -101,6 +114,18 @@ public class ServerBeanDefinitionParser extends AbstractSingleBeanDefinitionPars
         if (StringUtils.hasText(element.getAttribute("bind-failure-delay"))) {
             connectionConfig.setBindFailureDelay(SpringUtil.parseInt(element, "bind-failure-delay"));
         }
+        if (StringUtils.hasText(element.getAttribute("request-window-size"))) {
+            connectionConfig.setRequestWindowSize(SpringUtil.parseInt(element, "request-window-size"));
+        }
+        if (StringUtils.hasText(element.getAttribute("request-queue-size"))) {
+            connectionConfig.setRequestQueueSize(SpringUtil.parseInt(element, "request-queue-size"));
+        }
+        if (StringUtils.hasText(element.getAttribute("auth-threads"))) {
+            connectionConfig.setAuthThreads(SpringUtil.parseInt(element, "auth-threads"));
+        }
+        if (StringUtils.hasText(element.getAttribute("auth-queue-size"))) {
+            connectionConfig.setAuthQueueSize(SpringUtil.parseInt(element, "auth-queue-size"));
+        }
 
         factoryBuilder.addPropertyValue("connectionConfig", connectionConfig.createConnectionConfig());
 
@@ -125,6 +150,60 @@ public class ServerBeanDefinitionParser extends AbstractSingleBeanDefinitionPars
 
         factoryBuilder.addPropertyValue("deliveryManagerConfig", deliveryManagerConfig.createDeliveryManagerConfig());
 
+        // Configure the metrics endpoint
+        if (StringUtils.hasText(element.getAttribute("metrics-port"))) {
+            MetricsConfigFactory metricsConfig = new MetricsConfigFactory();
+            metricsConfig.setEnabled(true);
+            metricsConfig.setPort(SpringUtil.parseInt(element, "metrics-port"));
+            if (StringUtils.hasText(element.getAttribute("metrics-address"))) {
+                metricsConfig.setAddress(element.getAttribute("metrics-address"));
+            }
+
+            factoryBuilder.addPropertyValue("metricsConfig", metricsConfig.createMetricsConfig());
+        }
+
+        // Configure the bans of the addresses failing to bind
+        BanConfigFactory banConfig = new BanConfigFactory();
+
+        if (StringUtils.hasText(element.getAttribute("ban-threshold"))) {
+            banConfig.setThreshold(SpringUtil.parseInt(element, "ban-threshold"));
+        }
+        if (StringUtils.hasText(element.getAttribute("ban-period"))) {
+            banConfig.setBanPeriod(SpringUtil.parseInt(element, "ban-period"));
+        }
+        if (StringUtils.hasText(element.getAttribute("ban-decay-period"))) {
+            banConfig.setDecayPeriod(SpringUtil.parseInt(element, "ban-decay-period"));
+        }
+        if (StringUtils.hasText(element.getAttribute("max-bans"))) {
+            banConfig.setMaxBans(SpringUtil.parseInt(element, "max-bans"));
+        }
+        if (StringUtils.hasText(element.getAttribute("ban-expected-offenders"))) {
+            banConfig.setExpectedOffenders(SpringUtil.parseInt(element, "ban-expected-offenders"));
+        }
+
+        factoryBuilder.addPropertyValue("banConfig", banConfig.createBanConfig());
+
+        // Configure the observer dispatcher
+        ObserverConfigFactory observerConfig = new ObserverConfigFactory();
+
+        if (StringUtils.hasText(element.getAttribute("observer-queue-size"))) {
+            observerConfig.setQueueSize(SpringUtil.parseInt(element, "observer-queue-size"));
+        }
+        if (StringUtils.hasText(element.getAttribute("observer-batch-size"))) {
+            observerConfig.setBatchSize(SpringUtil.parseInt(element, "observer-batch-size"));
+        }
+        if (StringUtils.hasText(element.getAttribute("observer-overflow"))) {
+            observerConfig.setOverflowPolicy(ObserverOverflowPolicy.valueOf(element.getAttribute("observer-overflow")
+                    .toUpperCase().replace('-', '_')));
+        }
+
+        factoryBuilder.addPropertyValue("observerConfig", observerConfig.createObserverConfig());
+
+        if (StringUtils.hasText(element.getAttribute("user-latency"))) {
+            factoryBuilder.addPropertyValue("userLatencyEnabled", SpringUtil.parseBoolean(element, "user-latency",
+                    false));
+        }
+
         if (StringUtils.hasText(element.getAttribute("sessionLockTimeout"))) {
             factoryBuilder.addPropertyValue("session-lock-timeout",
                     SpringUtil.parseInt(element, "session-lock-timeout"));
@@ -179,6 +258,44 @@ public class ServerBeanDefinitionParser extends AbstractSingleBeanDefinitionPars
         return listeners;
     }
 
+    /**
+     * Parse the policy attributes of the "smsclet" elements
+     */
+    private Map<String, SmscletPolicy> parseSmscletPolicies(final Element childElm) {
+        Map<String, SmscletPolicy> policies = new HashMap<String, SmscletPolicy>();
+
+        for (Element smscletElm : SpringUtil.getChildElements(childElm)) {
+            if (!"smsclet".equals(smscletElm.getLocalName())) {
+                continue;
+            }
+
+            boolean configured = false;
+            SmscletPolicyFactory policy = new SmscletPolicyFactory();
+            if (StringUtils.hasText(smscletElm.getAttribute("threads"))) {
+                policy.setThreads(SpringUtil.parseInt(smscletElm, "threads"));
+                configured = true;
+            }
+            if (StringUtils.hasText(smscletElm.getAttribute("max-concurrency"))) {
+                policy.setMaxConcurrency(SpringUtil.parseInt(smscletElm, "max-concurrency"));
+                configured = true;
+            }
+            if (StringUtils.hasText(smscletElm.getAttribute("timeout"))) {
+                policy.setTimeout(SpringUtil.parseInt(smscletElm, "timeout"));
+                configured = true;
+            }
+            if (StringUtils.hasText(smscletElm.getAttribute("fallback"))) {
+                policy.setFallback(SmscletFallback.valueOf(smscletElm.getAttribute("fallback").toUpperCase()));
+                configured = true;
+            }
+
+            if (configured) {
+                policies.put(smscletElm.getAttribute("name"), policy.createSmscletPolicy());
+            }
+        }
+
+        return policies;
+    }
+
     /**
      * Parse the "smsclets" element
      */
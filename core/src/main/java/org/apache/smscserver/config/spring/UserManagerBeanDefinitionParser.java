@@ -71,6 +71,9 @@ public class UserManagerBeanDefinitionParser extends AbstractSingleBeanDefinitio
             if (StringUtils.hasText(element.getAttribute("url"))) {
                 factoryBuilder.addPropertyValue("url", element.getAttribute("url"));
             }
+            if (StringUtils.hasText(element.getAttribute("refresh-interval"))) {
+                factoryBuilder.addPropertyValue("refreshInterval", SpringUtil.parseInt(element, "refresh-interval"));
+            }
         } else {
             Element dsElm = SpringUtil
                     .getChildElement(element, SmscServerNamespaceHandler.SMSCSERVER_NS, "data-source");
@@ -87,6 +90,13 @@ public class UserManagerBeanDefinitionParser extends AbstractSingleBeanDefinitio
             }
             factoryBuilder.addPropertyValue("dataSource", o);
 
+            if (StringUtils.hasText(element.getAttribute("cache-ttl"))) {
+                factoryBuilder.addPropertyValue("cacheTtl", SpringUtil.parseInt(element, "cache-ttl"));
+            }
+            if (StringUtils.hasText(element.getAttribute("cache-size"))) {
+                factoryBuilder.addPropertyValue("cacheSize", SpringUtil.parseInt(element, "cache-size"));
+            }
+
             factoryBuilder.addPropertyValue("sqlUserInsert", this.getSql(element, "insert-user"));
             factoryBuilder.addPropertyValue("sqlUserUpdate", this.getSql(element, "update-user"));
             factoryBuilder.addPropertyValue("sqlUserDelete", this.getSql(element, "delete-user"));
@@ -0,0 +1,243 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.smscserver.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <strong>Internal class, do not use directly.</strong>
+ * 
+ * The address range of a bind request compiled as a restricted regular expression.
+ * <p>
+ * The address ranges are given by the clients, so they are not compiled with {@link java.util.regex.Pattern} whose
+ * backtracking takes exponential time on ranges like <code>(a+)+$</code>. Only a sequence of atoms is supported, each
+ * a literal, an escaped character, <code>.</code> or a bracket expression, optionally followed by one of
+ * <code>*</code>, <code>+</code> or <code>?</code>, with an optional leading <code>^</code> and trailing
+ * <code>$</code>. Groups, alternations, intervals and back references are rejected. The atoms are matched as a
+ * nondeterministic automaton by tracking the set of the reachable atoms, which takes linear time in the length of
+ * the address for any range.
+ * 
+ * @author hceylan
+ */
+public final class AddressRangePattern {
+
+    private static final class Atom {
+
+        private final char[] ranges;
+
+        private final boolean negated;
+
+        private boolean optional;
+
+        private boolean repeated;
+
+        private Atom(char[] ranges, boolean negated) {
+            this.ranges = ranges;
+            this.negated = negated;
+        }
+
+        private boolean matches(char c) {
+            // no ranges matches any character
+            if (this.ranges == null) {
+                return true;
+            }
+
+            for (int i = 0; i < this.ranges.length; i += 2) {
+                if ((c >= this.ranges[i]) && (c <= this.ranges[i + 1])) {
+                    return !this.negated;
+                }
+            }
+
+            return this.negated;
+        }
+    }
+
+    /**
+     * The maximum length of an address range, that of the address_range parameter of the bind requests
+     */
+    public static final int MAX_LENGTH = 40;
+
+    private static final String UNSUPPORTED = "(){}|";
+
+    /**
+     * Compiles the address range.
+     * 
+     * @param addressRange
+     *            the address range
+     * @return the compiled address range
+     * @throws IllegalArgumentException
+     *             if the address range is too long or not supported
+     */
+    public static AddressRangePattern compile(String addressRange) {
+        if (addressRange.length() > AddressRangePattern.MAX_LENGTH) {
+            throw new IllegalArgumentException("Address range longer than " + AddressRangePattern.MAX_LENGTH
+                    + " characters");
+        }
+
+        // the whole address is always matched, the anchors are optional
+        int end = addressRange.length();
+        if (addressRange.endsWith("$") && !addressRange.endsWith("\\$")) {
+            end--;
+        }
+
+        List<Atom> atoms = new ArrayList<Atom>();
+
+        int i = ((end > 0) && (addressRange.charAt(0) == '^')) ? 1 : 0;
+        while (i < end) {
+            char c = addressRange.charAt(i++);
+
+            Atom atom;
+            if (c == '.') {
+                atom = new Atom(null, false);
+            } else if (c == '[') {
+                i = AddressRangePattern.parseBracket(addressRange, i, end, atoms);
+
+                continue;
+            } else if ((c == '*') || (c == '+') || (c == '?')) {
+                if (atoms.isEmpty()) {
+                    throw new IllegalArgumentException("Dangling " + c + " at " + (i - 1));
+                }
+
+                Atom last = atoms.get(atoms.size() - 1);
+                if (last.optional || last.repeated) {
+                    throw new IllegalArgumentException("Repeated quantifier at " + (i - 1));
+                }
+
+                last.optional = c != '+';
+                last.repeated = c != '?';
+
+                continue;
+            } else if ((AddressRangePattern.UNSUPPORTED.indexOf(c) >= 0) || (c == '^') || (c == '$')) {
+                throw new IllegalArgumentException("Unsupported " + c + " at " + (i - 1));
+            } else {
+                if (c == '\\') {
+                    if (i == end) {
+                        throw new IllegalArgumentException("Dangling \\ at " + (i - 1));
+                    }
+
+                    c = addressRange.charAt(i++);
+                }
+
+                atom = new Atom(new char[] { c, c }, false);
+            }
+
+            atoms.add(atom);
+        }
+
+        return new AddressRangePattern(atoms.toArray(new Atom[atoms.size()]));
+    }
+
+    private static int parseBracket(String addressRange, int i, int end, List<Atom> atoms) {
+        boolean negated = (i < end) && (addressRange.charAt(i) == '^');
+        if (negated) {
+            i++;
+        }
+
+        StringBuilder ranges = new StringBuilder();
+        boolean first = true;
+        while (true) {
+            if (i >= end) {
+                throw new IllegalArgumentException("Unclosed [ in " + addressRange);
+            }
+
+            char c = addressRange.charAt(i++);
+            if ((c == ']') && !first) {
+                break;
+            }
+            first = false;
+
+            if ((c == '\\') && (i < end)) {
+                c = addressRange.charAt(i++);
+            }
+
+            char to = c;
+            if (((i + 1) < end) && (addressRange.charAt(i) == '-') && (addressRange.charAt(i + 1) != ']')) {
+                to = addressRange.charAt(i + 1);
+                i += 2;
+
+                if (to < c) {
+                    throw new IllegalArgumentException("Illegal range " + c + "-" + to + " in " + addressRange);
+                }
+            }
+
+            ranges.append(c).append(to);
+        }
+
+        atoms.add(new Atom(ranges.toString().toCharArray(), negated));
+
+        return i;
+    }
+
+    private final Atom[] atoms;
+
+    private AddressRangePattern(Atom[] atoms) {
+        this.atoms = atoms;
+    }
+
+    private void close(boolean[] states) {
+        // the optional atoms may be skipped, in order so that a run of them is skipped at once
+        for (int i = 0; i < this.atoms.length; i++) {
+            if (states[i] && this.atoms[i].optional) {
+                states[i + 1] = true;
+            }
+        }
+    }
+
+    /**
+     * Returns if the address range matches the whole address.
+     * 
+     * @param address
+     *            the address
+     * @return true if the address range matches the address
+     */
+    public boolean matches(String address) {
+        boolean[] states = new boolean[this.atoms.length + 1];
+        states[0] = true;
+        this.close(states);
+
+        for (int i = 0; i < address.length(); i++) {
+            char c = address.charAt(i);
+
+            boolean[] next = new boolean[states.length];
+            boolean alive = false;
+            for (int j = 0; j < this.atoms.length; j++) {
+                if (states[j] && this.atoms[j].matches(c)) {
+                    next[j + 1] = true;
+                    if (this.atoms[j].repeated) {
+                        next[j] = true;
+                    }
+
+                    alive = true;
+                }
+            }
+
+            if (!alive) {
+                return false;
+            }
+
+            this.close(next);
+            states = next;
+        }
+
+        return states[this.atoms.length];
+    }
+}
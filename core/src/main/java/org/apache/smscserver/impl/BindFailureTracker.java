@@ -0,0 +1,203 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.smscserver.impl;
+
+import java.net.InetAddress;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.smscserver.ConnectionConfig;
+
+/**
+ * <strong>Internal class, do not use directly.</strong>
+ * 
+ * Enforces the bind failure delay of the server.
+ * <p>
+ * The failed binds are answered after the {@link ConnectionConfig#getBindFailureDelay() bind failure delay} on a
+ * single timer thread, no thread is held while the delay elapses. The failures are also tracked per remote address in
+ * a bounded table, each failure from the same address within {@link #EXPIRY} doubles the delay up to
+ * 2<sup>{@link #MAX_ESCALATION}</sup> times the configured delay.
+ * 
+ * @author hceylan
+ */
+public class BindFailureTracker {
+
+    private static final class Offender {
+
+        private final AtomicInteger failures = new AtomicInteger();
+
+        private volatile long expires;
+    }
+
+    /**
+     * The time in milliseconds the failures of an address are remembered after the last failure
+     */
+    public static final long EXPIRY = 10 * 60 * 1000L;
+
+    /**
+     * The maximum number of times the delay is doubled
+     */
+    public static final int MAX_ESCALATION = 4;
+
+    private static final int MAX_OFFENDERS = 10000;
+
+    private final ConnectionConfig config;
+
+    private final ConcurrentMap<InetAddress, Offender> offenders = new ConcurrentHashMap<InetAddress, Offender>();
+
+    private final ScheduledThreadPoolExecutor timer;
+
+    public BindFailureTracker(ConnectionConfig config) {
+        super();
+
+        this.config = config;
+
+        this.timer = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "SmscServer-BindFailure");
+                thread.setDaemon(true);
+
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Records a failed bind from the address.
+     * 
+     * @param address
+     *            the remote address of the session, may be null
+     * @return the delay in milliseconds the failure should be answered after
+     */
+    public long bindFailed(InetAddress address) {
+        long delay = this.config.getBindFailureDelay();
+        if ((delay <= 0) || (address == null)) {
+            return Math.max(0, delay);
+        }
+
+        long now = System.currentTimeMillis();
+
+        Offender offender = this.offenders.get(address);
+        if ((offender == null) || (offender.expires <= now)) {
+            if (this.offenders.size() >= BindFailureTracker.MAX_OFFENDERS) {
+                this.evict(now);
+            }
+
+            offender = new Offender();
+            this.offenders.put(address, offender);
+        }
+
+        offender.expires = now + BindFailureTracker.EXPIRY;
+        int failures = offender.failures.incrementAndGet();
+
+        return delay << Math.min(failures - 1, BindFailureTracker.MAX_ESCALATION);
+    }
+
+    /**
+     * Forgets the failures of the address after a successful bind.
+     * 
+     * @param address
+     *            the remote address of the session, may be null
+     */
+    public void bindSucceeded(InetAddress address) {
+        if (address != null) {
+            this.offenders.remove(address);
+        }
+    }
+
+    /**
+     * Stops the timer, the replies not yet sent are dropped.
+     */
+    public void dispose() {
+        this.timer.shutdownNow();
+        this.offenders.clear();
+    }
+
+    /**
+     * Removes the expired addresses, if the table is still full an eighth of the addresses are removed.
+     */
+    private void evict(long now) {
+        Iterator<Offender> i = this.offenders.values().iterator();
+        while (i.hasNext()) {
+            if (i.next().expires <= now) {
+                i.remove();
+            }
+        }
+
+        int excess = this.offenders.size() - ((BindFailureTracker.MAX_OFFENDERS * 7) / 8);
+        for (i = this.offenders.values().iterator(); (excess > 0) && i.hasNext(); excess--) {
+            i.next();
+            i.remove();
+        }
+    }
+
+    /**
+     * Returns the number of failed binds recorded for the address.
+     * 
+     * @param address
+     *            the remote address
+     * @return the number of failed binds within the expiry time
+     */
+    public int getFailures(InetAddress address) {
+        Offender offender = this.offenders.get(address);
+
+        return ((offender != null) && (offender.expires > System.currentTimeMillis())) ? offender.failures
+                .get() : 0;
+    }
+
+    /**
+     * Returns the number of addresses with recorded failures.
+     * 
+     * @return the number of addresses
+     */
+    public int getOffenderCount() {
+        return this.offenders.size();
+    }
+
+    /**
+     * Runs the task after the delay on the timer thread. The task is run on the calling thread if the delay is not
+     * positive or the tracker has been disposed.
+     * 
+     * @param task
+     *            the task to run
+     * @param delay
+     *            the delay in milliseconds
+     */
+    public void schedule(Runnable task, long delay) {
+        if (delay > 0) {
+            try {
+                this.timer.schedule(task, delay, TimeUnit.MILLISECONDS);
+
+                return;
+            } catch (RejectedExecutionException e) {
+                // disposed, answer right away
+            }
+        }
+
+        task.run();
+    }
+}
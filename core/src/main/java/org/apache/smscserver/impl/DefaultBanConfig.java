@@ -0,0 +1,116 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.smscserver.impl;
+
+import org.apache.smscserver.BanConfig;
+import org.apache.smscserver.BanConfigFactory;
+
+/**
+ * <strong>Internal class, do not use directly.</strong>
+ * 
+ * @author hceylan
+ * 
+ */
+public class DefaultBanConfig implements BanConfig {
+
+    private final int threshold;
+    private final int banPeriod;
+    private final int decayPeriod;
+    private final int maxBans;
+    private final int expectedOffenders;
+
+    /**
+     * Default constructor with the bans disabled.
+     */
+    public DefaultBanConfig() {
+        this(0, 600, 60, 10000, 10000);
+    }
+
+    /**
+     * Internal constructor, do not use directly. Use {@link BanConfigFactory} instead
+     * 
+     * @param threshold
+     *            the number of bind failures after which an address is banned, 0 to disable
+     * @param banPeriod
+     *            the ban period in seconds
+     * @param decayPeriod
+     *            the period in seconds after which the failure counts are halved
+     * @param maxBans
+     *            the maximum number of addresses banned at the same time
+     * @param expectedOffenders
+     *            the expected number of addresses failing to bind within a decay period
+     */
+    public DefaultBanConfig(int threshold, int banPeriod, int decayPeriod, int maxBans, int expectedOffenders) {
+        this.threshold = threshold;
+        this.banPeriod = banPeriod;
+        this.decayPeriod = decayPeriod;
+        this.maxBans = maxBans;
+        this.expectedOffenders = expectedOffenders;
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    public int getBanPeriod() {
+        return this.banPeriod;
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    public int getDecayPeriod() {
+        return this.decayPeriod;
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    public int getExpectedOffenders() {
+        return this.expectedOffenders;
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    public int getMaxBans() {
+        return this.maxBans;
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    public int getThreshold() {
+        return this.threshold;
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    public boolean isEnabled() {
+        return this.threshold > 0;
+    }
+
+}
@@ -35,21 +35,45 @@ public class DefaultConnectionConfig implements ConnectionConfig {
     private final int bindFailureDelay;
     private final int maxThreads;
     private final int minThreads;
+    private final int requestWindowSize;
+    private final int authThreads;
+    private final int authQueueSize;
+    private final int requestQueueSize;
 
     public DefaultConnectionConfig() {
-        this(500, 10, 3, 2, 8);
+        this(500, 10, 3, 2, 8, 10, 2, 256, 4096);
     }
 
     /**
      * Internal constructor, do not use directly. Use {@link ConnectionConfigFactory} instead
      */
     public DefaultConnectionConfig(int nindFailureDelay, int maxBinds, int maxBindFailures, int minThreads,
-            int maxThreads) {
+            int maxThreads, int requestWindowSize, int authThreads, int authQueueSize, int requestQueueSize) {
         this.bindFailureDelay = nindFailureDelay;
         this.maxBinds = maxBinds;
         this.maxBindFailures = maxBindFailures;
         this.minThreads = minThreads;
         this.maxThreads = maxThreads;
+        this.requestWindowSize = requestWindowSize;
+        this.authThreads = authThreads;
+        this.authQueueSize = authQueueSize;
+        this.requestQueueSize = requestQueueSize;
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    public int getAuthQueueSize() {
+        return this.authQueueSize;
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    public int getAuthThreads() {
+        return this.authThreads;
     }
 
     /**
@@ -92,4 +116,20 @@ public class DefaultConnectionConfig implements ConnectionConfig {
         return this.minThreads;
     }
 
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    public int getRequestQueueSize() {
+        return this.requestQueueSize;
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    public int getRequestWindowSize() {
+        return this.requestWindowSize;
+    }
+
 }
@@ -0,0 +1,84 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.smscserver.impl;
+
+import org.apache.smscserver.MetricsConfig;
+import org.apache.smscserver.MetricsConfigFactory;
+
+/**
+ * <strong>Internal class, do not use directly.</strong>
+ * 
+ * @author hceylan
+ * 
+ */
+public class DefaultMetricsConfig implements MetricsConfig {
+
+    private final boolean enabled;
+    private final String address;
+    private final int port;
+
+    /**
+     * Default constructor with the endpoint disabled.
+     */
+    public DefaultMetricsConfig() {
+        this(false, null, 9464);
+    }
+
+    /**
+     * Internal constructor, do not use directly. Use {@link MetricsConfigFactory} instead
+     * 
+     * @param enabled
+     *            true if the metrics endpoint is enabled
+     * @param address
+     *            the address the endpoint binds to, null for all addresses
+     * @param port
+     *            the port the endpoint binds to
+     */
+    public DefaultMetricsConfig(boolean enabled, String address, int port) {
+        this.enabled = enabled;
+        this.address = address;
+        this.port = port;
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    public String getAddress() {
+        return this.address;
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    public int getPort() {
+        return this.port;
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+}
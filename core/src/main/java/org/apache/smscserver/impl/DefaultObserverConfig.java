@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.smscserver.impl;
+
+import org.apache.smscserver.ObserverConfig;
+import org.apache.smscserver.ObserverConfigFactory;
+import org.apache.smscserver.ObserverOverflowPolicy;
+
+/**
+ * <strong>Internal class, do not use directly.</strong>
+ * 
+ * @author hceylan
+ * 
+ */
+public class DefaultObserverConfig implements ObserverConfig {
+
+    private final int queueSize;
+    private final ObserverOverflowPolicy overflowPolicy;
+    private final int batchSize;
+
+    /**
+     * Default constructor dropping the oldest of 8192 queued events.
+     */
+    public DefaultObserverConfig() {
+        this(8192, ObserverOverflowPolicy.DROP_OLDEST, 64);
+    }
+
+    /**
+     * Internal constructor, do not use directly. Use {@link ObserverConfigFactory} instead
+     * 
+     * @param queueSize
+     *            the number of events that can be queued
+     * @param overflowPolicy
+     *            the policy applied when the queue is full
+     * @param batchSize
+     *            the maximum number of events passed to the observers in a row
+     */
+    public DefaultObserverConfig(int queueSize, ObserverOverflowPolicy overflowPolicy, int batchSize) {
+        this.queueSize = queueSize;
+        this.overflowPolicy = overflowPolicy;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    public int getBatchSize() {
+        return this.batchSize;
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    public ObserverOverflowPolicy getOverflowPolicy() {
+        return this.overflowPolicy;
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    public int getQueueSize() {
+        return this.queueSize;
+    }
+
+}
@@ -0,0 +1,295 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.smscserver.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.apache.smscserver.smsclet.SessionRegistry;
+import org.apache.smscserver.smsclet.SmscIoSession;
+import org.apache.smscserver.smsclet.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <strong>Internal class, do not use directly.</strong>
+ * 
+ * Server wide {@link SessionRegistry}.
+ * <p>
+ * Each key maps to an immutable array of sessions, replaced with a compare and set on every change, so that a lookup
+ * is a single map read and registering does not lock. The address ranges that are regular expressions cannot be
+ * looked up by key, they are kept in a list of their own and matched one by one, as an {@link AddressRangePattern} so
+ * that a hostile address range cannot stall the lookups.
+ * <p>
+ * The pending short messages are delivered to the sessions of their user, the registry only serves the lookups of
+ * the smsclets and the management beans.
+ * 
+ * @author hceylan
+ */
+public class DefaultSessionRegistry implements SessionRegistry {
+
+    private static final class Registration {
+
+        private final String systemId;
+
+        private final String addressRange;
+
+        private final AddressRangePattern pattern;
+
+        private Registration(String systemId, String addressRange, AddressRangePattern pattern) {
+            this.systemId = systemId;
+            this.addressRange = addressRange;
+            this.pattern = pattern;
+        }
+    }
+
+    private static final class Route {
+
+        private final AddressRangePattern pattern;
+
+        private final SmscIoSession session;
+
+        private Route(AddressRangePattern pattern, SmscIoSession session) {
+            this.pattern = pattern;
+            this.session = session;
+        }
+    }
+
+    private static final Logger LOG = LoggerFactory.getLogger(DefaultSessionRegistry.class);
+
+    private static final String ATTRIBUTE_REGISTRATION = SmscIoSession.ATTRIBUTE_PREFIX + "registration";
+
+    private static final String META_CHARACTERS = "\\^$.|?*+()[]{}";
+
+    private static final SmscIoSession[] NONE = new SmscIoSession[0];
+
+    private static void add(ConcurrentMap<String, SmscIoSession[]> map, String key, SmscIoSession session) {
+        while (true) {
+            SmscIoSession[] sessions = map.get(key);
+            if (sessions == null) {
+                if (map.putIfAbsent(key, new SmscIoSession[] { session }) == null) {
+                    return;
+                }
+
+                continue;
+            }
+
+            SmscIoSession[] added = new SmscIoSession[sessions.length + 1];
+            System.arraycopy(sessions, 0, added, 0, sessions.length);
+            added[sessions.length] = session;
+
+            if (map.replace(key, sessions, added)) {
+                return;
+            }
+        }
+    }
+
+    private static boolean isLiteral(String addressRange) {
+        for (int i = 0; i < addressRange.length(); i++) {
+            if (DefaultSessionRegistry.META_CHARACTERS.indexOf(addressRange.charAt(i)) >= 0) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static void remove(ConcurrentMap<String, SmscIoSession[]> map, String key, SmscIoSession session) {
+        while (true) {
+            SmscIoSession[] sessions = map.get(key);
+            if (sessions == null) {
+                return;
+            }
+
+            int index = -1;
+            for (int i = 0; i < sessions.length; i++) {
+                if (sessions[i] == session) {
+                    index = i;
+                    break;
+                }
+            }
+
+            if (index < 0) {
+                return;
+            }
+
+            if (sessions.length == 1) {
+                if (map.remove(key, sessions)) {
+                    return;
+                }
+
+                continue;
+            }
+
+            SmscIoSession[] removed = new SmscIoSession[sessions.length - 1];
+            System.arraycopy(sessions, 0, removed, 0, index);
+            System.arraycopy(sessions, index + 1, removed, index, removed.length - index);
+
+            if (map.replace(key, sessions, removed)) {
+                return;
+            }
+        }
+    }
+
+    private static List<SmscIoSession> toList(SmscIoSession[] sessions) {
+        if (sessions == null) {
+            return Collections.emptyList();
+        }
+
+        return Collections.unmodifiableList(Arrays.asList(sessions));
+    }
+
+    private final ConcurrentMap<String, SmscIoSession[]> bySystemId = new ConcurrentHashMap<String, SmscIoSession[]>();
+
+    private final ConcurrentMap<String, SmscIoSession[]> byAddress = new ConcurrentHashMap<String, SmscIoSession[]>();
+
+    private final List<Route> routes = new CopyOnWriteArrayList<Route>();
+
+    private final ConcurrentMap<SmscIoSession, Boolean> receivers = new ConcurrentHashMap<SmscIoSession, Boolean>();
+
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    public int getReceiverCount() {
+        return this.receivers.size();
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    public List<SmscIoSession> getReceivers() {
+        return Collections.unmodifiableList(new ArrayList<SmscIoSession>(this.receivers.keySet()));
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    public List<SmscIoSession> getReceivers(String systemId) {
+        return DefaultSessionRegistry.toList(this.bySystemId.get(systemId));
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    public List<SmscIoSession> getReceiversForAddress(String destinationAddress) {
+        SmscIoSession[] sessions = this.byAddress.get(destinationAddress);
+        if (this.routes.isEmpty()) {
+            return DefaultSessionRegistry.toList(sessions);
+        }
+
+        List<SmscIoSession> matches = new ArrayList<SmscIoSession>();
+        if (sessions != null) {
+            matches.addAll(Arrays.asList(sessions));
+        }
+
+        for (Route route : this.routes) {
+            if (route.pattern.matches(destinationAddress)) {
+                matches.add(route.session);
+            }
+        }
+
+        return Collections.unmodifiableList(matches);
+    }
+
+    /**
+     * Registers the session bound to receive short messages.
+     * 
+     * @param session
+     *            the session, bound to a user
+     * @param addressRange
+     *            the address range of the bind request, may be null
+     */
+    public void register(SmscIoSession session, String addressRange) {
+        User user = session.getUser();
+        if (user == null) {
+            return;
+        }
+
+        AddressRangePattern pattern = null;
+        if ((addressRange != null) && (addressRange.length() == 0)) {
+            addressRange = null;
+        } else if ((addressRange != null) && !DefaultSessionRegistry.isLiteral(addressRange)) {
+            try {
+                pattern = AddressRangePattern.compile(addressRange);
+            } catch (IllegalArgumentException e) {
+                DefaultSessionRegistry.LOG.warn("Ignoring the invalid address range {} of {}", addressRange, user
+                        .getName());
+            }
+
+            addressRange = null;
+        }
+
+        Registration registration = new Registration(user.getName(), addressRange, pattern);
+        if (session.setAttributeIfAbsent(DefaultSessionRegistry.ATTRIBUTE_REGISTRATION, registration) != null) {
+            // already registered
+            return;
+        }
+
+        this.receivers.put(session, Boolean.TRUE);
+        DefaultSessionRegistry.add(this.bySystemId, registration.systemId, session);
+        if (registration.addressRange != null) {
+            DefaultSessionRegistry.add(this.byAddress, registration.addressRange, session);
+        }
+        if (registration.pattern != null) {
+            this.routes.add(new Route(registration.pattern, session));
+        }
+
+        // the session may have closed while binding, after it was unregistered
+        if (session.isClosing() || !session.isConnected()) {
+            this.unregister(session);
+        }
+    }
+
+    /**
+     * Unregisters the session as it unbinds or closes. Unregistering a session that is not registered has no effect.
+     * 
+     * @param session
+     *            the session
+     */
+    public void unregister(SmscIoSession session) {
+        Registration registration = (Registration) session
+                .removeAttribute(DefaultSessionRegistry.ATTRIBUTE_REGISTRATION);
+        if (registration == null) {
+            return;
+        }
+
+        DefaultSessionRegistry.remove(this.bySystemId, registration.systemId, session);
+        if (registration.addressRange != null) {
+            DefaultSessionRegistry.remove(this.byAddress, registration.addressRange, session);
+        }
+        if (registration.pattern != null) {
+            for (Route route : this.routes) {
+                if (route.session == session) {
+                    this.routes.remove(route);
+                }
+            }
+        }
+        this.receivers.remove(session);
+    }
+}
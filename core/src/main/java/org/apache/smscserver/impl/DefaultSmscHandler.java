@@ -19,18 +19,32 @@
 
 package org.apache.smscserver.impl;
 
+import ie.omk.smpp.message.SMPPPacket;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.apache.mina.core.future.CloseFuture;
+import org.apache.mina.core.future.IoFutureListener;
 import org.apache.mina.core.session.IdleStatus;
 import org.apache.mina.core.write.WriteToClosedSessionException;
 import org.apache.smscserver.ServerSmscStatistics;
+import org.apache.smscserver.SessionCloseReason;
 import org.apache.smscserver.SmscHandler;
 import org.apache.smscserver.SmscServerContext;
 import org.apache.smscserver.command.Command;
 import org.apache.smscserver.command.CommandFactory;
+import org.apache.smscserver.impl.SessionRequestPipeline.PendingRequest;
+import org.apache.smscserver.ipfilter.BanFilter;
 import org.apache.smscserver.listener.Listener;
+import org.apache.smscserver.packet.impl.SmscEnquireLinkRequestImpl;
 import org.apache.smscserver.packet.impl.SmscStatusReplyImpl;
-import org.apache.smscserver.smsclet.SmscIoSession;
 import org.apache.smscserver.smsclet.SmscPacket;
 import org.apache.smscserver.smsclet.SmscReply;
+import org.apache.smscserver.smsclet.SmscReplyFuture;
+import org.apache.smscserver.smsclet.SmscReplyFutureListener;
 import org.apache.smscserver.smsclet.SmscRequest;
 import org.apache.smscserver.smscletcontainer.SmscletContainer;
 import org.slf4j.Logger;
@@ -48,8 +62,62 @@ public class DefaultSmscHandler implements SmscHandler {
 
     private SmscServerContext serverContext;
 
+    private BindFailureTracker bindFailureTracker;
+
+    private BanFilter banFilter;
+
     private Listener listener;
 
+    /**
+     * Closes the session without waiting for the close to complete.
+     */
+    private void close(final DefaultSmscIoSession session, final SessionCloseReason reason) {
+        session.close(reason).addListener(new IoFutureListener<CloseFuture>() {
+
+            public void operationComplete(CloseFuture future) {
+                DefaultSmscHandler.this.LOG.debug("Session closed, reason {}", reason);
+            }
+        });
+    }
+
+    /**
+     * Dispatches the requests of the session waiting for the completed one.
+     */
+    private void complete(final DefaultSmscIoSession session, final boolean serial) {
+        SessionRequestPipeline pipeline = session.getRequestPipeline();
+
+        for (PendingRequest next : pipeline.complete(serial)) {
+            this.dispatch(session, next.getRequest(), next.isSerial());
+        }
+
+        // paired with the suspension in messageReceived
+        synchronized (pipeline) {
+            if (pipeline.resume()) {
+                this.LOG.debug("Request backlog drained, resuming reads");
+                session.resumeRead();
+            }
+        }
+    }
+
+    /**
+     * Dispatches an admitted request. Bind requests are authenticated on the authentication executor so that password
+     * verification holds neither the I/O threads nor the request executor. Cheap requests are processed on the calling
+     * thread, so are other serial requests unless the listener dispatches on its I/O threads. Others are handed over
+     * to the request executor so that the next request of the session can be read in the mean time.
+     */
+    private void dispatch(final DefaultSmscIoSession session, final SmscRequest request, final boolean serial) {
+        if (!this.isBind(request) && (this.isCheap(request) || (serial && !this.listener.isIoThreadDispatch()))) {
+            this.process(session, request, serial);
+        } else {
+            this.submit(session, request, serial, new Runnable() {
+
+                public void run() {
+                    DefaultSmscHandler.this.process(session, request, serial);
+                }
+            });
+        }
+    }
+
     /**
      * {@inheritDoc}
      * 
@@ -59,60 +127,309 @@ public class DefaultSmscHandler implements SmscHandler {
             WriteToClosedSessionException writeToClosedSessionException = (WriteToClosedSessionException) cause;
             this.LOG.warn("Client closed connection before all replies could be sent, last reply was {}",
                     writeToClosedSessionException.getRequest());
-            session.close(false).awaitUninterruptibly(10000);
+            this.close(session, SessionCloseReason.WRITE_TO_CLOSED);
         } else {
             this.LOG.error("Exception caught, closing session", cause);
-            session.close(false).awaitUninterruptibly(10000);
+            this.close(session, SessionCloseReason.EXCEPTION);
+        }
+    }
+
+    private SmscReply execute(final DefaultSmscIoSession session, final SmscRequest request) throws Exception {
+        int commandID = request.getCommandId();
+        CommandFactory commandFactory = this.serverContext.getCommandFactory();
+        Command command = commandFactory.getInterceptedCommand(commandID);
+
+        if (command == null) {
+            return null;
+        }
+
+        long start = System.nanoTime();
+        try {
+            return command.execute(session, this.serverContext, request);
+        } finally {
+            ServerSmscStatistics stats = ((ServerSmscStatistics) this.serverContext.getSmscStatistics());
+            if (stats != null) {
+                stats.setCommandLatency(session, commandID, System.nanoTime() - start);
+            }
         }
     }
 
+    /**
+     * Returns the executor processing the request, the authentication executor for bind requests and the request
+     * executor otherwise.
+     */
+    private Executor getExecutor(final SmscRequest request) {
+        if (this.isBind(request)) {
+            return this.serverContext.getAuthExecutor();
+        }
+
+        return this.serverContext.getRequestExecutor();
+    }
+
+    /**
+     * Returns the remote address of the session, null if not an internet address.
+     */
+    private InetAddress getAddress(final DefaultSmscIoSession session) {
+        if (session.getRemoteAddress() instanceof InetSocketAddress) {
+            return ((InetSocketAddress) session.getRemoteAddress()).getAddress();
+        }
+
+        return null;
+    }
+
     /**
      * {@inheritDoc}
      * 
      */
     public void init(final SmscServerContext context, final Listener listener) {
         this.serverContext = context;
+        this.bindFailureTracker = ((DefaultSmscServerContext) context).getBindFailureTracker();
+        this.banFilter = ((DefaultSmscServerContext) context).getBanFilter();
         this.listener = listener;
     }
 
+    /**
+     * Returns true if the request is a bind request.
+     */
+    private boolean isBind(final SmscRequest request) {
+        switch (request.getCommandId()) {
+        case SMPPPacket.BIND_RECEIVER:
+        case SMPPPacket.BIND_TRANSCEIVER:
+        case SMPPPacket.BIND_TRANSMITTER:
+            return true;
+        default:
+            return false;
+        }
+    }
+
+    /**
+     * Returns true if the request is only answered, touching neither the user manager, the message store nor the
+     * server state, hence can be processed on an I/O thread.
+     */
+    private boolean isCheap(final SmscRequest request) {
+        switch (request.getCommandId()) {
+        case SMPPPacket.ENQUIRE_LINK:
+            return true;
+        default:
+            return false;
+        }
+    }
+
+    /**
+     * Returns true if the request changes the state of the session and must not overlap with other requests.
+     */
+    private boolean isSerial(final SmscRequest request) {
+        switch (request.getCommandId()) {
+        case SMPPPacket.BIND_RECEIVER:
+        case SMPPPacket.BIND_TRANSCEIVER:
+        case SMPPPacket.BIND_TRANSMITTER:
+        case SMPPPacket.OUTBIND:
+        case SMPPPacket.UNBIND:
+            return true;
+        default:
+            return false;
+        }
+    }
+
     /**
      * {@inheritDoc}
      * 
      */
-    public SmscReply messageReceived(final DefaultSmscIoSession session, final SmscRequest request) throws Exception {
+    public void messageReceived(final DefaultSmscIoSession session, final SmscRequest request) throws Exception {
         session.updateLastAccessTime();
 
-        if (!session.lock()) {
-            this.LOG.warn("Cannot acquire session lock");
-            return new SmscStatusReplyImpl(request, SmscReply.ErrorCode.ESME_RUNKNOWNERR);
+        ServerSmscStatistics stats = ((ServerSmscStatistics) this.serverContext.getSmscStatistics());
+        if (stats != null) {
+            stats.setMessageReceived(session, request);
         }
 
+        boolean serial = this.isSerial(request);
+
+        switch (session.getRequestPipeline().admit(request, serial)) {
+        case ADMITTED:
+            this.dispatch(session, request, serial);
+            break;
+        case QUEUED:
+            // will be dispatched once the requests in progress complete
+            break;
+        case SUSPEND:
+            // hold the client back until the backlog drains, unless it drained in the mean time
+            SessionRequestPipeline pipeline = session.getRequestPipeline();
+            synchronized (pipeline) {
+                if (pipeline.isSuspended()) {
+                    this.LOG.debug("Request window is full, suspending reads");
+                    session.suspendRead();
+                }
+            }
+            break;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    public void messageSent(final DefaultSmscIoSession session, final SmscPacket packet) throws Exception {
+        if (packet instanceof SmscReply) {
+            ServerSmscStatistics stats = ((ServerSmscStatistics) this.serverContext.getSmscStatistics());
+            if (stats != null) {
+                stats.setMessageSent(session, (SmscReply) packet);
+            }
+        } else if (packet instanceof SmscRequest) {
+            SmscRequest request = (SmscRequest) packet;
+
+            // the round trip time is measured once the response arrives
+            if (request.getCommandId() == SMPPPacket.DELIVER_SM) {
+                session.addPendingDelivery(request.getSequenceNum(), System.nanoTime());
+            }
+        }
+    }
+
+    /**
+     * Passes the request to the smsclets. If the smsclets do not reply immediately the reply is written once their
+     * future completes, without holding the current thread.
+     */
+    private void process(final DefaultSmscIoSession session, final SmscRequest request, final boolean serial) {
+        SmscReplyFuture future;
+        try {
+            future = this.serverContext.getSmscletContainer().onRequestAsync(session.getSmscletSession(), request);
+        } catch (Exception e) {
+            future = new SmscReplyFuture();
+            future.setException(e);
+        }
+
+        if (future.isDone()) {
+            this.reply(session, request, serial, future);
+        } else {
+            future.addListener(new SmscReplyFutureListener() {
+
+                public void operationComplete(final SmscReplyFuture future) {
+                    // completed on a smsclet thread, continue on the executor of the request
+                    Runnable reply = new Runnable() {
+
+                        public void run() {
+                            DefaultSmscHandler.this.reply(session, request, serial, future);
+                        }
+                    };
+
+                    try {
+                        DefaultSmscHandler.this.getExecutor(request).execute(reply);
+                    } catch (RejectedExecutionException e) {
+                        // the request is already processed, do not lose the reply
+                        reply.run();
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Writes the reply of the smsclets, or of the command if no smsclet replied, and dispatches the requests of the
+     * session waiting for this one. Failed binds are answered after the bind failure delay.
+     */
+    private void reply(final DefaultSmscIoSession session, final SmscRequest request, final boolean serial,
+            final SmscReplyFuture future) {
+        boolean delayed = false;
         try {
-            SmscReply reply = this.serverContext.getSmscletContainer().onRequest(session.getSmscletSession(), request);
-            if (reply != null) {
-                return reply;
+            SmscReply reply = future.getReply();
+            if (reply == null) {
+                reply = this.execute(session, request);
+            }
+
+            if (reply == null) {
+                reply = new SmscStatusReplyImpl(request, SmscReply.ErrorCode.ESME_RINVCMDID);
             }
 
-            int commandID = request.getCommandId();
-            CommandFactory commandFactory = this.serverContext.getCommandFactory();
-            Command command = commandFactory.getCommand(commandID);
+            if (this.isBind(request)) {
+                if (reply.getCommandStatus() == SmscReply.ErrorCode.ESME_RBINDFAIL.getCode()) {
+                    delayed = true;
+                    this.replyBindFailure(session, serial, reply);
+
+                    return;
+                }
 
-            if (command != null) {
-                return command.execute(session, this.serverContext, request);
+                if (reply.getCommandStatus() == SmscReply.ErrorCode.ESME_ROK.getCode()) {
+                    InetAddress address = this.getAddress(session);
+                    this.bindFailureTracker.bindSucceeded(address);
+                    if ((this.banFilter != null) && (address != null)) {
+                        this.banFilter.bindSucceeded(address);
+                    }
+                }
             }
 
-            return null;
+            session.write(reply);
+        } catch (Exception e) {
+            try {
+                this.exceptionCaught(session, e);
+            } catch (Exception e1) {
+                this.LOG.error("Unable to handle exception", e1);
+            }
         } finally {
-            session.unlock();
+            if (!delayed) {
+                this.complete(session, serial);
+            }
         }
     }
 
+    /**
+     * Writes the reply of the failed bind once the bind failure delay elapses, without holding the current thread. The
+     * session is closed if the client exceeds the maximum number of bind failures.
+     */
+    private void replyBindFailure(final DefaultSmscIoSession session, final boolean serial, final SmscReply reply) {
+        session.increaseFailedBinds();
+
+        int maxBindFailures = this.serverContext.getConnectionConfig().getMaxBindFailures();
+        final boolean close = (maxBindFailures > 0) && (session.getFailedBinds() >= maxBindFailures);
+
+        InetAddress address = this.getAddress(session);
+        if ((this.banFilter != null) && (address != null)) {
+            this.banFilter.bindFailed(address);
+        }
+
+        this.bindFailureTracker.schedule(new Runnable() {
+
+            public void run() {
+                // the client may close the session as soon as it reads the reply
+                if (close) {
+                    session.setCloseReason(SessionCloseReason.BIND_FAILURES);
+                }
+                session.write(reply);
+
+                if (close) {
+                    DefaultSmscHandler.this.LOG.info("Maximum number of bind failures reached, closing");
+                    DefaultSmscHandler.this.close(session, SessionCloseReason.BIND_FAILURES);
+                } else {
+                    DefaultSmscHandler.this.complete(session, serial);
+                }
+            }
+        }, this.bindFailureTracker.bindFailed(address));
+    }
+
     /**
      * {@inheritDoc}
      * 
      */
-    public void messageSent(final SmscIoSession session, final SmscPacket reply) throws Exception {
-        // do nothing
+    public void replyReceived(final DefaultSmscIoSession session, final SmscReply reply) throws Exception {
+        if (!(reply instanceof SMPPPacket)) {
+            return;
+        }
+
+        // the client answered the probe, the session is alive
+        if (((SMPPPacket) reply).getCommandId() == SMPPPacket.ENQUIRE_LINK_RESP) {
+            session.setEnquireLinkTime(0);
+
+            return;
+        }
+
+        if (((SMPPPacket) reply).getCommandId() != SMPPPacket.DELIVER_SM_RESP) {
+            return;
+        }
+
+        long sendTime = session.removePendingDelivery(((SMPPPacket) reply).getSequenceNum());
+        ServerSmscStatistics stats = ((ServerSmscStatistics) this.serverContext.getSmscStatistics());
+        if ((sendTime != 0) && (stats != null)) {
+            stats.setDeliverRoundTrip(session, System.nanoTime() - sendTime);
+        }
     }
 
     /**
@@ -129,11 +446,13 @@ public class DefaultSmscHandler implements SmscHandler {
             this.LOG.warn("Smsclet threw an exception on disconnect", e);
         }
 
+        ((DefaultSessionRegistry) this.serverContext.getSessionRegistry()).unregister(session);
+
         ServerSmscStatistics stats = ((ServerSmscStatistics) this.serverContext.getSmscStatistics());
 
         if (stats != null) {
             stats.setUnbind(session);
-            stats.setCloseConnection(session);
+            stats.setCloseConnection(session, session.getCloseReason());
             this.LOG.debug("Statistics bind and connection count decreased due to session close");
         } else {
             this.LOG.warn("Statistics not available in session, can not decrease bind and connection count");
@@ -160,9 +479,25 @@ public class DefaultSmscHandler implements SmscHandler {
      * 
      */
     public void sessionIdle(final DefaultSmscIoSession session, final IdleStatus status) throws Exception {
-        this.LOG.info("Session idle, closing");
+        if (!session.isBound()) {
+            this.LOG.info("Session idle, closing");
+            this.close(session, SessionCloseReason.IDLE);
+
+            return;
+        }
+
+        // a bound session is probed first, it is only closed if the client does not answer until the next idle event
+        long enquireLinkTime = session.getEnquireLinkTime();
+        if ((enquireLinkTime != 0) && (session.getLastReadTime() < enquireLinkTime)) {
+            this.LOG.info("Session idle and enquire_link not answered, closing");
+            this.close(session, SessionCloseReason.ENQUIRE_LINK_TIMEOUT);
+
+            return;
+        }
 
-        session.close(false).awaitUninterruptibly(10000);
+        this.LOG.debug("Session idle, sending enquire_link");
+        session.setEnquireLinkTime(System.currentTimeMillis());
+        session.write(new SmscEnquireLinkRequestImpl(session.getNextSequnce()));
     }
 
     /**
@@ -175,13 +510,29 @@ public class DefaultSmscHandler implements SmscHandler {
         try {
             if (!smsclets.onConnect(session.getSmscletSession())) {
                 this.LOG.debug("Smsclet returned DISCONNECT, session will be closed");
-                session.close(false).awaitUninterruptibly(10000);
+                this.close(session, SessionCloseReason.SMSCLET);
 
             } else {
                 session.updateLastAccessTime();
             }
         } catch (Exception e) {
-            this.LOG.debug("Smsclet threw exception", e);
+            this.LOG.warn("Smsclet threw exception on connect", e);
+        }
+    }
+
+    /**
+     * Runs the processing of the request on the authentication executor for bind requests, on the request executor
+     * otherwise. If the executor is saturated the request is answered with <code>ESME_RTHROTTLED</code>.
+     */
+    private void submit(final DefaultSmscIoSession session, final SmscRequest request, final boolean serial,
+            final Runnable task) {
+        try {
+            this.getExecutor(request).execute(task);
+        } catch (RejectedExecutionException e) {
+            this.LOG.debug("Executor is saturated, throttling {}", request);
+            session.write(new SmscStatusReplyImpl(request, SmscReply.ErrorCode.ESME_RTHROTTLED));
+
+            this.complete(session, serial);
         }
     }
 
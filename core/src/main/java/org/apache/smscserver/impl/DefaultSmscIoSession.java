@@ -25,6 +25,9 @@ import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.ReentrantLock;
 
 import javax.net.ssl.SSLPeerUnverifiedException;
@@ -45,13 +48,14 @@ import org.apache.mina.core.write.WriteRequest;
 import org.apache.mina.core.write.WriteRequestQueue;
 import org.apache.mina.filter.ssl.SslFilter;
 import org.apache.smscserver.ServerSmscStatistics;
+import org.apache.smscserver.SessionCloseReason;
 import org.apache.smscserver.SmscServerContext;
 import org.apache.smscserver.listener.Listener;
 import org.apache.smscserver.smsclet.SmscIoSession;
-import org.apache.smscserver.smsclet.SmscRequest;
 import org.apache.smscserver.smsclet.SmscRuntimeException;
 import org.apache.smscserver.smsclet.SmscSession;
 import org.apache.smscserver.smsclet.User;
+import org.apache.smscserver.util.UuidGenerator;
 import org.slf4j.LoggerFactory;
 
 /**
@@ -62,34 +66,108 @@ import org.slf4j.LoggerFactory;
  */
 public class DefaultSmscIoSession implements SmscIoSession {
 
-    private static final String ATTRIBUTE_SESSION_ID = SmscIoSession.ATTRIBUTE_PREFIX + "session-id";
-    private static final String ATTRIBUTE_USER = SmscIoSession.ATTRIBUTE_PREFIX + "user";
-    private static final String ATTRIBUTE_BIND_TIME = SmscIoSession.ATTRIBUTE_PREFIX + "bind-time";
-    private static final String ATTRIBUTE_FAILED_BINDS = SmscIoSession.ATTRIBUTE_PREFIX + "failed-binds";
-    private static final String ATTRIBUTE_LISTENER = SmscIoSession.ATTRIBUTE_PREFIX + "listener";
-    private static final String ATTRIBUTE_MAX_IDLE_TIME = SmscIoSession.ATTRIBUTE_PREFIX + "max-idle-time";
-    private static final String ATTRIBUTE_LAST_ACCESS_TIME = SmscIoSession.ATTRIBUTE_PREFIX + "last-access-time";
-    private static final String ATTRIBUTE_CACHED_REMOTE_ADDRESS = SmscIoSession.ATTRIBUTE_PREFIX
-            + "cached-remote-address";
+    private static final String ATTRIBUTE_SMSC_SESSION = SmscIoSession.ATTRIBUTE_PREFIX + "smsc-session";
+
+    private static final UuidGenerator SESSION_ID_GENERATOR = new UuidGenerator();
+
+    /**
+     * The maximum number of deliver_sm requests awaiting response that are tracked for the round trip time, a power of
+     * two.
+     */
+    private static final int MAX_PENDING_DELIVERIES = 1024;
+
+    /**
+     * Returns the SMSC session attached to the MINA session, attaching a new one if the session does not have one yet.
+     * <p>
+     * The SMSC session is created once per connection and lives as long as the connection does, so that the session
+     * lock, the sequence counter and the bind state are shared by all the events of the connection.
+     * 
+     * @param session
+     *            the MINA session
+     * @param context
+     *            the server context
+     * @return the SMSC session of the connection
+     */
+    public static DefaultSmscIoSession attach(IoSession session, SmscServerContext context) {
+        DefaultSmscIoSession smscSession = (DefaultSmscIoSession) session
+                .getAttribute(DefaultSmscIoSession.ATTRIBUTE_SMSC_SESSION);
+
+        if (smscSession == null) {
+            smscSession = new DefaultSmscIoSession(session, context);
+
+            DefaultSmscIoSession existing = (DefaultSmscIoSession) session.setAttributeIfAbsent(
+                    DefaultSmscIoSession.ATTRIBUTE_SMSC_SESSION, smscSession);
+            if (existing != null) {
+                smscSession = existing;
+            }
+        }
+
+        return smscSession;
+    }
 
     private final IoSession wrappedSession;
     private final SmscServerContext serverContext;
-    private SmscRequest request;
-    private final ReentrantLock lock;
-
+    private final UUID sessionId;
+    private final SocketAddress remoteAddress;
+    private final ReentrantLock lock = new ReentrantLock();
     private final AtomicInteger sequenceNumber = new AtomicInteger();
+    private final AtomicInteger failedBinds = new AtomicInteger();
+    private final DefaultSmscSession smscletSession;
+    private final SessionRequestPipeline requestPipeline;
+    private final AtomicIntegerArray pendingSequences = new AtomicIntegerArray(
+            DefaultSmscIoSession.MAX_PENDING_DELIVERIES);
+    private final AtomicLongArray pendingSendTimes = new AtomicLongArray(DefaultSmscIoSession.MAX_PENDING_DELIVERIES);
+    private final AtomicInteger pendingCount = new AtomicInteger();
+
+    private volatile User user;
+    private volatile long bindTime;
+    private volatile long lastAccessTime;
+    private volatile Listener listener;
+    private volatile int maxIdleTime;
+    private volatile long enquireLinkTime;
+    private final AtomicReference<SessionCloseReason> closeReason = new AtomicReference<SessionCloseReason>();
 
     public DefaultSmscIoSession(IoSession wrappedSession, SmscServerContext context) {
         this.wrappedSession = wrappedSession;
         this.serverContext = context;
 
-        this.lock = new ReentrantLock();
+        this.sessionId = DefaultSmscIoSession.SESSION_ID_GENERATOR.next();
+        // when closing a socket, the remote address might be reset to null
+        // therefore, we keep the address of the peer as of the session creation
+        this.remoteAddress = wrappedSession.getRemoteAddress();
+
+        this.smscletSession = new DefaultSmscSession(this);
+        this.requestPipeline = new SessionRequestPipeline(context.getConnectionConfig().getRequestWindowSize());
+    }
+
+    /**
+     * Records the send time of a deliver_sm request so that the round trip time can be measured when its response is
+     * received.
+     * <p>
+     * The requests are kept in a ring indexed by the sequence number, so the request
+     * {@link #MAX_PENDING_DELIVERIES} sequence numbers later takes over the slot of a request whose response never
+     * arrived.
+     * 
+     * @param sequenceNum
+     *            the sequence number of the request
+     * @param sendTime
+     *            the send time as returned by {@link System#nanoTime()}
+     */
+    public void addPendingDelivery(int sequenceNum, long sendTime) {
+        int slot = sequenceNum & (DefaultSmscIoSession.MAX_PENDING_DELIVERIES - 1);
+
+        this.pendingSequences.set(slot, sequenceNum);
+        if (this.pendingSendTimes.getAndSet(slot, sendTime) == 0) {
+            this.pendingCount.incrementAndGet();
+        }
     }
 
     public void clearUser() {
         DefaultSmscStatistics statistics = (DefaultSmscStatistics) this.serverContext.getSmscStatistics();
         statistics.setUnbind(this);
-        this.setAttribute(DefaultSmscIoSession.ATTRIBUTE_USER, null);
+        ((DefaultSessionRegistry) this.serverContext.getSessionRegistry()).unregister(this);
+        this.user = null;
+        this.bindTime = 0;
         this.serverContext.getDeliveryManager().closeBoundSession(this);
     }
 
@@ -109,6 +187,20 @@ public class DefaultSmscIoSession implements SmscIoSession {
         return this.wrappedSession.close(immediately);
     }
 
+    /**
+     * Closes the session after the pending writes are flushed, recording the reason. Only the first reason is
+     * recorded.
+     * 
+     * @param reason
+     *            the reason of the close
+     * @return the close future
+     */
+    public CloseFuture close(SessionCloseReason reason) {
+        this.setCloseReason(reason);
+
+        return this.wrappedSession.close(false);
+    }
+
     /**
      * {@inheritDoc}
      * 
@@ -151,7 +243,18 @@ public class DefaultSmscIoSession implements SmscIoSession {
     }
 
     public Date getBindTime() {
-        return (Date) this.getAttribute(DefaultSmscIoSession.ATTRIBUTE_BIND_TIME);
+        long bindTime = this.bindTime;
+
+        return (bindTime != 0) ? new Date(bindTime) : null;
+    }
+
+    /**
+     * Returns the bind time of the session.
+     * 
+     * @return the bind time in milliseconds, 0 if the session is not bound
+     */
+    public long getBindTimeMillis() {
+        return this.bindTime;
     }
 
     /**
@@ -183,6 +286,17 @@ public class DefaultSmscIoSession implements SmscIoSession {
 
     }
 
+    /**
+     * Returns the reason the session has been closed for.
+     * 
+     * @return the reason of the close, {@link SessionCloseReason#DISCONNECTED} if none was recorded
+     */
+    public SessionCloseReason getCloseReason() {
+        SessionCloseReason reason = this.closeReason.get();
+
+        return (reason != null) ? reason : SessionCloseReason.DISCONNECTED;
+    }
+
     /**
      * {@inheritDoc}
      * 
@@ -223,8 +337,17 @@ public class DefaultSmscIoSession implements SmscIoSession {
         return this.wrappedSession.getCurrentWriteRequest();
     }
 
+    /**
+     * Returns the time the last server initiated enquire_link was sent.
+     * 
+     * @return the time in milliseconds, 0 if none has been sent
+     */
+    public long getEnquireLinkTime() {
+        return this.enquireLinkTime;
+    }
+
     public int getFailedBinds() {
-        return (Integer) this.getAttribute(DefaultSmscIoSession.ATTRIBUTE_FAILED_BINDS, 0);
+        return this.failedBinds.get();
     }
 
     /**
@@ -260,7 +383,18 @@ public class DefaultSmscIoSession implements SmscIoSession {
     }
 
     public Date getLastAccessTime() {
-        return (Date) this.getAttribute(DefaultSmscIoSession.ATTRIBUTE_LAST_ACCESS_TIME);
+        long lastAccessTime = this.lastAccessTime;
+
+        return (lastAccessTime != 0) ? new Date(lastAccessTime) : null;
+    }
+
+    /**
+     * Returns the last time a request was received on the session.
+     * 
+     * @return the last access time in milliseconds, 0 if there has been no access yet
+     */
+    public long getLastAccessTimeMillis() {
+        return this.lastAccessTime;
     }
 
     /**
@@ -320,7 +454,7 @@ public class DefaultSmscIoSession implements SmscIoSession {
     }
 
     public Listener getListener() {
-        return (Listener) this.getAttribute(DefaultSmscIoSession.ATTRIBUTE_LISTENER);
+        return this.listener;
     }
 
     /**
@@ -332,7 +466,7 @@ public class DefaultSmscIoSession implements SmscIoSession {
     }
 
     public int getMaxIdleTime() {
-        return (Integer) this.getAttribute(DefaultSmscIoSession.ATTRIBUTE_MAX_IDLE_TIME, 0);
+        return this.maxIdleTime;
     }
 
     /**
@@ -343,6 +477,15 @@ public class DefaultSmscIoSession implements SmscIoSession {
         return this.sequenceNumber.incrementAndGet();
     }
 
+    /**
+     * Returns the number of deliver_sm requests awaiting response.
+     * 
+     * @return the number of deliver_sm requests awaiting response
+     */
+    public int getPendingDeliveryCount() {
+        return this.pendingCount.get();
+    }
+
     /**
      * {@inheritDoc}
      * 
@@ -388,16 +531,16 @@ public class DefaultSmscIoSession implements SmscIoSession {
      * 
      */
     public SocketAddress getRemoteAddress() {
-        // when closing a socket, the remote address might be reset to null
-        // therefore, we attempt to keep a cached copy around
+        return this.remoteAddress;
+    }
 
-        SocketAddress address = this.wrappedSession.getRemoteAddress();
-        if ((address == null) && this.containsAttribute(DefaultSmscIoSession.ATTRIBUTE_CACHED_REMOTE_ADDRESS)) {
-            return (SocketAddress) this.getAttribute(DefaultSmscIoSession.ATTRIBUTE_CACHED_REMOTE_ADDRESS);
-        } else {
-            this.setAttribute(DefaultSmscIoSession.ATTRIBUTE_CACHED_REMOTE_ADDRESS, address);
-            return address;
-        }
+    /**
+     * Returns the pipeline that keeps track of the requests in progress on this session.
+     * 
+     * @return the request pipeline
+     */
+    public SessionRequestPipeline getRequestPipeline() {
+        return this.requestPipeline;
     }
 
     /**
@@ -433,19 +576,16 @@ public class DefaultSmscIoSession implements SmscIoSession {
     }
 
     /**
-     * @return
+     * Returns the unique identifier of the session, assigned when the session is created.
+     * 
+     * @return the unique identifier of the session
      */
     public UUID getSessionId() {
-        synchronized (this.wrappedSession) {
-            if (!this.wrappedSession.containsAttribute(DefaultSmscIoSession.ATTRIBUTE_SESSION_ID)) {
-                this.wrappedSession.setAttribute(DefaultSmscIoSession.ATTRIBUTE_SESSION_ID, UUID.randomUUID());
-            }
-            return (UUID) this.wrappedSession.getAttribute(DefaultSmscIoSession.ATTRIBUTE_SESSION_ID);
-        }
+        return this.sessionId;
     }
 
     public SmscSession getSmscletSession() {
-        return new DefaultSmscSession(this);
+        return this.smscletSession;
     }
 
     /**
@@ -457,7 +597,7 @@ public class DefaultSmscIoSession implements SmscIoSession {
     }
 
     public User getUser() {
-        return (User) this.getAttribute(DefaultSmscIoSession.ATTRIBUTE_USER);
+        return this.user;
     }
 
     /**
@@ -508,10 +648,8 @@ public class DefaultSmscIoSession implements SmscIoSession {
         return this.wrappedSession.getWrittenMessagesThroughput();
     }
 
-    public synchronized void increaseFailedBinds() {
-        int failedBinds = (Integer) this.getAttribute(DefaultSmscIoSession.ATTRIBUTE_FAILED_BINDS, 0);
-        failedBinds++;
-        this.setAttribute(DefaultSmscIoSession.ATTRIBUTE_FAILED_BINDS, failedBinds);
+    public void increaseFailedBinds() {
+        this.failedBinds.incrementAndGet();
     }
 
     /**
@@ -551,7 +689,7 @@ public class DefaultSmscIoSession implements SmscIoSession {
      * Is bound
      */
     public boolean isBound() {
-        return this.containsAttribute(DefaultSmscIoSession.ATTRIBUTE_USER);
+        return this.user != null;
     }
 
     /**
@@ -623,7 +761,7 @@ public class DefaultSmscIoSession implements SmscIoSession {
      * {@inheritDoc}
      * 
      */
-    public synchronized boolean lock() {
+    public boolean lock() {
         long timeout = this.serverContext.getSessionLockTimeout();
 
         try {
@@ -643,8 +781,9 @@ public class DefaultSmscIoSession implements SmscIoSession {
 
     public void reinitialize() {
         this.unbindUser();
-        this.removeAttribute(DefaultSmscIoSession.ATTRIBUTE_USER);
-        this.removeAttribute(DefaultSmscIoSession.ATTRIBUTE_BIND_TIME);
+        ((DefaultSessionRegistry) this.serverContext.getSessionRegistry()).unregister(this);
+        this.user = null;
+        this.bindTime = 0;
     }
 
     /**
@@ -663,6 +802,27 @@ public class DefaultSmscIoSession implements SmscIoSession {
         return this.wrappedSession.removeAttribute(key, value);
     }
 
+    /**
+     * Removes the deliver_sm request awaiting response.
+     * 
+     * @param sequenceNum
+     *            the sequence number of the request
+     * @return the send time of the request, 0 if the request is not tracked
+     */
+    public long removePendingDelivery(int sequenceNum) {
+        int slot = sequenceNum & (DefaultSmscIoSession.MAX_PENDING_DELIVERIES - 1);
+        if (this.pendingSequences.get(slot) != sequenceNum) {
+            return 0;
+        }
+
+        long sendTime = this.pendingSendTimes.getAndSet(slot, 0);
+        if (sendTime != 0) {
+            this.pendingCount.decrementAndGet();
+        }
+
+        return sendTime;
+    }
+
     /**
      * {@inheritDoc}
      * 
@@ -728,6 +888,17 @@ public class DefaultSmscIoSession implements SmscIoSession {
         return this.wrappedSession.setAttributeIfAbsent(key, value);
     }
 
+    /**
+     * Records the reason of a close about to be requested, so that a client closing the session first does not record
+     * it as disconnected. Only the first reason is recorded.
+     * 
+     * @param reason
+     *            the reason of the close
+     */
+    public void setCloseReason(SessionCloseReason reason) {
+        this.closeReason.compareAndSet(null, reason);
+    }
+
     /**
      * {@inheritDoc}
      * 
@@ -736,12 +907,22 @@ public class DefaultSmscIoSession implements SmscIoSession {
         this.wrappedSession.setCurrentWriteRequest(currentWriteRequest);
     }
 
+    /**
+     * Sets the time the last server initiated enquire_link was sent.
+     * 
+     * @param enquireLinkTime
+     *            the time in milliseconds
+     */
+    public void setEnquireLinkTime(long enquireLinkTime) {
+        this.enquireLinkTime = enquireLinkTime;
+    }
+
     public void setListener(Listener listener) {
-        this.setAttribute(DefaultSmscIoSession.ATTRIBUTE_LISTENER, listener);
+        this.listener = listener;
     }
 
     public void setMaxIdleTime(int maxIdleTime) {
-        this.setAttribute(DefaultSmscIoSession.ATTRIBUTE_MAX_IDLE_TIME, maxIdleTime);
+        this.maxIdleTime = maxIdleTime;
 
         int listenerTimeout = this.getListener().getIdleTimeout();
 
@@ -754,18 +935,10 @@ public class DefaultSmscIoSession implements SmscIoSession {
         }
     }
 
-    public void setRequest(SmscRequest request) {
-        if (this.request != null) {
-            throw new SmscRuntimeException("SmscIOSession " + this.wrappedSession.getId()
-                    + " already bound to the request " + this.request.getId());
-        }
-
-        this.request = request;
-    }
-
     public void setUser(User user, boolean receiver) {
         DefaultSmscStatistics statistics = (DefaultSmscStatistics) this.serverContext.getSmscStatistics();
-        this.setAttribute(DefaultSmscIoSession.ATTRIBUTE_USER, user);
+        this.user = user;
+        this.bindTime = System.currentTimeMillis();
         statistics.setBind(this);
 
         if (receiver) {
@@ -816,13 +989,12 @@ public class DefaultSmscIoSession implements SmscIoSession {
         }
     }
 
-    public synchronized void unlock() {
+    public void unlock() {
         this.lock.unlock();
     }
 
     public void updateLastAccessTime() {
-        this.setAttribute(DefaultSmscIoSession.ATTRIBUTE_LAST_ACCESS_TIME, new Date());
-
+        this.lastAccessTime = System.currentTimeMillis();
     }
 
     /**
@@ -838,10 +1010,6 @@ public class DefaultSmscIoSession implements SmscIoSession {
      * 
      */
     public WriteFuture write(Object message) {
-        if (this.request == null) {
-            throw new SmscRuntimeException("Illegal write from unbound SmscIOSession " + this.wrappedSession.getId());
-        }
-
         return this.wrappedSession.write(message);
     }
 
@@ -850,10 +1018,6 @@ public class DefaultSmscIoSession implements SmscIoSession {
      * 
      */
     public WriteFuture write(Object message, SocketAddress destination) {
-        if (this.request == null) {
-            throw new SmscRuntimeException("Illegal write from unbound SmscIOSession " + this.wrappedSession.getId());
-        }
-
         return this.wrappedSession.write(message, destination);
     }
 }
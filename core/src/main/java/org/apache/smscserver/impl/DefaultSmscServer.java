@@ -28,7 +28,9 @@ import org.apache.smscserver.SmscServer;
 import org.apache.smscserver.SmscServerContext;
 import org.apache.smscserver.SmscServerFactory;
 import org.apache.smscserver.command.CommandFactory;
+import org.apache.smscserver.jmx.impl.MBeanExporter;
 import org.apache.smscserver.listener.Listener;
+import org.apache.smscserver.metrics.MetricsEndpoint;
 import org.apache.smscserver.smsclet.SmscException;
 import org.apache.smscserver.smsclet.Smsclet;
 import org.apache.smscserver.smsclet.UserManager;
@@ -48,6 +50,8 @@ public class DefaultSmscServer implements SmscServer {
     private static final Logger LOG = LoggerFactory.getLogger(DefaultSmscServer.class);
 
     private SmscServerContext serverContext;
+    private MBeanExporter mbeanExporter;
+    private MetricsEndpoint metricsEndpoint;
     private boolean suspended = false;
     private boolean started = false;
 
@@ -67,6 +71,15 @@ public class DefaultSmscServer implements SmscServer {
         return this.getServerContext().getCommandFactory();
     }
 
+    /**
+     * Returns the metrics endpoint of the server.
+     * 
+     * @return the metrics endpoint, null if not enabled or the server is not started
+     */
+    public MetricsEndpoint getMetricsEndpoint() {
+        return this.metricsEndpoint;
+    }
+
     /**
      * Get the root server context.
      */
@@ -141,6 +154,9 @@ public class DefaultSmscServer implements SmscServer {
         List<Listener> startedListeners = new ArrayList<Listener>();
 
         try {
+            // init the Smsclet container before any session can reach it
+            this.serverContext.getSmscletContainer().init(this.serverContext);
+
             DeliveryManager deliveryManager = this.serverContext.getDeliveryManager();
             deliveryManager.start();
 
@@ -152,11 +168,16 @@ public class DefaultSmscServer implements SmscServer {
                 startedListeners.add(listener);
             }
 
-            // init the Smsclet container
-            this.serverContext.getSmscletContainer().init(this.serverContext);
+            if (this.serverContext.getMetricsConfig().isEnabled()) {
+                this.metricsEndpoint = new MetricsEndpoint(this.serverContext);
+                this.metricsEndpoint.start();
+            }
 
             this.started = true;
 
+            this.mbeanExporter = new MBeanExporter(this, this.serverContext);
+            this.mbeanExporter.export();
+
             DefaultSmscServer.LOG.info("SMSC server started");
         } catch (Exception e) {
             // must close listeners that we were able to start
@@ -183,6 +204,16 @@ public class DefaultSmscServer implements SmscServer {
             return;
         }
 
+        if (this.mbeanExporter != null) {
+            this.mbeanExporter.unexport();
+            this.mbeanExporter = null;
+        }
+
+        if (this.metricsEndpoint != null) {
+            this.metricsEndpoint.stop();
+            this.metricsEndpoint = null;
+        }
+
         this.serverContext.getDeliveryManager().destroy();
         this.serverContext.setDeliveryManager(null);
 
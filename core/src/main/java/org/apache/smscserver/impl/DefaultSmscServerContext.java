@@ -23,24 +23,37 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.mina.filter.executor.OrderedThreadPoolExecutor;
+import org.apache.smscserver.BanConfig;
+import org.apache.smscserver.BanConfigFactory;
 import org.apache.smscserver.ConnectionConfig;
 import org.apache.smscserver.ConnectionConfigFactory;
 import org.apache.smscserver.DeliveryManager;
 import org.apache.smscserver.DeliveryManagerConfig;
 import org.apache.smscserver.DeliveryManagerConfigFactory;
+import org.apache.smscserver.MetricsConfig;
+import org.apache.smscserver.MetricsConfigFactory;
+import org.apache.smscserver.ServerSmscStatistics;
 import org.apache.smscserver.SmscServerContext;
 import org.apache.smscserver.command.CommandFactory;
 import org.apache.smscserver.command.CommandFactoryFactory;
+import org.apache.smscserver.ipfilter.BanFilter;
 import org.apache.smscserver.listener.Listener;
 import org.apache.smscserver.listener.ListenerFactory;
 import org.apache.smscserver.message.DBMessageManagerFactory;
 import org.apache.smscserver.message.impl.DefaultDeliveryManager;
+import org.apache.smscserver.message.impl.TimedMessageManager;
 import org.apache.smscserver.smsclet.Authority;
 import org.apache.smscserver.smsclet.MessageManager;
+import org.apache.smscserver.smsclet.SessionRegistry;
 import org.apache.smscserver.smsclet.SmscStatistics;
 import org.apache.smscserver.smsclet.Smsclet;
 import org.apache.smscserver.smsclet.UserManager;
@@ -48,6 +61,7 @@ import org.apache.smscserver.smscletcontainer.SmscletContainer;
 import org.apache.smscserver.smscletcontainer.impl.DefaultSmscletContainer;
 import org.apache.smscserver.usermanager.PropertiesUserManagerFactory;
 import org.apache.smscserver.usermanager.impl.BaseUser;
+import org.apache.smscserver.usermanager.impl.PropertiesUserManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -69,6 +83,7 @@ public class DefaultSmscServerContext implements SmscServerContext {
     private static final long DEFAULT_SESSION_LOCK_TIMEOUT = 1000;
 
     private MessageManager messageManager = null;
+    private TimedMessageManager timedMessageManager = null;
     private UserManager userManager = new PropertiesUserManagerFactory(DefaultSmscServerContext.SMSC_HOME)
             .createUserManager();
 
@@ -77,10 +92,12 @@ public class DefaultSmscServerContext implements SmscServerContext {
 
     private SmscStatistics statistics = new DefaultSmscStatistics();
 
+    private BanConfig banConfig = new BanConfigFactory().createBanConfig();
     private CommandFactory commandFactory = null;
     private ConnectionConfig connectionConfig = new ConnectionConfigFactory().createConnectionConfig();
     private DeliveryManagerConfig deliveryManagerConfig = new DeliveryManagerConfigFactory()
             .createDeliveryManagerConfig();
+    private MetricsConfig metricsConfig = new MetricsConfigFactory().createMetricsConfig();
     private long sessionLockTimeout = DefaultSmscServerContext.DEFAULT_SESSION_LOCK_TIMEOUT;
     private Map<String, Listener> listeners = new HashMap<String, Listener>();
 
@@ -89,6 +106,22 @@ public class DefaultSmscServerContext implements SmscServerContext {
      */
     private ThreadPoolExecutor threadPoolExecutor = null;
 
+    /**
+     * The executor processing the requests running concurrently on a session
+     */
+    private ThreadPoolExecutor requestExecutor = null;
+
+    /**
+     * The executor authenticating the bind requests
+     */
+    private ThreadPoolExecutor authExecutor = null;
+
+    private BindFailureTracker bindFailureTracker = null;
+
+    private BanFilter banFilter = null;
+
+    private final DefaultSessionRegistry sessionRegistry = new DefaultSessionRegistry();
+
     public DefaultSmscServerContext() {
         this.listeners.put("default", new ListenerFactory().createListener());
     }
@@ -124,7 +157,29 @@ public class DefaultSmscServerContext implements SmscServerContext {
      */
     public void dispose() {
         this.listeners.clear();
+        if (this.statistics instanceof ServerSmscStatistics) {
+            ((ServerSmscStatistics) this.statistics).dispose();
+        }
         this.smscletContainer.getSmsclets().clear();
+        if (this.userManager instanceof PropertiesUserManager) {
+            // stops watching the users file
+            ((PropertiesUserManager) this.userManager).dispose();
+        }
+        this.banFilter = null;
+        if (this.bindFailureTracker != null) {
+            this.bindFailureTracker.dispose();
+            this.bindFailureTracker = null;
+        }
+        if (this.authExecutor != null) {
+            DefaultSmscServerContext.LOG.debug("Shutting down the authentication executor");
+            this.authExecutor.shutdown();
+            this.authExecutor = null;
+        }
+        if (this.requestExecutor != null) {
+            DefaultSmscServerContext.LOG.debug("Shutting down the request executor");
+            this.requestExecutor.shutdown();
+            this.requestExecutor = null;
+        }
         if (this.threadPoolExecutor != null) {
             DefaultSmscServerContext.LOG.debug("Shutting down the thread pool executor");
             this.threadPoolExecutor.shutdown();
@@ -140,6 +195,67 @@ public class DefaultSmscServerContext implements SmscServerContext {
         }
     }
 
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    public synchronized ExecutorService getAuthExecutor() {
+        if (this.authExecutor == null) {
+            int threads = Math.max(1, this.connectionConfig.getAuthThreads());
+            int queueSize = Math.max(1, this.connectionConfig.getAuthQueueSize());
+
+            ThreadFactory threadFactory = new ThreadFactory() {
+
+                private final AtomicInteger i = new AtomicInteger();
+
+                public Thread newThread(Runnable r) {
+                    return new Thread(r, "Auth-Executor-" + this.i.getAndIncrement());
+                }
+            };
+
+            // bounded, a bind storm is throttled rather than queued without limit
+            DefaultSmscServerContext.LOG.debug("Intializing authentication executor with {} threads", threads);
+            this.authExecutor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<Runnable>(queueSize), threadFactory);
+        }
+
+        return this.authExecutor;
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    public BanConfig getBanConfig() {
+        return this.banConfig;
+    }
+
+    /**
+     * Returns the filter banning the addresses failing to bind, disposed with the context.
+     * 
+     * @return the ban filter, null if the bans are disabled
+     */
+    public synchronized BanFilter getBanFilter() {
+        if ((this.banFilter == null) && this.banConfig.isEnabled()) {
+            this.banFilter = new BanFilter(this.banConfig);
+        }
+
+        return this.banFilter;
+    }
+
+    /**
+     * Returns the tracker enforcing the bind failure delay, disposed with the context.
+     * 
+     * @return the bind failure tracker
+     */
+    public synchronized BindFailureTracker getBindFailureTracker() {
+        if (this.bindFailureTracker == null) {
+            this.bindFailureTracker = new BindFailureTracker(this.connectionConfig);
+        }
+
+        return this.bindFailureTracker;
+    }
+
     /**
      * {@inheritDoc}
      * 
@@ -214,7 +330,53 @@ public class DefaultSmscServerContext implements SmscServerContext {
             }
         }
 
-        return this.messageManager;
+        // time the operations of the message manager
+        TimedMessageManager timedMessageManager = this.timedMessageManager;
+        if ((timedMessageManager == null) || (timedMessageManager.getDelegate() != this.messageManager)) {
+            timedMessageManager = new TimedMessageManager(this.messageManager, this);
+            this.timedMessageManager = timedMessageManager;
+        }
+
+        return timedMessageManager;
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    public MetricsConfig getMetricsConfig() {
+        return this.metricsConfig;
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    public synchronized ExecutorService getRequestExecutor() {
+        if (this.requestExecutor == null) {
+            int threads = this.connectionConfig.getMaxThreads();
+            if (threads < 1) {
+                threads = 16;
+            }
+
+            ThreadFactory threadFactory = new ThreadFactory() {
+
+                private final AtomicInteger i = new AtomicInteger();
+
+                public Thread newThread(Runnable r) {
+                    return new Thread(r, "Request-Executor-" + this.i.getAndIncrement());
+                }
+            };
+
+            // bounded, requests beyond the queue are throttled rather than piling up behind a slow message store
+            int queueSize = Math.max(1, this.connectionConfig.getRequestQueueSize());
+
+            DefaultSmscServerContext.LOG.debug("Intializing request executor with {} threads", threads);
+            this.requestExecutor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<Runnable>(queueSize), threadFactory);
+        }
+
+        return this.requestExecutor;
     }
 
     /**
@@ -225,6 +387,14 @@ public class DefaultSmscServerContext implements SmscServerContext {
         return this.sessionLockTimeout;
     }
 
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    public SessionRegistry getSessionRegistry() {
+        return this.sessionRegistry;
+    }
+
     /**
      * {@inheritDoc}
      * 
@@ -290,7 +460,11 @@ public class DefaultSmscServerContext implements SmscServerContext {
     public void info() {
         DefaultSmscServerContext.LOG.info("Using {} as the connection configuration", this.getConnectionConfig()
                 .getClass().getCanonicalName());
-        DefaultSmscServerContext.LOG.info("Using {} as the message manager", this.getMessageManager().getClass()
+        MessageManager messageManager = this.getMessageManager();
+        if (messageManager instanceof TimedMessageManager) {
+            messageManager = ((TimedMessageManager) messageManager).getDelegate();
+        }
+        DefaultSmscServerContext.LOG.info("Using {} as the message manager", messageManager.getClass()
                 .getCanonicalName());
         DefaultSmscServerContext.LOG.info("Using {} as the message delivery configuration", this
                 .getMessageDeliveryManagerConfig().getClass().getCanonicalName());
@@ -306,6 +480,10 @@ public class DefaultSmscServerContext implements SmscServerContext {
         return this.listeners.remove(name);
     }
 
+    public void setBanConfig(BanConfig banConfig) {
+        this.banConfig = banConfig;
+    }
+
     public void setCommandFactory(CommandFactory commandFactory) {
         this.commandFactory = commandFactory;
     }
@@ -339,6 +517,10 @@ public class DefaultSmscServerContext implements SmscServerContext {
         this.messageManager = messageManager;
     }
 
+    public void setMetricsConfig(MetricsConfig metricsConfig) {
+        this.metricsConfig = metricsConfig;
+    }
+
     /**
      * @param sessionLockTimeout
      *            the sessionLockTimeout to set
@@ -22,76 +22,289 @@ package org.apache.smscserver.impl;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.util.Date;
-import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import org.apache.smscserver.MessageObserver;
+import org.apache.smscserver.ObserverConfig;
 import org.apache.smscserver.ServerSmscStatistics;
+import org.apache.smscserver.SessionCloseReason;
 import org.apache.smscserver.StatisticsObserver;
+import org.apache.smscserver.smsclet.LatencySnapshot;
+import org.apache.smscserver.smsclet.RateCounter;
 import org.apache.smscserver.smsclet.SmscIoSession;
 import org.apache.smscserver.smsclet.SmscReply;
 import org.apache.smscserver.smsclet.SmscRequest;
+import org.apache.smscserver.smsclet.SmscStatistics;
 import org.apache.smscserver.smsclet.User;
+import org.apache.smscserver.util.LatencyHistogram;
+import org.apache.smscserver.util.RateSeries;
+import org.apache.smscserver.util.StripedCounter;
 
 /**
  * <strong>Internal class, do not use directly.</strong>
  * 
  * This is SMSC statistics implementation.
  * 
- * TODO revisit concurrency, right now we're a bit over zealous with both Atomic* counters and synchronization
+ * None of the methods lock. The cumulative counters are {@link StripedCounter}s so that the threads processing
+ * requests do not contend on them, the current values are plain atomics as they are updated at connection rate only.
+ * Observers are notified on the thread of an {@link ObserverDispatcher}, created when the first observer is registered.
+ * <p>
+ * Latencies are recorded into {@link LatencyHistogram}s created on first use, per command, per message manager
+ * operation and, if enabled, per user and command.
+ * <p>
+ * The {@link RateCounter} events are also counted per second and per minute into {@link RateSeries} rings, so that
+ * recent rates can be queried without taking deltas of the totals.
  * 
  * @author hceylan
  */
 public class DefaultSmscStatistics implements ServerSmscStatistics {
 
-    private static class UserBindss {
-        private final Map<InetAddress, AtomicInteger> perAddress = new ConcurrentHashMap<InetAddress, AtomicInteger>();
+    private static class CommandLatencies {
 
-        public AtomicInteger totalBinds;
+        private final AtomicReferenceArray<LatencyHistogram> histograms = //
+        new AtomicReferenceArray<LatencyHistogram>(DefaultSmscStatistics.COMMAND_TABLE_SIZE);
 
-        public UserBindss(InetAddress address) {
-            // init with the first connection
-            this.totalBinds = new AtomicInteger(1);
-            this.perAddress.put(address, new AtomicInteger(1));
+        private LatencyHistogram get(int commandId) {
+            if ((commandId < 0) || (commandId >= DefaultSmscStatistics.COMMAND_TABLE_SIZE)) {
+                return null;
+            }
+
+            LatencyHistogram histogram = this.histograms.get(commandId);
+            if (histogram == null) {
+                this.histograms.compareAndSet(commandId, null, new LatencyHistogram());
+                histogram = this.histograms.get(commandId);
+            }
+
+            return histogram;
+        }
+
+        private void reset() {
+            for (int i = 0; i < this.histograms.length(); i++) {
+                LatencyHistogram histogram = this.histograms.get(i);
+                if (histogram != null) {
+                    histogram.reset();
+                }
+            }
+        }
+
+        private LatencySnapshot snapshot(int commandId) {
+            if ((commandId < 0) || (commandId >= DefaultSmscStatistics.COMMAND_TABLE_SIZE)) {
+                return LatencySnapshot.EMPTY;
+            }
+
+            LatencyHistogram histogram = this.histograms.get(commandId);
+
+            return (histogram != null) ? histogram.snapshot() : LatencySnapshot.EMPTY;
+        }
+    }
+
+    /**
+     * The bind slot reserved by a session, bound when the bind is counted and released once when the session unbinds
+     * or closes.
+     */
+    private static class BindSlot {
+
+        private static final int RESERVED = 0;
+
+        private static final int BOUND = 1;
+
+        private static final int RELEASED = 2;
+
+        private final UserBinds userBinds;
+
+        private final InetAddress address;
+
+        private final AtomicInteger addressBinds;
+
+        private final AtomicInteger state = new AtomicInteger(BindSlot.RESERVED);
+
+        private BindSlot(UserBinds userBinds, InetAddress address, AtomicInteger addressBinds) {
+            this.userBinds = userBinds;
+            this.address = address;
+            this.addressBinds = addressBinds;
+        }
+    }
+
+    /**
+     * The binds of a user. The counters are set to {@link DefaultSmscStatistics#REMOVED} when they drop to zero and
+     * their entries are removed, a bind finding a removed counter takes a new entry.
+     */
+    private static class UserBinds {
+
+        private final String name;
+
+        private final ConcurrentMap<InetAddress, AtomicInteger> perAddress = //
+        new ConcurrentHashMap<InetAddress, AtomicInteger>();
+
+        private final AtomicInteger totalBinds = new AtomicInteger(0);
+
+        private UserBinds(String name) {
+            this.name = name;
         }
 
-        public AtomicInteger bindsFromInetAddress(InetAddress address) {
+        private AtomicInteger bindsFromInetAddress(InetAddress address) {
             AtomicInteger binds = this.perAddress.get(address);
             if (binds == null) {
-                binds = new AtomicInteger(0);
-                this.perAddress.put(address, binds);
+                AtomicInteger created = new AtomicInteger(0);
+                binds = this.perAddress.putIfAbsent(address, created);
+                if (binds == null) {
+                    binds = created;
+                }
             }
+
             return binds;
         }
     }
 
-    private StatisticsObserver observer = null;
+    public static final String BIND_NUMBER = "bind_number";
+
+    private static final String ATTRIBUTE_BIND_SLOT = SmscIoSession.ATTRIBUTE_PREFIX + "bind-slot";
+
+    private static final int REMOVED = -1;
+
+    private static final int COMMAND_TABLE_SIZE = 0x200;
+
+    /**
+     * Decrements the counter, marking it removed if it drops to zero.
+     * 
+     * @return true if the counter is to be removed from its table
+     */
+    private static boolean decrement(final AtomicInteger counter) {
+        return (counter.decrementAndGet() == 0) && counter.compareAndSet(0, DefaultSmscStatistics.REMOVED);
+    }
+
+    private static InetAddress getAddress(final SmscIoSession session) {
+        if (session.getRemoteAddress() instanceof InetSocketAddress) {
+            return ((InetSocketAddress) session.getRemoteAddress()).getAddress();
+        }
+
+        return null;
+    }
+
+    /**
+     * Increments the counter unless it has reached the maximum or has been removed.
+     * 
+     * @return true if incremented, false if the maximum has been reached or the counter has been removed
+     */
+    private static boolean increment(final AtomicInteger counter, final int max) {
+        while (true) {
+            int current = counter.get();
+            if ((current == DefaultSmscStatistics.REMOVED) || ((max > 0) && (current >= max))) {
+                return false;
+            }
+
+            if (counter.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private volatile ObserverConfig observerConfig = new DefaultObserverConfig();
 
-    private MessageObserver messageObserver = null;
+    private final AtomicReference<ObserverDispatcher> dispatcher = new AtomicReference<ObserverDispatcher>();
 
-    private Date startTime = new Date();
+    private volatile boolean disposed = false;
 
-    private final AtomicInteger messageReceivedCount = new AtomicInteger(0);
+    private volatile Date startTime = new Date();
 
-    private final AtomicInteger messageSentCount = new AtomicInteger(0);
+    private final StripedCounter messageReceivedCount = new StripedCounter();
+
+    private final StripedCounter messageSentCount = new StripedCounter();
 
     private final AtomicInteger currBinds = new AtomicInteger(0);
 
-    private final AtomicInteger totalBinds = new AtomicInteger(0);
+    private final StripedCounter totalBinds = new StripedCounter();
 
-    private final AtomicInteger totalFailedBinds = new AtomicInteger(0);
+    private final StripedCounter totalFailedBinds = new StripedCounter();
 
     private final AtomicInteger currConnections = new AtomicInteger(0);
 
-    private final AtomicInteger totalConnections = new AtomicInteger(0);
+    private final StripedCounter totalConnections = new StripedCounter();
+
+    private final StripedCounter[] totalClosedConnections = new StripedCounter[SessionCloseReason.values().length];
+
+    private final CommandLatencies commandLatencies = new CommandLatencies();
+
+    private final ConcurrentMap<String, CommandLatencies> userCommandLatencies = //
+    new ConcurrentHashMap<String, CommandLatencies>();
+
+    private final ConcurrentMap<String, LatencyHistogram> messageManagerLatencies = //
+    new ConcurrentHashMap<String, LatencyHistogram>();
+
+    private final LatencyHistogram deliverRoundTripLatency = new LatencyHistogram();
+
+    private volatile boolean userLatencyEnabled = false;
+
+    private final RateSeries[] perSecond = new RateSeries[RateCounter.values().length];
+
+    private final RateSeries[] perMinute = new RateSeries[RateCounter.values().length];
 
     /**
      * The user bind information.
      */
-    private final Map<String, UserBindss> userBindTable = new ConcurrentHashMap<String, UserBindss>();
+    private final ConcurrentMap<String, UserBinds> userBindTable = new ConcurrentHashMap<String, UserBinds>();
 
-    public static final String BIND_NUMBER = "bind_number";
+    public DefaultSmscStatistics() {
+        for (int i = 0; i < this.totalClosedConnections.length; i++) {
+            this.totalClosedConnections[i] = new StripedCounter();
+        }
+
+        for (int i = 0; i < this.perSecond.length; i++) {
+            this.perSecond[i] = new RateSeries(SmscStatistics.RATE_SECONDS, 1000);
+            this.perMinute[i] = new RateSeries(SmscStatistics.RATE_MINUTES, 60 * 1000);
+        }
+    }
+
+    private void count(final RateCounter counter) {
+        long now = System.currentTimeMillis();
+
+        this.perSecond[counter.ordinal()].increment(now);
+        this.perMinute[counter.ordinal()].increment(now);
+    }
+
+    /**
+     * Add an observer notified in addition to the one set with {@link #setObserver(StatisticsObserver)}.
+     */
+    public void addObserver(final StatisticsObserver observer) {
+        ObserverDispatcher dispatcher = this.getDispatcher();
+        if (dispatcher != null) {
+            dispatcher.addStatisticsObserver(observer);
+        }
+    }
+
+    /**
+     * Stop the observer dispatcher, the observers set afterwards are ignored.
+     */
+    public void dispose() {
+        this.disposed = true;
+
+        ObserverDispatcher dispatcher = this.dispatcher.getAndSet(null);
+        if (dispatcher != null) {
+            dispatcher.stop();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    public LatencySnapshot getCommandLatency(final int commandId) {
+        return this.commandLatencies.snapshot(commandId);
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    public LatencySnapshot getCommandLatency(final String systemId, final int commandId) {
+        CommandLatencies latencies = this.userCommandLatencies.get(systemId);
+
+        return (latencies != null) ? latencies.snapshot(commandId) : LatencySnapshot.EMPTY;
+    }
 
     /**
      * Get current number of binds.
@@ -110,12 +323,10 @@ public class DefaultSmscStatistics implements ServerSmscStatistics {
     /**
      * Get the bind number for the specific user
      */
-    public synchronized int getCurrentUserBindNumber(final User user) {
-        if (this.userBindTable.get(user.getName()) == null) {// not found the bind user's statistics info
-            return 0;
-        } else {
-            return this.userBindTable.get(user.getName()).totalBinds.get();
-        }
+    public int getCurrentUserBindNumber(final User user) {
+        UserBinds userBinds = this.userBindTable.get(user.getName());
+
+        return (userBinds != null) ? Math.max(0, userBinds.totalBinds.get()) : 0;
     }
 
     /**
@@ -126,20 +337,110 @@ public class DefaultSmscStatistics implements ServerSmscStatistics {
      * @param ipAddress
      *            the ip address of the remote user
      */
-    public synchronized int getCurrentUserBindNumber(final User user, final InetAddress ipAddress) {
-        if (this.userBindTable.get(user.getName()) == null) {// not found the bind user's statistics info
+    public int getCurrentUserBindNumber(final User user, final InetAddress ipAddress) {
+        UserBinds userBinds = this.userBindTable.get(user.getName());
+        if ((userBinds == null) || (ipAddress == null)) {
             return 0;
-        } else {
-            return this.userBindTable.get(user.getName()).bindsFromInetAddress(ipAddress).get();
         }
+
+        AtomicInteger binds = userBinds.perAddress.get(ipAddress);
+
+        return (binds != null) ? Math.max(0, binds.get()) : 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    public LatencySnapshot getDeliverRoundTripLatency() {
+        return this.deliverRoundTripLatency.snapshot();
+    }
+
+    /**
+     * Returns the observer dispatcher, starting it on first use.
+     * 
+     * @return the observer dispatcher, null if disposed
+     */
+    private ObserverDispatcher getDispatcher() {
+        ObserverDispatcher dispatcher = this.dispatcher.get();
+        if ((dispatcher == null) && !this.disposed) {
+            ObserverDispatcher created = new ObserverDispatcher(this.observerConfig);
+            if (this.dispatcher.compareAndSet(null, created)) {
+                created.start();
+
+                // a dispose racing with the start did not see the dispatcher, stop it here
+                if (this.disposed && this.dispatcher.compareAndSet(created, null)) {
+                    created.stop();
+                }
+            }
+
+            dispatcher = this.dispatcher.get();
+        }
+
+        return dispatcher;
+    }
+
+    /**
+     * Get the number of observer events dropped as the dispatcher queue was full.
+     */
+    public long getDroppedObserverEventCount() {
+        ObserverDispatcher dispatcher = this.dispatcher.get();
+
+        return (dispatcher != null) ? dispatcher.getDroppedCount() : 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    public LatencySnapshot getMessageManagerLatency(final String operation) {
+        LatencyHistogram histogram = this.messageManagerLatencies.get(operation);
+
+        return (histogram != null) ? histogram.snapshot() : LatencySnapshot.EMPTY;
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    public long[] getPerMinuteCounts(final RateCounter counter) {
+        return this.perMinute[counter.ordinal()].counts(System.currentTimeMillis());
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    public long[] getPerSecondCounts(final RateCounter counter) {
+        return this.perSecond[counter.ordinal()].counts(System.currentTimeMillis());
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    public double getRecentRate(final RateCounter counter, final int seconds) {
+        if (seconds <= 0) {
+            return 0;
+        }
+
+        long now = System.currentTimeMillis();
+        if (seconds <= SmscStatistics.RATE_SECONDS) {
+            return (double) this.perSecond[counter.ordinal()].sum(now, seconds) / seconds;
+        }
+
+        int minutes = Math.min((seconds + 59) / 60, SmscStatistics.RATE_MINUTES);
+
+        return (double) this.perMinute[counter.ordinal()].sum(now, minutes) / (minutes * 60);
     }
 
     /**
      * Get server start time.
      */
     public Date getStartTime() {
-        if (this.startTime != null) {
-            return (Date) this.startTime.clone();
+        Date startTime = this.startTime;
+        if (startTime != null) {
+            return (Date) startTime.clone();
         } else {
             return null;
         }
@@ -148,244 +449,399 @@ public class DefaultSmscStatistics implements ServerSmscStatistics {
     /**
      * Get total number of binds.
      */
-    public int getTotalBindNumber() {
-        return this.totalBinds.get();
+    public long getTotalBindNumber() {
+        return this.totalBinds.sum();
+    }
+
+    /**
+     * Get the number of connections closed for the reason.
+     */
+    public long getTotalClosedConnectionNumber(final SessionCloseReason reason) {
+        return this.totalClosedConnections[reason.ordinal()].sum();
     }
 
     /**
      * Get total number of connections.
      */
-    public int getTotalConnectionNumber() {
-        return this.totalConnections.get();
+    public long getTotalConnectionNumber() {
+        return this.totalConnections.sum();
     }
 
     /**
      * Get total failed bind number.
      */
-    public int getTotalFailedBindNumber() {
-        return this.totalFailedBinds.get();
+    public long getTotalFailedBindNumber() {
+        return this.totalFailedBinds.sum();
     }
 
     /**
      * Get number of messages received.
      */
-    public int getTotalMessageReceivedNumber() {
-        return this.messageReceivedCount.get();
+    public long getTotalMessageReceivedNumber() {
+        return this.messageReceivedCount.sum();
     }
 
     /**
      * Get number of messages sent.
      */
-    public int getTotalMessageSentNumber() {
-        return this.messageReceivedCount.get();
+    public long getTotalMessageSentNumber() {
+        return this.messageSentCount.sum();
     }
 
     /**
-     * Observer bind notification.
+     * Gives back the slot of the session, removing the user and address entries left without binds.
+     * 
+     * @return true if the slot had been counted as a bind
      */
-    private void notifyBind(final SmscIoSession session) {
-        if (this.observer != null) {
-            this.observer.notifyBind();
+    private boolean release(final BindSlot slot) {
+        int state = slot.state.getAndSet(BindSlot.RELEASED);
+        if (state == BindSlot.RELEASED) {
+            return false;
         }
+
+        if ((slot.addressBinds != null) && DefaultSmscStatistics.decrement(slot.addressBinds)) {
+            slot.userBinds.perAddress.remove(slot.address, slot.addressBinds);
+        }
+
+        if (DefaultSmscStatistics.decrement(slot.userBinds.totalBinds)) {
+            this.userBindTable.remove(slot.userBinds.name, slot.userBinds);
+        }
+
+        if (state == BindSlot.BOUND) {
+            this.currBinds.decrementAndGet();
+
+            return true;
+        }
+
+        return false;
     }
 
     /**
-     * Observer failed bind notification.
+     * {@inheritDoc}
+     * 
      */
-    private void notifyBindFail(final SmscIoSession session) {
-        StatisticsObserver observer = this.observer;
-        if (observer != null) {
-            if (session.getRemoteAddress() instanceof InetSocketAddress) {
-                observer.notifyBindFail(((InetSocketAddress) session.getRemoteAddress()).getAddress());
+    public boolean reserveBind(final SmscIoSession session, final User user, final int maxBinds,
+            final int maxBindsPerIP) {
+        String name = user.getName();
+        UserBinds userBinds;
+        while (true) {
+            userBinds = this.userBindTable.get(name);
+            if (userBinds == null) {
+                UserBinds created = new UserBinds(name);
+                userBinds = this.userBindTable.putIfAbsent(name, created);
+                if (userBinds == null) {
+                    userBinds = created;
+                }
+            }
+
+            if (DefaultSmscStatistics.increment(userBinds.totalBinds, maxBinds)) {
+                break;
+            }
 
+            if (userBinds.totalBinds.get() != DefaultSmscStatistics.REMOVED) {
+                return false;
             }
+
+            // the last bind of the user has just been released, help remove the entry and take a new one
+            this.userBindTable.remove(name, userBinds);
         }
+
+        AtomicInteger addressBinds = null;
+        InetAddress address = DefaultSmscStatistics.getAddress(session);
+        if (address != null) {
+            while (true) {
+                addressBinds = userBinds.bindsFromInetAddress(address);
+                if (DefaultSmscStatistics.increment(addressBinds, maxBindsPerIP)) {
+                    break;
+                }
+
+                if (addressBinds.get() != DefaultSmscStatistics.REMOVED) {
+                    if (DefaultSmscStatistics.decrement(userBinds.totalBinds)) {
+                        this.userBindTable.remove(name, userBinds);
+                    }
+
+                    return false;
+                }
+
+                userBinds.perAddress.remove(address, addressBinds);
+            }
+        }
+
+        // a previous reservation of the session is given back
+        BindSlot previous = (BindSlot) session.setAttribute(DefaultSmscStatistics.ATTRIBUTE_BIND_SLOT, new BindSlot(
+                userBinds, address, addressBinds));
+        if (previous != null) {
+            this.release(previous);
+        }
+
+        return true;
     }
 
     /**
-     * Observer close connection notification.
+     * Remove an observer added with {@link #addObserver(StatisticsObserver)}.
      */
-    private void notifyCloseConnection(final SmscIoSession session) {
-        if (this.observer != null) {
-            this.observer.notifyCloseConnection();
+    public void removeObserver(final StatisticsObserver observer) {
+        ObserverDispatcher dispatcher = this.dispatcher.get();
+        if (dispatcher != null) {
+            dispatcher.removeStatisticsObserver(observer);
         }
     }
 
     /**
-     * Observer message received notification.
+     * Reset the latency histograms.
      */
-    private void notifyMessageReceived(final SmscIoSession session, final SmscRequest request) {
-        if (this.observer != null) {
-            this.observer.notifyMessageReceived();
-        }
+    public void resetLatencyHistograms() {
+        this.commandLatencies.reset();
+        this.userCommandLatencies.clear();
+        this.deliverRoundTripLatency.reset();
 
-        if (this.messageObserver != null) {
-            this.messageObserver.notifyMessageReceived(session, request);
+        for (LatencyHistogram histogram : this.messageManagerLatencies.values()) {
+            histogram.reset();
         }
     }
 
     /**
-     * Observer message sent notification.
+     * Reset the cumulative counters, the rates and the latency histograms.
      */
-    private void notifyMessageSent(final SmscIoSession session, final SmscReply reply) {
-        if (this.observer != null) {
-            this.observer.notifyMessageSent();
+    public void resetStatisticsCounters() {
+        this.startTime = new Date();
+
+        this.messageReceivedCount.reset();
+        this.messageSentCount.reset();
+
+        this.totalBinds.reset();
+        this.totalFailedBinds.reset();
+        this.totalConnections.reset();
+
+        for (StripedCounter closedConnections : this.totalClosedConnections) {
+            closedConnections.reset();
         }
 
-        if (this.messageObserver != null) {
-            this.messageObserver.notifyMessageSent(session, reply);
+        for (int i = 0; i < this.perSecond.length; i++) {
+            this.perSecond[i].reset();
+            this.perMinute[i].reset();
         }
+
+        this.resetLatencyHistograms();
     }
 
     /**
-     * Observer open connection notification.
+     * New bind. A session closed while authenticating is not counted, its reserved slot is given back.
      */
-    private void notifyOpenConnection(final SmscIoSession session) {
-        if (this.observer != null) {
-            this.observer.notifyOpenConnection();
+    public void setBind(final SmscIoSession session) {
+        // the slot is normally reserved while authenticating, take one unconditionally otherwise
+        BindSlot slot = (BindSlot) session.getAttribute(DefaultSmscStatistics.ATTRIBUTE_BIND_SLOT);
+        if (slot == null) {
+            this.reserveBind(session, session.getUser(), 0, 0);
+            slot = (BindSlot) session.getAttribute(DefaultSmscStatistics.ATTRIBUTE_BIND_SLOT);
+        }
+
+        // a close racing with the bind either releases the slot before it is bound, or finds it bound and unbinds it
+        this.currBinds.incrementAndGet();
+        if (session.isClosing() || !session.isConnected()
+                || !slot.state.compareAndSet(BindSlot.RESERVED, BindSlot.BOUND)) {
+            this.currBinds.decrementAndGet();
+            this.release(slot);
+
+            return;
+        }
+
+        this.totalBinds.increment();
+        this.count(RateCounter.BIND);
+
+        ObserverDispatcher dispatcher = this.dispatcher.get();
+        if (dispatcher != null) {
+            dispatcher.notifyBind(DefaultSmscStatistics.getAddress(session));
         }
     }
 
     /**
-     * Observer unbind notification.
+     * Increment failed bind count.
      */
-    private void notifyUnbind(final SmscIoSession session) {
-        if (this.observer != null) {
-            this.observer.notifyUnbind();
+    public void setBindFail(final SmscIoSession session) {
+        this.totalFailedBinds.increment();
+
+        ObserverDispatcher dispatcher = this.dispatcher.get();
+        InetAddress address = DefaultSmscStatistics.getAddress(session);
+        if ((dispatcher != null) && (address != null)) {
+            dispatcher.notifyBindFail(address);
         }
     }
 
     /**
-     * Reset the cumulative counters.
+     * Record the execution latency of a command.
      */
-    public synchronized void resetStatisticsCounters() {
-        this.startTime = new Date();
+    public void setCommandLatency(final SmscIoSession session, final int commandId, final long latencyNanos) {
+        LatencyHistogram histogram = this.commandLatencies.get(commandId);
+        if (histogram == null) {
+            return;
+        }
 
-        this.messageReceivedCount.set(0);
-        this.messageSentCount.set(0);
+        histogram.recordNanos(latencyNanos);
+
+        User user = session.getUser();
+        if (this.userLatencyEnabled && (user != null)) {
+            CommandLatencies latencies = this.userCommandLatencies.get(user.getName());
+            if (latencies == null) {
+                CommandLatencies created = new CommandLatencies();
+                latencies = this.userCommandLatencies.putIfAbsent(user.getName(), created);
+                if (latencies == null) {
+                    latencies = created;
+                }
+            }
 
-        this.totalBinds.set(0);
-        this.totalFailedBinds.set(0);
-        this.totalConnections.set(0);
+            latencies.get(commandId).recordNanos(latencyNanos);
+        }
     }
 
     /**
-     * New bind.
+     * Decrement open connection count.
      */
-    public synchronized void setBind(final SmscIoSession session) {
-        this.currBinds.incrementAndGet();
-        this.totalBinds.incrementAndGet();
-        User user = session.getUser();
-
-        synchronized (user) {// thread safety is needed. Since the bind occurs
-            // at low frequency, this overhead is endurable
-            UserBindss statisticsTable = this.userBindTable.get(user.getName());
-            if (statisticsTable == null) {
-                // the hash table that records the bind information of the user
-                // and its ip address.
+    public void setCloseConnection(final SmscIoSession session, final SessionCloseReason reason) {
+        int connections = this.currConnections.get();
+        while ((connections > 0) && !this.currConnections.compareAndSet(connections, connections - 1)) {
+            connections = this.currConnections.get();
+        }
 
-                InetAddress address = null;
-                if (session.getRemoteAddress() instanceof InetSocketAddress) {
-                    address = ((InetSocketAddress) session.getRemoteAddress()).getAddress();
-                }
-                statisticsTable = new UserBindss(address);
-                this.userBindTable.put(user.getName(), statisticsTable);
-            } else {
-                statisticsTable.totalBinds.incrementAndGet();
-
-                if (session.getRemoteAddress() instanceof InetSocketAddress) {
-                    InetAddress address = ((InetSocketAddress) session.getRemoteAddress()).getAddress();
-                    statisticsTable.bindsFromInetAddress(address).incrementAndGet();
-                }
+        this.totalClosedConnections[reason.ordinal()].increment();
 
-            }
+        ObserverDispatcher dispatcher = this.dispatcher.get();
+        if (dispatcher != null) {
+            dispatcher.notifyCloseConnection();
         }
+    }
 
-        this.notifyBind(session);
+    /**
+     * Record the round trip time of a deliver_sm request.
+     */
+    public void setDeliverRoundTrip(final SmscIoSession session, final long latencyNanos) {
+        this.deliverRoundTripLatency.recordNanos(latencyNanos);
     }
 
     /**
-     * Increment failed bind count.
+     * Count a delivered short message.
      */
-    public synchronized void setBindFail(final SmscIoSession session) {
-        this.totalFailedBinds.incrementAndGet();
-        this.notifyBindFail(session);
+    public void setMessageDelivered(final SmscIoSession session) {
+        this.count(RateCounter.DELIVERY);
     }
 
     /**
-     * Decrement open connection count.
+     * Count an expired short message.
      */
-    public synchronized void setCloseConnection(final SmscIoSession session) {
-        if (this.currConnections.get() > 0) {
-            this.currConnections.decrementAndGet();
+    public void setMessageExpired(final SmscIoSession session) {
+        this.count(RateCounter.EXPIRY);
+    }
+
+    /**
+     * Record the latency of a message manager operation.
+     */
+    public void setMessageManagerLatency(final String operation, final long latencyNanos) {
+        LatencyHistogram histogram = this.messageManagerLatencies.get(operation);
+        if (histogram == null) {
+            LatencyHistogram created = new LatencyHistogram();
+            histogram = this.messageManagerLatencies.putIfAbsent(operation, created);
+            if (histogram == null) {
+                histogram = created;
+            }
         }
-        this.notifyCloseConnection(session);
+
+        histogram.recordNanos(latencyNanos);
     }
 
     /**
      * Set the message observer.
      */
     public void setMessageObserver(final MessageObserver observer) {
-        this.messageObserver = observer;
+        ObserverDispatcher dispatcher = this.getDispatcher();
+        if (dispatcher != null) {
+            dispatcher.setMessageObserver(observer);
+        }
     }
 
     /**
      * Increment message received count.
      */
-    public synchronized void setMessageReceived(final SmscIoSession session, final SmscRequest request) {
-        this.messageReceivedCount.incrementAndGet();
-        this.notifyMessageReceived(session, request);
+    public void setMessageReceived(final SmscIoSession session, final SmscRequest request) {
+        this.messageReceivedCount.increment();
+        this.count(RateCounter.MESSAGE_RECEIVED);
+
+        ObserverDispatcher dispatcher = this.dispatcher.get();
+        if (dispatcher != null) {
+            dispatcher.notifyMessageReceived(session, request);
+        }
     }
 
     /**
-     * Increment download count.
+     * Increment message sent count.
      */
-    public synchronized void setMessageSent(final SmscIoSession session, final SmscReply reply) {
-        this.messageSentCount.incrementAndGet();
-        this.notifyMessageSent(session, reply);
+    public void setMessageSent(final SmscIoSession session, final SmscReply reply) {
+        this.messageSentCount.increment();
+        this.count(RateCounter.MESSAGE_SENT);
+
+        ObserverDispatcher dispatcher = this.dispatcher.get();
+        if (dispatcher != null) {
+            dispatcher.notifyMessageSent(session, reply);
+        }
     }
 
     /**
      * Set the observer.
      */
     public void setObserver(final StatisticsObserver observer) {
-        this.observer = observer;
+        ObserverDispatcher dispatcher = this.getDispatcher();
+        if (dispatcher != null) {
+            dispatcher.setStatisticsObserver(observer);
+        }
+    }
+
+    /**
+     * Set the configuration of the observer dispatcher, effective if set before the first observer.
+     */
+    public void setObserverConfig(final ObserverConfig observerConfig) {
+        this.observerConfig = observerConfig;
     }
 
     /**
      * Increment open connection count.
      */
-    public synchronized void setOpenConnection(final SmscIoSession session) {
+    public void setOpenConnection(final SmscIoSession session) {
         this.currConnections.incrementAndGet();
-        this.totalConnections.incrementAndGet();
-        this.notifyOpenConnection(session);
+        this.totalConnections.increment();
+
+        ObserverDispatcher dispatcher = this.dispatcher.get();
+        if (dispatcher != null) {
+            dispatcher.notifyOpenConnection();
+        }
+    }
+
+    /**
+     * Count a short message that could not be stored.
+     */
+    public void setSubmitFail(final SmscIoSession session) {
+        this.count(RateCounter.SUBMIT_FAILED);
+    }
+
+    /**
+     * Enable or disable the per user latency histograms.
+     */
+    public void setUserLatencyEnabled(final boolean userLatencyEnabled) {
+        this.userLatencyEnabled = userLatencyEnabled;
     }
 
     /**
      * User unbind
      */
-    public synchronized void setUnbind(final SmscIoSession session) {
-        User user = session.getUser();
-        if (user == null) {
+    public void setUnbind(final SmscIoSession session) {
+        // the slot may have been reserved by a session closed before completing the bind, or released already
+        BindSlot slot = (BindSlot) session.removeAttribute(DefaultSmscStatistics.ATTRIBUTE_BIND_SLOT);
+        if ((slot == null) || !this.release(slot)) {
             return;
         }
 
-        this.currBinds.decrementAndGet();
-
-        synchronized (user) {
-            UserBindss userBinds = this.userBindTable.get(user.getName());
-
-            if (userBinds != null) {
-                userBinds.totalBinds.decrementAndGet();
-                if (session.getRemoteAddress() instanceof InetSocketAddress) {
-                    InetAddress address = ((InetSocketAddress) session.getRemoteAddress()).getAddress();
-                    userBinds.bindsFromInetAddress(address).decrementAndGet();
-                }
-            }
-
+        ObserverDispatcher dispatcher = this.dispatcher.get();
+        if (dispatcher != null) {
+            dispatcher.notifyUnbind();
         }
-
-        this.notifyUnbind(session);
     }
 
 }
@@ -0,0 +1,503 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.smscserver.impl;
+
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.smscserver.MessageObserver;
+import org.apache.smscserver.ObserverConfig;
+import org.apache.smscserver.ObserverOverflowPolicy;
+import org.apache.smscserver.StatisticsObserver;
+import org.apache.smscserver.smsclet.SmscIoSession;
+import org.apache.smscserver.smsclet.SmscPacket;
+import org.apache.smscserver.smsclet.SmscReply;
+import org.apache.smscserver.smsclet.SmscRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <strong>Internal class, do not use directly.</strong>
+ * 
+ * Passes the statistics events to the {@link StatisticsObserver} and the {@link MessageObserver} on a thread of its
+ * own, so that a slow observer does not hold up the threads processing the requests.
+ * <p>
+ * The events are queued in a bounded ring of preallocated slots, each guarded by a sequence number, publishing an
+ * event is a compare and set on the tail and does not allocate. When the ring is full the
+ * {@link ObserverOverflowPolicy} decides between dropping the oldest event and waiting for room. The dispatcher thread
+ * drains up to a batch of events at a time and passes them to the observers in a row, parking only when the ring is
+ * empty.
+ * 
+ * @author hceylan
+ */
+public class ObserverDispatcher {
+
+    private static final class Event {
+
+        private int type;
+
+        private SmscIoSession session;
+
+        private SmscPacket packet;
+
+        private InetAddress address;
+
+        private void clear() {
+            this.session = null;
+            this.packet = null;
+            this.address = null;
+        }
+
+        private void copy(Event event) {
+            this.type = event.type;
+            this.session = event.session;
+            this.packet = event.packet;
+            this.address = event.address;
+        }
+    }
+
+    private static final Logger LOG = LoggerFactory.getLogger(ObserverDispatcher.class);
+
+    private static final int BIND = 0;
+
+    private static final int BIND_FAIL = 1;
+
+    private static final int CLOSE_CONNECTION = 2;
+
+    private static final int MESSAGE_RECEIVED = 3;
+
+    private static final int MESSAGE_SENT = 4;
+
+    private static final int OPEN_CONNECTION = 5;
+
+    private static final int UNBIND = 6;
+
+    private static final int MAX_QUEUE_SIZE = 1 << 30;
+
+    /**
+     * The longest the dispatcher thread parks, bounds the delay of a wake up that raced with parking.
+     */
+    private static final long PARK_NANOS = 10 * 1000 * 1000;
+
+    /**
+     * The time a blocked publisher waits before checking the ring again.
+     */
+    private static final long BLOCK_NANOS = 100 * 1000;
+
+    private static void dispatch(Event event, StatisticsObserver observer) {
+        switch (event.type) {
+        case ObserverDispatcher.BIND:
+            observer.notifyBind(event.address);
+            break;
+        case ObserverDispatcher.BIND_FAIL:
+            observer.notifyBindFail(event.address);
+            break;
+        case ObserverDispatcher.CLOSE_CONNECTION:
+            observer.notifyCloseConnection();
+            break;
+        case ObserverDispatcher.MESSAGE_RECEIVED:
+            observer.notifyMessageReceived();
+            break;
+        case ObserverDispatcher.MESSAGE_SENT:
+            observer.notifyMessageSent();
+            break;
+        case ObserverDispatcher.OPEN_CONNECTION:
+            observer.notifyOpenConnection();
+            break;
+        default:
+            observer.notifyUnbind();
+        }
+    }
+
+    private final ObserverOverflowPolicy overflowPolicy;
+
+    private final int mask;
+
+    private final Event[] events;
+
+    private final AtomicLongArray sequences;
+
+    private final AtomicLong head = new AtomicLong();
+
+    private final AtomicLong tail = new AtomicLong();
+
+    private final AtomicLong dropped = new AtomicLong();
+
+    private final Event[] batch;
+
+    /**
+     * The observer set with {@link #setStatisticsObserver(StatisticsObserver)}, guarded by this
+     */
+    private StatisticsObserver statisticsObserver;
+
+    /**
+     * The observers added with {@link #addStatisticsObserver(StatisticsObserver)}, guarded by this
+     */
+    private final List<StatisticsObserver> addedObservers = new ArrayList<StatisticsObserver>();
+
+    /**
+     * All the statistics observers, rebuilt when an observer is set, added or removed
+     */
+    private volatile StatisticsObserver[] statisticsObservers = new StatisticsObserver[0];
+
+    private volatile MessageObserver messageObserver;
+
+    private volatile boolean running = false;
+
+    private volatile boolean parked = false;
+
+    private Thread thread;
+
+    public ObserverDispatcher(ObserverConfig config) {
+        int capacity = 1;
+        while ((capacity < config.getQueueSize()) && (capacity < ObserverDispatcher.MAX_QUEUE_SIZE)) {
+            capacity <<= 1;
+        }
+
+        this.overflowPolicy = config.getOverflowPolicy();
+        this.mask = capacity - 1;
+        this.events = new Event[capacity];
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            this.events[i] = new Event();
+            this.sequences.set(i, i);
+        }
+
+        this.batch = new Event[Math.max(1, config.getBatchSize())];
+        for (int i = 0; i < this.batch.length; i++) {
+            this.batch[i] = new Event();
+        }
+    }
+
+    /**
+     * Adds a statistics observer notified in addition to the one set with
+     * {@link #setStatisticsObserver(StatisticsObserver)}.
+     */
+    public synchronized void addStatisticsObserver(StatisticsObserver statisticsObserver) {
+        this.addedObservers.add(statisticsObserver);
+
+        this.updateStatisticsObservers();
+    }
+
+    private void dispatch(Event event) {
+        for (StatisticsObserver observer : this.statisticsObservers) {
+            try {
+                ObserverDispatcher.dispatch(event, observer);
+            } catch (RuntimeException e) {
+                ObserverDispatcher.LOG.warn("Observer failed to process the event", e);
+            }
+        }
+
+        MessageObserver messageObserver = this.messageObserver;
+        if (messageObserver == null) {
+            return;
+        }
+
+        try {
+            if (event.type == ObserverDispatcher.MESSAGE_RECEIVED) {
+                messageObserver.notifyMessageReceived(event.session, (SmscRequest) event.packet);
+            } else if (event.type == ObserverDispatcher.MESSAGE_SENT) {
+                messageObserver.notifyMessageSent(event.session, (SmscReply) event.packet);
+            }
+        } catch (RuntimeException e) {
+            ObserverDispatcher.LOG.warn("Observer failed to process the event", e);
+        }
+    }
+
+    private void dispatchEvents() {
+        while (this.running) {
+            if (this.drain() == 0) {
+                this.parked = true;
+                // re-check after announcing, a publisher that missed the flag has made the event visible already
+                if (this.running && (this.getQueuedCount() == 0)) {
+                    LockSupport.parkNanos(ObserverDispatcher.PARK_NANOS);
+                }
+                this.parked = false;
+            }
+        }
+
+        // pass on the events queued before the stop
+        while (this.drain() > 0) {
+            continue;
+        }
+    }
+
+    /**
+     * Passes a batch of events to the observers.
+     * 
+     * @return the number of events passed
+     */
+    private int drain() {
+        int count = 0;
+        while ((count < this.batch.length) && this.poll(this.batch[count])) {
+            count++;
+        }
+
+        for (int i = 0; i < count; i++) {
+            this.dispatch(this.batch[i]);
+            this.batch[i].clear();
+        }
+
+        return count;
+    }
+
+    /**
+     * Returns the number of events dropped since the ring was full.
+     * 
+     * @return the number of events dropped
+     */
+    public long getDroppedCount() {
+        return this.dropped.get();
+    }
+
+    /**
+     * Returns the number of events waiting to be passed to the observers.
+     * 
+     * @return the number of queued events
+     */
+    public int getQueuedCount() {
+        long queued = this.tail.get() - this.head.get();
+
+        return (queued > 0) ? (int) queued : 0;
+    }
+
+    private boolean isObserved(int type) {
+        if (this.statisticsObservers.length > 0) {
+            return true;
+        }
+
+        return ((type == ObserverDispatcher.MESSAGE_RECEIVED) || (type == ObserverDispatcher.MESSAGE_SENT))
+                && (this.messageObserver != null);
+    }
+
+    /**
+     * New user bind notification.
+     */
+    public void notifyBind(InetAddress address) {
+        this.publish(ObserverDispatcher.BIND, null, null, address);
+    }
+
+    /**
+     * Failed user bind notification.
+     */
+    public void notifyBindFail(InetAddress address) {
+        this.publish(ObserverDispatcher.BIND_FAIL, null, null, address);
+    }
+
+    /**
+     * Connection close notification.
+     */
+    public void notifyCloseConnection() {
+        this.publish(ObserverDispatcher.CLOSE_CONNECTION, null, null, null);
+    }
+
+    /**
+     * User message received notification.
+     */
+    public void notifyMessageReceived(SmscIoSession session, SmscRequest request) {
+        this.publish(ObserverDispatcher.MESSAGE_RECEIVED, session, request, null);
+    }
+
+    /**
+     * User message sent notification.
+     */
+    public void notifyMessageSent(SmscIoSession session, SmscReply reply) {
+        this.publish(ObserverDispatcher.MESSAGE_SENT, session, reply, null);
+    }
+
+    /**
+     * Connection open notification.
+     */
+    public void notifyOpenConnection() {
+        this.publish(ObserverDispatcher.OPEN_CONNECTION, null, null, null);
+    }
+
+    /**
+     * User unbind notification.
+     */
+    public void notifyUnbind() {
+        this.publish(ObserverDispatcher.UNBIND, null, null, null);
+    }
+
+    /**
+     * Claims the slot at the tail and fills it.
+     * 
+     * @return false if the ring is full
+     */
+    private boolean offer(int type, SmscIoSession session, SmscPacket packet, InetAddress address) {
+        while (true) {
+            long tail = this.tail.get();
+            int index = (int) (tail & this.mask);
+            long sequence = this.sequences.get(index);
+
+            if (sequence == tail) {
+                if (this.tail.compareAndSet(tail, tail + 1)) {
+                    Event event = this.events[index];
+                    event.type = type;
+                    event.session = session;
+                    event.packet = packet;
+                    event.address = address;
+
+                    this.sequences.set(index, tail + 1);
+
+                    return true;
+                }
+            } else if (sequence < tail) {
+                // the slot has not been consumed since the previous lap
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Takes the event at the head, copying it to the target if not null.
+     * 
+     * @return false if the ring is empty
+     */
+    private boolean poll(Event target) {
+        while (true) {
+            long head = this.head.get();
+            int index = (int) (head & this.mask);
+            long sequence = this.sequences.get(index);
+
+            if (sequence == (head + 1)) {
+                if (this.head.compareAndSet(head, head + 1)) {
+                    Event event = this.events[index];
+                    if (target != null) {
+                        target.copy(event);
+                    }
+                    event.clear();
+
+                    this.sequences.set(index, head + this.mask + 1);
+
+                    return true;
+                }
+            } else if (sequence < (head + 1)) {
+                // the slot has not been published yet
+                return false;
+            }
+        }
+    }
+
+    private void publish(int type, SmscIoSession session, SmscPacket packet, InetAddress address) {
+        if (!this.running || !this.isObserved(type)) {
+            return;
+        }
+
+        while (!this.offer(type, session, packet, address)) {
+            if (this.overflowPolicy == ObserverOverflowPolicy.DROP_OLDEST) {
+                if (this.poll(null)) {
+                    this.dropped.incrementAndGet();
+                }
+            } else {
+                LockSupport.unpark(this.thread);
+                LockSupport.parkNanos(ObserverDispatcher.BLOCK_NANOS);
+
+                if (!this.running) {
+                    return;
+                }
+            }
+        }
+
+        if (this.parked) {
+            LockSupport.unpark(this.thread);
+        }
+    }
+
+    /**
+     * Removes a statistics observer added with {@link #addStatisticsObserver(StatisticsObserver)}.
+     */
+    public synchronized void removeStatisticsObserver(StatisticsObserver statisticsObserver) {
+        this.addedObservers.remove(statisticsObserver);
+
+        this.updateStatisticsObservers();
+    }
+
+    /**
+     * Sets the message observer.
+     */
+    public void setMessageObserver(MessageObserver messageObserver) {
+        this.messageObserver = messageObserver;
+    }
+
+    /**
+     * Sets the statistics observer.
+     */
+    public synchronized void setStatisticsObserver(StatisticsObserver statisticsObserver) {
+        this.statisticsObserver = statisticsObserver;
+
+        this.updateStatisticsObservers();
+    }
+
+    /**
+     * Starts the dispatcher thread.
+     */
+    public synchronized void start() {
+        if (this.running) {
+            return;
+        }
+
+        this.thread = new Thread("SmscServer-Observer") {
+
+            @Override
+            public void run() {
+                ObserverDispatcher.this.dispatchEvents();
+            }
+        };
+        this.thread.setDaemon(true);
+
+        this.running = true;
+        this.thread.start();
+    }
+
+    /**
+     * Stops the dispatcher thread once the queued events have been passed to the observers.
+     */
+    public synchronized void stop() {
+        if (!this.running) {
+            return;
+        }
+
+        this.running = false;
+        LockSupport.unpark(this.thread);
+
+        if (Thread.currentThread() != this.thread) {
+            try {
+                this.thread.join(5000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void updateStatisticsObservers() {
+        List<StatisticsObserver> observers = new ArrayList<StatisticsObserver>();
+        if (this.statisticsObserver != null) {
+            observers.add(this.statisticsObserver);
+        }
+        observers.addAll(this.addedObservers);
+
+        this.statisticsObservers = observers.toArray(new StatisticsObserver[observers.size()]);
+    }
+}
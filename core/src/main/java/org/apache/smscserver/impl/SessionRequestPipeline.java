@@ -0,0 +1,218 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.smscserver.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.apache.smscserver.smsclet.SmscRequest;
+
+/**
+ * <strong>Internal class, do not use directly.</strong>
+ * 
+ * Keeps track of the requests in progress on a session.
+ * <p>
+ * Ordinary requests are admitted concurrently up to the window size. Serial requests, such as bind and unbind, change
+ * the state of the session and are only admitted when nothing else is in progress; requests arriving while a serial
+ * request is pending are queued and released in arrival order once it completes.
+ * <p>
+ * Requests are never rejected. Once the window is full, or as many requests as the window are queued, the caller is
+ * told to suspend reading from the session so that the client is held back by TCP flow control. The caller resumes
+ * reading when {@link #resume()} reports the backlog drained.
+ * 
+ * @author hceylan
+ */
+public class SessionRequestPipeline {
+
+    /**
+     * The outcome of a request admission.
+     */
+    public enum Admission {
+        /**
+         * The request may be processed right away.
+         */
+        ADMITTED,
+
+        /**
+         * The request is queued and will be returned by {@link SessionRequestPipeline#complete(boolean)}.
+         */
+        QUEUED,
+
+        /**
+         * The request is queued like {@link #QUEUED} and the window is full, reading from the session must be suspended
+         * until {@link SessionRequestPipeline#resume()} returns true. Callers suspend and resume reading while holding
+         * the lock of the pipeline, so that a concurrent resume is not overtaken by the suspension.
+         */
+        SUSPEND
+    }
+
+    /**
+     * A queued request along with its ordering constraint.
+     */
+    public static class PendingRequest {
+
+        private final SmscRequest request;
+        private final boolean serial;
+
+        private PendingRequest(SmscRequest request, boolean serial) {
+            this.request = request;
+            this.serial = serial;
+        }
+
+        /**
+         * @return the request
+         */
+        public SmscRequest getRequest() {
+            return this.request;
+        }
+
+        /**
+         * @return true if the request must be processed alone
+         */
+        public boolean isSerial() {
+            return this.serial;
+        }
+    }
+
+    private final int windowSize;
+
+    private final LinkedList<PendingRequest> backlog = new LinkedList<PendingRequest>();
+
+    private int inProgress;
+
+    private boolean serialInProgress;
+
+    private boolean suspended;
+
+    /**
+     * @param windowSize
+     *            the maximum number of requests that can be in progress at a time
+     */
+    public SessionRequestPipeline(int windowSize) {
+        this.windowSize = Math.max(1, windowSize);
+    }
+
+    /**
+     * Admits the request into the pipeline.
+     * 
+     * @param request
+     *            the request
+     * @param serial
+     *            true if the request must be processed alone
+     * @return the admission outcome
+     */
+    public synchronized Admission admit(SmscRequest request, boolean serial) {
+        if (this.serialInProgress || !this.backlog.isEmpty() || (serial && (this.inProgress > 0))
+                || (this.inProgress >= this.windowSize)) {
+            this.backlog.add(new PendingRequest(request, serial));
+
+            if (!this.suspended && ((this.inProgress >= this.windowSize) || (this.backlog.size() >= this.windowSize))) {
+                this.suspended = true;
+
+                return Admission.SUSPEND;
+            }
+
+            return Admission.QUEUED;
+        }
+
+        this.start(serial);
+
+        return Admission.ADMITTED;
+    }
+
+    /**
+     * Marks a request as completed and returns the queued requests that can be processed now. The returned requests
+     * are already accounted as in progress.
+     * 
+     * @param serial
+     *            true if the completed request was a serial one
+     * @return the requests to process, never null
+     */
+    public synchronized List<PendingRequest> complete(boolean serial) {
+        this.inProgress--;
+        if (serial) {
+            this.serialInProgress = false;
+        }
+
+        if (this.backlog.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<PendingRequest> released = new ArrayList<PendingRequest>();
+        while (!this.backlog.isEmpty() && !this.serialInProgress && (this.inProgress < this.windowSize)) {
+            PendingRequest next = this.backlog.getFirst();
+            if (next.isSerial() && (this.inProgress > 0)) {
+                break;
+            }
+
+            this.backlog.removeFirst();
+            this.start(next.isSerial());
+
+            released.add(next);
+        }
+
+        return released;
+    }
+
+    /**
+     * @return the number of requests in progress
+     */
+    public synchronized int getInProgress() {
+        return this.inProgress;
+    }
+
+    /**
+     * @return the number of requests queued
+     */
+    public synchronized int getQueued() {
+        return this.backlog.size();
+    }
+
+    /**
+     * @return true if reading from the session is to be suspended
+     */
+    public synchronized boolean isSuspended() {
+        return this.suspended;
+    }
+
+    /**
+     * Returns true if reading from the session was suspended and may now be resumed, that is the backlog is drained.
+     * Returns true only once per {@link Admission#SUSPEND}.
+     * 
+     * @return true if reading from the session must be resumed
+     */
+    public synchronized boolean resume() {
+        if (this.suspended && this.backlog.isEmpty()) {
+            this.suspended = false;
+
+            return true;
+        }
+
+        return false;
+    }
+
+    private void start(boolean serial) {
+        this.inProgress++;
+        if (serial) {
+            this.serialInProgress = true;
+        }
+    }
+}
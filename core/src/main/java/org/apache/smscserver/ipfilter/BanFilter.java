@@ -0,0 +1,434 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.smscserver.ipfilter;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.security.SecureRandom;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.mina.core.session.IoSession;
+import org.apache.smscserver.BanConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <strong>Internal class, do not use directly.</strong>
+ * 
+ * A <code>SessionFilter</code> temporarily denying the addresses that failed to bind too often.
+ * <p>
+ * The filter is told of the bind failures through {@link #bindFailed(InetAddress)} and counts them per address in
+ * a count-min sketch, a fixed table of counters indexed by several independent hashes of the address. The estimate of
+ * an address is the smallest of its counters, which may overcount on collisions but never undercounts. All the
+ * counters are halved every decay period, so old failures fade out and the memory stays bounded no matter how many
+ * addresses fail. Once the estimate of an address reaches the threshold, the address is banned for the ban period.
+ * <p>
+ * The sketch is sized from the expected number of offenders. A flood of failures from more addresses than that
+ * saturates it, so the exact failure counts of the most recently failing addresses are also kept in a bounded table.
+ * An address is counted exactly while it is in the table, the sketch only vouches for the failures the table has
+ * evicted, and never enough to ban an address on its first failure. The failures of an address are forgotten when it
+ * is banned and when it binds successfully.
+ * <p>
+ * The failures are counted by the thread replying to the bind, straight from the handler rather than through the
+ * statistics observers, whose events may be dropped under load. The connections are checked against the ban table
+ * without locking.
+ * 
+ * @author hceylan
+ */
+public class BanFilter implements SessionFilter {
+
+    private static final Logger LOG = LoggerFactory.getLogger(BanFilter.class);
+
+    private static final int DEPTH = 4;
+
+    private static final int MIN_WIDTH = 1024;
+
+    private static final int MAX_WIDTH = 1 << 20;
+
+    /**
+     * The counters of a row per expected offender, keeps the collisions rare until the offenders outgrow the sketch
+     */
+    private static final int WIDTH_PER_OFFENDER = 8;
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+
+        return h ^ (h >>> 33);
+    }
+
+    private final int threshold;
+
+    private final long banPeriod;
+
+    private final long decayPeriod;
+
+    private final int maxBans;
+
+    private final int[] counters;
+
+    /**
+     * Exact failure counts of the most recently failing addresses, guarded by this
+     */
+    private final Map<InetAddress, Integer> suspects;
+
+    private final int mask;
+
+    /**
+     * Random seed of the hashes, so that the collisions cannot be predicted by the clients
+     */
+    private final long seed = new SecureRandom().nextLong();
+
+    private final Map<InetAddress, Long> bans = new ConcurrentHashMap<InetAddress, Long>();
+
+    private final AtomicLong rejectedConnections = new AtomicLong();
+
+    private final AtomicLong totalBans = new AtomicLong();
+
+    private final AtomicLong droppedBans = new AtomicLong();
+
+    /**
+     * The time the counters were last halved, guarded by this
+     */
+    private long lastDecay = System.currentTimeMillis();
+
+    /**
+     * Creates a new instance of <code>BanFilter</code>.
+     * 
+     * @param config
+     *            the ban configuration
+     */
+    public BanFilter(BanConfig config) {
+        this(config.getThreshold(), config.getBanPeriod() * 1000L, config.getDecayPeriod() * 1000L, config
+                .getMaxBans(), config.getExpectedOffenders());
+    }
+
+    /**
+     * Internal constructor, do not use directly.
+     * 
+     * @param threshold
+     *            the number of bind failures after which an address is banned
+     * @param banPeriod
+     *            the ban period in milliseconds
+     * @param decayPeriod
+     *            the period in milliseconds after which the failure counts are halved
+     * @param maxBans
+     *            the maximum number of addresses banned at the same time
+     * @param expectedOffenders
+     *            the expected number of addresses failing to bind within a decay period
+     */
+    public BanFilter(int threshold, long banPeriod, long decayPeriod, int maxBans, int expectedOffenders) {
+        this.threshold = Math.max(1, threshold);
+        this.banPeriod = banPeriod;
+        this.decayPeriod = Math.max(1, decayPeriod);
+        this.maxBans = Math.max(1, maxBans);
+
+        final int capacity = Math.max(1, expectedOffenders);
+
+        long width = BanFilter.MIN_WIDTH;
+        while ((width < ((long) capacity * BanFilter.WIDTH_PER_OFFENDER)) && (width < BanFilter.MAX_WIDTH)) {
+            width <<= 1;
+        }
+
+        this.mask = (int) width - 1;
+        this.counters = new int[BanFilter.DEPTH * (int) width];
+
+        this.suspects = new LinkedHashMap<InetAddress, Integer>(16, 0.75f, true) {
+
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<InetAddress, Integer> eldest) {
+                return this.size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    public boolean accept(IoSession session) {
+        InetAddress address = ((InetSocketAddress) session.getRemoteAddress()).getAddress();
+
+        Long expires = this.bans.get(address);
+        if (expires == null) {
+            return true;
+        }
+
+        if (expires.longValue() <= System.currentTimeMillis()) {
+            this.bans.remove(address);
+
+            return true;
+        }
+
+        this.rejectedConnections.incrementAndGet();
+
+        if (BanFilter.LOG.isDebugEnabled()) {
+            BanFilter.LOG.debug("Denying connection from {} because it is banned", address);
+        }
+
+        return false;
+    }
+
+    /**
+     * Bans the address for the ban period.
+     * 
+     * @param address
+     *            the address to ban
+     * @return true if the address is banned, false if the ban table is full
+     */
+    public boolean ban(InetAddress address) {
+        long now = System.currentTimeMillis();
+
+        if ((this.bans.size() >= this.maxBans) && !this.bans.containsKey(address)) {
+            this.purge(now);
+
+            if (this.bans.size() >= this.maxBans) {
+                if (this.droppedBans.getAndIncrement() == 0) {
+                    BanFilter.LOG.warn("Ban table is full with {} addresses, further bans are dropped", this.maxBans);
+                }
+
+                return false;
+            }
+        }
+
+        this.bans.put(address, now + this.banPeriod);
+        this.totalBans.incrementAndGet();
+
+        // otherwise the address would be banned again on its first failure after the ban expires
+        this.forget(address);
+
+        BanFilter.LOG.info("Banned {} for {} ms after repeated bind failures", address, this.banPeriod);
+
+        return true;
+    }
+
+    /**
+     * Counts a bind failure of the address, and bans the address once it reaches the threshold.
+     * 
+     * @param address
+     *            the remote address the bind failed from
+     */
+    public void bindFailed(InetAddress address) {
+        if (this.isBanned(address)) {
+            return;
+        }
+
+        if (this.count(address) >= this.threshold) {
+            this.ban(address);
+        }
+    }
+
+    /**
+     * Forgets the bind failures of the address as it bound successfully.
+     * 
+     * @param address
+     *            the remote address
+     */
+    public void bindSucceeded(InetAddress address) {
+        this.forget(address);
+    }
+
+    /**
+     * Removes all the bans.
+     */
+    public void clear() {
+        this.bans.clear();
+    }
+
+    private synchronized int count(InetAddress address) {
+        this.decay(System.currentTimeMillis());
+
+        int[] indexes = this.indexes(address);
+
+        int min = Integer.MAX_VALUE;
+        for (int index : indexes) {
+            min = Math.min(min, this.counters[index]);
+        }
+
+        // conservative update, only the smallest counters are raised which keeps the overcounting low
+        int estimate = (min < Integer.MAX_VALUE) ? min + 1 : min;
+        for (int index : indexes) {
+            if (this.counters[index] < estimate) {
+                this.counters[index] = estimate;
+            }
+        }
+
+        Integer known = this.suspects.get(address);
+
+        int count;
+        if (known != null) {
+            count = known.intValue() + 1;
+        } else {
+            // the estimate may be made of the failures of the colliding addresses, it never bans on its own
+            count = Math.min(estimate, Math.max(1, this.threshold - 1));
+        }
+
+        this.suspects.put(address, count);
+
+        return count;
+    }
+
+    private void decay(long now) {
+        long periods = (now - this.lastDecay) / this.decayPeriod;
+        if (periods <= 0) {
+            return;
+        }
+
+        int shift = (int) Math.min(periods, 31);
+        for (int i = 0; i < this.counters.length; i++) {
+            this.counters[i] >>>= shift;
+        }
+
+        Iterator<Map.Entry<InetAddress, Integer>> i = this.suspects.entrySet().iterator();
+        while (i.hasNext()) {
+            Map.Entry<InetAddress, Integer> entry = i.next();
+
+            int count = entry.getValue().intValue() >>> shift;
+            if (count == 0) {
+                i.remove();
+            } else {
+                entry.setValue(count);
+            }
+        }
+
+        this.lastDecay += periods * this.decayPeriod;
+    }
+
+    /**
+     * Forgets the failures of the address. Its counters are lowered by its exact count, which may undercount the
+     * addresses sharing them but only delays their ban.
+     */
+    private synchronized void forget(InetAddress address) {
+        Integer known = this.suspects.remove(address);
+        if (known == null) {
+            return;
+        }
+
+        for (int index : this.indexes(address)) {
+            this.counters[index] = Math.max(0, this.counters[index] - known.intValue());
+        }
+    }
+
+    /**
+     * Returns the number of addresses currently banned.
+     * 
+     * @return the number of banned addresses
+     */
+    public int getBanCount() {
+        this.purge(System.currentTimeMillis());
+
+        return this.bans.size();
+    }
+
+    /**
+     * Returns the number of bans dropped as the ban table was full.
+     * 
+     * @return the number of dropped bans
+     */
+    public long getDroppedBanCount() {
+        return this.droppedBans.get();
+    }
+
+    /**
+     * Returns the maximum number of addresses banned at the same time.
+     * 
+     * @return the maximum number of bans
+     */
+    public int getMaxBans() {
+        return this.maxBans;
+    }
+
+    /**
+     * Returns the number of connections denied as their address was banned.
+     * 
+     * @return the number of denied connections
+     */
+    public long getRejectedConnectionCount() {
+        return this.rejectedConnections.get();
+    }
+
+    /**
+     * Returns the number of bans since the filter is created.
+     * 
+     * @return the total number of bans
+     */
+    public long getTotalBanCount() {
+        return this.totalBans.get();
+    }
+
+    private int[] indexes(InetAddress address) {
+        byte[] bytes = address.getAddress();
+        long hash = this.seed;
+        for (byte b : bytes) {
+            hash = (hash * 31) + b;
+        }
+
+        long h1 = BanFilter.mix(hash);
+        long h2 = BanFilter.mix(h1) | 1;
+
+        int[] indexes = new int[BanFilter.DEPTH];
+        for (int i = 0; i < BanFilter.DEPTH; i++) {
+            indexes[i] = (i * (this.mask + 1)) + (int) ((h1 + (i * h2)) & this.mask);
+        }
+
+        return indexes;
+    }
+
+    /**
+     * Returns if the address is currently banned.
+     * 
+     * @param address
+     *            the address
+     * @return true if the address is banned, false otherwise
+     */
+    public boolean isBanned(InetAddress address) {
+        Long expires = this.bans.get(address);
+
+        return (expires != null) && (expires.longValue() > System.currentTimeMillis());
+    }
+
+    private void purge(long now) {
+        Iterator<Long> i = this.bans.values().iterator();
+        while (i.hasNext()) {
+            if (i.next().longValue() <= now) {
+                i.remove();
+            }
+        }
+    }
+
+    /**
+     * Lifts the ban of the address.
+     * 
+     * @param address
+     *            the address
+     * @return true if the address was banned, false otherwise
+     */
+    public boolean unban(InetAddress address) {
+        return this.bans.remove(address) != null;
+    }
+}
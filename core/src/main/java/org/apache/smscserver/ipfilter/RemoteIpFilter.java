@@ -23,8 +23,6 @@ import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.net.UnknownHostException;
 import java.util.Collection;
-import java.util.HashSet;
-import java.util.concurrent.CopyOnWriteArraySet;
 
 import org.apache.mina.core.session.IoSession;
 import org.apache.mina.filter.firewall.Subnet;
@@ -33,12 +31,16 @@ import org.slf4j.LoggerFactory;
 
 /**
  * An implementation of the <code>SessionFilter</code> interface, to filter sessions based on the remote IP address.
+ * <p>
+ * The IPv4 and IPv6 subnets are kept in a {@link SubnetTrie}, so matching a connection does not depend on the number
+ * of subnets. Readers use the current trie without locking, the modifications build a new trie and publish it
+ * atomically, {@link #replace(String)} swaps the whole table at once.
  * 
  * @author hceylan
  * 
  */
 
-public class RemoteIpFilter extends CopyOnWriteArraySet<Subnet> implements SessionFilter {
+public class RemoteIpFilter implements SessionFilter {
 
     /**
      * Logger
@@ -46,15 +48,67 @@ public class RemoteIpFilter extends CopyOnWriteArraySet<Subnet> implements Sessi
     Logger LOGGER = LoggerFactory.getLogger(RemoteIpFilter.class);
 
     /**
-     * Serial version UID
+     * Parses the comma, space, tab, CR, LF separated list of IP addresses/CIDRs into a trie.
      */
-    private static final long serialVersionUID = 4887092372700628783L;
+    private static SubnetTrie parse(SubnetTrie trie, String addresses) throws NumberFormatException,
+            UnknownHostException {
+        if (addresses != null) {
+            String[] tokens = addresses.split("[\\s,]+");
+            for (String token : tokens) {
+                if (token.trim().length() > 0) {
+                    trie = RemoteIpFilter.parseSubnet(trie, token);
+                }
+            }
+        }
+
+        return trie;
+    }
+
+    private static SubnetTrie parseSubnet(SubnetTrie trie, String str) throws NumberFormatException,
+            UnknownHostException {
+        // This is required so we do not block loopback address if some one adds
+        // a string with blanks as the InetAddress class assumes loopback
+        // address on a blank string.
+        if (str.trim().length() < 1) {
+            throw new IllegalArgumentException("Invalid IP Address or Subnet: " + str);
+        }
+        String[] tokens = str.split("/");
+        InetAddress address = InetAddress.getByName(tokens[0]);
+        if (tokens.length == 2) {
+            return trie.add(address, Integer.parseInt(tokens[1]));
+        } else {
+            return trie.add(address, address.getAddress().length << 3);
+        }
+    }
+
+    private static SubnetTrie toTrie(SubnetTrie trie, Collection<? extends Subnet> subnets) {
+        for (Subnet subnet : subnets) {
+            trie = RemoteIpFilter.toTrie(trie, subnet);
+        }
+
+        return trie;
+    }
+
+    private static SubnetTrie toTrie(SubnetTrie trie, Subnet subnet) {
+        // Subnet does not expose its prefix, the string form is address/prefix
+        String[] tokens = subnet.toString().split("/");
+        try {
+            return trie.add(InetAddress.getByName(tokens[0]), Integer.parseInt(tokens[1]));
+        } catch (UnknownHostException e) {
+            throw new IllegalArgumentException("Invalid Subnet: " + subnet);
+        }
+    }
 
     /**
      * filter type
      */
     private IpFilterType type = null;
 
+    /**
+     * the subnets, replaced as a whole on every modification
+     */
+    private volatile SubnetTrie subnets = SubnetTrie.EMPTY;
+
     /**
      * Creates a new instance of <code>RemoteIpFilter</code>.
      * 
@@ -62,7 +116,7 @@ public class RemoteIpFilter extends CopyOnWriteArraySet<Subnet> implements Sessi
      *            the filter type
      */
     public RemoteIpFilter(IpFilterType type) {
-        this(type, new HashSet<Subnet>(0));
+        this.type = type;
     }
 
     /**
@@ -74,8 +128,8 @@ public class RemoteIpFilter extends CopyOnWriteArraySet<Subnet> implements Sessi
      *            a collection of <code>Subnet</code>s to filter out/in.
      */
     public RemoteIpFilter(IpFilterType type, Collection<? extends Subnet> collection) {
-        super(collection);
         this.type = type;
+        this.subnets = RemoteIpFilter.toTrie(SubnetTrie.EMPTY, collection);
     }
 
     /**
@@ -91,34 +145,24 @@ public class RemoteIpFilter extends CopyOnWriteArraySet<Subnet> implements Sessi
      *             propagated
      */
     public RemoteIpFilter(IpFilterType type, String addresses) throws NumberFormatException, UnknownHostException {
-        super();
         this.type = type;
-        if (addresses != null) {
-            String[] tokens = addresses.split("[\\s,]+");
-            for (String token : tokens) {
-                if (token.trim().length() > 0) {
-                    this.add(token);
-                }
-            }
-        }
+        this.subnets = RemoteIpFilter.parse(SubnetTrie.EMPTY, addresses);
         if (this.LOGGER.isDebugEnabled()) {
-            this.LOGGER.debug("Created DefaultIpFilter of type {} with the subnets {}", type, this);
+            this.LOGGER.debug("Created DefaultIpFilter of type {} with the subnets {}", type, this.subnets);
         }
     }
 
     public boolean accept(IoSession session) {
         InetAddress address = ((InetSocketAddress) session.getRemoteAddress()).getAddress();
+        SubnetTrie subnets = this.subnets;
         switch (this.type) {
         case ALLOW:
-            for (Subnet subnet : this) {
-                if (subnet.inSubnet(address)) {
-                    if (this.LOGGER.isDebugEnabled()) {
-                        this.LOGGER.debug(
-                                "Allowing connection from {} because it matches with the whitelist subnet {}",
-                                new Object[] { address, subnet });
-                    }
-                    return true;
+            if (subnets.contains(address)) {
+                if (this.LOGGER.isDebugEnabled()) {
+                    this.LOGGER.debug("Allowing connection from {} because it matches with the whitelist subnets",
+                            new Object[] { address });
                 }
+                return true;
             }
             if (this.LOGGER.isDebugEnabled()) {
                 this.LOGGER.debug("Denying connection from {} because it does not match any of the whitelist subnets",
@@ -126,21 +170,19 @@ public class RemoteIpFilter extends CopyOnWriteArraySet<Subnet> implements Sessi
             }
             return false;
         case DENY:
-            if (this.isEmpty()) {
+            if (subnets.isEmpty()) {
                 if (this.LOGGER.isDebugEnabled()) {
                     this.LOGGER.debug("Allowing connection from {} because blacklist is empty",
                             new Object[] { address });
                 }
                 return true;
             }
-            for (Subnet subnet : this) {
-                if (subnet.inSubnet(address)) {
-                    if (this.LOGGER.isDebugEnabled()) {
-                        this.LOGGER.debug("Denying connection from {} because it matches with the blacklist subnet {}",
-                                new Object[] { address, subnet });
-                    }
-                    return false;
+            if (subnets.contains(address)) {
+                if (this.LOGGER.isDebugEnabled()) {
+                    this.LOGGER.debug("Denying connection from {} because it matches with the blacklist subnets",
+                            new Object[] { address });
                 }
+                return false;
             }
             if (this.LOGGER.isDebugEnabled()) {
                 this.LOGGER.debug("Allowing connection from {} because it does not match any of the blacklist subnets",
@@ -152,6 +194,22 @@ public class RemoteIpFilter extends CopyOnWriteArraySet<Subnet> implements Sessi
         }
     }
 
+    /**
+     * Adds the given IPv4 or IPv6 subnet to this filter.
+     * 
+     * @param address
+     *            the address of the subnet
+     * @param prefixLength
+     *            the prefix length of the subnet
+     * @return if the given element was added or not. <code>true</code>, if the given element was added to the filter;
+     *         <code>false</code>, if the element already exists in the filter.
+     */
+    public synchronized boolean add(InetAddress address, int prefixLength) {
+        SubnetTrie subnets = this.subnets.add(address, prefixLength);
+
+        return this.publish(subnets);
+    }
+
     /**
      * Adds the given string representation of InetAddress or CIDR notation to this filter.
      * 
@@ -164,19 +222,44 @@ public class RemoteIpFilter extends CopyOnWriteArraySet<Subnet> implements Sessi
      * @throws UnknownHostException
      *             propagated
      */
-    public boolean add(String str) throws NumberFormatException, UnknownHostException {
-        // This is required so we do not block loopback address if some one adds
-        // a string with blanks as the InetAddress class assumes loopback
-        // address on a blank string.
-        if (str.trim().length() < 1) {
-            throw new IllegalArgumentException("Invalid IP Address or Subnet: " + str);
-        }
-        String[] tokens = str.split("/");
-        if (tokens.length == 2) {
-            return this.add(new Subnet(InetAddress.getByName(tokens[0]), Integer.parseInt(tokens[1])));
-        } else {
-            return this.add(new Subnet(InetAddress.getByName(tokens[0]), 32));
-        }
+    public synchronized boolean add(String str) throws NumberFormatException, UnknownHostException {
+        SubnetTrie subnets = RemoteIpFilter.parseSubnet(this.subnets, str);
+
+        return this.publish(subnets);
+    }
+
+    /**
+     * Adds the given subnet to this filter.
+     * 
+     * @param subnet
+     *            the subnet
+     * @return if the given element was added or not. <code>true</code>, if the given element was added to the filter;
+     *         <code>false</code>, if the element already exists in the filter.
+     */
+    public synchronized boolean add(Subnet subnet) {
+        SubnetTrie subnets = RemoteIpFilter.toTrie(this.subnets, subnet);
+
+        return this.publish(subnets);
+    }
+
+    /**
+     * Adds the given subnets to this filter.
+     * 
+     * @param collection
+     *            the subnets
+     * @return <code>true</code>, if any of the subnets was added to the filter
+     */
+    public synchronized boolean addAll(Collection<? extends Subnet> collection) {
+        SubnetTrie subnets = RemoteIpFilter.toTrie(this.subnets, collection);
+
+        return this.publish(subnets);
+    }
+
+    /**
+     * Removes all the subnets from this filter.
+     */
+    public synchronized void clear() {
+        this.subnets = SubnetTrie.EMPTY;
     }
 
     /**
@@ -188,6 +271,46 @@ public class RemoteIpFilter extends CopyOnWriteArraySet<Subnet> implements Sessi
         return this.type;
     }
 
+    /**
+     * Returns if the filter has no subnets.
+     * 
+     * @return true if the filter has no subnets, false otherwise
+     */
+    public boolean isEmpty() {
+        return this.subnets.isEmpty();
+    }
+
+    private boolean publish(SubnetTrie subnets) {
+        if (subnets == this.subnets) {
+            return false;
+        }
+
+        this.subnets = subnets;
+
+        return true;
+    }
+
+    /**
+     * Replaces all the subnets of this filter atomically. The sessions are matched either against the previous or the
+     * new subnets, never against a partial list. If any of the subnets is invalid, the filter is left unchanged.
+     * 
+     * @param addresses
+     *            a comma, space, tab, CR, LF separated list of IP addresses/CIDRs.
+     * @throws UnknownHostException
+     *             propagated
+     * @throws NumberFormatException
+     *             propagated
+     */
+    public void replace(String addresses) throws NumberFormatException, UnknownHostException {
+        SubnetTrie subnets = RemoteIpFilter.parse(SubnetTrie.EMPTY, addresses);
+
+        synchronized (this) {
+            this.subnets = subnets;
+        }
+
+        this.LOGGER.info("Replaced the subnets of the {} filter, {} subnets", this.type, subnets.size());
+    }
+
     /**
      * Sets the type of this filter.
      * 
@@ -197,4 +320,22 @@ public class RemoteIpFilter extends CopyOnWriteArraySet<Subnet> implements Sessi
     public void setType(IpFilterType type) {
         this.type = type;
     }
+
+    /**
+     * Returns the number of subnets in this filter.
+     * 
+     * @return the number of subnets
+     */
+    public int size() {
+        return this.subnets.size();
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    @Override
+    public String toString() {
+        return this.subnets.toString();
+    }
 }
@@ -0,0 +1,262 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.smscserver.ipfilter;
+
+import java.net.Inet4Address;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+/**
+ * <strong>Internal class, do not use directly.</strong>
+ * 
+ * An immutable binary radix (Patricia) trie of IPv4 and IPv6 subnets. Matching an address walks at most one node per
+ * differing prefix length, independent of the number of subnets in the trie.
+ * <p>
+ * Adding a subnet copies only the nodes along its path and returns a new trie, the receiver is left untouched.
+ * Therefore a trie can be shared with any number of readers and replaced atomically.
+ * 
+ * @author hceylan
+ */
+public class SubnetTrie {
+
+    private static class Node {
+
+        private final byte[] key;
+        private final int length;
+        private final boolean terminal;
+        private final Node zero;
+        private final Node one;
+
+        private Node(byte[] key, int length, boolean terminal, Node zero, Node one) {
+            this.key = key;
+            this.length = length;
+            this.terminal = terminal;
+            this.zero = zero;
+            this.one = one;
+        }
+
+        private Node child(int bit) {
+            return (bit == 0) ? this.zero : this.one;
+        }
+
+        private Node withChild(int bit, Node child) {
+            return (bit == 0) ? new Node(this.key, this.length, this.terminal, child, this.one) : new Node(this.key,
+                    this.length, this.terminal, this.zero, child);
+        }
+    }
+
+    /**
+     * The empty trie
+     */
+    public static final SubnetTrie EMPTY = new SubnetTrie(null, null, 0);
+
+    private static int bit(byte[] key, int index) {
+        return (key[index >>> 3] >>> (7 - (index & 7))) & 1;
+    }
+
+    private static int commonLength(byte[] key1, byte[] key2, int max) {
+        int length = 0;
+        while (length < max) {
+            int diff = (key1[length >>> 3] ^ key2[length >>> 3]) & 0xff;
+            if (diff == 0) {
+                length += 8;
+            } else {
+                length += Integer.numberOfLeadingZeros(diff) - 24;
+
+                break;
+            }
+        }
+
+        return Math.min(length, max);
+    }
+
+    private static Node insert(Node node, byte[] key, int length) {
+        if (node == null) {
+            return new Node(key, length, true, null, null);
+        }
+
+        int common = SubnetTrie.commonLength(node.key, key, Math.min(node.length, length));
+
+        // the node is a prefix of the subnet
+        if (common == node.length) {
+            if (length == node.length) {
+                return node.terminal ? node : new Node(node.key, node.length, true, node.zero, node.one);
+            }
+
+            int bit = SubnetTrie.bit(key, node.length);
+            Node child = SubnetTrie.insert(node.child(bit), key, length);
+
+            return (child == node.child(bit)) ? node : node.withChild(bit, child);
+        }
+
+        // the subnet is a prefix of the node
+        if (common == length) {
+            return new Node(key, length, true, null, null).withChild(SubnetTrie.bit(node.key, length), node);
+        }
+
+        // the subnet and the node diverge, branch at the common prefix
+        Node leaf = new Node(key, length, true, null, null);
+        Node branch = new Node(SubnetTrie.mask(key, common), common, false, null, null);
+
+        return branch.withChild(SubnetTrie.bit(key, common), leaf).withChild(SubnetTrie.bit(node.key, common), node);
+    }
+
+    private static byte[] mask(byte[] address, int length) {
+        byte[] key = new byte[address.length];
+        for (int i = 0; i < key.length; i++) {
+            int bits = length - (i << 3);
+            if (bits >= 8) {
+                key[i] = address[i];
+            } else if (bits > 0) {
+                key[i] = (byte) (address[i] & (0xff00 >>> bits));
+            }
+        }
+
+        return key;
+    }
+
+    private static boolean matches(Node node, byte[] address) {
+        while (node != null) {
+            if (SubnetTrie.commonLength(node.key, address, node.length) < node.length) {
+                return false;
+            }
+
+            // any subnet on the path covers the address, no need to look for a longer one
+            if (node.terminal) {
+                return true;
+            }
+
+            if (node.length == (address.length << 3)) {
+                return false;
+            }
+
+            node = node.child(SubnetTrie.bit(address, node.length));
+        }
+
+        return false;
+    }
+
+    private static void toString(Node node, StringBuilder builder) {
+        if (node == null) {
+            return;
+        }
+
+        if (node.terminal) {
+            if (builder.length() > 1) {
+                builder.append(", ");
+            }
+
+            try {
+                builder.append(InetAddress.getByAddress(node.key).getHostAddress()).append('/').append(node.length);
+            } catch (UnknownHostException e) {
+                // not possible, the key is either 4 or 16 bytes
+            }
+        }
+
+        SubnetTrie.toString(node.zero, builder);
+        SubnetTrie.toString(node.one, builder);
+    }
+
+    private final Node ipv4;
+
+    private final Node ipv6;
+
+    private final int size;
+
+    private SubnetTrie(Node ipv4, Node ipv6, int size) {
+        this.ipv4 = ipv4;
+        this.ipv6 = ipv6;
+        this.size = size;
+    }
+
+    /**
+     * Returns a trie that contains the subnets of this trie and the given subnet. The host bits of the address are
+     * ignored.
+     * 
+     * @param address
+     *            the address of the subnet
+     * @param prefixLength
+     *            the prefix length of the subnet, between 0 and 32 for IPv4 and 0 and 128 for IPv6 subnets
+     * @return the new trie, or this trie if it already contains the subnet
+     * @throws IllegalArgumentException
+     *             if the prefix length is out of range
+     */
+    public SubnetTrie add(InetAddress address, int prefixLength) {
+        byte[] bytes = address.getAddress();
+        if ((prefixLength < 0) || (prefixLength > (bytes.length << 3))) {
+            throw new IllegalArgumentException("Prefix length has to be an integer between 0 and "
+                    + (bytes.length << 3) + ": " + prefixLength);
+        }
+
+        boolean v4 = address instanceof Inet4Address;
+
+        Node root = v4 ? this.ipv4 : this.ipv6;
+        Node newRoot = SubnetTrie.insert(root, SubnetTrie.mask(bytes, prefixLength), prefixLength);
+        if (newRoot == root) {
+            return this;
+        }
+
+        return v4 ? new SubnetTrie(newRoot, this.ipv6, this.size + 1) : new SubnetTrie(this.ipv4, newRoot,
+                this.size + 1);
+    }
+
+    /**
+     * Returns if the address is in any of the subnets of this trie.
+     * 
+     * @param address
+     *            the address to match
+     * @return true if a subnet contains the address, false otherwise
+     */
+    public boolean contains(InetAddress address) {
+        return SubnetTrie.matches((address instanceof Inet4Address) ? this.ipv4 : this.ipv6, address.getAddress());
+    }
+
+    /**
+     * Returns if the trie has no subnets.
+     * 
+     * @return true if the trie is empty, false otherwise
+     */
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+     * Returns the number of subnets in this trie.
+     * 
+     * @return the number of subnets
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("[");
+
+        SubnetTrie.toString(this.ipv4, builder);
+        SubnetTrie.toString(this.ipv6, builder);
+
+        return builder.append(']').toString();
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.smscserver.jmx;
+
+/**
+ * Management interface of the filter banning the addresses failing to bind, registered as
+ * <code>org.apache.smscserver:type=BanFilter,server=&lt;name&gt;</code>.
+ * 
+ * @author hceylan
+ */
+public interface BanFilterMBean {
+
+    /**
+     * Lifts all the bans.
+     */
+    void clear();
+
+    /**
+     * Returns the number of addresses currently banned.
+     * 
+     * @return the number of banned addresses
+     */
+    int getBanCount();
+
+    /**
+     * Returns the number of bans dropped as the ban table was full.
+     * 
+     * @return the number of dropped bans
+     */
+    long getDroppedBanCount();
+
+    /**
+     * Returns the maximum number of addresses banned at the same time.
+     * 
+     * @return the size of the ban table
+     */
+    int getMaxBans();
+
+    /**
+     * Returns the number of connections denied as their address was banned.
+     * 
+     * @return the number of denied connections
+     */
+    long getRejectedConnectionCount();
+
+    /**
+     * Returns the number of bans since the server started.
+     * 
+     * @return the total number of bans
+     */
+    long getTotalBanCount();
+
+    /**
+     * Lifts the ban of the address.
+     * 
+     * @param address
+     *            the address
+     * @return true if the address was banned
+     */
+    boolean unban(String address);
+}
@@ -0,0 +1,81 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.smscserver.jmx;
+
+/**
+ * Management interface of the delivery manager, registered as
+ * <code>org.apache.smscserver:type=DeliveryManager,server=&lt;name&gt;</code>.
+ * 
+ * @author hceylan
+ */
+public interface DeliveryManagerMBean {
+
+    /**
+     * Returns the number of sessions being delivered to.
+     * 
+     * @return the number of active delivery threads
+     */
+    int getActiveDeliveryCount();
+
+    /**
+     * Returns the utilization of the delivery threads.
+     * 
+     * @return the percentage of the maximum number of delivery threads that are active
+     */
+    double getDeliveryUtilization();
+
+    /**
+     * Returns the number of deliver_sm requests sent that have not been responded yet, over all sessions.
+     * 
+     * @return the number of deliver_sm requests in flight
+     */
+    int getInFlightDeliverCount();
+
+    /**
+     * Returns the maximum number of delivery threads.
+     * 
+     * @return the maximum number of delivery threads
+     */
+    int getMaximumDeliveryThreads();
+
+    /**
+     * Returns the number of bound sessions waiting for their next delivery check.
+     * 
+     * @return the depth of the delivery queue
+     */
+    int getQueuedSessionCount();
+
+    /**
+     * Returns if the delivery manager is suspended.
+     * 
+     * @return true if the delivery manager is suspended
+     */
+    boolean isSuspended();
+
+    /**
+     * Resumes the delivery of the messages.
+     */
+    void resume();
+
+    /**
+     * Suspends the delivery of the messages.
+     */
+    void suspend();
+}
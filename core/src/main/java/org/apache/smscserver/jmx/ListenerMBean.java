@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.smscserver.jmx;
+
+/**
+ * Management interface of a listener, registered as
+ * <code>org.apache.smscserver:type=Listener,server=&lt;name&gt;,name=&lt;listener&gt;</code>.
+ * 
+ * @author hceylan
+ */
+public interface ListenerMBean {
+
+    /**
+     * Returns the number of sessions connected to the listener.
+     * 
+     * @return the number of connected sessions
+     */
+    int getActiveSessionCount();
+
+    /**
+     * Returns the number of sessions bound on the listener.
+     * 
+     * @return the number of bound sessions
+     */
+    int getBoundSessionCount();
+
+    /**
+     * Returns the idle timeout of the listener.
+     * 
+     * @return the idle timeout in seconds
+     */
+    int getIdleTimeout();
+
+    /**
+     * Returns the port the listener is bound to.
+     * 
+     * @return the port
+     */
+    int getPort();
+
+    /**
+     * Returns the address the listener is bound to.
+     * 
+     * @return the address, null if bound to all addresses
+     */
+    String getServerAddress();
+
+    /**
+     * Returns if the listener uses implicit SSL.
+     * 
+     * @return true if the listener uses implicit SSL
+     */
+    boolean isImplicitSsl();
+
+    /**
+     * Returns if the listener is stopped.
+     * 
+     * @return true if the listener is stopped
+     */
+    boolean isStopped();
+
+    /**
+     * Returns if the listener is suspended.
+     * 
+     * @return true if the listener is suspended
+     */
+    boolean isSuspended();
+
+    /**
+     * Resumes accepting connections.
+     */
+    void resume();
+
+    /**
+     * Suspends accepting connections, existing connections are kept.
+     */
+    void suspend();
+}
@@ -0,0 +1,52 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.smscserver.jmx;
+
+/**
+ * Management interface of the message store, registered as
+ * <code>org.apache.smscserver:type=MessageStore,server=&lt;name&gt;</code>.
+ * 
+ * @author hceylan
+ */
+public interface MessageStoreMBean {
+
+    /**
+     * Returns the time spent waiting for a database connection, if the message store is database backed.
+     * 
+     * @return the connection wait latency
+     */
+    String getConnectionWaitLatency();
+
+    /**
+     * Returns the class name of the message manager.
+     * 
+     * @return the class name of the message manager
+     */
+    String getMessageManagerClass();
+
+    /**
+     * Returns the latency of the message manager operation.
+     * 
+     * @param operation
+     *            the name of the message manager method, such as <code>submitSM</code>
+     * @return the latency of the operation
+     */
+    String getOperationLatency(String operation);
+}
@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.smscserver.jmx;
+
+/**
+ * Management interface of the server, registered as <code>org.apache.smscserver:type=Server,name=&lt;name&gt;</code>.
+ * 
+ * @author hceylan
+ */
+public interface SmscServerMBean {
+
+    /**
+     * Returns the number of receiver and transceiver sessions bound.
+     * 
+     * @return the number of sessions bound to receive short messages
+     */
+    int getReceiverCount();
+
+    /**
+     * Returns the remote addresses of the receiver and transceiver sessions bound by the system id.
+     * 
+     * @param systemId
+     *            the system id
+     * @return the remote addresses of the sessions
+     */
+    String[] getReceivers(String systemId);
+
+    /**
+     * Removes all the users from the cache of the user manager, if it caches the users.
+     */
+    void invalidateUserCache();
+
+    /**
+     * Returns if the server is stopped.
+     * 
+     * @return true if the server is stopped
+     */
+    boolean isStopped();
+
+    /**
+     * Returns if the server is suspended.
+     * 
+     * @return true if the server is suspended
+     */
+    boolean isSuspended();
+
+    /**
+     * Resumes the listeners and the delivery manager of the server.
+     */
+    void resume();
+
+    /**
+     * Suspends the listeners and the delivery manager of the server.
+     */
+    void suspend();
+}
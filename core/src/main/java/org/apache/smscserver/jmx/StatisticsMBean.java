@@ -0,0 +1,179 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.smscserver.jmx;
+
+import java.util.Date;
+
+import org.apache.smscserver.smsclet.SmscCommandId;
+
+/**
+ * Management interface of the server statistics, registered as
+ * <code>org.apache.smscserver:type=Statistics,server=&lt;name&gt;</code>.
+ * <p>
+ * Commands are identified by the names of the constants in {@link SmscCommandId}, such as <code>SUBMIT_SM</code>.
+ * Latencies are rendered as text, see {@link org.apache.smscserver.smsclet.LatencySnapshot#toString()}. Rate counters
+ * are identified by the names of the constants in {@link org.apache.smscserver.smsclet.RateCounter}.
+ * 
+ * @author hceylan
+ */
+public interface StatisticsMBean {
+
+    /**
+     * Returns the number of commands executed since the last reset of the latency histograms.
+     * 
+     * @param command
+     *            the name of the command
+     * @return the number of commands executed
+     */
+    long getCommandCount(String command);
+
+    /**
+     * Returns the number of commands executed since the last reset of the latency histograms, for every command that
+     * has been executed.
+     * 
+     * @return the command counts as <code>COMMAND=count</code>
+     */
+    String[] getCommandCounts();
+
+    /**
+     * Returns the latency of the command.
+     * 
+     * @param command
+     *            the name of the command
+     * @return the latency of the command
+     */
+    String getCommandLatency(String command);
+
+    /**
+     * Returns the number of bound sessions.
+     * 
+     * @return the number of bound sessions
+     */
+    int getCurrentBindNumber();
+
+    /**
+     * Returns the number of connected sessions.
+     * 
+     * @return the number of connected sessions
+     */
+    int getCurrentConnectionNumber();
+
+    /**
+     * Returns the round trip time of the deliver_sm requests.
+     * 
+     * @return the round trip time of the deliver_sm requests
+     */
+    String getDeliverRoundTripLatency();
+
+    /**
+     * Returns the number of observer events dropped as the dispatcher queue was full.
+     * 
+     * @return the number of observer events dropped
+     */
+    long getDroppedObserverEventCount();
+
+    /**
+     * Returns the number of events counted in each of the last completed minutes.
+     * 
+     * @param counter
+     *            the name of the rate counter
+     * @return the counts of the minutes, oldest first
+     */
+    long[] getPerMinuteCounts(String counter);
+
+    /**
+     * Returns the number of events counted in each of the last completed seconds.
+     * 
+     * @param counter
+     *            the name of the rate counter
+     * @return the counts of the seconds, oldest first
+     */
+    long[] getPerSecondCounts(String counter);
+
+    /**
+     * Returns the average number of events per second over the recent completed seconds.
+     * 
+     * @param counter
+     *            the name of the rate counter
+     * @param seconds
+     *            the length of the period in seconds
+     * @return the events per second
+     */
+    double getRecentRate(String counter, int seconds);
+
+    /**
+     * Returns the average number of events per second over the last completed minute, for every rate counter.
+     * 
+     * @return the rates as <code>COUNTER=rate</code>
+     */
+    String[] getRecentRates();
+
+    /**
+     * Returns the time the statistics have been started or reset.
+     * 
+     * @return the start time
+     */
+    Date getStartTime();
+
+    /**
+     * Returns the total number of binds.
+     * 
+     * @return the total number of binds
+     */
+    long getTotalBindNumber();
+
+    /**
+     * Returns the total number of connections.
+     * 
+     * @return the total number of connections
+     */
+    long getTotalConnectionNumber();
+
+    /**
+     * Returns the total number of failed binds.
+     * 
+     * @return the total number of failed binds
+     */
+    long getTotalFailedBindNumber();
+
+    /**
+     * Returns the total number of messages received.
+     * 
+     * @return the total number of messages received
+     */
+    long getTotalMessageReceivedNumber();
+
+    /**
+     * Returns the total number of messages sent.
+     * 
+     * @return the total number of messages sent
+     */
+    long getTotalMessageSentNumber();
+
+    /**
+     * Starts a new interval for the latency histograms.
+     */
+    void resetLatencyHistograms();
+
+    /**
+     * Resets the cumulative counters and the latency histograms.
+     */
+    void resetStatisticsCounters();
+}
@@ -0,0 +1,78 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.smscserver.jmx;
+
+/**
+ * Management interface of a thread pool of the server, registered as
+ * <code>org.apache.smscserver:type=ThreadPool,server=&lt;name&gt;,name=&lt;pool&gt;</code>.
+ * 
+ * @author hceylan
+ */
+public interface ThreadPoolMBean {
+
+    /**
+     * Returns the number of threads executing tasks.
+     * 
+     * @return the number of active threads
+     */
+    int getActiveCount();
+
+    /**
+     * Returns the number of tasks completed.
+     * 
+     * @return the number of completed tasks
+     */
+    long getCompletedTaskCount();
+
+    /**
+     * Returns the largest number of threads the pool has had.
+     * 
+     * @return the largest number of threads
+     */
+    int getLargestPoolSize();
+
+    /**
+     * Returns the maximum number of threads of the pool.
+     * 
+     * @return the maximum number of threads
+     */
+    int getMaximumPoolSize();
+
+    /**
+     * Returns the number of threads of the pool.
+     * 
+     * @return the number of threads
+     */
+    int getPoolSize();
+
+    /**
+     * Returns the number of tasks waiting for a thread.
+     * 
+     * @return the number of queued tasks
+     */
+    int getQueueSize();
+
+    /**
+     * Returns the utilization of the pool.
+     * 
+     * @return the percentage of the maximum number of threads that are active
+     */
+    double getUtilization();
+}
@@ -0,0 +1,100 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.smscserver.jmx.impl;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+import org.apache.smscserver.ipfilter.BanFilter;
+import org.apache.smscserver.jmx.BanFilterMBean;
+
+/**
+ * <strong>Internal class, do not use directly.</strong>
+ * 
+ * @author hceylan
+ */
+public class DefaultBanFilterMBean implements BanFilterMBean {
+
+    private final BanFilter banFilter;
+
+    public DefaultBanFilterMBean(BanFilter banFilter) {
+        this.banFilter = banFilter;
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    public void clear() {
+        this.banFilter.clear();
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    public int getBanCount() {
+        return this.banFilter.getBanCount();
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    public long getDroppedBanCount() {
+        return this.banFilter.getDroppedBanCount();
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    public int getMaxBans() {
+        return this.banFilter.getMaxBans();
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    public long getRejectedConnectionCount() {
+        return this.banFilter.getRejectedConnectionCount();
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    public long getTotalBanCount() {
+        return this.banFilter.getTotalBanCount();
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    public boolean unban(String address) {
+        try {
+            return this.banFilter.unban(InetAddress.getByName(address));
+        } catch (UnknownHostException e) {
+            throw new IllegalArgumentException("Invalid address: " + address);
+        }
+    }
+}
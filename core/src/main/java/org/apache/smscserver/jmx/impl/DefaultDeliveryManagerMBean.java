@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.smscserver.jmx.impl;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.apache.smscserver.SmscServerContext;
+import org.apache.smscserver.impl.DefaultSmscIoSession;
+import org.apache.smscserver.jmx.DeliveryManagerMBean;
+import org.apache.smscserver.message.impl.DefaultDeliveryManager;
+import org.apache.smscserver.smsclet.SmscIoSession;
+
+/**
+ * <strong>Internal class, do not use directly.</strong>
+ * 
+ * @author hceylan
+ */
+public class DefaultDeliveryManagerMBean implements DeliveryManagerMBean {
+
+    private final SmscServerContext serverContext;
+
+    private final DefaultDeliveryManager deliveryManager;
+
+    public DefaultDeliveryManagerMBean(SmscServerContext serverContext, DefaultDeliveryManager deliveryManager) {
+        this.serverContext = serverContext;
+        this.deliveryManager = deliveryManager;
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    public int getActiveDeliveryCount() {
+        ThreadPoolExecutor executor = this.getExecutor();
+
+        return (executor != null) ? executor.getActiveCount() : 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    public double getDeliveryUtilization() {
+        return DefaultThreadPoolMBean.utilization(this.getExecutor());
+    }
+
+    private ThreadPoolExecutor getExecutor() {
+        // null while the delivery manager is suspended
+        return this.deliveryManager.getDeliveryExecuter();
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    public int getInFlightDeliverCount() {
+        // only the receivers have deliveries in flight
+        int inFlight = 0;
+        for (SmscIoSession session : this.serverContext.getSessionRegistry().getReceivers()) {
+            if (session instanceof DefaultSmscIoSession) {
+                inFlight += ((DefaultSmscIoSession) session).getPendingDeliveryCount();
+            }
+        }
+
+        return inFlight;
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    public int getMaximumDeliveryThreads() {
+        ThreadPoolExecutor executor = this.getExecutor();
+
+        return (executor != null) ? executor.getMaximumPoolSize() : 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    public int getQueuedSessionCount() {
+        return this.deliveryManager.getQueuedSessionCount();
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    public boolean isSuspended() {
+        return this.deliveryManager.isSuspended();
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    public void resume() {
+        this.deliveryManager.resume();
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    public void suspend() {
+        this.deliveryManager.suspend();
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.smscserver.jmx.impl;
+
+import org.apache.smscserver.jmx.ListenerMBean;
+import org.apache.smscserver.listener.Listener;
+import org.apache.smscserver.smsclet.SmscIoSession;
+
+/**
+ * <strong>Internal class, do not use directly.</strong>
+ * 
+ * @author hceylan
+ */
+public class DefaultListenerMBean implements ListenerMBean {
+
+    private final Listener listener;
+
+    public DefaultListenerMBean(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    public int getActiveSessionCount() {
+        return this.listener.isStopped() ? 0 : this.listener.getActiveSessions().size();
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    public int getBoundSessionCount() {
+        if (this.listener.isStopped()) {
+            return 0;
+        }
+
+        int bound = 0;
+        for (SmscIoSession session : this.listener.getActiveSessions()) {
+            if (session.getUser() != null) {
+                bound++;
+            }
+        }
+
+        return bound;
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    public int getIdleTimeout() {
+        return this.listener.getIdleTimeout();
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    public int getPort() {
+        return this.listener.getPort();
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    public String getServerAddress() {
+        return this.listener.getServerAddress();
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    public boolean isImplicitSsl() {
+        return this.listener.isImplicitSsl();
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    public boolean isStopped() {
+        return this.listener.isStopped();
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    public boolean isSuspended() {
+        return this.listener.isSuspended();
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    public void resume() {
+        this.listener.resume();
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    public void suspend() {
+        this.listener.suspend();
+    }
+}
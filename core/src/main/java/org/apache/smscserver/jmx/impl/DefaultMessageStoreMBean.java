@@ -0,0 +1,79 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.smscserver.jmx.impl;
+
+import org.apache.smscserver.SmscServerContext;
+import org.apache.smscserver.jmx.MessageStoreMBean;
+import org.apache.smscserver.message.impl.DBMessageManager;
+import org.apache.smscserver.message.impl.TimedMessageManager;
+import org.apache.smscserver.smsclet.LatencySnapshot;
+import org.apache.smscserver.smsclet.MessageManager;
+
+/**
+ * <strong>Internal class, do not use directly.</strong>
+ * 
+ * @author hceylan
+ */
+public class DefaultMessageStoreMBean implements MessageStoreMBean {
+
+    private final SmscServerContext serverContext;
+
+    public DefaultMessageStoreMBean(SmscServerContext serverContext) {
+        this.serverContext = serverContext;
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    public String getConnectionWaitLatency() {
+        MessageManager messageManager = this.getMessageManager();
+        if (messageManager instanceof DBMessageManager) {
+            return ((DBMessageManager) messageManager).getConnectionWaitLatency().toString();
+        }
+
+        return LatencySnapshot.EMPTY.toString();
+    }
+
+    private MessageManager getMessageManager() {
+        MessageManager messageManager = this.serverContext.getMessageManager();
+        if (messageManager instanceof TimedMessageManager) {
+            return ((TimedMessageManager) messageManager).getDelegate();
+        }
+
+        return messageManager;
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    public String getMessageManagerClass() {
+        return this.getMessageManager().getClass().getName();
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    public String getOperationLatency(String operation) {
+        return this.serverContext.getSmscStatistics().getMessageManagerLatency(operation).toString();
+    }
+}
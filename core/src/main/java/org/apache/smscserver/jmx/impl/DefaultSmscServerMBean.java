@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.smscserver.jmx.impl;
+
+import java.util.List;
+
+import org.apache.smscserver.SmscServer;
+import org.apache.smscserver.SmscServerContext;
+import org.apache.smscserver.jmx.SmscServerMBean;
+import org.apache.smscserver.smsclet.SmscIoSession;
+import org.apache.smscserver.smsclet.UserManager;
+import org.apache.smscserver.usermanager.impl.AbstractUserManager;
+
+/**
+ * <strong>Internal class, do not use directly.</strong>
+ * 
+ * @author hceylan
+ */
+public class DefaultSmscServerMBean implements SmscServerMBean {
+
+    private final SmscServer server;
+
+    public DefaultSmscServerMBean(SmscServer server) {
+        this.server = server;
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    public int getReceiverCount() {
+        SmscServerContext serverContext = this.server.getServerContext();
+
+        return (serverContext != null) ? serverContext.getSessionRegistry().getReceiverCount() : 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    public String[] getReceivers(String systemId) {
+        SmscServerContext serverContext = this.server.getServerContext();
+        if (serverContext == null) {
+            return new String[0];
+        }
+
+        List<SmscIoSession> sessions = serverContext.getSessionRegistry().getReceivers(systemId);
+
+        String[] addresses = new String[sessions.size()];
+        for (int i = 0; i < addresses.length; i++) {
+            addresses[i] = String.valueOf(sessions.get(i).getRemoteAddress());
+        }
+
+        return addresses;
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    public void invalidateUserCache() {
+        SmscServerContext serverContext = this.server.getServerContext();
+        UserManager userManager = (serverContext != null) ? serverContext.getUserManager() : null;
+        if (userManager instanceof AbstractUserManager) {
+            ((AbstractUserManager) userManager).invalidateCache();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    public boolean isStopped() {
+        return this.server.isStopped();
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    public boolean isSuspended() {
+        return this.server.isSuspended();
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    public void resume() {
+        this.server.resume();
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    public void suspend() {
+        this.server.suspend();
+    }
+}
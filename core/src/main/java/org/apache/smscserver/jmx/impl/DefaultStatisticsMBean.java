@@ -0,0 +1,240 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.smscserver.jmx.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.smscserver.ServerSmscStatistics;
+import org.apache.smscserver.SmscServerContext;
+import org.apache.smscserver.jmx.StatisticsMBean;
+import org.apache.smscserver.smsclet.RateCounter;
+import org.apache.smscserver.smsclet.SmscCommandId;
+import org.apache.smscserver.smsclet.SmscStatistics;
+
+/**
+ * <strong>Internal class, do not use directly.</strong>
+ * 
+ * @author hceylan
+ */
+public class DefaultStatisticsMBean implements StatisticsMBean {
+
+    private static int commandId(String command) {
+        Integer commandId = SmscCommandId.getCommands().get(command.toUpperCase());
+        if (commandId == null) {
+            throw new IllegalArgumentException("Unknown command " + command + ", expected one of "
+                    + SmscCommandId.getCommands().keySet());
+        }
+
+        return commandId;
+    }
+
+    private static RateCounter rateCounter(String counter) {
+        try {
+            return RateCounter.valueOf(counter.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown rate counter " + counter + ", expected one of "
+                    + Arrays.asList(RateCounter.values()));
+        }
+    }
+
+    private final SmscServerContext serverContext;
+
+    public DefaultStatisticsMBean(SmscServerContext serverContext) {
+        this.serverContext = serverContext;
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    public long getCommandCount(String command) {
+        return this.getStatistics().getCommandLatency(DefaultStatisticsMBean.commandId(command)).getCount();
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    public String[] getCommandCounts() {
+        SmscStatistics statistics = this.getStatistics();
+
+        List<String> counts = new ArrayList<String>();
+        for (Map.Entry<String, Integer> command : SmscCommandId.getCommands().entrySet()) {
+            long count = statistics.getCommandLatency(command.getValue()).getCount();
+            if (count > 0) {
+                counts.add(command.getKey() + "=" + count);
+            }
+        }
+
+        return counts.toArray(new String[counts.size()]);
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    public String getCommandLatency(String command) {
+        return this.getStatistics().getCommandLatency(DefaultStatisticsMBean.commandId(command)).toString();
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    public int getCurrentBindNumber() {
+        return this.getStatistics().getCurrentBindNumber();
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    public int getCurrentConnectionNumber() {
+        return this.getStatistics().getCurrentConnectionNumber();
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    public String getDeliverRoundTripLatency() {
+        return this.getStatistics().getDeliverRoundTripLatency().toString();
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    public long getDroppedObserverEventCount() {
+        return this.getStatistics().getDroppedObserverEventCount();
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    public long[] getPerMinuteCounts(String counter) {
+        return this.getStatistics().getPerMinuteCounts(DefaultStatisticsMBean.rateCounter(counter));
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    public long[] getPerSecondCounts(String counter) {
+        return this.getStatistics().getPerSecondCounts(DefaultStatisticsMBean.rateCounter(counter));
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    public double getRecentRate(String counter, int seconds) {
+        return this.getStatistics().getRecentRate(DefaultStatisticsMBean.rateCounter(counter), seconds);
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    public String[] getRecentRates() {
+        SmscStatistics statistics = this.getStatistics();
+
+        RateCounter[] counters = RateCounter.values();
+        String[] rates = new String[counters.length];
+        for (int i = 0; i < counters.length; i++) {
+            rates[i] = counters[i].name() + "=" + statistics.getRecentRate(counters[i], 60);
+        }
+
+        return rates;
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    public Date getStartTime() {
+        return this.getStatistics().getStartTime();
+    }
+
+    private ServerSmscStatistics getStatistics() {
+        return (ServerSmscStatistics) this.serverContext.getSmscStatistics();
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    public long getTotalBindNumber() {
+        return this.getStatistics().getTotalBindNumber();
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    public long getTotalConnectionNumber() {
+        return this.getStatistics().getTotalConnectionNumber();
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    public long getTotalFailedBindNumber() {
+        return this.getStatistics().getTotalFailedBindNumber();
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    public long getTotalMessageReceivedNumber() {
+        return this.getStatistics().getTotalMessageReceivedNumber();
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    public long getTotalMessageSentNumber() {
+        return this.getStatistics().getTotalMessageSentNumber();
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    public void resetLatencyHistograms() {
+        this.getStatistics().resetLatencyHistograms();
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    public void resetStatisticsCounters() {
+        this.getStatistics().resetStatisticsCounters();
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.smscserver.jmx.impl;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.apache.smscserver.jmx.ThreadPoolMBean;
+
+/**
+ * <strong>Internal class, do not use directly.</strong>
+ * 
+ * @author hceylan
+ */
+public class DefaultThreadPoolMBean implements ThreadPoolMBean {
+
+    /**
+     * Returns the number of the tasks waiting for a thread.
+     * <p>
+     * Derived from the task counts since the MINA executors do not expose their queues.
+     * 
+     * @param executor
+     *            the executor
+     * @return the number of the queued tasks
+     */
+    public static int queueSize(ThreadPoolExecutor executor) {
+        long queued = executor.getTaskCount() - executor.getCompletedTaskCount() - executor.getActiveCount();
+
+        return (queued > 0) ? (int) queued : 0;
+    }
+
+    static double utilization(ThreadPoolExecutor executor) {
+        if ((executor == null) || (executor.getMaximumPoolSize() == 0)) {
+            return 0;
+        }
+
+        return (100.0 * executor.getActiveCount()) / executor.getMaximumPoolSize();
+    }
+
+    private final ThreadPoolExecutor executor;
+
+    public DefaultThreadPoolMBean(ThreadPoolExecutor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    public int getActiveCount() {
+        return this.executor.getActiveCount();
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    public long getCompletedTaskCount() {
+        return this.executor.getCompletedTaskCount();
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    public int getLargestPoolSize() {
+        return this.executor.getLargestPoolSize();
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    public int getMaximumPoolSize() {
+        return this.executor.getMaximumPoolSize();
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    public int getPoolSize() {
+        return this.executor.getPoolSize();
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    public int getQueueSize() {
+        return DefaultThreadPoolMBean.queueSize(this.executor);
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    public double getUtilization() {
+        return DefaultThreadPoolMBean.utilization(this.executor);
+    }
+}
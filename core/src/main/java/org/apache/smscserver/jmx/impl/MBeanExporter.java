@@ -0,0 +1,184 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.smscserver.jmx.impl;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+
+import org.apache.smscserver.DeliveryManager;
+import org.apache.smscserver.SmscServer;
+import org.apache.smscserver.SmscServerContext;
+import org.apache.smscserver.impl.DefaultSmscServerContext;
+import org.apache.smscserver.ipfilter.BanFilter;
+import org.apache.smscserver.jmx.BanFilterMBean;
+import org.apache.smscserver.jmx.DeliveryManagerMBean;
+import org.apache.smscserver.jmx.ListenerMBean;
+import org.apache.smscserver.jmx.MessageStoreMBean;
+import org.apache.smscserver.jmx.SmscServerMBean;
+import org.apache.smscserver.jmx.StatisticsMBean;
+import org.apache.smscserver.jmx.ThreadPoolMBean;
+import org.apache.smscserver.listener.Listener;
+import org.apache.smscserver.message.impl.DefaultDeliveryManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <strong>Internal class, do not use directly.</strong>
+ * 
+ * Registers the MBeans of a server to the platform MBean server under the <code>org.apache.smscserver</code> domain.
+ * The first server of the JVM is named <code>smscserver</code>, further servers get a numeric suffix. Failing to
+ * register an MBean is logged and otherwise ignored, management must never prevent the server from running.
+ * 
+ * @author hceylan
+ */
+public class MBeanExporter {
+
+    private static final Logger LOG = LoggerFactory.getLogger(MBeanExporter.class);
+
+    private static final String DOMAIN = "org.apache.smscserver";
+
+    private static final String SERVER_NAME = "smscserver";
+
+    private final SmscServer server;
+
+    private final SmscServerContext serverContext;
+
+    private final MBeanServer mbeanServer = ManagementFactory.getPlatformMBeanServer();
+
+    private final List<ObjectName> names = new ArrayList<ObjectName>();
+
+    public MBeanExporter(SmscServer server, SmscServerContext serverContext) {
+        this.server = server;
+        this.serverContext = serverContext;
+    }
+
+    /**
+     * Registers the MBeans of the server.
+     */
+    public synchronized void export() {
+        String name = this.reserveName();
+        if (name == null) {
+            return;
+        }
+
+        String server = ",server=" + name;
+
+        for (Map.Entry<String, Listener> listener : this.serverContext.getListeners().entrySet()) {
+            this.register("type=Listener" + server + ",name=" + listener.getKey(),
+                    new DefaultListenerMBean(listener.getValue()), ListenerMBean.class);
+        }
+
+        DeliveryManager deliveryManager = this.serverContext.getDeliveryManager();
+        if (deliveryManager instanceof DefaultDeliveryManager) {
+            this.register("type=DeliveryManager" + server, new DefaultDeliveryManagerMBean(this.serverContext,
+                    (DefaultDeliveryManager) deliveryManager), DeliveryManagerMBean.class);
+        }
+
+        BanFilter banFilter = null;
+        if (this.serverContext instanceof DefaultSmscServerContext) {
+            banFilter = ((DefaultSmscServerContext) this.serverContext).getBanFilter();
+        }
+        if (banFilter != null) {
+            this.register("type=BanFilter" + server, new DefaultBanFilterMBean(banFilter), BanFilterMBean.class);
+        }
+
+        this.register("type=Statistics" + server, new DefaultStatisticsMBean(this.serverContext),
+                StatisticsMBean.class);
+        this.register("type=MessageStore" + server, new DefaultMessageStoreMBean(this.serverContext),
+                MessageStoreMBean.class);
+
+        ExecutorService requestExecutor = this.serverContext.getRequestExecutor();
+        if (requestExecutor instanceof ThreadPoolExecutor) {
+            this.register("type=ThreadPool" + server + ",name=request", new DefaultThreadPoolMBean(
+                    (ThreadPoolExecutor) requestExecutor), ThreadPoolMBean.class);
+        }
+
+        ExecutorService authExecutor = this.serverContext.getAuthExecutor();
+        if (authExecutor instanceof ThreadPoolExecutor) {
+            this.register("type=ThreadPool" + server + ",name=auth", new DefaultThreadPoolMBean(
+                    (ThreadPoolExecutor) authExecutor), ThreadPoolMBean.class);
+        }
+
+        this.register("type=ThreadPool" + server + ",name=filter", new DefaultThreadPoolMBean(this.serverContext
+                .getThreadPoolExecutor()), ThreadPoolMBean.class);
+    }
+
+    private <T> void register(String name, T mbean, Class<T> mbeanInterface) {
+        try {
+            ObjectName objectName = new ObjectName(MBeanExporter.DOMAIN + ":" + name);
+            this.mbeanServer.registerMBean(new StandardMBean(mbean, mbeanInterface), objectName);
+            this.names.add(objectName);
+        } catch (JMException e) {
+            MBeanExporter.LOG.warn("Unable to register MBean " + name, e);
+        }
+    }
+
+    /**
+     * Registers the server MBean under the first free name, which reserves the name for the rest of the MBeans.
+     */
+    private String reserveName() {
+        for (int i = 0; i < 100; i++) {
+            String name = (i == 0) ? MBeanExporter.SERVER_NAME : MBeanExporter.SERVER_NAME + "-" + i;
+            try {
+                ObjectName objectName = new ObjectName(MBeanExporter.DOMAIN + ":type=Server,name=" + name);
+                if (this.mbeanServer.isRegistered(objectName)) {
+                    continue;
+                }
+
+                this.mbeanServer.registerMBean(new StandardMBean(new DefaultSmscServerMBean(this.server),
+                        SmscServerMBean.class), objectName);
+                this.names.add(objectName);
+
+                return name;
+            } catch (JMException e) {
+                // registered concurrently, try the next name
+                MBeanExporter.LOG.debug("Unable to register server MBean as " + name, e);
+            }
+        }
+
+        MBeanExporter.LOG.warn("Unable to register the server MBean, JMX management is disabled");
+
+        return null;
+    }
+
+    /**
+     * Unregisters the MBeans of the server.
+     */
+    public synchronized void unexport() {
+        for (ObjectName name : this.names) {
+            try {
+                this.mbeanServer.unregisterMBean(name);
+            } catch (JMException e) {
+                MBeanExporter.LOG.warn("Unable to unregister MBean " + name, e);
+            }
+        }
+
+        this.names.clear();
+    }
+}
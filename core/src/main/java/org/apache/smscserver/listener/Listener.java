@@ -97,6 +97,13 @@ public interface Listener {
      */
     SessionFilter getSessionFilter();
 
+    /**
+     * Get the {@link SocketConfiguration} used for this listener
+     * 
+     * @return The current {@link SocketConfiguration}
+     */
+    SocketConfiguration getSocketConfiguration();
+
     /**
      * Get the {@link SslConfiguration} used for this listener
      * 
@@ -111,6 +118,19 @@ public interface Listener {
      */
     boolean isImplicitSsl();
 
+    /**
+     * Are requests dispatched on the I/O threads of the listener. If so decoding and cheap commands such as
+     * enquire_link complete on the I/O thread and only the other commands are handed over to the request executor.
+     * Otherwise every request is handed over to the server thread pool before it is decoded.
+     * <p>
+     * Note that the smsclets are called on the I/O threads as well for the cheap commands, and so are their onConnect
+     * and onDisconnect callbacks. A smsclet that blocks in those callbacks stalls all the sessions of the I/O thread,
+     * the dedicated threads of a smsclet policy only isolate the request callbacks.
+     * 
+     * @return true if requests are dispatched on the I/O threads
+     */
+    boolean isIoThreadDispatch();
+
     /**
      * Checks if the listener is currently started.
      * 
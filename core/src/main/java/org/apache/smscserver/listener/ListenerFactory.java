@@ -55,6 +55,10 @@ public class ListenerFactory {
      */
     private SessionFilter sessionFilter = null;
 
+    private boolean ioThreadDispatch = false;
+
+    private SocketConfiguration socketConfiguration = new SocketConfigurationFactory().createSocketConfiguration();
+
     /**
      * Default constructor
      */
@@ -78,6 +82,10 @@ public class ListenerFactory {
         this.blockedAddresses = listener.getBlockedAddresses();
         this.blockedSubnets = listener.getBlockedSubnets();
         this.sessionFilter = listener.getSessionFilter();
+        this.ioThreadDispatch = listener.isIoThreadDispatch();
+        if (listener.getSocketConfiguration() != null) {
+            this.socketConfiguration = listener.getSocketConfiguration();
+        }
     }
 
     /**
@@ -105,7 +113,7 @@ public class ListenerFactory {
                     this.blockedAddresses, this.blockedSubnets);
         } else {
             return new NioListener(this.serverAddress, this.port, this.implicitSsl, this.ssl, this.idleTimeout,
-                    this.sessionFilter);
+                    this.sessionFilter, this.ioThreadDispatch, this.socketConfiguration);
         }
     }
 
@@ -170,6 +178,15 @@ public class ListenerFactory {
         return this.sessionFilter;
     }
 
+    /**
+     * Get the {@link SocketConfiguration} used for listeners created by this factory
+     * 
+     * @return The {@link SocketConfiguration}
+     */
+    public SocketConfiguration getSocketConfiguration() {
+        return this.socketConfiguration;
+    }
+
     /**
      * Get the {@link SslConfiguration} used for listeners created by this factory
      * 
@@ -188,6 +205,16 @@ public class ListenerFactory {
         return this.implicitSsl;
     }
 
+    /**
+     * Are requests dispatched on the I/O threads of listeners created by this factory
+     * 
+     * @return true if requests are dispatched on the I/O threads, false if they are handed over to the server thread
+     *         pool
+     */
+    public boolean isIoThreadDispatch() {
+        return this.ioThreadDispatch;
+    }
+
     /**
      * @deprecated Replaced by the IpFilter. Sets the {@link InetAddress} that listeners created by this factory will
      *             block from connecting
@@ -234,6 +261,19 @@ public class ListenerFactory {
         this.implicitSsl = implicitSsl;
     }
 
+    /**
+     * Should listeners created by this factory dispatch requests on their I/O threads. Decoding and cheap commands
+     * then complete on the I/O thread and only the other commands are handed over to the request executor. The
+     * smsclets are then called on the I/O threads for the cheap commands and on connect and disconnect, see
+     * {@link Listener#isIoThreadDispatch()}.
+     * 
+     * @param ioThreadDispatch
+     *            true to dispatch requests on the I/O threads, false to hand them over to the server thread pool
+     */
+    public void setIoThreadDispatch(boolean ioThreadDispatch) {
+        this.ioThreadDispatch = ioThreadDispatch;
+    }
+
     /**
      * Set the port on which listeners created by this factory will accept requests. Or set to 0 (zero) is the port
      * should be automatically assigned
@@ -266,6 +306,16 @@ public class ListenerFactory {
         this.sessionFilter = sessionFilter;
     }
 
+    /**
+     * Set the {@link SocketConfiguration} to use by listeners created by this factory
+     * 
+     * @param socketConfiguration
+     *            The {@link SocketConfiguration}
+     */
+    public void setSocketConfiguration(SocketConfiguration socketConfiguration) {
+        this.socketConfiguration = socketConfiguration;
+    }
+
     /**
      * Set the {@link SslConfiguration} to use by listeners created by this factory
      * 
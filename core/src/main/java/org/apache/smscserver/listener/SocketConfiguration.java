@@ -0,0 +1,86 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.smscserver.listener;
+
+/**
+ * Socket configuration of a listener
+ * 
+ * @author hceylan
+ */
+public interface SocketConfiguration {
+
+    /**
+     * Returns the maximum length of the queue of the incoming connections waiting to be accepted.
+     * 
+     * @return the backlog
+     */
+    int getBacklog();
+
+    /**
+     * Returns the upper bound of the read buffer of a session. The read buffer of a session doubles each time a read
+     * fills it, up to this size.
+     * 
+     * @return the maximum read buffer size in bytes
+     */
+    int getMaxReadBufferSize();
+
+    /**
+     * Returns the lower bound of the read buffer of a session. The read buffer of a session halves when the reads keep
+     * using less than half of it, down to this size.
+     * 
+     * @return the minimum read buffer size in bytes
+     */
+    int getMinReadBufferSize();
+
+    /**
+     * Returns the number of I/O processors of the listener.
+     * 
+     * @return the number of I/O processors, 0 for one processor per available processor of the machine
+     */
+    int getProcessorCount();
+
+    /**
+     * Returns the initial read buffer size of a session.
+     * 
+     * @return the initial read buffer size in bytes
+     */
+    int getReadBufferSize();
+
+    /**
+     * Returns the SO_RCVBUF of the sockets.
+     * 
+     * @return the receive buffer size in bytes, 0 for the system default
+     */
+    int getReceiveBufferSize();
+
+    /**
+     * Returns the SO_SNDBUF of the sockets.
+     * 
+     * @return the send buffer size in bytes, 0 for the system default
+     */
+    int getSendBufferSize();
+
+    /**
+     * Returns if TCP_NODELAY is set on the sockets, disabling Nagle's algorithm.
+     * 
+     * @return true if TCP_NODELAY is set
+     */
+    boolean isTcpNoDelay();
+}
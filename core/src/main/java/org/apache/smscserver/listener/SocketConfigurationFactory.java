@@ -0,0 +1,147 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.smscserver.listener;
+
+import org.apache.smscserver.SmscServerConfigurationException;
+import org.apache.smscserver.listener.nio.DefaultSocketConfiguration;
+
+/**
+ * Factory for creating socket configurations
+ * 
+ * @author hceylan
+ */
+public class SocketConfigurationFactory {
+
+    private boolean tcpNoDelay = false;
+    private int sendBufferSize = 0;
+    private int receiveBufferSize = 0;
+    private int backlog = 50;
+    private int processorCount = 0;
+    private int readBufferSize = 2048;
+    private int minReadBufferSize = 64;
+    private int maxReadBufferSize = 65536;
+
+    /**
+     * Create a socket configuration based on the configuration on this factory
+     * 
+     * @return The {@link SocketConfiguration} instance
+     * @throws SmscServerConfigurationException
+     *             if the read buffer sizes are not positive and ordered as minimum, initial, maximum or any other size
+     *             is negative
+     */
+    public SocketConfiguration createSocketConfiguration() {
+        if ((this.minReadBufferSize <= 0) || (this.minReadBufferSize > this.readBufferSize)
+                || (this.readBufferSize > this.maxReadBufferSize)) {
+            throw new SmscServerConfigurationException("Invalid read buffer sizes, minimum: "
+                    + this.minReadBufferSize + ", initial: " + this.readBufferSize + ", maximum: "
+                    + this.maxReadBufferSize);
+        }
+
+        if ((this.sendBufferSize < 0) || (this.receiveBufferSize < 0) || (this.backlog < 0)
+                || (this.processorCount < 0)) {
+            throw new SmscServerConfigurationException("Socket buffer sizes, backlog and processor count must not be "
+                    + "negative");
+        }
+
+        return new DefaultSocketConfiguration(this.tcpNoDelay, this.sendBufferSize, this.receiveBufferSize,
+                this.backlog, this.processorCount, this.readBufferSize, this.minReadBufferSize, this.maxReadBufferSize);
+    }
+
+    /**
+     * Sets the maximum length of the queue of the incoming connections waiting to be accepted, 50 by default.
+     * 
+     * @param backlog
+     *            the backlog
+     */
+    public void setBacklog(int backlog) {
+        this.backlog = backlog;
+    }
+
+    /**
+     * Sets the upper bound of the read buffer of a session, 65536 by default.
+     * 
+     * @param maxReadBufferSize
+     *            the maximum read buffer size in bytes
+     */
+    public void setMaxReadBufferSize(int maxReadBufferSize) {
+        this.maxReadBufferSize = maxReadBufferSize;
+    }
+
+    /**
+     * Sets the lower bound of the read buffer of a session, 64 by default.
+     * 
+     * @param minReadBufferSize
+     *            the minimum read buffer size in bytes
+     */
+    public void setMinReadBufferSize(int minReadBufferSize) {
+        this.minReadBufferSize = minReadBufferSize;
+    }
+
+    /**
+     * Sets the number of I/O processors of the listener, 0 by default which uses one processor per available processor
+     * of the machine.
+     * 
+     * @param processorCount
+     *            the number of I/O processors
+     */
+    public void setProcessorCount(int processorCount) {
+        this.processorCount = processorCount;
+    }
+
+    /**
+     * Sets the initial read buffer size of a session, 2048 by default.
+     * 
+     * @param readBufferSize
+     *            the initial read buffer size in bytes
+     */
+    public void setReadBufferSize(int readBufferSize) {
+        this.readBufferSize = readBufferSize;
+    }
+
+    /**
+     * Sets the SO_RCVBUF of the sockets, 0 by default which leaves the system default.
+     * 
+     * @param receiveBufferSize
+     *            the receive buffer size in bytes
+     */
+    public void setReceiveBufferSize(int receiveBufferSize) {
+        this.receiveBufferSize = receiveBufferSize;
+    }
+
+    /**
+     * Sets the SO_SNDBUF of the sockets, 0 by default which leaves the system default.
+     * 
+     * @param sendBufferSize
+     *            the send buffer size in bytes
+     */
+    public void setSendBufferSize(int sendBufferSize) {
+        this.sendBufferSize = sendBufferSize;
+    }
+
+    /**
+     * Sets if TCP_NODELAY is set on the sockets, false by default.
+     * 
+     * @param tcpNoDelay
+     *            true to set TCP_NODELAY
+     */
+    public void setTcpNoDelay(boolean tcpNoDelay) {
+        this.tcpNoDelay = tcpNoDelay;
+    }
+}
@@ -28,6 +28,7 @@ import org.apache.smscserver.ipfilter.RemoteIpFilter;
 import org.apache.smscserver.ipfilter.SessionFilter;
 import org.apache.smscserver.listener.Listener;
 import org.apache.smscserver.listener.ListenerFactory;
+import org.apache.smscserver.listener.SocketConfiguration;
 import org.apache.smscserver.ssl.SslConfiguration;
 
 /**
@@ -81,6 +82,10 @@ public abstract class AbstractListener implements Listener {
 
     private final SessionFilter sessionFilter;
 
+    private final boolean ioThreadDispatch;
+
+    private final SocketConfiguration socketConfiguration;
+
     /**
      * @deprecated Use the constructor with IpFilter instead. Constructor for internal use, do not use directly. Instead
      *             use {@link ListenerFactory}
@@ -96,6 +101,8 @@ public abstract class AbstractListener implements Listener {
         this.sessionFilter = AbstractListener.createBlackListFilter(blockedAddresses, blockedSubnets);
         this.blockedAddresses = blockedAddresses;
         this.blockedSubnets = blockedSubnets;
+        this.ioThreadDispatch = false;
+        this.socketConfiguration = new DefaultSocketConfiguration();
     }
 
     /**
@@ -103,6 +110,24 @@ public abstract class AbstractListener implements Listener {
      */
     public AbstractListener(String serverAddress, int port, boolean implicitSsl, SslConfiguration sslConfiguration,
             int idleTimeout, SessionFilter sessionFilter) {
+        this(serverAddress, port, implicitSsl, sslConfiguration, idleTimeout, sessionFilter, false);
+    }
+
+    /**
+     * Constructor for internal use, do not use directly. Instead use {@link ListenerFactory}
+     */
+    public AbstractListener(String serverAddress, int port, boolean implicitSsl, SslConfiguration sslConfiguration,
+            int idleTimeout, SessionFilter sessionFilter, boolean ioThreadDispatch) {
+        this(serverAddress, port, implicitSsl, sslConfiguration, idleTimeout, sessionFilter, ioThreadDispatch,
+                new DefaultSocketConfiguration());
+    }
+
+    /**
+     * Constructor for internal use, do not use directly. Instead use {@link ListenerFactory}
+     */
+    public AbstractListener(String serverAddress, int port, boolean implicitSsl, SslConfiguration sslConfiguration,
+            int idleTimeout, SessionFilter sessionFilter, boolean ioThreadDispatch,
+            SocketConfiguration socketConfiguration) {
         this.serverAddress = serverAddress;
         this.port = port;
         this.implicitSsl = implicitSsl;
@@ -111,6 +136,8 @@ public abstract class AbstractListener implements Listener {
         this.sessionFilter = sessionFilter;
         this.blockedAddresses = null;
         this.blockedSubnets = null;
+        this.ioThreadDispatch = ioThreadDispatch;
+        this.socketConfiguration = socketConfiguration;
     }
 
     /**
@@ -159,6 +186,13 @@ public abstract class AbstractListener implements Listener {
         return this.sessionFilter;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    public SocketConfiguration getSocketConfiguration() {
+        return this.socketConfiguration;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -173,6 +207,13 @@ public abstract class AbstractListener implements Listener {
         return this.implicitSsl;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    public boolean isIoThreadDispatch() {
+        return this.ioThreadDispatch;
+    }
+
     /**
      * Used internally to update the port after binding
      * 
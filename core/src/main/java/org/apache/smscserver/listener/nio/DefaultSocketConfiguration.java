@@ -0,0 +1,144 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.smscserver.listener.nio;
+
+import org.apache.smscserver.listener.SocketConfiguration;
+import org.apache.smscserver.listener.SocketConfigurationFactory;
+
+/**
+ * <strong>Internal class, do not use directly.</strong>
+ * 
+ * @author hceylan
+ * 
+ */
+public class DefaultSocketConfiguration implements SocketConfiguration {
+
+    private final boolean tcpNoDelay;
+    private final int sendBufferSize;
+    private final int receiveBufferSize;
+    private final int backlog;
+    private final int processorCount;
+    private final int readBufferSize;
+    private final int minReadBufferSize;
+    private final int maxReadBufferSize;
+
+    /**
+     * Default constructor with the default settings of {@link SocketConfigurationFactory}.
+     */
+    public DefaultSocketConfiguration() {
+        this(false, 0, 0, 50, 0, 2048, 64, 65536);
+    }
+
+    /**
+     * Internal constructor, do not use directly. Use {@link SocketConfigurationFactory} instead
+     * 
+     * @param tcpNoDelay
+     *            true to set TCP_NODELAY on the sockets
+     * @param sendBufferSize
+     *            the SO_SNDBUF of the sockets, 0 for the system default
+     * @param receiveBufferSize
+     *            the SO_RCVBUF of the sockets, 0 for the system default
+     * @param backlog
+     *            the maximum length of the queue of the incoming connections
+     * @param processorCount
+     *            the number of I/O processors, 0 for one per available processor
+     * @param readBufferSize
+     *            the initial read buffer size of a session
+     * @param minReadBufferSize
+     *            the lower bound of the read buffer of a session
+     * @param maxReadBufferSize
+     *            the upper bound of the read buffer of a session
+     */
+    public DefaultSocketConfiguration(boolean tcpNoDelay, int sendBufferSize, int receiveBufferSize, int backlog,
+            int processorCount, int readBufferSize, int minReadBufferSize, int maxReadBufferSize) {
+        this.tcpNoDelay = tcpNoDelay;
+        this.sendBufferSize = sendBufferSize;
+        this.receiveBufferSize = receiveBufferSize;
+        this.backlog = backlog;
+        this.processorCount = processorCount;
+        this.readBufferSize = readBufferSize;
+        this.minReadBufferSize = minReadBufferSize;
+        this.maxReadBufferSize = maxReadBufferSize;
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    public int getBacklog() {
+        return this.backlog;
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    public int getMaxReadBufferSize() {
+        return this.maxReadBufferSize;
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    public int getMinReadBufferSize() {
+        return this.minReadBufferSize;
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    public int getProcessorCount() {
+        return this.processorCount;
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    public int getReadBufferSize() {
+        return this.readBufferSize;
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    public int getReceiveBufferSize() {
+        return this.receiveBufferSize;
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    public int getSendBufferSize() {
+        return this.sendBufferSize;
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    public boolean isTcpNoDelay() {
+        return this.tcpNoDelay;
+    }
+}
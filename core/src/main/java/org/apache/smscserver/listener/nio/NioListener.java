@@ -38,16 +38,20 @@ import org.apache.mina.filter.firewall.Subnet;
 import org.apache.mina.filter.logging.MdcInjectionFilter;
 import org.apache.mina.filter.ssl.SslFilter;
 import org.apache.mina.transport.socket.SocketAcceptor;
+import org.apache.mina.transport.socket.SocketSessionConfig;
 import org.apache.mina.transport.socket.nio.NioSocketAcceptor;
 import org.apache.smscserver.SmscHandler;
 import org.apache.smscserver.SmscServerConfigurationException;
 import org.apache.smscserver.SmscServerContext;
 import org.apache.smscserver.impl.DefaultSmscHandler;
 import org.apache.smscserver.impl.DefaultSmscIoSession;
+import org.apache.smscserver.impl.DefaultSmscServerContext;
+import org.apache.smscserver.ipfilter.BanFilter;
 import org.apache.smscserver.ipfilter.MinaSessionFilter;
 import org.apache.smscserver.ipfilter.SessionFilter;
 import org.apache.smscserver.listener.Listener;
 import org.apache.smscserver.listener.ListenerFactory;
+import org.apache.smscserver.listener.SocketConfiguration;
 import org.apache.smscserver.smsclet.SmscIoSession;
 import org.apache.smscserver.ssl.ClientAuth;
 import org.apache.smscserver.ssl.SslConfiguration;
@@ -93,6 +97,53 @@ public class NioListener extends AbstractListener {
         super(serverAddress, port, implicitSsl, sslConfiguration, idleTimeout, sessionFilter);
     }
 
+    /**
+     * Constructor for internal use, do not use directly. Instead use {@link ListenerFactory}
+     */
+    public NioListener(String serverAddress, int port, boolean implicitSsl, SslConfiguration sslConfiguration,
+            int idleTimeout, SessionFilter sessionFilter, boolean ioThreadDispatch) {
+        super(serverAddress, port, implicitSsl, sslConfiguration, idleTimeout, sessionFilter, ioThreadDispatch);
+    }
+
+    /**
+     * Constructor for internal use, do not use directly. Instead use {@link ListenerFactory}
+     */
+    public NioListener(String serverAddress, int port, boolean implicitSsl, SslConfiguration sslConfiguration,
+            int idleTimeout, SessionFilter sessionFilter, boolean ioThreadDispatch,
+            SocketConfiguration socketConfiguration) {
+        super(serverAddress, port, implicitSsl, sslConfiguration, idleTimeout, sessionFilter, ioThreadDispatch,
+                socketConfiguration);
+    }
+
+    /**
+     * Applies the socket configuration to the session configuration the accepted sessions start with.
+     * <p>
+     * MINA adapts the read buffer of each session within the bounds, the buffer doubles after a read filling it and
+     * halves after reads using less than half of it. Thus sessions pipelining PDUs grow their buffers while idle
+     * sessions keep small ones.
+     */
+    private void configure(SocketSessionConfig sessionConfig, SocketConfiguration socketConfiguration) {
+        // keep the minimum below the maximum at every step
+        if (socketConfiguration.getMaxReadBufferSize() >= sessionConfig.getMinReadBufferSize()) {
+            sessionConfig.setMaxReadBufferSize(socketConfiguration.getMaxReadBufferSize());
+            sessionConfig.setMinReadBufferSize(socketConfiguration.getMinReadBufferSize());
+        } else {
+            sessionConfig.setMinReadBufferSize(socketConfiguration.getMinReadBufferSize());
+            sessionConfig.setMaxReadBufferSize(socketConfiguration.getMaxReadBufferSize());
+        }
+        sessionConfig.setReadBufferSize(socketConfiguration.getReadBufferSize());
+
+        sessionConfig.setIdleTime(IdleStatus.BOTH_IDLE, this.getIdleTimeout());
+        sessionConfig.setTcpNoDelay(socketConfiguration.isTcpNoDelay());
+
+        if (socketConfiguration.getReceiveBufferSize() > 0) {
+            sessionConfig.setReceiveBufferSize(socketConfiguration.getReceiveBufferSize());
+        }
+        if (socketConfiguration.getSendBufferSize() > 0) {
+            sessionConfig.setSendBufferSize(socketConfiguration.getSendBufferSize());
+        }
+    }
+
     /**
      * {@inheritDoc}
      * 
@@ -102,7 +153,7 @@ public class NioListener extends AbstractListener {
 
         Set<SmscIoSession> smscSessions = new HashSet<SmscIoSession>();
         for (IoSession session : sessions.values()) {
-            smscSessions.add(new DefaultSmscIoSession(session, this.context));
+            smscSessions.add(DefaultSmscIoSession.attach(session, this.context));
         }
 
         return smscSessions;
@@ -165,7 +216,14 @@ public class NioListener extends AbstractListener {
 
             this.context = context;
 
-            this.acceptor = new NioSocketAcceptor(Runtime.getRuntime().availableProcessors());
+            SocketConfiguration socketConfiguration = this.getSocketConfiguration();
+
+            int processorCount = socketConfiguration.getProcessorCount();
+            if (processorCount <= 0) {
+                processorCount = Runtime.getRuntime().availableProcessors();
+            }
+
+            this.acceptor = new NioSocketAcceptor(processorCount);
 
             if (this.getServerAddress() != null) {
                 this.address = new InetSocketAddress(this.getServerAddress(), this.getPort());
@@ -174,10 +232,8 @@ public class NioListener extends AbstractListener {
             }
 
             this.acceptor.setReuseAddress(true);
-            this.acceptor.getSessionConfig().setReadBufferSize(2048);
-            this.acceptor.getSessionConfig().setIdleTime(IdleStatus.BOTH_IDLE, this.getIdleTimeout());
-            // Decrease the default receiver buffer size
-            this.acceptor.getSessionConfig().setReceiveBufferSize(512);
+            this.acceptor.setBacklog(socketConfiguration.getBacklog());
+            this.configure(this.acceptor.getSessionConfig(), socketConfiguration);
 
             MdcInjectionFilter mdcFilter = new MdcInjectionFilter();
 
@@ -189,7 +245,10 @@ public class NioListener extends AbstractListener {
                 this.acceptor.getFilterChain().addLast("sessionFilter", new MinaSessionFilter(sessionFilter));
             }
 
-            this.acceptor.getFilterChain().addLast("threadPool", new ExecutorFilter(context.getThreadPoolExecutor()));
+            if (!this.isIoThreadDispatch()) {
+                this.acceptor.getFilterChain().addLast("threadPool",
+                        new ExecutorFilter(context.getThreadPoolExecutor()));
+            }
             this.acceptor.getFilterChain().addLast("codec",
                     new ProtocolCodecFilter(new SmscServerProtocolCodecFactory()));
             this.acceptor.getFilterChain().addLast("mdcFilter2", mdcFilter);
@@ -217,6 +276,15 @@ public class NioListener extends AbstractListener {
                 this.acceptor.getFilterChain().addFirst("sslFilter", sslFilter);
             }
 
+            BanFilter banFilter = null;
+            if (context instanceof DefaultSmscServerContext) {
+                banFilter = ((DefaultSmscServerContext) context).getBanFilter();
+            }
+            if (banFilter != null) {
+                // ahead of all, banned connections are closed before any SSL or codec work
+                this.acceptor.getFilterChain().addFirst("banFilter", new MinaSessionFilter(banFilter));
+            }
+
             this.handler.init(context, this);
             this.acceptor.setHandler(new SmscHandlerAdapter(context, this.handler));
 
@@ -33,6 +33,8 @@ import org.apache.smscserver.packet.impl.SmscCancelSMRequestImpl;
 import org.apache.smscserver.packet.impl.SmscDataSMRequestImpl;
 import org.apache.smscserver.packet.impl.SmscDeliverSMResponseImpl;
 import org.apache.smscserver.packet.impl.SmscEnquireLinkRequestImpl;
+import org.apache.smscserver.packet.impl.SmscEnquireLinkResponseImpl;
+import org.apache.smscserver.packet.impl.SmscGenericNackImpl;
 import org.apache.smscserver.packet.impl.SmscMsgDetailsRequestImpl;
 import org.apache.smscserver.packet.impl.SmscOutbindRequestImpl;
 import org.apache.smscserver.packet.impl.SmscParamRetrieveRequestImpl;
@@ -43,6 +45,7 @@ import org.apache.smscserver.packet.impl.SmscSubmitMultiRequestImpl;
 import org.apache.smscserver.packet.impl.SmscSubmitSMRequestImpl;
 import org.apache.smscserver.packet.impl.SmscUnbindRequestImpl;
 import org.apache.smscserver.smsclet.SmscPacket;
+import org.apache.smscserver.smsclet.SmscReply;
 
 /**
  * <strong>Internal class, do not use directly.</strong>
@@ -75,7 +78,7 @@ public class SmppProtocolDecoder extends CumulativeProtocolDecoder {
         }
 
         int id = SMPPIO.readInt(is, 4);
-        SMPPIO.readInt(is, 4);
+        int status = SMPPIO.readInt(is, 4);
         int sequenceNum = SMPPIO.readInt(is, 4);
 
         byte[] body = this.readBody(is, length - 16);
@@ -103,6 +106,12 @@ public class SmppProtocolDecoder extends CumulativeProtocolDecoder {
         case SMPPPacket.ENQUIRE_LINK:
             packet = new SmscEnquireLinkRequestImpl(sequenceNum, body);
             break;
+        case SMPPPacket.ENQUIRE_LINK_RESP:
+            packet = new SmscEnquireLinkResponseImpl(sequenceNum, status, body);
+            break;
+        case SMPPPacket.GENERIC_NACK:
+            packet = new SmscGenericNackImpl(sequenceNum, status, body);
+            break;
         case SMPPPacket.OUTBIND:
             packet = new SmscOutbindRequestImpl(sequenceNum, body);
             break;
@@ -134,7 +143,12 @@ public class SmppProtocolDecoder extends CumulativeProtocolDecoder {
             break;
         }
 
-        out.write(packet);
+        if (packet != null) {
+            out.write(packet);
+        } else {
+            // unknown or unsupported command, nack it and carry on with the next PDU
+            session.write(new SmscGenericNackImpl(sequenceNum, SmscReply.ErrorCode.ESME_RINVCMDID));
+        }
 
         return in.remaining() >= 16;
     }
@@ -26,7 +26,6 @@ import org.apache.mina.filter.logging.MdcInjectionFilter;
 import org.apache.smscserver.SmscHandler;
 import org.apache.smscserver.SmscServerContext;
 import org.apache.smscserver.impl.DefaultSmscIoSession;
-import org.apache.smscserver.packet.impl.SmscStatusReplyImpl;
 import org.apache.smscserver.smsclet.SmscPacket;
 import org.apache.smscserver.smsclet.SmscReply;
 import org.apache.smscserver.smsclet.SmscRequest;
@@ -55,7 +54,7 @@ public class SmscHandlerAdapter implements IoHandler {
      * 
      */
     public void exceptionCaught(IoSession session, Throwable cause) throws Exception {
-        this.smscHandler.exceptionCaught(new DefaultSmscIoSession(session, this.context), cause);
+        this.smscHandler.exceptionCaught(DefaultSmscIoSession.attach(session, this.context), cause);
     }
 
     public SmscHandler getSmscHandler() {
@@ -63,44 +62,35 @@ public class SmscHandlerAdapter implements IoHandler {
     }
 
     public void messageReceived(IoSession session, Object message) throws Exception {
-        DefaultSmscIoSession smscSession = new DefaultSmscIoSession(session, this.context);
-
         if (message instanceof SmscRequest) {
-
-            SmscRequest request = (SmscRequest) message;
-
-            smscSession.setRequest(request);
-
-            SmscReply reply = this.smscHandler.messageReceived(smscSession, request);
-            if (reply == null) {
-                reply = new SmscStatusReplyImpl(request, SmscReply.ErrorCode.ESME_RINVCMDID);
-            }
-
-            session.write(reply);
+            this.smscHandler.messageReceived(DefaultSmscIoSession.attach(session, this.context),
+                    (SmscRequest) message);
+        } else if (message instanceof SmscReply) {
+            this.smscHandler.replyReceived(DefaultSmscIoSession.attach(session, this.context), (SmscReply) message);
         }
     }
 
     public void messageSent(IoSession session, Object message) throws Exception {
-        this.smscHandler.messageSent(new DefaultSmscIoSession(session, this.context), (SmscPacket) message);
+        this.smscHandler.messageSent(DefaultSmscIoSession.attach(session, this.context), (SmscPacket) message);
     }
 
     public void sessionClosed(IoSession session) throws Exception {
-        this.smscHandler.sessionClosed(new DefaultSmscIoSession(session, this.context));
+        this.smscHandler.sessionClosed(DefaultSmscIoSession.attach(session, this.context));
     }
 
     public void sessionCreated(IoSession session) throws Exception {
-        DefaultSmscIoSession smscSession = new DefaultSmscIoSession(session, this.context);
+        DefaultSmscIoSession smscSession = DefaultSmscIoSession.attach(session, this.context);
         MdcInjectionFilter.setProperty(session, "session", smscSession.getSessionId().toString());
 
         this.smscHandler.sessionCreated(smscSession);
     }
 
     public void sessionIdle(IoSession session, IdleStatus status) throws Exception {
-        this.smscHandler.sessionIdle(new DefaultSmscIoSession(session, this.context), status);
+        this.smscHandler.sessionIdle(DefaultSmscIoSession.attach(session, this.context), status);
     }
 
     public void sessionOpened(IoSession session) throws Exception {
-        this.smscHandler.sessionOpened(new DefaultSmscIoSession(session, this.context));
+        this.smscHandler.sessionOpened(DefaultSmscIoSession.attach(session, this.context));
     }
 
     public void setSmscHandler(SmscHandler handler) {
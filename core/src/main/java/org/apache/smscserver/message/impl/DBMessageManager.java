@@ -31,6 +31,7 @@ import javax.sql.DataSource;
 
 import org.apache.smscserver.SmscServerConfigurationException;
 import org.apache.smscserver.message.DBMessageManagerFactory;
+import org.apache.smscserver.smsclet.LatencySnapshot;
 import org.apache.smscserver.smsclet.MessageManager;
 import org.apache.smscserver.smsclet.ShortMessage;
 import org.apache.smscserver.smsclet.ShortMessageStatus;
@@ -38,6 +39,7 @@ import org.apache.smscserver.smsclet.SmscException;
 import org.apache.smscserver.smsclet.SmscOriginalNotFoundException;
 import org.apache.smscserver.smsclet.User;
 import org.apache.smscserver.util.DBUtils;
+import org.apache.smscserver.util.LatencyHistogram;
 import org.apache.smscserver.util.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -82,6 +84,8 @@ public class DBMessageManager implements MessageManager {
 
     private final DataSource datasource;
 
+    private final LatencyHistogram connectionWaits = new LatencyHistogram();
+
     private final String sqlCreateTable;
     private final String sqlInsertMessage;
     private final String sqlSelectMessage;
@@ -158,7 +162,22 @@ public class DBMessageManager implements MessageManager {
     }
 
     private Connection createConnection() throws SQLException {
-        return DBUtils.createConnection(this.datasource);
+        long start = System.nanoTime();
+        try {
+            return DBUtils.createConnection(this.datasource);
+        } finally {
+            this.connectionWaits.recordNanos(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Returns the time spent waiting for a connection from the data source, which for a pooling data source is the
+     * time waited for the pool.
+     * 
+     * @return the connection wait latency snapshot
+     */
+    public LatencySnapshot getConnectionWaitLatency() {
+        return this.connectionWaits.snapshot();
     }
 
     /**
@@ -162,6 +162,17 @@ public class DefaultDeliveryManager implements DeliveryManager {
         return this.deliveryPeriods;
     }
 
+    /**
+     * Returns the number of bound sessions waiting for their next delivery check.
+     * 
+     * @return the number of sessions in the delivery queue
+     */
+    public int getQueuedSessionCount() {
+        IOSessionQueue sessionQueue = this.sessionQueue;
+
+        return (sessionQueue != null) ? sessionQueue.size() : 0;
+    }
+
     /**
      * Returns the server context.
      * 
@@ -179,6 +190,24 @@ public class DefaultDeliveryManager implements DeliveryManager {
         this.sessionQueue.add(new MessagePoller(this, ioSession));
     }
 
+    /**
+     * Returns if the delivery manager has been started.
+     * 
+     * @return true if the delivery manager has been started
+     */
+    public synchronized boolean isStarted() {
+        return this.started;
+    }
+
+    /**
+     * Returns if the delivery manager is suspended.
+     * 
+     * @return true if the delivery manager is suspended
+     */
+    public synchronized boolean isSuspended() {
+        return this.suspended;
+    }
+
     /**
      * Adds the message poller back to the queue.
      * 
@@ -258,8 +287,10 @@ public class DefaultDeliveryManager implements DeliveryManager {
         }
 
         if (!this.suspended) {
-            this.deliveryExecuter.shutdownNow();
-            this.deliveryExecuter = null;
+            if (this.deliveryExecuter != null) {
+                this.deliveryExecuter.shutdownNow();
+                this.deliveryExecuter = null;
+            }
 
             this.managerExecuter.shutdownNow();
             this.managerExecuter = null;
@@ -22,6 +22,7 @@ import java.util.Date;
 import java.util.Iterator;
 import java.util.List;
 
+import org.apache.smscserver.ServerSmscStatistics;
 import org.apache.smscserver.SmscServerContext;
 import org.apache.smscserver.packet.impl.SmscDeliverSMRequestImpl;
 import org.apache.smscserver.smsclet.MessageManager;
@@ -110,6 +111,7 @@ public class MessagePoller implements Runnable, Comparable<MessagePoller> {
 
             SmscServerContext context = this.deliveryManager.getServerContext();
             MessageManager messageManager = context.getMessageManager();
+            ServerSmscStatistics statistics = (ServerSmscStatistics) context.getSmscStatistics();
 
             List<ShortMessage> messages = messageManager.getPendingMessagesForUser(this.ioSession.getUser());
 
@@ -122,6 +124,9 @@ public class MessagePoller implements Runnable, Comparable<MessagePoller> {
                     shortMessage.setStatus(ShortMessageStatus.EXPIRED);
 
                     messageManager.updateMesage(shortMessage);
+                    if (statistics != null) {
+                        statistics.setMessageExpired(this.ioSession);
+                    }
 
                     i.remove();
 
@@ -132,6 +137,9 @@ public class MessagePoller implements Runnable, Comparable<MessagePoller> {
 
                 shortMessage.setStatus(ShortMessageStatus.DELIVERED);
                 messageManager.updateMesage(shortMessage);
+                if (statistics != null) {
+                    statistics.setMessageDelivered(this.ioSession);
+                }
             }
         } catch (Throwable t) {
             success = false;
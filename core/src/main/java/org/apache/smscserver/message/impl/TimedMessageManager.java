@@ -0,0 +1,144 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.smscserver.message.impl;
+
+import java.util.List;
+
+import org.apache.smscserver.ServerSmscStatistics;
+import org.apache.smscserver.SmscServerContext;
+import org.apache.smscserver.smsclet.MessageManager;
+import org.apache.smscserver.smsclet.ShortMessage;
+import org.apache.smscserver.smsclet.SmscException;
+import org.apache.smscserver.smsclet.SmscOriginalNotFoundException;
+import org.apache.smscserver.smsclet.User;
+
+/**
+ * <strong>Internal class, do not use directly.</strong>
+ * 
+ * Message manager decorator that records the latency of each operation of the decorated message manager, keyed by the
+ * method name, into the statistics of the server. Failed operations are recorded as well.
+ * 
+ * @author hceylan
+ */
+public class TimedMessageManager implements MessageManager {
+
+    private final MessageManager delegate;
+
+    private final SmscServerContext serverContext;
+
+    public TimedMessageManager(MessageManager delegate, SmscServerContext serverContext) {
+        this.delegate = delegate;
+        this.serverContext = serverContext;
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    public void cancelSM(ShortMessage shortMessage) throws SmscException, SmscOriginalNotFoundException {
+        long start = System.nanoTime();
+        try {
+            this.delegate.cancelSM(shortMessage);
+        } finally {
+            this.record("cancelSM", start);
+        }
+    }
+
+    /**
+     * Returns the decorated message manager.
+     * 
+     * @return the decorated message manager
+     */
+    public MessageManager getDelegate() {
+        return this.delegate;
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    public List<ShortMessage> getPendingMessagesForUser(User user) throws SmscException {
+        long start = System.nanoTime();
+        try {
+            return this.delegate.getPendingMessagesForUser(user);
+        } finally {
+            this.record("getPendingMessagesForUser", start);
+        }
+    }
+
+    private void record(String operation, long start) {
+        ServerSmscStatistics stats = (ServerSmscStatistics) this.serverContext.getSmscStatistics();
+        if (stats != null) {
+            stats.setMessageManagerLatency(operation, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    public void replaceSM(ShortMessage shortMessage) throws SmscException, SmscOriginalNotFoundException {
+        long start = System.nanoTime();
+        try {
+            this.delegate.replaceSM(shortMessage);
+        } finally {
+            this.record("replaceSM", start);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    public ShortMessage selectShortMessage(String id) throws SmscException {
+        long start = System.nanoTime();
+        try {
+            return this.delegate.selectShortMessage(id);
+        } finally {
+            this.record("selectShortMessage", start);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    public void submitSM(ShortMessage shortMessage) throws SmscException {
+        long start = System.nanoTime();
+        try {
+            this.delegate.submitSM(shortMessage);
+        } finally {
+            this.record("submitSM", start);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    public void updateMesage(ShortMessage message) throws SmscException {
+        long start = System.nanoTime();
+        try {
+            this.delegate.updateMesage(message);
+        } finally {
+            this.record("updateMesage", start);
+        }
+    }
+}
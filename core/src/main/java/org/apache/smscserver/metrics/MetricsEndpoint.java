@@ -0,0 +1,226 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.smscserver.metrics;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+
+import org.apache.mina.core.buffer.IoBuffer;
+import org.apache.mina.core.future.IoFutureListener;
+import org.apache.mina.core.service.IoHandlerAdapter;
+import org.apache.mina.core.session.IdleStatus;
+import org.apache.mina.core.session.IoSession;
+import org.apache.mina.transport.socket.SocketAcceptor;
+import org.apache.mina.transport.socket.nio.NioSocketAcceptor;
+import org.apache.smscserver.MetricsConfig;
+import org.apache.smscserver.SmscServerConfigurationException;
+import org.apache.smscserver.SmscServerContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <strong>Internal class, do not use directly.</strong>
+ * 
+ * A minimal HTTP/1.0 endpoint serving the metrics of the server at <code>/metrics</code> in the Prometheus text format.
+ * <p>
+ * The endpoint runs on a single I/O thread of its own, the requests are rendered on that thread into a builder reused
+ * across scrapes, therefore a scrape allocates little more than the response buffer. Every response closes the
+ * connection.
+ * 
+ * @author hceylan
+ */
+public class MetricsEndpoint {
+
+    private class HttpHandler extends IoHandlerAdapter {
+
+        @Override
+        public void exceptionCaught(IoSession session, Throwable cause) throws Exception {
+            MetricsEndpoint.LOG.debug("Metrics request failed", cause);
+
+            session.close(true);
+        }
+
+        @Override
+        public void messageReceived(IoSession session, Object message) throws Exception {
+            IoBuffer request = (IoBuffer) session.getAttribute(MetricsEndpoint.ATTRIBUTE_REQUEST);
+            if (request == null) {
+                request = IoBuffer.allocate(256).setAutoExpand(true);
+                session.setAttribute(MetricsEndpoint.ATTRIBUTE_REQUEST, request);
+            }
+
+            request.put((IoBuffer) message);
+
+            if (request.position() > MetricsEndpoint.MAX_REQUEST_SIZE) {
+                session.close(true);
+            } else if (MetricsEndpoint.isComplete(request)) {
+                request.flip();
+                session.removeAttribute(MetricsEndpoint.ATTRIBUTE_REQUEST);
+
+                session.write(MetricsEndpoint.this.respond(request)).addListener(IoFutureListener.CLOSE);
+            }
+        }
+
+        @Override
+        public void sessionIdle(IoSession session, IdleStatus status) throws Exception {
+            session.close(true);
+        }
+    }
+
+    private static final Logger LOG = LoggerFactory.getLogger(MetricsEndpoint.class);
+
+    private static final String ATTRIBUTE_REQUEST = MetricsEndpoint.class.getName() + ".request";
+
+    private static final int MAX_REQUEST_SIZE = 8192;
+
+    private static final int IDLE_TIMEOUT = 10;
+
+    private static final String PATH = "/metrics";
+
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    /**
+     * Returns true if the request contains the blank line terminating the headers.
+     */
+    private static boolean isComplete(IoBuffer request) {
+        for (int i = request.position() - 1; i >= 3; i--) {
+            if ((request.get(i) == '\n') && (request.get(i - 1) == '\r') && (request.get(i - 2) == '\n')
+                    && (request.get(i - 3) == '\r')) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static void putAscii(IoBuffer buffer, CharSequence text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            buffer.put((c < 0x80) ? (byte) c : (byte) '?');
+        }
+    }
+
+    private static IoBuffer response(String status, String contentType, CharSequence body, boolean head) {
+        String headers = "HTTP/1.0 " + status + "\r\nContent-Type: " + contentType + "\r\nContent-Length: "
+                + body.length() + "\r\nConnection: close\r\n\r\n";
+
+        IoBuffer buffer = IoBuffer.allocate(headers.length() + (head ? 0 : body.length()));
+        MetricsEndpoint.putAscii(buffer, headers);
+        if (!head) {
+            MetricsEndpoint.putAscii(buffer, body);
+        }
+
+        return buffer.flip();
+    }
+
+    private final MetricsConfig config;
+
+    private final PrometheusRenderer renderer;
+
+    private final StringBuilder body = new StringBuilder(16384);
+
+    private SocketAcceptor acceptor;
+
+    public MetricsEndpoint(SmscServerContext serverContext) {
+        this.config = serverContext.getMetricsConfig();
+        this.renderer = new PrometheusRenderer(serverContext);
+    }
+
+    /**
+     * Returns the port the endpoint is bound to.
+     * 
+     * @return the port, -1 if the endpoint is not started
+     */
+    public synchronized int getPort() {
+        return (this.acceptor != null) ? this.acceptor.getLocalAddress().getPort() : -1;
+    }
+
+    private IoBuffer respond(IoBuffer request) {
+        // the request line, i.e. GET /metrics HTTP/1.1
+        StringBuilder line = new StringBuilder();
+        while (request.hasRemaining()) {
+            char c = (char) request.get();
+            if ((c == '\r') || (c == '\n')) {
+                break;
+            }
+            line.append(c);
+        }
+
+        String[] parts = line.toString().split(" ");
+        boolean head = "HEAD".equals(parts[0]);
+        if (!head && !"GET".equals(parts[0])) {
+            return MetricsEndpoint.response("405 Method Not Allowed", "text/plain", "Method Not Allowed\n", false);
+        }
+
+        String path = (parts.length > 1) ? parts[1] : "";
+        int query = path.indexOf('?');
+        if (query >= 0) {
+            path = path.substring(0, query);
+        }
+
+        if (!MetricsEndpoint.PATH.equals(path)) {
+            return MetricsEndpoint.response("404 Not Found", "text/plain", "Not Found\n", head);
+        }
+
+        synchronized (this.body) {
+            this.body.setLength(0);
+            this.renderer.render(this.body);
+
+            return MetricsEndpoint.response("200 OK", MetricsEndpoint.CONTENT_TYPE, this.body, head);
+        }
+    }
+
+    /**
+     * Starts the endpoint.
+     * 
+     * @throws SmscServerConfigurationException
+     *             if the endpoint cannot bind to the configured address
+     */
+    public synchronized void start() {
+        InetSocketAddress address = (this.config.getAddress() != null) ? new InetSocketAddress(this.config
+                .getAddress(), this.config.getPort()) : new InetSocketAddress(this.config.getPort());
+
+        this.acceptor = new NioSocketAcceptor(1);
+        this.acceptor.setReuseAddress(true);
+        this.acceptor.getSessionConfig().setIdleTime(IdleStatus.BOTH_IDLE, MetricsEndpoint.IDLE_TIMEOUT);
+        this.acceptor.setHandler(new HttpHandler());
+
+        try {
+            this.acceptor.bind(address);
+        } catch (IOException e) {
+            this.stop();
+
+            throw new SmscServerConfigurationException("Failed to bind the metrics endpoint to address " + address
+                    + ", check configuration", e);
+        }
+
+        MetricsEndpoint.LOG.info("Metrics endpoint listening on {}", this.acceptor.getLocalAddress());
+    }
+
+    /**
+     * Stops the endpoint.
+     */
+    public synchronized void stop() {
+        if (this.acceptor != null) {
+            this.acceptor.unbind();
+            this.acceptor.dispose();
+            this.acceptor = null;
+        }
+    }
+}
@@ -0,0 +1,415 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.smscserver.metrics;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.apache.smscserver.DeliveryManager;
+import org.apache.smscserver.ServerSmscStatistics;
+import org.apache.smscserver.SessionCloseReason;
+import org.apache.smscserver.SmscServerContext;
+import org.apache.smscserver.impl.DefaultSmscIoSession;
+import org.apache.smscserver.impl.DefaultSmscServerContext;
+import org.apache.smscserver.ipfilter.BanFilter;
+import org.apache.smscserver.jmx.impl.DefaultThreadPoolMBean;
+import org.apache.smscserver.listener.Listener;
+import org.apache.smscserver.message.impl.DBMessageManager;
+import org.apache.smscserver.message.impl.DefaultDeliveryManager;
+import org.apache.smscserver.message.impl.TimedMessageManager;
+import org.apache.smscserver.smsclet.LatencySnapshot;
+import org.apache.smscserver.smsclet.MessageManager;
+import org.apache.smscserver.smsclet.SmscCommandId;
+import org.apache.smscserver.smsclet.SmscIoSession;
+import org.apache.smscserver.smscletcontainer.SmscletMetrics;
+
+/**
+ * <strong>Internal class, do not use directly.</strong>
+ * 
+ * Renders the metrics of a server in the Prometheus text exposition format, version 0.0.4.
+ * <p>
+ * The renderer only reads the counters, gauges and histograms the server maintains anyway, none of which locks, and
+ * appends to the builder of the caller so that the caller can reuse it across scrapes. Latency summaries are only
+ * rendered for commands and operations that have been recorded since the last reset.
+ * 
+ * @author hceylan
+ */
+public class PrometheusRenderer {
+
+    private static final String[] QUANTILES = { "0.5", "0.75", "0.9", "0.99", "0.999" };
+
+    private static final int[] COMMAND_IDS;
+
+    private static final String[] COMMAND_LABELS;
+
+    private static final String[] MESSAGE_MANAGER_OPERATIONS;
+
+    private static final String[] CLOSE_REASON_LABELS;
+
+    static {
+        Map<String, Integer> commands = SmscCommandId.getCommands();
+
+        COMMAND_IDS = new int[commands.size()];
+        COMMAND_LABELS = new String[commands.size()];
+
+        int i = 0;
+        for (Map.Entry<String, Integer> command : commands.entrySet()) {
+            PrometheusRenderer.COMMAND_IDS[i] = command.getValue();
+            PrometheusRenderer.COMMAND_LABELS[i++] = command.getKey().toLowerCase();
+        }
+
+        List<String> operations = new ArrayList<String>();
+        for (Method method : MessageManager.class.getMethods()) {
+            operations.add(method.getName());
+        }
+        Collections.sort(operations);
+
+        MESSAGE_MANAGER_OPERATIONS = operations.toArray(new String[operations.size()]);
+
+        SessionCloseReason[] reasons = SessionCloseReason.values();
+        CLOSE_REASON_LABELS = new String[reasons.length];
+        for (SessionCloseReason reason : reasons) {
+            PrometheusRenderer.CLOSE_REASON_LABELS[reason.ordinal()] = reason.name().toLowerCase();
+        }
+    }
+
+    private static void appendLabel(StringBuilder out, String name, String value) {
+        out.append('{');
+        PrometheusRenderer.appendLabelPair(out, name, value);
+        out.append('}');
+    }
+
+    private static void appendLabelPair(StringBuilder out, String name, String value) {
+        out.append(name).append("=\"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if ((c == '\\') || (c == '"')) {
+                out.append('\\').append(c);
+            } else if (c == '\n') {
+                out.append("\\n");
+            } else {
+                out.append(c);
+            }
+        }
+        out.append('"');
+    }
+
+    private static void header(StringBuilder out, String name, String type) {
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void sample(StringBuilder out, String name, String label, String value, long sample) {
+        out.append(name);
+        if (label != null) {
+            PrometheusRenderer.appendLabel(out, label, value);
+        }
+        out.append(' ').append(sample).append('\n');
+    }
+
+    private static void summary(StringBuilder out, String name, String label, String value, LatencySnapshot snapshot) {
+        long[] quantiles = { snapshot.getP50(), snapshot.getP75(), snapshot.getP90(), snapshot.getP99(),
+                snapshot.getP999() };
+
+        for (int i = 0; i < quantiles.length; i++) {
+            out.append(name).append('{');
+            if (label != null) {
+                PrometheusRenderer.appendLabelPair(out, label, value);
+                out.append(',');
+            }
+            out.append("quantile=\"").append(PrometheusRenderer.QUANTILES[i]).append("\"} ").append(quantiles[i])
+                    .append('\n');
+        }
+
+        out.append(name).append("_sum");
+        if (label != null) {
+            PrometheusRenderer.appendLabel(out, label, value);
+        }
+        out.append(' ').append(Math.round(snapshot.getMean() * snapshot.getCount())).append('\n');
+
+        out.append(name).append("_count");
+        if (label != null) {
+            PrometheusRenderer.appendLabel(out, label, value);
+        }
+        out.append(' ').append(snapshot.getCount()).append('\n');
+    }
+
+    private final SmscServerContext serverContext;
+
+    public PrometheusRenderer(SmscServerContext serverContext) {
+        this.serverContext = serverContext;
+    }
+
+    /**
+     * Renders the metrics of the server.
+     * 
+     * @param out
+     *            the builder to append the metrics to
+     */
+    public void render(StringBuilder out) {
+        this.renderStatistics(out);
+        this.renderLatencies(out);
+        this.renderListeners(out);
+        this.renderBans(out);
+        this.renderDelivery(out);
+        this.renderThreadPools(out);
+        this.renderSmsclets(out);
+    }
+
+    private void renderBans(StringBuilder out) {
+        if (!(this.serverContext instanceof DefaultSmscServerContext)) {
+            return;
+        }
+
+        BanFilter banFilter = ((DefaultSmscServerContext) this.serverContext).getBanFilter();
+        if (banFilter == null) {
+            return;
+        }
+
+        PrometheusRenderer.header(out, "smsc_banned_addresses", "gauge");
+        PrometheusRenderer.sample(out, "smsc_banned_addresses", null, null, banFilter.getBanCount());
+
+        PrometheusRenderer.header(out, "smsc_banned_addresses_max", "gauge");
+        PrometheusRenderer.sample(out, "smsc_banned_addresses_max", null, null, banFilter.getMaxBans());
+
+        PrometheusRenderer.header(out, "smsc_bans_total", "counter");
+        PrometheusRenderer.sample(out, "smsc_bans_total", null, null, banFilter.getTotalBanCount());
+
+        PrometheusRenderer.header(out, "smsc_bans_dropped_total", "counter");
+        PrometheusRenderer.sample(out, "smsc_bans_dropped_total", null, null, banFilter.getDroppedBanCount());
+
+        PrometheusRenderer.header(out, "smsc_banned_connections_total", "counter");
+        PrometheusRenderer.sample(out, "smsc_banned_connections_total", null, null, banFilter
+                .getRejectedConnectionCount());
+    }
+
+    private void renderDelivery(StringBuilder out) {
+        DeliveryManager deliveryManager = this.serverContext.getDeliveryManager();
+        if (!(deliveryManager instanceof DefaultDeliveryManager)) {
+            return;
+        }
+
+        PrometheusRenderer.header(out, "smsc_delivery_queued_sessions", "gauge");
+        PrometheusRenderer.sample(out, "smsc_delivery_queued_sessions", null, null,
+                ((DefaultDeliveryManager) deliveryManager).getQueuedSessionCount());
+    }
+
+    private void renderLatencies(StringBuilder out) {
+        ServerSmscStatistics statistics = (ServerSmscStatistics) this.serverContext.getSmscStatistics();
+
+        PrometheusRenderer.header(out, "smsc_command_latency_microseconds", "summary");
+        for (int i = 0; i < PrometheusRenderer.COMMAND_IDS.length; i++) {
+            LatencySnapshot snapshot = statistics.getCommandLatency(PrometheusRenderer.COMMAND_IDS[i]);
+            if (snapshot.getCount() > 0) {
+                PrometheusRenderer.summary(out, "smsc_command_latency_microseconds", "command",
+                        PrometheusRenderer.COMMAND_LABELS[i], snapshot);
+            }
+        }
+
+        PrometheusRenderer.header(out, "smsc_message_manager_latency_microseconds", "summary");
+        for (String operation : PrometheusRenderer.MESSAGE_MANAGER_OPERATIONS) {
+            LatencySnapshot snapshot = statistics.getMessageManagerLatency(operation);
+            if (snapshot.getCount() > 0) {
+                PrometheusRenderer.summary(out, "smsc_message_manager_latency_microseconds", "operation", operation,
+                        snapshot);
+            }
+        }
+
+        PrometheusRenderer.header(out, "smsc_deliver_round_trip_microseconds", "summary");
+        PrometheusRenderer.summary(out, "smsc_deliver_round_trip_microseconds", null, null, statistics
+                .getDeliverRoundTripLatency());
+
+        MessageManager messageManager = this.serverContext.getMessageManager();
+        if (messageManager instanceof TimedMessageManager) {
+            messageManager = ((TimedMessageManager) messageManager).getDelegate();
+        }
+
+        if (messageManager instanceof DBMessageManager) {
+            PrometheusRenderer.header(out, "smsc_store_connection_wait_microseconds", "summary");
+            PrometheusRenderer.summary(out, "smsc_store_connection_wait_microseconds", null, null,
+                    ((DBMessageManager) messageManager).getConnectionWaitLatency());
+        }
+    }
+
+    private void renderListeners(StringBuilder out) {
+        Map<String, Listener> listeners = this.serverContext.getListeners();
+
+        String[] names = new String[listeners.size()];
+        int[] sessions = new int[listeners.size()];
+        int[] inFlight = new int[listeners.size()];
+
+        int i = 0;
+        for (Map.Entry<String, Listener> entry : listeners.entrySet()) {
+            names[i] = entry.getKey();
+            if (!entry.getValue().isStopped()) {
+                for (SmscIoSession session : entry.getValue().getActiveSessions()) {
+                    sessions[i]++;
+                    if (session instanceof DefaultSmscIoSession) {
+                        inFlight[i] += ((DefaultSmscIoSession) session).getPendingDeliveryCount();
+                    }
+                }
+            }
+            i++;
+        }
+
+        PrometheusRenderer.header(out, "smsc_listener_sessions", "gauge");
+        for (i = 0; i < names.length; i++) {
+            PrometheusRenderer.sample(out, "smsc_listener_sessions", "listener", names[i], sessions[i]);
+        }
+
+        PrometheusRenderer.header(out, "smsc_deliver_in_flight", "gauge");
+        for (i = 0; i < names.length; i++) {
+            PrometheusRenderer.sample(out, "smsc_deliver_in_flight", "listener", names[i], inFlight[i]);
+        }
+    }
+
+    private void renderSmsclets(StringBuilder out) {
+        Map<String, SmscletMetrics> metrics = this.serverContext.getSmscletContainer().getSmscletMetrics();
+        if (metrics.isEmpty()) {
+            return;
+        }
+
+        PrometheusRenderer.header(out, "smsc_smsclet_calls_total", "counter");
+        for (Map.Entry<String, SmscletMetrics> entry : metrics.entrySet()) {
+            PrometheusRenderer.sample(out, "smsc_smsclet_calls_total", "smsclet", entry.getKey(), entry.getValue()
+                    .getCallCount());
+        }
+
+        PrometheusRenderer.header(out, "smsc_smsclet_failures_total", "counter");
+        for (Map.Entry<String, SmscletMetrics> entry : metrics.entrySet()) {
+            PrometheusRenderer.sample(out, "smsc_smsclet_failures_total", "smsclet", entry.getKey(), entry.getValue()
+                    .getFailureCount());
+        }
+
+        PrometheusRenderer.header(out, "smsc_smsclet_rejections_total", "counter");
+        for (Map.Entry<String, SmscletMetrics> entry : metrics.entrySet()) {
+            PrometheusRenderer.sample(out, "smsc_smsclet_rejections_total", "smsclet", entry.getKey(), entry
+                    .getValue().getRejectedCount());
+        }
+
+        PrometheusRenderer.header(out, "smsc_smsclet_timeouts_total", "counter");
+        for (Map.Entry<String, SmscletMetrics> entry : metrics.entrySet()) {
+            PrometheusRenderer.sample(out, "smsc_smsclet_timeouts_total", "smsclet", entry.getKey(), entry.getValue()
+                    .getTimeoutCount());
+        }
+
+        PrometheusRenderer.header(out, "smsc_smsclet_average_latency_microseconds", "gauge");
+        for (Map.Entry<String, SmscletMetrics> entry : metrics.entrySet()) {
+            PrometheusRenderer.sample(out, "smsc_smsclet_average_latency_microseconds", "smsclet", entry.getKey(),
+                    entry.getValue().getAverageLatency());
+        }
+    }
+
+    private void renderStatistics(StringBuilder out) {
+        ServerSmscStatistics statistics = (ServerSmscStatistics) this.serverContext.getSmscStatistics();
+
+        PrometheusRenderer.header(out, "smsc_connections", "gauge");
+        PrometheusRenderer.sample(out, "smsc_connections", null, null, statistics.getCurrentConnectionNumber());
+        PrometheusRenderer.header(out, "smsc_binds", "gauge");
+        PrometheusRenderer.sample(out, "smsc_binds", null, null, statistics.getCurrentBindNumber());
+
+        PrometheusRenderer.header(out, "smsc_connections_total", "counter");
+        PrometheusRenderer.sample(out, "smsc_connections_total", null, null, statistics.getTotalConnectionNumber());
+        PrometheusRenderer.header(out, "smsc_binds_total", "counter");
+        PrometheusRenderer.sample(out, "smsc_binds_total", null, null, statistics.getTotalBindNumber());
+        PrometheusRenderer.header(out, "smsc_bind_failures_total", "counter");
+        PrometheusRenderer.sample(out, "smsc_bind_failures_total", null, null, statistics.getTotalFailedBindNumber());
+        PrometheusRenderer.header(out, "smsc_messages_received_total", "counter");
+        PrometheusRenderer.sample(out, "smsc_messages_received_total", null, null, statistics
+                .getTotalMessageReceivedNumber());
+        PrometheusRenderer.header(out, "smsc_messages_sent_total", "counter");
+        PrometheusRenderer.sample(out, "smsc_messages_sent_total", null, null, statistics
+                .getTotalMessageSentNumber());
+
+        PrometheusRenderer.header(out, "smsc_connections_closed_total", "counter");
+        for (SessionCloseReason reason : SessionCloseReason.values()) {
+            PrometheusRenderer.sample(out, "smsc_connections_closed_total", "reason",
+                    PrometheusRenderer.CLOSE_REASON_LABELS[reason.ordinal()], statistics
+                            .getTotalClosedConnectionNumber(reason));
+        }
+
+        PrometheusRenderer.header(out, "smsc_observer_events_dropped_total", "counter");
+        PrometheusRenderer.sample(out, "smsc_observer_events_dropped_total", null, null, statistics
+                .getDroppedObserverEventCount());
+    }
+
+    private void renderThreadPools(StringBuilder out) {
+        List<String> names = new ArrayList<String>(4);
+        List<ThreadPoolExecutor> executors = new ArrayList<ThreadPoolExecutor>(4);
+
+        ExecutorService requestExecutor = this.serverContext.getRequestExecutor();
+        if (requestExecutor instanceof ThreadPoolExecutor) {
+            names.add("request");
+            executors.add((ThreadPoolExecutor) requestExecutor);
+        }
+
+        ExecutorService authExecutor = this.serverContext.getAuthExecutor();
+        if (authExecutor instanceof ThreadPoolExecutor) {
+            names.add("auth");
+            executors.add((ThreadPoolExecutor) authExecutor);
+        }
+
+        names.add("filter");
+        executors.add(this.serverContext.getThreadPoolExecutor());
+
+        DeliveryManager deliveryManager = this.serverContext.getDeliveryManager();
+        if (deliveryManager instanceof DefaultDeliveryManager) {
+            ThreadPoolExecutor executor = ((DefaultDeliveryManager) deliveryManager).getDeliveryExecuter();
+            if (executor != null) {
+                names.add("delivery");
+                executors.add(executor);
+            }
+        }
+
+        PrometheusRenderer.header(out, "smsc_thread_pool_active_threads", "gauge");
+        for (int i = 0; i < names.size(); i++) {
+            PrometheusRenderer.sample(out, "smsc_thread_pool_active_threads", "pool", names.get(i), executors.get(i)
+                    .getActiveCount());
+        }
+
+        PrometheusRenderer.header(out, "smsc_thread_pool_threads", "gauge");
+        for (int i = 0; i < names.size(); i++) {
+            PrometheusRenderer.sample(out, "smsc_thread_pool_threads", "pool", names.get(i), executors.get(i)
+                    .getPoolSize());
+        }
+
+        PrometheusRenderer.header(out, "smsc_thread_pool_max_threads", "gauge");
+        for (int i = 0; i < names.size(); i++) {
+            PrometheusRenderer.sample(out, "smsc_thread_pool_max_threads", "pool", names.get(i), executors.get(i)
+                    .getMaximumPoolSize());
+        }
+
+        PrometheusRenderer.header(out, "smsc_thread_pool_queued_tasks", "gauge");
+        for (int i = 0; i < names.size(); i++) {
+            PrometheusRenderer.sample(out, "smsc_thread_pool_queued_tasks", "pool", names.get(i),
+                    DefaultThreadPoolMBean.queueSize(executors.get(i)));
+        }
+
+        PrometheusRenderer.header(out, "smsc_thread_pool_completed_tasks_total", "counter");
+        for (int i = 0; i < names.size(); i++) {
+            PrometheusRenderer.sample(out, "smsc_thread_pool_completed_tasks_total", "pool", names.get(i), executors
+                    .get(i).getCompletedTaskCount());
+        }
+    }
+}
@@ -15,6 +15,12 @@ public class SmscEnquireLinkRequestImpl extends EnquireLink implements EnquireLi
 
     private UUID id;
 
+    public SmscEnquireLinkRequestImpl(int sequenceNum) {
+        super();
+
+        this.sequenceNum = sequenceNum;
+    }
+
     public SmscEnquireLinkRequestImpl(int sequenceNum, byte[] body) {
         super();
 
@@ -0,0 +1,48 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.smscserver.packet.impl;
+
+import ie.omk.smpp.message.GenericNack;
+
+import org.apache.smscserver.smsclet.SmscReply;
+
+/**
+ * A generic_nack, either received from the client or sent to it for a PDU that could not be decoded.
+ * 
+ * @author hceylan
+ */
+public class SmscGenericNackImpl extends GenericNack implements SmscReply {
+
+    public SmscGenericNackImpl(int sequenceNum, ErrorCode errorCode) {
+        super(sequenceNum);
+
+        this.setCommandStatus(errorCode.getCode());
+    }
+
+    public SmscGenericNackImpl(int sequenceNum, int commandStatus, byte[] body) {
+        super();
+
+        this.setSequenceNum(sequenceNum);
+        this.setCommandStatus(commandStatus);
+
+        this.readBodyFrom(body, 0);
+    }
+
+}
@@ -21,15 +21,17 @@ package org.apache.smscserver.smscletcontainer;
 
 import java.util.Map;
 
+import org.apache.smscserver.smsclet.AsyncSmsclet;
 import org.apache.smscserver.smsclet.Smsclet;
 
 /**
  * Interface describing an Smsclet container. Smsclet containers extend the {@link Smsclet} interface and forward any
- * events to the Smsclets hosted by the container.
+ * events to the Smsclets hosted by the container. Requests are forwarded asynchronously so that smsclets waiting on
+ * external services do not block the server threads.
  * 
  * @author hceylan
  */
-public interface SmscletContainer extends Smsclet {
+public interface SmscletContainer extends AsyncSmsclet {
 
     /**
      * Retrieve the {@link Smsclet} identified by the name (as provided in the {@link #addSmsclet(String, Smsclet)}
@@ -41,6 +43,13 @@ public interface SmscletContainer extends Smsclet {
      */
     Smsclet getSmsclet(String name);
 
+    /**
+     * Retrieve the metrics of the Smsclets registered with this container
+     * 
+     * @return A map of the metrics with the name of the Smsclet as the key
+     */
+    Map<String, SmscletMetrics> getSmscletMetrics();
+
     /**
      * Retrive all Smsclets registered with this container
      * 
@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.smscserver.smscletcontainer;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Call counters and latencies of a smsclet hosted by a {@link SmscletContainer}.
+ * 
+ * @author hceylan
+ */
+public class SmscletMetrics {
+
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong maxLatency = new AtomicLong();
+    private final AtomicLong rejections = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+    private final AtomicLong totalLatency = new AtomicLong();
+
+    /**
+     * Returns the average latency of the completed calls.
+     * 
+     * @return the average latency in microseconds
+     */
+    public long getAverageLatency() {
+        long calls = this.calls.get();
+
+        return (calls != 0) ? (this.totalLatency.get() / calls) / 1000 : 0;
+    }
+
+    /**
+     * @return the number of completed calls, including the failed ones
+     */
+    public long getCallCount() {
+        return this.calls.get();
+    }
+
+    /**
+     * @return the number of calls that threw an exception or completed exceptionally
+     */
+    public long getFailureCount() {
+        return this.failures.get();
+    }
+
+    /**
+     * Returns the highest latency of the completed calls.
+     * 
+     * @return the highest latency in microseconds
+     */
+    public long getMaxLatency() {
+        return this.maxLatency.get() / 1000;
+    }
+
+    /**
+     * @return the number of calls rejected because the smsclet had too many requests in progress
+     */
+    public long getRejectedCount() {
+        return this.rejections.get();
+    }
+
+    /**
+     * @return the number of calls that did not complete in time
+     */
+    public long getTimeoutCount() {
+        return this.timeouts.get();
+    }
+
+    /**
+     * Records a completed call.
+     * 
+     * @param latency
+     *            the latency of the call in nanoseconds
+     * @param failed
+     *            true if the call failed
+     */
+    public void recordCall(long latency, boolean failed) {
+        this.calls.incrementAndGet();
+        this.totalLatency.addAndGet(latency);
+
+        if (failed) {
+            this.failures.incrementAndGet();
+        }
+
+        long max = this.maxLatency.get();
+        while ((latency > max) && !this.maxLatency.compareAndSet(max, latency)) {
+            max = this.maxLatency.get();
+        }
+    }
+
+    /**
+     * Records a call rejected because the smsclet had too many requests in progress.
+     */
+    public void recordRejection() {
+        this.rejections.incrementAndGet();
+    }
+
+    /**
+     * Records a call that did not complete in time.
+     */
+    public void recordTimeout() {
+        this.timeouts.incrementAndGet();
+    }
+}
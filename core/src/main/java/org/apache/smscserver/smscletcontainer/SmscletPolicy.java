@@ -0,0 +1,58 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.smscserver.smscletcontainer;
+
+/**
+ * Interface for providing the isolation policy of a smsclet.
+ * 
+ * @author hceylan
+ */
+public interface SmscletPolicy {
+
+    /**
+     * Returns the action taken when the smsclet fails, times out or has too many requests in progress.
+     * 
+     * @return the fallback action
+     */
+    SmscletFallback getFallback();
+
+    /**
+     * Returns the maximum number of requests the smsclet may have in progress at a time.
+     * 
+     * @return the maximum number of requests in progress, 0 for no limit on the server threads or 64 per dedicated
+     *         thread
+     */
+    int getMaxConcurrency();
+
+    /**
+     * Returns the number of threads dedicated to the smsclet.
+     * 
+     * @return the number of dedicated threads, 0 to call the smsclet on the server threads, or on one thread per
+     *         processor if the smsclet is synchronous and has a timeout
+     */
+    int getThreads();
+
+    /**
+     * Returns the time the smsclet is given to reply.
+     * 
+     * @return the timeout in milliseconds, 0 for no timeout
+     */
+    long getTimeout();
+}
@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.smscserver.smscletcontainer;
+
+import org.apache.smscserver.smscletcontainer.impl.DefaultSmscletPolicy;
+
+/**
+ * Factory for creating smsclet policies
+ * 
+ * @author hceylan
+ * 
+ */
+public class SmscletPolicyFactory {
+
+    private SmscletFallback fallback = SmscletFallback.REJECT;
+    private int maxConcurrency = 0;
+    private int threads = 0;
+    private long timeout = 0;
+
+    /**
+     * Create a smsclet policy instance based on the configuration on this factory
+     * 
+     * @return The {@link SmscletPolicy} instance
+     */
+    public SmscletPolicy createSmscletPolicy() {
+        return new DefaultSmscletPolicy(this.fallback, this.maxConcurrency, this.threads, this.timeout);
+    }
+
+    /**
+     * @return the action taken when the smsclet fails, times out or has too many requests in progress
+     */
+    public SmscletFallback getFallback() {
+        return this.fallback;
+    }
+
+    /**
+     * @return the maximum number of requests in progress, 0 for no limit on the server threads or 64 per dedicated
+     *         thread
+     */
+    public int getMaxConcurrency() {
+        return this.maxConcurrency;
+    }
+
+    /**
+     * @return the number of dedicated threads, 0 to call the smsclet on the server threads, or on one thread per
+     *         processor if the smsclet is synchronous and has a timeout
+     */
+    public int getThreads() {
+        return this.threads;
+    }
+
+    /**
+     * @return the timeout in milliseconds, 0 for no timeout
+     */
+    public long getTimeout() {
+        return this.timeout;
+    }
+
+    /**
+     * @param fallback
+     *            the action taken when the smsclet fails, times out or has too many requests in progress
+     */
+    public void setFallback(SmscletFallback fallback) {
+        this.fallback = fallback;
+    }
+
+    /**
+     * @param maxConcurrency
+     *            the maximum number of requests in progress, 0 for no limit on the server threads or 64 per
+     *            dedicated thread
+     */
+    public void setMaxConcurrency(int maxConcurrency) {
+        this.maxConcurrency = maxConcurrency;
+    }
+
+    /**
+     * @param threads
+     *            the number of dedicated threads, 0 to call the smsclet on the server threads, or on one thread per
+     *            processor if the smsclet is synchronous and has a timeout
+     */
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    /**
+     * @param timeout
+     *            the timeout in milliseconds, 0 for no timeout
+     */
+    public void setTimeout(long timeout) {
+        this.timeout = timeout;
+    }
+}
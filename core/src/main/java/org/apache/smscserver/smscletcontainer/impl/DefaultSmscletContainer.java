@@ -20,17 +20,47 @@
 package org.apache.smscserver.smscletcontainer.impl;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
 
+import org.apache.smscserver.smsclet.AlertNotificationRequest;
+import org.apache.smscserver.smsclet.AsyncSmsclet;
+import org.apache.smscserver.smsclet.BindRequest;
+import org.apache.smscserver.smsclet.CancelSMRequest;
+import org.apache.smscserver.smsclet.DataSMRequest;
+import org.apache.smscserver.smsclet.DefaultSmsclet;
+import org.apache.smscserver.smsclet.DeliverSMRequest;
+import org.apache.smscserver.smsclet.EnquireLinkRequest;
+import org.apache.smscserver.smsclet.OutbindRequest;
+import org.apache.smscserver.smsclet.ParamRetrieveRequest;
+import org.apache.smscserver.smsclet.QueryLastMsgsRequest;
+import org.apache.smscserver.smsclet.QueryMsgDetailsRequest;
+import org.apache.smscserver.smsclet.QuerySMRequest;
+import org.apache.smscserver.smsclet.ReplaceSMRequest;
+import org.apache.smscserver.smsclet.SmscCommandId;
 import org.apache.smscserver.smsclet.SmscException;
 import org.apache.smscserver.smsclet.SmscReply;
+import org.apache.smscserver.smsclet.SmscReplyFuture;
+import org.apache.smscserver.smsclet.SmscReplyFutureListener;
 import org.apache.smscserver.smsclet.SmscRequest;
 import org.apache.smscserver.smsclet.SmscSession;
 import org.apache.smscserver.smsclet.Smsclet;
 import org.apache.smscserver.smsclet.SmscletContext;
+import org.apache.smscserver.smsclet.SubmitMultiRequest;
+import org.apache.smscserver.smsclet.SubmitSMRequest;
+import org.apache.smscserver.smsclet.UnbindRequest;
 import org.apache.smscserver.smscletcontainer.SmscletContainer;
+import org.apache.smscserver.smscletcontainer.SmscletMetrics;
+import org.apache.smscserver.smscletcontainer.SmscletPolicy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -39,28 +69,187 @@ import org.slf4j.LoggerFactory;
  * 
  * This smsclet calls other smsclet methods and returns appropriate smsc reply.
  * 
+ * The smsclets are analyzed when the container is initialized and a pipeline is compiled for each command id. A
+ * {@link DefaultSmsclet} only takes place in the pipelines of the callbacks it overrides, any other smsclet takes place
+ * in all of them, so does an {@link AsyncSmsclet} for the request pipelines. Smsclets added to the map returned by
+ * {@link #getSmsclets()} after {@link #init(SmscletContext)} are not called.
+ * 
+ * {@link AsyncSmsclet}s are composed without blocking, the next smsclet in the pipeline is called once the reply
+ * future of the previous one completes with a null reply. A smsclet may be isolated by a {@link SmscletPolicy}, see
+ * {@link SmscletStage}.
+ * 
  * <strong><strong>Internal class, do not use directly.</strong></strong>
  * 
  * @author hceylan
  */
 public class DefaultSmscletContainer implements SmscletContainer {
 
+    /**
+     * A request callback of {@link DefaultSmsclet} and the command ids it handles.
+     */
+    private static class Callback {
+
+        private final int[] commandIds;
+        private final String name;
+        private final Class<?> requestType;
+
+        private Callback(String name, Class<?> requestType, int... commandIds) {
+            this.name = name;
+            this.requestType = requestType;
+            this.commandIds = commandIds;
+        }
+    }
+
+    private static final Callback[] CALLBACKS = new Callback[] {
+            new Callback("onAlertNotification", AlertNotificationRequest.class, SmscCommandId.ALERT_NOTIFICATION),
+            new Callback("onBind", BindRequest.class, SmscCommandId.BIND_RECEIVER, SmscCommandId.BIND_TRANSCEIVER,
+                    SmscCommandId.BIND_TRANSMITTER),
+            new Callback("onCancelSM", CancelSMRequest.class, SmscCommandId.CANCEL_SM),
+            new Callback("onDataSM", DataSMRequest.class, SmscCommandId.DATA_SM),
+            new Callback("onDeliverSM", DeliverSMRequest.class, SmscCommandId.DELIVER_SM),
+            new Callback("onEnquireLink", EnquireLinkRequest.class, SmscCommandId.ENQUIRE_LINK),
+            new Callback("onOutbind", OutbindRequest.class, SmscCommandId.OUTBIND),
+            new Callback("onParamRetrieveRequest", ParamRetrieveRequest.class, SmscCommandId.PARAM_RETRIEVE),
+            new Callback("onQueryLastMsgs", QueryLastMsgsRequest.class, SmscCommandId.QUERY_LAST_MSGS),
+            new Callback("onQueryMsgDetails", QueryMsgDetailsRequest.class, SmscCommandId.QUERY_MSG_DETAILS),
+            new Callback("onQuerySM", QuerySMRequest.class, SmscCommandId.QUERY_SM),
+            new Callback("onReplaceSM", ReplaceSMRequest.class, SmscCommandId.REPLACE_SM),
+            new Callback("onSubmitMulti", SubmitMultiRequest.class, SmscCommandId.SUBMIT_MULTI),
+            new Callback("onSubmitSM", SubmitSMRequest.class, SmscCommandId.SUBMIT_SM),
+            new Callback("onUnbind", UnbindRequest.class, SmscCommandId.UNBIND) };
+
+    private static final int COMMAND_TABLE_SIZE = 0x200;
+
+    /**
+     * Returns if the smsclet implements the named callback. Smsclets not derived from {@link DefaultSmsclet} are
+     * assumed to implement all the callbacks.
+     */
+    private static boolean overrides(Smsclet smsclet, String name, Class<?>... parameterTypes) {
+        if (!(smsclet instanceof DefaultSmsclet)) {
+            return true;
+        }
+
+        try {
+            return smsclet.getClass().getMethod(name, parameterTypes).getDeclaringClass() != DefaultSmsclet.class;
+        } catch (NoSuchMethodException e) {
+            return true;
+        }
+    }
+
+    private static SmscletStage[] toArray(List<SmscletStage> stages) {
+        return stages.toArray(new SmscletStage[stages.size()]);
+    }
+
     private final Logger LOG = LoggerFactory.getLogger(DefaultSmscletContainer.class);
 
+    private final Map<String, SmscletPolicy> policies;
+
     private final Map<String, Smsclet> smsclets;
 
+    private final Map<String, SmscletStage> stages = new HashMap<String, SmscletStage>();
+
+    private final ScheduledExecutorService timer;
+
+    private volatile SmscletStage[] connectPipeline;
+    private volatile SmscletStage[] defaultPipeline;
+    private volatile SmscletStage[] disconnectPipeline;
+    private volatile SmscletStage[][] requestPipelines;
+
     public DefaultSmscletContainer() {
         this(new ConcurrentHashMap<String, Smsclet>());
     }
 
     public DefaultSmscletContainer(Map<String, Smsclet> smsclets) {
+        this(smsclets, Collections.<String, SmscletPolicy> emptyMap());
+    }
+
+    /**
+     * @param smsclets
+     *            The smsclets with their names as the key
+     * @param policies
+     *            The policies of the smsclets with their names as the key
+     */
+    public DefaultSmscletContainer(Map<String, Smsclet> smsclets, Map<String, SmscletPolicy> policies) {
         this.smsclets = smsclets;
+        this.policies = policies;
+
+        this.timer = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "Smsclet-Timer");
+                thread.setDaemon(true);
+
+                return thread;
+            }
+        });
+
+        this.compile();
+    }
+
+    /**
+     * Builds the per command id pipelines from the current smsclets, preserving the iteration order of the map.
+     */
+    private synchronized void compile() {
+        List<SmscletStage> connect = new ArrayList<SmscletStage>();
+        List<SmscletStage> disconnect = new ArrayList<SmscletStage>();
+        List<SmscletStage> generic = new ArrayList<SmscletStage>();
+
+        for (Entry<String, Smsclet> entry : this.smsclets.entrySet()) {
+            Smsclet smsclet = entry.getValue();
+            SmscletStage stage = this.stage(entry.getKey(), smsclet);
+
+            if (DefaultSmscletContainer.overrides(smsclet, "onConnect", SmscSession.class)) {
+                connect.add(stage);
+            }
+
+            if (DefaultSmscletContainer.overrides(smsclet, "onDisconnect", SmscSession.class)) {
+                disconnect.add(stage);
+            }
+
+            if (!(smsclet instanceof DefaultSmsclet) || (smsclet instanceof AsyncSmsclet)) {
+                generic.add(stage);
+            }
+        }
+
+        SmscletStage[] defaultPipeline = DefaultSmscletContainer.toArray(generic);
+        SmscletStage[][] requestPipelines = new SmscletStage[DefaultSmscletContainer.COMMAND_TABLE_SIZE][];
+        for (int i = 0; i < requestPipelines.length; i++) {
+            requestPipelines[i] = defaultPipeline;
+        }
+
+        for (Callback callback : DefaultSmscletContainer.CALLBACKS) {
+            List<SmscletStage> pipeline = new ArrayList<SmscletStage>();
+            for (Entry<String, Smsclet> entry : this.smsclets.entrySet()) {
+                Smsclet smsclet = entry.getValue();
+                if ((smsclet instanceof AsyncSmsclet)
+                        || DefaultSmscletContainer.overrides(smsclet, callback.name, SmscSession.class,
+                                callback.requestType)) {
+                    pipeline.add(this.stage(entry.getKey(), smsclet));
+                }
+            }
+
+            SmscletStage[] compiled = DefaultSmscletContainer.toArray(pipeline);
+            for (int commandId : callback.commandIds) {
+                requestPipelines[commandId] = compiled;
+            }
+        }
+
+        this.connectPipeline = DefaultSmscletContainer.toArray(connect);
+        this.disconnectPipeline = DefaultSmscletContainer.toArray(disconnect);
+        this.defaultPipeline = defaultPipeline;
+        this.requestPipelines = requestPipelines;
     }
 
     /**
      * Destroy all smsclets.
      */
-    public void destroy() {
+    public synchronized void destroy() {
+        this.timer.shutdownNow();
+
+        for (SmscletStage stage : this.stages.values()) {
+            stage.destroy();
+        }
+
         for (Entry<String, Smsclet> entry : this.smsclets.entrySet()) {
             try {
                 entry.getValue().destroy();
@@ -81,6 +270,22 @@ public class DefaultSmscletContainer implements SmscletContainer {
         return this.smsclets.get(name);
     }
 
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    public synchronized Map<String, SmscletMetrics> getSmscletMetrics() {
+        Map<String, SmscletMetrics> metrics = new LinkedHashMap<String, SmscletMetrics>();
+        for (String name : this.smsclets.keySet()) {
+            SmscletStage stage = this.stages.get(name);
+            if (stage != null) {
+                metrics.put(name, stage.getMetrics());
+            }
+        }
+
+        return metrics;
+    }
+
     /**
      * @see SmscletContainer#getSmsclets()
      */
@@ -89,6 +294,8 @@ public class DefaultSmscletContainer implements SmscletContainer {
     }
 
     public synchronized void init(SmscletContext smscletContext) throws SmscException {
+        this.compile();
+
         for (Entry<String, Smsclet> entry : this.smsclets.entrySet()) {
             entry.getValue().init(smscletContext);
         }
@@ -98,8 +305,8 @@ public class DefaultSmscletContainer implements SmscletContainer {
      * Call smsclet onConnect.
      */
     public boolean onConnect(SmscSession session) throws SmscException, IOException {
-        for (Entry<String, Smsclet> entry : this.smsclets.entrySet()) {
-            if (!entry.getValue().onConnect(session)) {
+        for (SmscletStage stage : this.connectPipeline) {
+            if (!stage.onConnect(session)) {
                 return false;
             }
         }
@@ -111,14 +318,14 @@ public class DefaultSmscletContainer implements SmscletContainer {
      * Call smsclet onDisconnect.
      */
     public void onDisconnect(SmscSession session) throws SmscException, IOException {
-        for (Entry<String, Smsclet> entry : this.smsclets.entrySet()) {
-            entry.getValue().onDisconnect(session);
+        for (SmscletStage stage : this.disconnectPipeline) {
+            stage.onDisconnect(session);
         }
     }
 
     /**
-     * Called by the smsclet container after a request has been received by the server. The implementation should return
-     * based on the desired action to be taken by the server:
+     * Called by the smsclet container after a request has been received by the server. Blocks until all the smsclets
+     * of the pipeline have replied, the server itself uses {@link #onRequestAsync(SmscSession, SmscRequest)}.
      * 
      * @param session
      *            The current session
@@ -129,17 +336,112 @@ public class DefaultSmscletContainer implements SmscletContainer {
      * @throws IOException
      */
     public SmscReply onRequest(SmscSession session, SmscRequest request) throws SmscException, IOException {
+        try {
+            return this.onRequestAsync(session, request).await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
 
-        SmscReply reply = null;
-        for (Entry<String, Smsclet> entry : this.smsclets.entrySet()) {
+            throw new SmscException("Interrupted while waiting for the smsclets", e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    public SmscReplyFuture onRequestAsync(SmscSession session, SmscRequest request) throws SmscException, IOException {
+        int commandId = request.getCommandId();
+        SmscletStage[] pipeline = ((commandId >= 0) && (commandId < DefaultSmscletContainer.COMMAND_TABLE_SIZE)) //
+                ? this.requestPipelines[commandId]
+                : this.defaultPipeline;
+
+        if (pipeline.length == 0) {
+            return SmscReplyFuture.completed(null);
+        }
 
-            reply = entry.getValue().onRequest(session, request);
-            if (reply != null) {
-                return reply;
+        SmscReplyFuture result = new SmscReplyFuture();
+        this.proceed(pipeline, 0, session, request, result);
+
+        return result;
+    }
+
+    /**
+     * Calls the smsclets of the pipeline starting from the index until one of them replies. Returns as soon as an
+     * asynchronous smsclet does not reply immediately, the pipeline is resumed when its future completes.
+     */
+    private void proceed(final SmscletStage[] pipeline, int index, final SmscSession session, final SmscRequest request,
+            final SmscReplyFuture result) {
+        try {
+            for (; index < pipeline.length; index++) {
+                SmscletStage stage = pipeline[index];
+
+                SmscReply reply;
+                if (stage.isAsync()) {
+                    SmscReplyFuture future = stage.onRequestAsync(session, request);
+                    if (!future.isDone()) {
+                        final int next = index + 1;
+                        future.addListener(new SmscReplyFutureListener() {
+
+                            public void operationComplete(SmscReplyFuture future) {
+                                DefaultSmscletContainer.this.resume(pipeline, next, session, request, future, result);
+                            }
+                        });
+
+                        return;
+                    }
+
+                    reply = future.getReply();
+                } else {
+                    reply = stage.onRequest(session, request);
+                }
+
+                if (reply != null) {
+                    result.setReply(reply);
+
+                    return;
+                }
             }
+
+            result.setReply(null);
+        } catch (Exception e) {
+            result.setException(e);
+        }
+    }
+
+    private void resume(SmscletStage[] pipeline, int next, SmscSession session, SmscRequest request,
+            SmscReplyFuture future, SmscReplyFuture result) {
+        SmscReply reply;
+        try {
+            reply = future.getReply();
+        } catch (SmscException e) {
+            result.setException(e);
+
+            return;
+        }
+
+        if (reply != null) {
+            result.setReply(reply);
+        } else {
+            this.proceed(pipeline, next, session, request, result);
+        }
+    }
+
+    /**
+     * Returns the pipeline stage of the smsclet, the stage is kept as long as the smsclet is registered with the same
+     * name.
+     */
+    private SmscletStage stage(String name, Smsclet smsclet) {
+        SmscletStage stage = this.stages.get(name);
+        if ((stage == null) || (stage.getSmsclet() != smsclet)) {
+            if (stage != null) {
+                stage.destroy();
+            }
+
+            stage = new SmscletStage(name, smsclet, this.policies.get(name), this.timer);
+            this.stages.put(name, stage);
         }
 
-        return reply;
+        return stage;
     }
 
 }
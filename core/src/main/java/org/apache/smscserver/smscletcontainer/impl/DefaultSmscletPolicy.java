@@ -0,0 +1,80 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.smscserver.smscletcontainer.impl;
+
+import org.apache.smscserver.smscletcontainer.SmscletFallback;
+import org.apache.smscserver.smscletcontainer.SmscletPolicy;
+import org.apache.smscserver.smscletcontainer.SmscletPolicyFactory;
+
+/**
+ * <strong>Internal class, do not use directly.</strong>
+ * 
+ * @author hceylan
+ * 
+ */
+public class DefaultSmscletPolicy implements SmscletPolicy {
+
+    private final SmscletFallback fallback;
+    private final int maxConcurrency;
+    private final int threads;
+    private final long timeout;
+
+    /**
+     * Internal constructor, do not use directly. Use {@link SmscletPolicyFactory} instead
+     */
+    public DefaultSmscletPolicy(SmscletFallback fallback, int maxConcurrency, int threads, long timeout) {
+        this.fallback = fallback;
+        this.maxConcurrency = maxConcurrency;
+        this.threads = threads;
+        this.timeout = timeout;
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    public SmscletFallback getFallback() {
+        return this.fallback;
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    public int getMaxConcurrency() {
+        return this.maxConcurrency;
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    public int getThreads() {
+        return this.threads;
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    public long getTimeout() {
+        return this.timeout;
+    }
+}
@@ -0,0 +1,360 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.smscserver.smscletcontainer.impl;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.smscserver.packet.impl.SmscStatusReplyImpl;
+import org.apache.smscserver.smsclet.AsyncSmsclet;
+import org.apache.smscserver.smsclet.SmscException;
+import org.apache.smscserver.smsclet.SmscReply;
+import org.apache.smscserver.smsclet.SmscReply.ErrorCode;
+import org.apache.smscserver.smsclet.SmscReplyFuture;
+import org.apache.smscserver.smsclet.SmscReplyFutureListener;
+import org.apache.smscserver.smsclet.SmscRequest;
+import org.apache.smscserver.smsclet.SmscSession;
+import org.apache.smscserver.smsclet.Smsclet;
+import org.apache.smscserver.smsclet.SmscletTimeoutException;
+import org.apache.smscserver.smscletcontainer.SmscletFallback;
+import org.apache.smscserver.smscletcontainer.SmscletMetrics;
+import org.apache.smscserver.smscletcontainer.SmscletPolicy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <strong>Internal class, do not use directly.</strong>
+ * 
+ * A smsclet in the pipelines of the {@link DefaultSmscletContainer}. Records the metrics of the smsclet and enforces
+ * its {@link SmscletPolicy}: the smsclet is called on its own threads, the number of requests in progress is bounded
+ * and the requests not replied in time are failed. Failures are handled according to the fallback of the policy,
+ * smsclets without a policy fail the request which closes the session.
+ * <p>
+ * A synchronous smsclet holds the calling thread until it replies, so a timeout could fail its request but not free
+ * the thread. A synchronous smsclet with a timeout is therefore always called on dedicated threads, one per processor
+ * unless its policy sets them.
+ * 
+ * @author hceylan
+ */
+public class SmscletStage {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SmscletStage.class);
+
+    /**
+     * The number of requests in progress per dedicated thread of a smsclet whose policy has no concurrency limit
+     */
+    private static final int QUEUED_PER_THREAD = 64;
+
+    private static void copy(SmscReplyFuture source, SmscReplyFuture target) {
+        Throwable exception = source.getException();
+        if (exception != null) {
+            target.setException(exception);
+        } else {
+            try {
+                target.setReply(source.getReply());
+            } catch (SmscException e) {
+                target.setException(e);
+            }
+        }
+    }
+
+    private final boolean async;
+    private final ExecutorService executor;
+    private final SmscletMetrics metrics = new SmscletMetrics();
+    private final String name;
+    private final Semaphore permits;
+    private final SmscletPolicy policy;
+    private final Smsclet smsclet;
+    private final ScheduledExecutorService timer;
+
+    /**
+     * @param name
+     *            The name of the smsclet
+     * @param smsclet
+     *            The smsclet
+     * @param policy
+     *            The policy of the smsclet, may be null
+     * @param timer
+     *            The timer to expire requests, required if the policy has a timeout
+     */
+    public SmscletStage(final String name, Smsclet smsclet, SmscletPolicy policy, ScheduledExecutorService timer) {
+        this.name = name;
+        this.smsclet = smsclet;
+        this.policy = policy;
+
+        int threads = 0;
+        if (policy != null) {
+            threads = policy.getThreads();
+            if ((threads == 0) && (policy.getTimeout() > 0) && !(smsclet instanceof AsyncSmsclet)) {
+                threads = Runtime.getRuntime().availableProcessors();
+            }
+        }
+
+        // the requests waiting for the dedicated threads are bounded as well
+        int maxConcurrency = 0;
+        if (policy != null) {
+            maxConcurrency = (policy.getMaxConcurrency() > 0) ? policy.getMaxConcurrency() : threads
+                    * SmscletStage.QUEUED_PER_THREAD;
+        }
+
+        if (threads > 0) {
+            ThreadFactory threadFactory = new ThreadFactory() {
+
+                private final AtomicInteger i = new AtomicInteger();
+
+                public Thread newThread(Runnable r) {
+                    return new Thread(r, "Smsclet-" + name + "-" + this.i.getAndIncrement());
+                }
+            };
+
+            this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<Runnable>(maxConcurrency), threadFactory);
+        } else {
+            this.executor = null;
+        }
+
+        this.permits = (maxConcurrency > 0) ? new Semaphore(maxConcurrency) : null;
+        this.timer = ((policy != null) && (policy.getTimeout() > 0)) ? timer : null;
+        this.async = (smsclet instanceof AsyncSmsclet) || (this.executor != null) || (this.permits != null)
+                || (this.timer != null);
+    }
+
+    /**
+     * Stops the threads of the smsclet.
+     */
+    public void destroy() {
+        if (this.executor != null) {
+            this.executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Completes the result according to the fallback of the policy.
+     * 
+     * @return false if the result was already complete
+     */
+    private boolean fallback(SmscReplyFuture result, SmscRequest request, ErrorCode errorCode, Throwable cause) {
+        SmscletFallback fallback = (this.policy != null) ? this.policy.getFallback() : SmscletFallback.DISCONNECT;
+
+        switch (fallback) {
+        case CONTINUE:
+            return result.setReply(null);
+        case REJECT:
+            return result.setReply(new SmscStatusReplyImpl(request, errorCode));
+        default:
+            return result.setException(cause);
+        }
+    }
+
+    public SmscletMetrics getMetrics() {
+        return this.metrics;
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    public Smsclet getSmsclet() {
+        return this.smsclet;
+    }
+
+    /**
+     * Calls the smsclet and completes the future with its reply.
+     */
+    private void invoke(SmscSession session, SmscRequest request, final SmscReplyFuture call) {
+        try {
+            if (this.smsclet instanceof AsyncSmsclet) {
+                ((AsyncSmsclet) this.smsclet).onRequestAsync(session, request).addListener(
+                        new SmscReplyFutureListener() {
+
+                            public void operationComplete(SmscReplyFuture future) {
+                                SmscletStage.copy(future, call);
+                            }
+                        });
+            } else {
+                call.setReply(this.smsclet.onRequest(session, request));
+            }
+        } catch (Exception e) {
+            call.setException(e);
+        }
+    }
+
+    /**
+     * Returns true if the stage must be called through {@link #onRequestAsync(SmscSession, SmscRequest)}.
+     */
+    public boolean isAsync() {
+        return this.async;
+    }
+
+    /**
+     * Calls onConnect of the smsclet. If the smsclet has a policy, a failure is logged and the session is only kept if
+     * the fallback is {@link SmscletFallback#CONTINUE}.
+     */
+    public boolean onConnect(SmscSession session) throws SmscException, IOException {
+        if (this.policy == null) {
+            return this.smsclet.onConnect(session);
+        }
+
+        try {
+            return this.smsclet.onConnect(session);
+        } catch (Exception e) {
+            SmscletStage.LOG.warn("Smsclet " + this.name + " failed on connect, fallback is "
+                    + this.policy.getFallback(), e);
+
+            return this.policy.getFallback() == SmscletFallback.CONTINUE;
+        }
+    }
+
+    /**
+     * Calls onDisconnect of the smsclet. If the smsclet has a policy, a failure is logged only.
+     */
+    public void onDisconnect(SmscSession session) throws SmscException, IOException {
+        if (this.policy == null) {
+            this.smsclet.onDisconnect(session);
+
+            return;
+        }
+
+        try {
+            this.smsclet.onDisconnect(session);
+        } catch (Exception e) {
+            SmscletStage.LOG.warn("Smsclet " + this.name + " failed on disconnect", e);
+        }
+    }
+
+    /**
+     * Calls the smsclet on the current thread.
+     */
+    public SmscReply onRequest(SmscSession session, SmscRequest request) throws SmscException, IOException {
+        long start = System.nanoTime();
+        boolean failed = true;
+
+        try {
+            SmscReply reply = this.smsclet.onRequest(session, request);
+            failed = false;
+
+            return reply;
+        } finally {
+            this.metrics.recordCall(System.nanoTime() - start, failed);
+        }
+    }
+
+    /**
+     * Calls the smsclet according to its policy.
+     */
+    public SmscReplyFuture onRequestAsync(final SmscSession session, final SmscRequest request) {
+        final SmscReplyFuture result = new SmscReplyFuture();
+
+        if ((this.permits != null) && !this.permits.tryAcquire()) {
+            this.metrics.recordRejection();
+            this.fallback(result, request, ErrorCode.ESME_RTHROTTLED, new SmscException("Smsclet " + this.name
+                    + " has too many requests in progress"));
+
+            return result;
+        }
+
+        final long start = System.nanoTime();
+        final SmscReplyFuture call = new SmscReplyFuture();
+        call.addListener(new SmscReplyFutureListener() {
+
+            public void operationComplete(SmscReplyFuture future) {
+                SmscletStage.this.replied(request, future, result, start);
+            }
+        });
+
+        if (this.timer != null) {
+            final ScheduledFuture<?> expiry = this.timer.schedule(new Runnable() {
+
+                public void run() {
+                    SmscletStage.this.timedOut(request, result);
+                }
+            }, this.policy.getTimeout(), TimeUnit.MILLISECONDS);
+
+            result.addListener(new SmscReplyFutureListener() {
+
+                public void operationComplete(SmscReplyFuture future) {
+                    expiry.cancel(false);
+                }
+            });
+        }
+
+        if (this.executor != null) {
+            try {
+                this.executor.execute(new Runnable() {
+
+                    public void run() {
+                        SmscletStage.this.invoke(session, request, call);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                call.setException(e);
+            }
+        } else {
+            this.invoke(session, request, call);
+        }
+
+        return result;
+    }
+
+    private void replied(SmscRequest request, SmscReplyFuture call, SmscReplyFuture result, long start) {
+        if (this.permits != null) {
+            this.permits.release();
+        }
+
+        Throwable exception = call.getException();
+        this.metrics.recordCall(System.nanoTime() - start, exception != null);
+
+        if (exception == null) {
+            SmscletStage.copy(call, result);
+        } else {
+            if (this.policy != null) {
+                SmscletStage.LOG.warn("Smsclet " + this.name + " failed, fallback is " + this.policy.getFallback(),
+                        exception);
+            }
+
+            this.fallback(result, request, ErrorCode.ESME_RSYSERR, exception);
+        }
+    }
+
+    private void timedOut(SmscRequest request, SmscReplyFuture result) {
+        if (result.isDone()) {
+            return;
+        }
+
+        SmscletTimeoutException exception = new SmscletTimeoutException("Smsclet " + this.name + " did not reply in "
+                + this.policy.getTimeout() + "ms");
+
+        // recorded ahead of the fallback so that the metrics are up to date once the result completes
+        this.metrics.recordTimeout();
+
+        if (this.fallback(result, request, ErrorCode.ESME_RSYSERR, exception)) {
+            SmscletStage.LOG.warn("{}, fallback is {}", exception.getMessage(), this.policy.getFallback());
+        }
+    }
+}
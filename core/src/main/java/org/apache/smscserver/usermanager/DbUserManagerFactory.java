@@ -45,6 +45,10 @@ public class DbUserManagerFactory implements UserManagerFactory {
 
     private PasswordEncryptor passwordEncryptor = new Md5PasswordEncryptor();
 
+    private int cacheTtl = 0;
+
+    private int cacheSize = 10000;
+
     public DbUserManagerFactory() {
         super();
     }
@@ -65,9 +69,15 @@ public class DbUserManagerFactory implements UserManagerFactory {
         this.check(this.isAdminStmt, "Required is admin user SQL statement not provided");
         this.check(this.authenticateStmt, "Required authenticate user SQL statement not provided");
 
-        return new DbUserManager(this.dataSource, this.selectAllStmt, this.selectUserStmt, this.insertUserStmt,
-                this.updateUserStmt, this.deleteUserStmt, this.authenticateStmt, this.isAdminStmt,
+        DbUserManager userManager = new DbUserManager(this.dataSource, this.selectAllStmt, this.selectUserStmt,
+                this.insertUserStmt, this.updateUserStmt, this.deleteUserStmt, this.authenticateStmt, this.isAdminStmt,
                 this.passwordEncryptor, this.adminName);
+
+        if (this.cacheTtl > 0) {
+            userManager.enableCache(this.cacheTtl * 1000L, this.cacheSize);
+        }
+
+        return userManager;
     }
 
     /**
@@ -80,6 +90,27 @@ public class DbUserManagerFactory implements UserManagerFactory {
         this.adminName = adminName;
     }
 
+    /**
+     * Set the maximum number of users cached. The default value is 10000.
+     * 
+     * @param cacheSize
+     *            The maximum number of users cached
+     */
+    public void setCacheSize(int cacheSize) {
+        this.cacheSize = cacheSize;
+    }
+
+    /**
+     * Set the time users and their passwords are cached for, sparing the database a query per bind. The default value
+     * is 0, the cache is disabled.
+     * 
+     * @param cacheTtl
+     *            The time to live of the cached users in seconds, 0 to disable the cache
+     */
+    public void setCacheTtl(int cacheTtl) {
+        this.cacheTtl = cacheTtl;
+    }
+
     /**
      * Set the data source to be used by the user manager
      * 
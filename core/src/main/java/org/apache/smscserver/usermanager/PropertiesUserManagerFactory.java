@@ -48,6 +48,8 @@ public class PropertiesUserManagerFactory implements UserManagerFactory {
 
     private String smscHome;
 
+    private int refreshInterval = 0;
+
     public PropertiesUserManagerFactory() {
         super();
     }
@@ -63,7 +65,7 @@ public class PropertiesUserManagerFactory implements UserManagerFactory {
      */
     public UserManager createUserManager() {
         if (this.userDataFile != null) {
-            return new PropertiesUserManager(this.passwordEncryptor, this.userDataFile, this.adminName);
+            return this.watch(new PropertiesUserManager(this.passwordEncryptor, this.userDataFile, this.adminName));
         }
 
         if (this.smscHome == null) {
@@ -83,7 +85,7 @@ public class PropertiesUserManagerFactory implements UserManagerFactory {
             }
         }
 
-        return new PropertiesUserManager(this.passwordEncryptor, this.userDataURL, this.adminName);
+        return this.watch(new PropertiesUserManager(this.passwordEncryptor, this.userDataURL, this.adminName));
     }
 
     /**
@@ -113,6 +115,15 @@ public class PropertiesUserManagerFactory implements UserManagerFactory {
         return this.passwordEncryptor;
     }
 
+    /**
+     * Returns the interval the user data file is checked for modifications.
+     * 
+     * @return the interval in seconds, 0 if the file is not watched
+     */
+    public int getRefreshInterval() {
+        return this.refreshInterval;
+    }
+
     /**
      * Retrieve the URL used to load and store users
      * 
@@ -152,6 +163,17 @@ public class PropertiesUserManagerFactory implements UserManagerFactory {
         this.passwordEncryptor = passwordEncryptor;
     }
 
+    /**
+     * Sets the interval the user data file is checked for modifications. Modifications are loaded without a restart of
+     * the server. The default value is 0, the file is not watched.
+     * 
+     * @param refreshInterval
+     *            the interval in seconds
+     */
+    public void setRefreshInterval(int refreshInterval) {
+        this.refreshInterval = refreshInterval;
+    }
+
     /**
      * Set the URL used to store and read users.
      * 
@@ -161,4 +183,12 @@ public class PropertiesUserManagerFactory implements UserManagerFactory {
     public void setUrl(URL userDataURL) {
         this.userDataURL = userDataURL;
     }
+
+    private PropertiesUserManager watch(PropertiesUserManager userManager) {
+        if (this.refreshInterval > 0) {
+            userManager.watch(this.refreshInterval * 1000L);
+        }
+
+        return userManager;
+    }
 }
@@ -20,6 +20,9 @@
 package org.apache.smscserver.usermanager;
 
 import java.security.SecureRandom;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.smscserver.util.EncryptUtils;
 
@@ -29,15 +32,44 @@ import org.apache.smscserver.util.EncryptUtils;
  * 
  * The algorithm is based on the principles described in http://www.jasypt.org/howtoencryptuserpasswords.html
  * 
+ * Successful matches are remembered for a short time, so that a client reconnecting right after a network outage is
+ * not hashed again. Only a single SHA digest of the password salted with the stored password is kept, never the
+ * password itself.
+ * 
  * @author hceylan
  */
 public class SaltedPasswordEncryptor implements PasswordEncryptor {
 
+    private static final class Verified {
+
+        private final String digest;
+
+        private final long expires;
+
+        private Verified(String digest, long expires) {
+            this.digest = digest;
+            this.expires = expires;
+        }
+    }
+
     private final SecureRandom rnd = new SecureRandom();
 
     private static final int MAX_SEED = 99999999;
     private static final int HASH_ITERATIONS = 1000;
 
+    private final ConcurrentMap<String, Verified> verified = new ConcurrentHashMap<String, Verified>();
+
+    private volatile long verifiedTtl = 30000;
+
+    private volatile int verifiedCacheSize = 10000;
+
+    /**
+     * Returns the digest remembered for a verified password.
+     */
+    private String digest(String passwordToCheck, String storedPassword) {
+        return EncryptUtils.encryptSHA(storedPassword + passwordToCheck);
+    }
+
     /**
      * Encrypts the password using a salt concatenated with the password and a series of MD5 steps.
      */
@@ -55,6 +87,15 @@ public class SaltedPasswordEncryptor implements PasswordEncryptor {
         return salt + ":" + hash;
     }
 
+    /**
+     * Returns the number of milliseconds a successful match is remembered for.
+     * 
+     * @return the time in milliseconds, 0 if matches are not remembered
+     */
+    public long getVerifiedTtl() {
+        return this.verifiedTtl;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -74,9 +115,67 @@ public class SaltedPasswordEncryptor implements PasswordEncryptor {
             throw new IllegalArgumentException("stored password does not contain salt");
         }
 
-        String storedSalt = storedPassword.substring(0, divider);
+        long ttl = this.verifiedTtl;
+        if (ttl <= 0) {
+            return this.encrypt(passwordToCheck, storedPassword.substring(0, divider)).equalsIgnoreCase(storedPassword);
+        }
+
+        long now = System.currentTimeMillis();
+        String digest = this.digest(passwordToCheck, storedPassword);
+
+        Verified verified = this.verified.get(storedPassword);
+        if ((verified != null) && (verified.expires > now) && verified.digest.equals(digest)) {
+            return true;
+        }
+
+        if (!this.encrypt(passwordToCheck, storedPassword.substring(0, divider)).equalsIgnoreCase(storedPassword)) {
+            return false;
+        }
+
+        if (this.verified.size() >= this.verifiedCacheSize) {
+            this.purge(now);
+        }
+
+        if (this.verified.size() < this.verifiedCacheSize) {
+            this.verified.put(storedPassword, new Verified(digest, now + ttl));
+        }
+
+        return true;
+    }
+
+    /**
+     * Removes the expired matches.
+     */
+    private void purge(long now) {
+        Iterator<Verified> i = this.verified.values().iterator();
+        while (i.hasNext()) {
+            if (i.next().expires <= now) {
+                i.remove();
+            }
+        }
+    }
+
+    /**
+     * Sets the maximum number of successful matches remembered. The default value is 10000.
+     * 
+     * @param verifiedCacheSize
+     *            the maximum number of matches remembered
+     */
+    public void setVerifiedCacheSize(int verifiedCacheSize) {
+        this.verifiedCacheSize = verifiedCacheSize;
+    }
+
+    /**
+     * Sets the number of milliseconds a successful match is remembered for. The default value is 30 seconds, 0 disables
+     * remembering the matches.
+     * 
+     * @param verifiedTtl
+     *            the time in milliseconds
+     */
+    public void setVerifiedTtl(long verifiedTtl) {
+        this.verifiedTtl = verifiedTtl;
 
-        return this.encrypt(passwordToCheck, storedSalt).equalsIgnoreCase(storedPassword);
+        this.verified.clear();
     }
 
 }
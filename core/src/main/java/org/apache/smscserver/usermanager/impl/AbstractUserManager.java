@@ -33,6 +33,7 @@ import org.apache.smscserver.smsclet.User;
 import org.apache.smscserver.smsclet.UserManager;
 import org.apache.smscserver.usermanager.Md5PasswordEncryptor;
 import org.apache.smscserver.usermanager.PasswordEncryptor;
+import org.apache.smscserver.usermanager.UsernamePasswordAuthentication;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -40,6 +41,11 @@ import org.slf4j.LoggerFactory;
  * <strong>Internal class, do not use directly.</strong>
  * 
  * Abstract common base type for {@link UserManager} implementations
+ * <p>
+ * Implementations backed by a remote store can enable a cache of the users and their stored passwords with
+ * {@link #enableCache(long, int)}. A cached user is authenticated against the cached password without reaching the
+ * store, a password that does not match is checked against the store. Implementations must invalidate the entry of a
+ * user they save or delete.
  * 
  * @author hceylan
  */
@@ -65,6 +71,8 @@ public abstract class AbstractUserManager implements UserManager {
 
     protected SmscletContext context;
 
+    private volatile UserCache cache;
+
     public AbstractUserManager() {
         this(null, new Md5PasswordEncryptor());
     }
@@ -84,7 +92,9 @@ public abstract class AbstractUserManager implements UserManager {
      */
     public final User authenticate(Authentication authentication) throws SmscException {
         try {
-            return this.internalAuthenticate(authentication);
+            User user = this.authenticateCached(authentication);
+
+            return (user != null) ? user : this.internalAuthenticate(authentication);
         } catch (AuthenticationFailedException e) {
             if (this.context == null) {
                 AbstractUserManager.LOG.warn("Context is null bind statistics will not be updated!");
@@ -97,6 +107,35 @@ public abstract class AbstractUserManager implements UserManager {
         }
     }
 
+    /**
+     * Authenticates the user against the cache.
+     * 
+     * @return the user, null if the user is not cached or the password does not match the cached one
+     */
+    private User authenticateCached(Authentication authentication) throws AuthenticationFailedException {
+        UserCache cache = this.cache;
+        if ((cache == null) || !(authentication instanceof UsernamePasswordAuthentication)) {
+            return null;
+        }
+
+        UsernamePasswordAuthentication upauth = (UsernamePasswordAuthentication) authentication;
+        UserCache.Entry entry = (upauth.getUsername() != null) ? cache.get(upauth.getUsername()) : null;
+        if ((entry == null) || (entry.getPassword() == null)) {
+            return null;
+        }
+
+        String password = (upauth.getPassword() != null) ? upauth.getPassword() : "";
+        if (!this.passwordEncryptor.matches(password, entry.getPassword())) {
+            // the password may have changed in the store
+            return null;
+        }
+
+        User user = new BaseUser(entry.getUser());
+        this.authorizeConcurency(authentication, user);
+
+        return user;
+    }
+
     protected void authorizeConcurency(Authentication authentication, User user) throws AuthenticationFailedException {
         if (!user.getEnabled()) {
             throw new AuthenticationFailedException("User account is disabled by administrator");
@@ -111,18 +150,67 @@ public abstract class AbstractUserManager implements UserManager {
             }
 
             SmscStatistics stats = this.context.getSmscStatistics();
-            ConcurrentBindRequest request = new ConcurrentBindRequest(stats.getCurrentUserBindNumber(user) + 1,
-                    stats.getCurrentUserBindNumber(user, address) + 1);
+            if (stats instanceof ServerSmscStatistics) {
+                // a single bind request only fails without the bind permission, otherwise it yields the limits
+                ConcurrentBindRequest limits = (ConcurrentBindRequest) user.authorize(new ConcurrentBindRequest(1, 1));
+
+                boolean reserved = (limits != null)
+                        && ((ServerSmscStatistics) stats).reserveBind(session, user, limits.getMaxConcurrentBinds(),
+                                limits.getMaxConcurrentBindsPerIP());
 
-            if (user.authorize(request) == null) {
-                AbstractUserManager.LOG.info("User logged in too many sessions, user will be disconnected");
-                throw new AuthenticationFailedException("Too many sessions");
+                if (!reserved) {
+                    AbstractUserManager.LOG.info("User logged in too many sessions, user will be disconnected");
+                    throw new AuthenticationFailedException("Too many sessions");
+                }
+            } else {
+                ConcurrentBindRequest request = new ConcurrentBindRequest(stats.getCurrentUserBindNumber(user) + 1,
+                        stats.getCurrentUserBindNumber(user, address) + 1);
+
+                if (user.authorize(request) == null) {
+                    AbstractUserManager.LOG.info("User logged in too many sessions, user will be disconnected");
+                    throw new AuthenticationFailedException("Too many sessions");
+                }
             }
         } else {
             AbstractUserManager.LOG.warn("Session or context is null. Concurrent bind status will not authorized!");
         }
     }
 
+    /**
+     * Caches the user, with the password as stored if known, if the cache is enabled. The user is not cached if the
+     * cache has been invalidated since the generation was taken, as the user may have been changed in the mean time.
+     * 
+     * @param user
+     *            the user, without the password
+     * @param storedPassword
+     *            the password as stored, null if not known
+     * @param generation
+     *            the generation of the cache as of before the user was read, see {@link #getCacheGeneration()}
+     */
+    protected void cacheUser(User user, String storedPassword, long generation) {
+        UserCache cache = this.cache;
+        if (cache != null) {
+            cache.put(user.getName(), user, storedPassword, generation);
+        }
+    }
+
+    /**
+     * Enables the cache of the users and their stored passwords. A changed password or user becomes effective once the
+     * entry expires, or immediately if changed through this user manager.
+     * 
+     * @param ttl
+     *            the time to live of the entries in milliseconds
+     * @param maxSize
+     *            the maximum number of the users cached
+     */
+    public void enableCache(long ttl, int maxSize) {
+        if ((ttl <= 0) || (maxSize <= 0)) {
+            throw new IllegalArgumentException("Invalid user cache, time to live: " + ttl + ", size: " + maxSize);
+        }
+
+        this.cache = new UserCache(ttl, maxSize);
+    }
+
     /**
      * Get the admin name.
      */
@@ -130,6 +218,42 @@ public abstract class AbstractUserManager implements UserManager {
         return this.adminName;
     }
 
+    /**
+     * Returns the cached user.
+     * 
+     * @param name
+     *            the name of the user
+     * @return a copy of the cached user, null if the user is not cached or the cache is disabled
+     */
+    protected User getCachedUser(String name) {
+        UserCache cache = this.cache;
+        UserCache.Entry entry = ((cache != null) && (name != null)) ? cache.get(name) : null;
+
+        return (entry != null) ? new BaseUser(entry.getUser()) : null;
+    }
+
+    /**
+     * Returns the generation of the cache, to be taken before a user to be cached is read from the store.
+     * 
+     * @return the generation of the cache, 0 if the cache is disabled
+     */
+    protected long getCacheGeneration() {
+        UserCache cache = this.cache;
+
+        return (cache != null) ? cache.generation() : 0;
+    }
+
+    /**
+     * Returns the number of the users cached.
+     * 
+     * @return the number of the users cached, 0 if the cache is disabled
+     */
+    public int getCacheSize() {
+        UserCache cache = this.cache;
+
+        return (cache != null) ? cache.size() : 0;
+    }
+
     /**
      * Retrieve the password encryptor used for this user manager
      * 
@@ -142,6 +266,29 @@ public abstract class AbstractUserManager implements UserManager {
     protected abstract User internalAuthenticate(Authentication authentication) throws AuthenticationFailedException,
             SmscException;
 
+    /**
+     * Removes all the users from the cache.
+     */
+    public void invalidateCache() {
+        UserCache cache = this.cache;
+        if (cache != null) {
+            cache.invalidateAll();
+        }
+    }
+
+    /**
+     * Removes the user from the cache.
+     * 
+     * @param name
+     *            the name of the user
+     */
+    public void invalidateCache(String name) {
+        UserCache cache = this.cache;
+        if ((cache != null) && (name != null)) {
+            cache.invalidate(name);
+        }
+    }
+
     /**
      * @return true if user with this bind is administrator
      */
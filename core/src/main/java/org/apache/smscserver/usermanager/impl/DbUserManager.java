@@ -131,6 +131,8 @@ public class DbUserManager extends AbstractUserManager {
             throw DBUtils.handleException(sql, e);
         } finally {
             DBUtils.closeQuitelyWithConnection(stmt);
+
+            this.invalidateCache(name);
         }
     }
 
@@ -227,11 +229,21 @@ public class DbUserManager extends AbstractUserManager {
      * Get the user object. Fetch the row from the table.
      */
     public User getUserByName(String name) throws SmscException {
+        User cached = this.getCachedUser(name);
+        if (cached != null) {
+            return cached;
+        }
+
+        long generation = this.getCacheGeneration();
         BaseUser user = this.selectUserByName(name);
 
         if (user != null) {
+            String storedPassword = user.getPassword();
+
             // reset the password, not to be sent to API users
             user.setPassword(null);
+
+            this.cacheUser(new BaseUser(user), storedPassword, generation);
         }
 
         return user;
@@ -257,6 +269,7 @@ public class DbUserManager extends AbstractUserManager {
             ResultSet rs = null;
             String sql = null;
 
+            long generation = this.getCacheGeneration();
             try {
                 // create the sql query
                 Map<String, Object> map = new HashMap<String, Object>();
@@ -272,6 +285,7 @@ public class DbUserManager extends AbstractUserManager {
                         String storedPassword = rs.getString(AbstractUserManager.ATTR_PASSWORD);
                         if (this.getPasswordEncryptor().matches(password, storedPassword)) {
                             User user = this.getUserByName(username);
+                            this.cacheUser(new BaseUser(user), storedPassword, generation);
 
                             this.authorizeConcurency(authentication, user);
 
@@ -398,6 +412,8 @@ public class DbUserManager extends AbstractUserManager {
             throw DBUtils.handleException(sql, e);
         } finally {
             DBUtils.closeQuitelyWithConnection(stmt);
+
+            this.invalidateCache(user.getName());
         }
     }
 
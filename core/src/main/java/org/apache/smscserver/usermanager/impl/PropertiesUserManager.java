@@ -26,10 +26,18 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Enumeration;
-import java.util.Iterator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.smscserver.SmscServerConfigurationException;
 import org.apache.smscserver.smsclet.Authentication;
@@ -93,20 +101,79 @@ import org.slf4j.LoggerFactory;
  * smscserver.user.admin.maxbindperip=0
  * </pre>
  * 
+ * <p>
+ * The properties are parsed once into an immutable snapshot of prebuilt users keyed by name, lookups and binds read the
+ * snapshot without locking. {@link #save(User)}, {@link #delete(String)} and {@link #refresh()} publish a new snapshot
+ * under the lock of the user manager. When {@link #watch(long)} is called, the backing file is polled for modifications
+ * and reloaded when changed, so that user changes apply without a restart.
+ * </p>
+ * 
  * @author hceylan
  */
 public class PropertiesUserManager extends AbstractUserManager {
 
+    private static final class Snapshot {
+
+        private final Map<String, UserEntry> users;
+
+        private final String[] names;
+
+        private Snapshot(Map<String, UserEntry> users) {
+            this.users = Collections.unmodifiableMap(users);
+            this.names = users.keySet().toArray(new String[users.size()]);
+
+            Arrays.sort(this.names);
+        }
+    }
+
+    private static final class UserEntry {
+
+        private final BaseUser user;
+
+        private final String password;
+
+        private final String[] keys;
+
+        private UserEntry(BaseUser user, String password, Set<String> keys) {
+            this.user = user;
+            this.password = password;
+            this.keys = keys.toArray(new String[keys.size()]);
+        }
+    }
+
     private static final Logger LOG = LoggerFactory.getLogger(PropertiesUserManager.class);
 
     private final static String PREFIX = "smscserver.user.";
 
+    private static final Snapshot EMPTY = new Snapshot(new HashMap<String, UserEntry>());
+
+    /**
+     * Returns the user name for the property key, null if the key does not belong to a user.
+     */
+    private static String nameOf(String key) {
+        if (!key.startsWith(PropertiesUserManager.PREFIX)) {
+            return null;
+        }
+
+        int end = key.indexOf('.', PropertiesUserManager.PREFIX.length());
+
+        return key.substring(PropertiesUserManager.PREFIX.length(), (end >= 0) ? end : key.length());
+    }
+
     private BaseProperties userDataProp;
 
+    private volatile Snapshot snapshot = PropertiesUserManager.EMPTY;
+
     private File userDataFile;
 
     private URL userUrl;
 
+    private ScheduledExecutorService watcher;
+
+    private long watchedModified;
+
+    private long watchedLength;
+
     /**
      * Internal constructor, do not use directly. Use {@link PropertiesUserManagerFactory} instead.
      */
@@ -126,24 +193,107 @@ public class PropertiesUserManager extends AbstractUserManager {
     }
 
     /**
-     * Delete an user. Removes all this user entries from the properties. After removing the corresponding from the
-     * properties, save the data.
+     * Builds the entry of the user from the properties.
      */
-    public void delete(String usrName) throws SmscException {
-        // remove entries from properties
-        String thisPrefix = PropertiesUserManager.PREFIX + usrName;
+    private UserEntry buildEntry(String userName, Set<String> keys) {
+        String baseKey = PropertiesUserManager.PREFIX + userName + '.';
+        BaseUser user = new BaseUser();
+        user.setName(userName);
+        user.setEnabled(this.userDataProp.getBoolean(baseKey + AbstractUserManager.ATTR_ENABLE, true));
+
+        List<Authority> authorities = new ArrayList<Authority>();
+
+        int maxBind = this.userDataProp.getInteger(baseKey + AbstractUserManager.ATTR_MAX_BIND_NUMBER, 0);
+        int maxBindPerIP = this.userDataProp.getInteger(baseKey + AbstractUserManager.ATTR_MAX_BIND_PER_IP, 0);
+
+        authorities.add(new ConcurrentBindPermission(maxBind, maxBindPerIP));
+
+        user.setAuthorities(authorities);
+
+        user.setMaxIdleTime(this.userDataProp.getInteger(baseKey + AbstractUserManager.ATTR_MAX_IDLE_TIME, 0));
+
+        String password = this.userDataProp.getProperty(baseKey + AbstractUserManager.ATTR_PASSWORD);
+
+        return new UserEntry(user, password, keys);
+    }
+
+    /**
+     * Parses the properties into a new snapshot. Adds the missing <code>smscserver.user.{systemid}</code> keys so that
+     * every user is also persisted with its base key.
+     */
+    private Snapshot buildSnapshot() {
+        Map<String, Set<String>> keys = new HashMap<String, Set<String>>();
+
         Enumeration<?> propNames = this.userDataProp.propertyNames();
-        ArrayList<String> remKeys = new ArrayList<String>();
         while (propNames.hasMoreElements()) {
-            String thisKey = propNames.nextElement().toString();
-            if (thisKey.startsWith(thisPrefix)) {
-                remKeys.add(thisKey);
+            String key = propNames.nextElement().toString();
+            String name = PropertiesUserManager.nameOf(key);
+
+            if (name != null) {
+                Set<String> userKeys = keys.get(name);
+                if (userKeys == null) {
+                    userKeys = new HashSet<String>();
+                    keys.put(name, userKeys);
+                }
+
+                userKeys.add(key);
             }
         }
-        Iterator<String> remKeysIt = remKeys.iterator();
-        while (remKeysIt.hasNext()) {
-            this.userDataProp.remove(remKeysIt.next());
+
+        Map<String, UserEntry> users = new HashMap<String, UserEntry>();
+        for (Map.Entry<String, Set<String>> entry : keys.entrySet()) {
+            String baseKey = PropertiesUserManager.PREFIX + entry.getKey();
+            if (entry.getValue().add(baseKey)) {
+                this.userDataProp.put(baseKey, new String());
+            }
+
+            users.put(entry.getKey(), this.buildEntry(entry.getKey(), entry.getValue()));
+        }
+
+        return new Snapshot(users);
+    }
+
+    /**
+     * Checks the watched file and reloads the users if it has been modified since the last load or save.
+     */
+    private synchronized void checkModified() {
+        File file = this.getWatchedFile();
+        if ((file == null) || !file.exists()) {
+            return;
+        }
+
+        if ((file.lastModified() != this.watchedModified) || (file.length() != this.watchedLength)) {
+            PropertiesUserManager.LOG.info("User data file modified, reloading: " + file.getAbsolutePath());
+
+            try {
+                this.refresh();
+            } catch (SmscServerConfigurationException e) {
+                // keep serving the previous users, the file may be in the middle of an edit
+                PropertiesUserManager.LOG.warn("Failed to reload user data file, keeping the previous users", e);
+
+                this.recordModified();
+            }
         }
+    }
+
+    /**
+     * Delete an user. Removes all this user entries from the properties. After removing the corresponding from the
+     * properties, save the data.
+     */
+    public synchronized void delete(String usrName) throws SmscException {
+        UserEntry entry = this.snapshot.users.get(usrName);
+        if (entry == null) {
+            return;
+        }
+
+        for (String key : entry.keys) {
+            this.userDataProp.remove(key);
+        }
+
+        Map<String, UserEntry> users = new HashMap<String, UserEntry>(this.snapshot.users);
+        users.remove(usrName);
+
+        this.publish(new Snapshot(users));
 
         this.saveUserData();
     }
@@ -152,42 +302,31 @@ public class PropertiesUserManager extends AbstractUserManager {
      * Close the user manager - remove existing entries.
      */
     public synchronized void dispose() {
+        if (this.watcher != null) {
+            this.watcher.shutdownNow();
+            this.watcher = null;
+        }
+
         if (this.userDataProp != null) {
             this.userDataProp.clear();
             this.userDataProp = null;
         }
+
+        this.snapshot = PropertiesUserManager.EMPTY;
     }
 
     /**
      * User existance check
      */
     public boolean doesExist(String name) {
-        String key = PropertiesUserManager.PREFIX + name;
-        return this.userDataProp.containsKey(key);
+        return this.snapshot.users.containsKey(name);
     }
 
     /**
      * Get all user names.
      */
     public String[] getAllUserNames() {
-        // get all user names
-        String suffix = '.' + AbstractUserManager.ATTR_SYSTEM_ID;
-        ArrayList<String> ulst = new ArrayList<String>();
-        Enumeration<?> allKeys = this.userDataProp.propertyNames();
-        int prefixlen = PropertiesUserManager.PREFIX.length();
-        int suffixlen = suffix.length();
-        while (allKeys.hasMoreElements()) {
-            String key = (String) allKeys.nextElement();
-            if (key.endsWith(suffix)) {
-                String name = key.substring(prefixlen);
-                int endIndex = name.length() - suffixlen;
-                name = name.substring(0, endIndex);
-                ulst.add(name);
-            }
-        }
-
-        Collections.sort(ulst);
-        return ulst.toArray(new String[0]);
+        return this.snapshot.names.clone();
     }
 
     /**
@@ -235,27 +374,24 @@ public class PropertiesUserManager extends AbstractUserManager {
      * Load user data.
      */
     public User getUserByName(String userName) {
-        if (!this.doesExist(userName)) {
-            return null;
-        }
+        UserEntry entry = this.snapshot.users.get(userName);
 
-        String baseKey = PropertiesUserManager.PREFIX + userName + '.';
-        BaseUser user = new BaseUser();
-        user.setName(userName);
-        user.setEnabled(this.userDataProp.getBoolean(baseKey + AbstractUserManager.ATTR_ENABLE, true));
-
-        List<Authority> authorities = new ArrayList<Authority>();
-
-        int maxBind = this.userDataProp.getInteger(baseKey + AbstractUserManager.ATTR_MAX_BIND_NUMBER, 0);
-        int maxBindPerIP = this.userDataProp.getInteger(baseKey + AbstractUserManager.ATTR_MAX_BIND_PER_IP, 0);
-
-        authorities.add(new ConcurrentBindPermission(maxBind, maxBindPerIP));
+        return (entry != null) ? new BaseUser(entry.user) : null;
+    }
 
-        user.setAuthorities(authorities);
+    /**
+     * Returns the file polled for modifications, the backing file or the file of a <code>file:</code> URL.
+     */
+    private File getWatchedFile() {
+        if (this.userDataFile != null) {
+            return this.userDataFile;
+        }
 
-        user.setMaxIdleTime(this.userDataProp.getInteger(baseKey + AbstractUserManager.ATTR_MAX_IDLE_TIME, 0));
+        if ((this.userUrl != null) && "file".equals(this.userUrl.getProtocol())) {
+            return new File(this.userUrl.getPath());
+        }
 
-        return user;
+        return null;
     }
 
     @Override
@@ -274,16 +410,15 @@ public class PropertiesUserManager extends AbstractUserManager {
                 password = "";
             }
 
-            String storedPassword = this.userDataProp.getProperty(PropertiesUserManager.PREFIX + username + '.'
-                    + AbstractUserManager.ATTR_PASSWORD);
+            UserEntry entry = this.snapshot.users.get(username);
 
-            if (storedPassword == null) {
+            if ((entry == null) || (entry.password == null)) {
                 // user does not exist
                 throw new AuthenticationFailedException("Authentication failed");
             }
 
-            if (this.getPasswordEncryptor().matches(password, storedPassword)) {
-                User user = this.getUserByName(username);
+            if (this.getPasswordEncryptor().matches(password, entry.password)) {
+                User user = new BaseUser(entry.user);
 
                 this.authorizeConcurency(authentication, user);
 
@@ -296,9 +431,9 @@ public class PropertiesUserManager extends AbstractUserManager {
         }
     }
 
-    private void loadFromFile(File userDataFile) {
+    private synchronized void loadFromFile(File userDataFile) {
         try {
-            this.userDataProp = new BaseProperties();
+            BaseProperties userDataProp = new BaseProperties();
 
             if (userDataFile != null) {
                 PropertiesUserManager.LOG.debug("File configured, will try loading");
@@ -310,7 +445,7 @@ public class PropertiesUserManager extends AbstractUserManager {
                     FileInputStream fis = null;
                     try {
                         fis = new FileInputStream(userDataFile);
-                        this.userDataProp.load(fis);
+                        userDataProp.load(fis);
                     } finally {
                         IoUtils.close(fis);
                     }
@@ -322,7 +457,7 @@ public class PropertiesUserManager extends AbstractUserManager {
 
                     if (is != null) {
                         try {
-                            this.userDataProp.load(is);
+                            userDataProp.load(is);
                         } finally {
                             IoUtils.close(is);
                         }
@@ -334,15 +469,17 @@ public class PropertiesUserManager extends AbstractUserManager {
                 }
             }
 
-            this.sanitize();
+            this.userDataProp = userDataProp;
+            this.publish(this.buildSnapshot());
+            this.recordModified();
         } catch (IOException e) {
             throw new SmscServerConfigurationException("Error loading user data file : " + userDataFile, e);
         }
     }
 
-    private void loadFromUrl(URL userDataPath) {
+    private synchronized void loadFromUrl(URL userDataPath) {
         try {
-            this.userDataProp = new BaseProperties();
+            BaseProperties userDataProp = new BaseProperties();
 
             if (userDataPath != null) {
                 PropertiesUserManager.LOG.debug("URL configured, will try loading");
@@ -353,53 +490,54 @@ public class PropertiesUserManager extends AbstractUserManager {
                 is = userDataPath.openStream();
 
                 try {
-                    this.userDataProp.load(is);
+                    userDataProp.load(is);
                 } finally {
                     IoUtils.close(is);
                 }
             }
 
-            this.sanitize();
+            this.userDataProp = userDataProp;
+            this.publish(this.buildSnapshot());
+            this.recordModified();
         } catch (IOException e) {
             throw new SmscServerConfigurationException("Error loading user data resource : " + userDataPath, e);
         }
     }
 
     /**
-     * Reloads the contents of the users.properties file. This allows any manual modifications to the file to be
-     * recognised by the running server.
+     * Swaps in the new snapshot and drops the users cached from the previous one.
      */
-    public void refresh() {
-        synchronized (this.userDataProp) {
-            if (this.userDataFile != null) {
-                PropertiesUserManager.LOG.debug("Refreshing user manager using file: "
-                        + this.userDataFile.getAbsolutePath());
-                this.loadFromFile(this.userDataFile);
+    private void publish(Snapshot snapshot) {
+        this.snapshot = snapshot;
 
-            } else {
-                // file is null, must have been created using URL
-                PropertiesUserManager.LOG.debug("Refreshing user manager using URL: " + this.userUrl.toString());
-                this.loadFromUrl(this.userUrl);
-            }
-        }
+        this.invalidateCache();
     }
 
-    private void sanitize() {
-        @SuppressWarnings("unchecked")
-        Enumeration<String> e = (Enumeration<String>) this.userDataProp.propertyNames();
-        while (e.hasMoreElements()) {
-            String property = e.nextElement();
-            property = property.substring(PropertiesUserManager.PREFIX.length());
+    /**
+     * Records the modification time and the length of the watched file so that our own saves are not reloaded.
+     */
+    private void recordModified() {
+        File file = this.getWatchedFile();
+        if (file != null) {
+            this.watchedModified = file.lastModified();
+            this.watchedLength = file.length();
+        }
+    }
 
-            String[] split = property.split("\\.");
-            if (split.length == 1) {
-                continue;
-            }
+    /**
+     * Reloads the contents of the users.properties file. This allows any manual modifications to the file to be
+     * recognised by the running server.
+     */
+    public synchronized void refresh() {
+        if (this.userDataFile != null) {
+            PropertiesUserManager.LOG.debug("Refreshing user manager using file: "
+                    + this.userDataFile.getAbsolutePath());
+            this.loadFromFile(this.userDataFile);
 
-            property = PropertiesUserManager.PREFIX + split[0];
-            if (!this.userDataProp.containsKey(property)) {
-                this.userDataProp.put(property, new String());
-            }
+        } else {
+            // file is null, must have been created using URL
+            PropertiesUserManager.LOG.debug("Refreshing user manager using URL: " + this.userUrl.toString());
+            this.loadFromUrl(this.userUrl);
         }
     }
 
@@ -412,10 +550,17 @@ public class PropertiesUserManager extends AbstractUserManager {
             throw new NullPointerException("User name is null.");
         }
 
+        Set<String> keys = new HashSet<String>();
+        UserEntry entry = this.snapshot.users.get(usr.getName());
+        if (entry != null) {
+            keys.addAll(Arrays.asList(entry.keys));
+        }
+
         String thisPrefix = PropertiesUserManager.PREFIX + usr.getName();
 
         // save the username
         this.userDataProp.put(thisPrefix, new String());
+        keys.add(thisPrefix);
 
         thisPrefix = thisPrefix + ".";
 
@@ -423,6 +568,9 @@ public class PropertiesUserManager extends AbstractUserManager {
         this.userDataProp.setProperty(thisPrefix + AbstractUserManager.ATTR_PASSWORD, this.getPassword(usr));
         this.userDataProp.setProperty(thisPrefix + AbstractUserManager.ATTR_ENABLE, usr.getEnabled());
         this.userDataProp.setProperty(thisPrefix + AbstractUserManager.ATTR_MAX_IDLE_TIME, usr.getMaxIdleTime());
+        keys.add(thisPrefix + AbstractUserManager.ATTR_PASSWORD);
+        keys.add(thisPrefix + AbstractUserManager.ATTR_ENABLE);
+        keys.add(thisPrefix + AbstractUserManager.ATTR_MAX_IDLE_TIME);
 
         // request that always will succeed
         ConcurrentBindRequest concurrentBindRequest = new ConcurrentBindRequest(0, 0);
@@ -433,11 +581,20 @@ public class PropertiesUserManager extends AbstractUserManager {
                     concurrentBindRequest.getMaxConcurrentBinds());
             this.userDataProp.setProperty(thisPrefix + AbstractUserManager.ATTR_MAX_BIND_PER_IP,
                     concurrentBindRequest.getMaxConcurrentBindsPerIP());
+            keys.add(thisPrefix + AbstractUserManager.ATTR_MAX_BIND_NUMBER);
+            keys.add(thisPrefix + AbstractUserManager.ATTR_MAX_BIND_PER_IP);
         } else {
             this.userDataProp.remove(thisPrefix + AbstractUserManager.ATTR_MAX_BIND_NUMBER);
             this.userDataProp.remove(thisPrefix + AbstractUserManager.ATTR_MAX_BIND_PER_IP);
+            keys.remove(thisPrefix + AbstractUserManager.ATTR_MAX_BIND_NUMBER);
+            keys.remove(thisPrefix + AbstractUserManager.ATTR_MAX_BIND_PER_IP);
         }
 
+        Map<String, UserEntry> users = new HashMap<String, UserEntry>(this.snapshot.users);
+        users.put(usr.getName(), this.buildEntry(usr.getName(), keys));
+
+        this.publish(new Snapshot(users));
+
         this.saveUserData();
     }
 
@@ -466,6 +623,41 @@ public class PropertiesUserManager extends AbstractUserManager {
         } finally {
             IoUtils.close(fos);
         }
+
+        this.recordModified();
     }
 
+    /**
+     * Starts polling the backing file for modifications, the users are reloaded when the file changes on disk. Has no
+     * effect if the users are not backed by a file.
+     * 
+     * @param interval
+     *            the polling interval in milliseconds
+     */
+    public synchronized void watch(long interval) {
+        if (interval <= 0) {
+            throw new IllegalArgumentException("Watch interval must be positive");
+        }
+
+        if ((this.watcher != null) || (this.getWatchedFile() == null)) {
+            return;
+        }
+
+        this.watcher = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "SmscServer-UserWatcher");
+                thread.setDaemon(true);
+
+                return thread;
+            }
+        });
+
+        this.watcher.scheduleWithFixedDelay(new Runnable() {
+
+            public void run() {
+                PropertiesUserManager.this.checkModified();
+            }
+        }, interval, interval, TimeUnit.MILLISECONDS);
+    }
 }
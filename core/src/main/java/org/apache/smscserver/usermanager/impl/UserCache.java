@@ -0,0 +1,167 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.smscserver.usermanager.impl;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.smscserver.smsclet.User;
+
+/**
+ * <strong>Internal class, do not use directly.</strong>
+ * 
+ * Cache of the users and their stored passwords, bounded in time and size.
+ * <p>
+ * Lookups do not lock. Entries expire after the time to live, when the cache is full the expired entries are purged
+ * first and then an eighth of the remaining entries, chosen arbitrarily, so that the cost of the purge is spread over a
+ * number of insertions.
+ * <p>
+ * Every invalidation advances the generation of the cache. An entry read from the store before an invalidation is
+ * dropped rather than cached, so that a concurrent change of the user is not shadowed by the stale entry.
+ * 
+ * @author hceylan
+ */
+final class UserCache {
+
+    static final class Entry {
+
+        private final User user;
+
+        private final String password;
+
+        private final long expires;
+
+        private Entry(User user, String password, long expires) {
+            this.user = user;
+            this.password = password;
+            this.expires = expires;
+        }
+
+        String getPassword() {
+            return this.password;
+        }
+
+        User getUser() {
+            return this.user;
+        }
+    }
+
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<String, Entry>();
+
+    private final AtomicLong generation = new AtomicLong();
+
+    private final long ttl;
+
+    private final int maxSize;
+
+    UserCache(long ttl, int maxSize) {
+        this.ttl = ttl;
+        this.maxSize = maxSize;
+    }
+
+    private void evict() {
+        long now = System.currentTimeMillis();
+        for (Iterator<Entry> i = this.entries.values().iterator(); i.hasNext();) {
+            if (i.next().expires <= now) {
+                i.remove();
+            }
+        }
+
+        int evict = this.entries.size() - this.maxSize + Math.max(1, this.maxSize / 8);
+        for (Iterator<String> i = this.entries.keySet().iterator(); (evict > 0) && i.hasNext(); evict--) {
+            i.next();
+            i.remove();
+        }
+    }
+
+    /**
+     * Returns the entry of the user.
+     * 
+     * @return the entry, null if the user is not cached or the entry has expired
+     */
+    Entry get(String name) {
+        Entry entry = this.entries.get(name);
+        if (entry == null) {
+            return null;
+        }
+
+        if (entry.expires <= System.currentTimeMillis()) {
+            this.entries.remove(name, entry);
+
+            return null;
+        }
+
+        return entry;
+    }
+
+    /**
+     * Returns the current generation, to be taken before the user is read from the store.
+     */
+    long generation() {
+        return this.generation.get();
+    }
+
+    /**
+     * Removes the entry of the user.
+     */
+    void invalidate(String name) {
+        // advanced first, a put racing with the removal then drops its entry
+        this.generation.incrementAndGet();
+        this.entries.remove(name);
+    }
+
+    /**
+     * Removes all the entries.
+     */
+    void invalidateAll() {
+        this.generation.incrementAndGet();
+        this.entries.clear();
+    }
+
+    /**
+     * Caches the user with the stored password, null if not known, unless the cache has been invalidated since the
+     * generation was taken.
+     */
+    void put(String name, User user, String password, long generation) {
+        if (generation != this.generation.get()) {
+            return;
+        }
+
+        if ((this.entries.size() >= this.maxSize) && !this.entries.containsKey(name)) {
+            this.evict();
+        }
+
+        Entry entry = new Entry(user, password, System.currentTimeMillis() + this.ttl);
+        this.entries.put(name, entry);
+
+        if (generation != this.generation.get()) {
+            this.entries.remove(name, entry);
+        }
+    }
+
+    /**
+     * Returns the number of the entries, including the expired entries not purged yet.
+     */
+    int size() {
+        return this.entries.size();
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.smscserver.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.apache.smscserver.smsclet.LatencySnapshot;
+
+/**
+ * <strong>Internal class, do not use directly.</strong>
+ * 
+ * A fixed size histogram of latencies in microseconds.
+ * <p>
+ * Values below 8 have a bucket of their own, every following power of two range is split into 8 equal buckets, which
+ * bounds the error of a reported percentile to 12.5% of its value. Values above 2^37 microseconds (about 38 hours) are
+ * counted in the last bucket. Recording is a few atomic increments and never allocates, the histogram occupies about
+ * 2.3 KB, the 280 bucket counters and the sum and maximum, regardless of the number of values recorded.
+ * <p>
+ * A snapshot taken while values are being recorded is not atomic, a value recorded concurrently may be missing from
+ * the sum while present in the buckets.
+ * 
+ * @author hceylan
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 3;
+
+    private static final int SUB_BUCKETS = 1 << LatencyHistogram.SUB_BUCKET_BITS;
+
+    private static final int MAX_EXPONENT = 36;
+
+    private static final int BUCKETS = ((LatencyHistogram.MAX_EXPONENT - LatencyHistogram.SUB_BUCKET_BITS) + 2)
+            * LatencyHistogram.SUB_BUCKETS;
+
+    private static final long MAX_VALUE = (1L << (LatencyHistogram.MAX_EXPONENT + 1)) - 1;
+
+    /**
+     * Returns the index of the bucket for the value.
+     */
+    static int bucket(long value) {
+        if (value < LatencyHistogram.SUB_BUCKETS) {
+            return (value > 0) ? (int) value : 0;
+        }
+
+        long bounded = Math.min(value, LatencyHistogram.MAX_VALUE);
+        int exponent = 63 - Long.numberOfLeadingZeros(bounded);
+        int shift = exponent - LatencyHistogram.SUB_BUCKET_BITS;
+
+        return ((shift + 1) * LatencyHistogram.SUB_BUCKETS)
+                + (int) ((bounded >>> shift) & (LatencyHistogram.SUB_BUCKETS - 1));
+    }
+
+    private static long percentile(long[] counts, long count, long max, double percentile) {
+        long rank = (long) Math.ceil(count * percentile);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if ((seen >= rank) && (i < (counts.length - 1))) {
+                return Math.min(LatencyHistogram.upperBound(i), max);
+            }
+        }
+
+        return max;
+    }
+
+    private static LatencySnapshot summarize(long[] counts, long sum, long max) {
+        long count = 0;
+        for (long bucketCount : counts) {
+            count += bucketCount;
+        }
+
+        if (count == 0) {
+            return LatencySnapshot.EMPTY;
+        }
+
+        return new LatencySnapshot(count, (double) sum / count, max, //
+                LatencyHistogram.percentile(counts, count, max, 0.5), //
+                LatencyHistogram.percentile(counts, count, max, 0.75), //
+                LatencyHistogram.percentile(counts, count, max, 0.9), //
+                LatencyHistogram.percentile(counts, count, max, 0.99), //
+                LatencyHistogram.percentile(counts, count, max, 0.999));
+    }
+
+    /**
+     * Returns the highest value that falls into the bucket.
+     */
+    static long upperBound(int bucket) {
+        if (bucket < LatencyHistogram.SUB_BUCKETS) {
+            return bucket;
+        }
+
+        int shift = (bucket / LatencyHistogram.SUB_BUCKETS) - 1;
+        long lower = (long) (LatencyHistogram.SUB_BUCKETS + (bucket % LatencyHistogram.SUB_BUCKETS)) << shift;
+
+        return (lower + (1L << shift)) - 1;
+    }
+
+    private final AtomicLongArray counts = new AtomicLongArray(LatencyHistogram.BUCKETS);
+
+    private final AtomicLong sum = new AtomicLong();
+
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records a latency.
+     * 
+     * @param micros
+     *            the latency in microseconds
+     */
+    public void record(long micros) {
+        this.counts.incrementAndGet(LatencyHistogram.bucket(micros));
+        this.sum.addAndGet(micros);
+
+        long max = this.max.get();
+        while ((micros > max) && !this.max.compareAndSet(max, micros)) {
+            max = this.max.get();
+        }
+    }
+
+    /**
+     * Records a latency measured with {@link System#nanoTime()}.
+     * 
+     * @param nanos
+     *            the latency in nanoseconds
+     */
+    public void recordNanos(long nanos) {
+        this.record(nanos / 1000);
+    }
+
+    /**
+     * Clears the histogram.
+     */
+    public void reset() {
+        this.snapshotAndReset();
+    }
+
+    /**
+     * Returns the summary of the values recorded since the last reset.
+     * 
+     * @return the snapshot
+     */
+    public LatencySnapshot snapshot() {
+        long[] counts = new long[LatencyHistogram.BUCKETS];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = this.counts.get(i);
+        }
+
+        return LatencyHistogram.summarize(counts, this.sum.get(), this.max.get());
+    }
+
+    /**
+     * Returns the summary of the values recorded since the last reset and starts a new interval.
+     * 
+     * @return the snapshot
+     */
+    public LatencySnapshot snapshotAndReset() {
+        long[] counts = new long[LatencyHistogram.BUCKETS];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = this.counts.getAndSet(i, 0);
+        }
+
+        return LatencyHistogram.summarize(counts, this.sum.getAndSet(0), this.max.getAndSet(0));
+    }
+}
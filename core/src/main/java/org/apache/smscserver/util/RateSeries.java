@@ -0,0 +1,185 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.smscserver.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * <strong>Internal class, do not use directly.</strong>
+ * 
+ * A ring of counters over consecutive fixed length time buckets, such as the last 60 seconds.
+ * <p>
+ * Each cell packs the low bits of the epoch of its bucket with the count, so an increment that finds a cell of an
+ * older bucket restarts it in the same compare and set, no thread ever rotates the ring. Like {@link StripedCounter},
+ * the cells are striped by the updating thread so that threads do not contend on the current bucket. The bucket being
+ * counted is never reported, readers only see completed buckets.
+ * 
+ * @author hceylan
+ */
+public final class RateSeries {
+
+    private static final int COUNT_BITS = 40;
+
+    private static final long COUNT_MASK = (1L << RateSeries.COUNT_BITS) - 1;
+
+    private static final long TAG_MASK = (1L << (64 - RateSeries.COUNT_BITS)) - 1;
+
+    private final int buckets;
+
+    private final long bucketMillis;
+
+    private final int slots;
+
+    private final AtomicLongArray cells;
+
+    /**
+     * @param buckets
+     *            the number of the completed buckets retained
+     * @param bucketMillis
+     *            the length of a bucket in milliseconds
+     */
+    public RateSeries(int buckets, long bucketMillis) {
+        if ((buckets <= 0) || (bucketMillis <= 0)) {
+            throw new IllegalArgumentException("Invalid rate series, buckets: " + buckets + ", bucket length: "
+                    + bucketMillis);
+        }
+
+        this.buckets = buckets;
+        this.bucketMillis = bucketMillis;
+        // one more slot for the bucket being counted
+        this.slots = buckets + 1;
+        this.cells = new AtomicLongArray(StripedCounter.STRIPES * this.slots);
+    }
+
+    private long count(long epoch) {
+        long tag = epoch & RateSeries.TAG_MASK;
+        int slot = this.slot(epoch);
+
+        long count = 0;
+        for (int i = slot; i < this.cells.length(); i += this.slots) {
+            long cell = this.cells.get(i);
+            if ((cell >>> RateSeries.COUNT_BITS) == tag) {
+                count += cell & RateSeries.COUNT_MASK;
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Returns the counts of the completed buckets, oldest first.
+     * 
+     * @param now
+     *            the current time in milliseconds
+     * @return the counts, one per bucket
+     */
+    public long[] counts(long now) {
+        long current = now / this.bucketMillis;
+
+        long[] counts = new long[this.buckets];
+        for (int i = 0; i < this.buckets; i++) {
+            counts[i] = this.count((current - this.buckets) + i);
+        }
+
+        return counts;
+    }
+
+    /**
+     * Returns the length of a bucket.
+     * 
+     * @return the length of a bucket in milliseconds
+     */
+    public long getBucketMillis() {
+        return this.bucketMillis;
+    }
+
+    /**
+     * Returns the number of the completed buckets retained.
+     * 
+     * @return the number of the buckets
+     */
+    public int getBuckets() {
+        return this.buckets;
+    }
+
+    /**
+     * Counts an event in the bucket of the current time.
+     */
+    public void increment() {
+        this.increment(System.currentTimeMillis());
+    }
+
+    /**
+     * Counts an event in the bucket of the time.
+     * 
+     * @param now
+     *            the current time in milliseconds
+     */
+    public void increment(long now) {
+        long epoch = now / this.bucketMillis;
+        long tag = epoch & RateSeries.TAG_MASK;
+        int index = (StripedCounter.stripe() * this.slots) + this.slot(epoch);
+
+        while (true) {
+            long cell = this.cells.get(index);
+            long next = ((cell >>> RateSeries.COUNT_BITS) == tag) ? cell + 1 : (tag << RateSeries.COUNT_BITS) | 1;
+
+            if (this.cells.compareAndSet(index, cell, next)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Resets all the buckets. Updates concurrent with the reset may be lost.
+     */
+    public void reset() {
+        for (int i = 0; i < this.cells.length(); i++) {
+            this.cells.set(i, 0);
+        }
+    }
+
+    private int slot(long epoch) {
+        int slot = (int) (epoch % this.slots);
+
+        return (slot < 0) ? slot + this.slots : slot;
+    }
+
+    /**
+     * Returns the total count of the most recent completed buckets.
+     * 
+     * @param now
+     *            the current time in milliseconds
+     * @param buckets
+     *            the number of the buckets, limited to the number of the buckets retained
+     * @return the total count
+     */
+    public long sum(long now, int buckets) {
+        long current = now / this.bucketMillis;
+        int count = Math.min(buckets, this.buckets);
+
+        long sum = 0;
+        for (int i = 1; i <= count; i++) {
+            sum += this.count(current - i);
+        }
+
+        return sum;
+    }
+}
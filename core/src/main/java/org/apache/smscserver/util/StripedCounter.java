@@ -0,0 +1,123 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.smscserver.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * <strong>Internal class, do not use directly.</strong>
+ * 
+ * A 64 bit counter for values updated by many threads and read rarely.
+ * <p>
+ * Updates are spread over a number of cells selected by the id of the updating thread, the cells are spaced a cache
+ * line apart so that threads updating different cells do not contend. Reading the counter sums up the cells, the sum is
+ * not an atomic snapshot while the counter is being updated.
+ * 
+ * @author hceylan
+ */
+public final class StripedCounter {
+
+    /**
+     * The distance in longs between two cells, 128 bytes covers the adjacent cache line prefetch.
+     */
+    private static final int PADDING = 16;
+
+    /**
+     * The number of the stripes, a power of two.
+     */
+    static final int STRIPES;
+
+    static {
+        int stripes = 1;
+        while ((stripes < 64) && (stripes < (Runtime.getRuntime().availableProcessors() * 2))) {
+            stripes <<= 1;
+        }
+
+        STRIPES = stripes;
+    }
+
+    private static int index() {
+        return StripedCounter.stripe() * StripedCounter.PADDING;
+    }
+
+    /**
+     * Returns the stripe of the current thread.
+     */
+    static int stripe() {
+        long id = Thread.currentThread().getId();
+        int hash = (int) (id ^ (id >>> 32)) * 0x9e3779b9;
+
+        return (hash >>> 16) & (StripedCounter.STRIPES - 1);
+    }
+
+    private final AtomicLongArray cells = new AtomicLongArray(StripedCounter.STRIPES * StripedCounter.PADDING);
+
+    /**
+     * Adds the delta to the counter.
+     * 
+     * @param delta
+     *            the value to add
+     */
+    public void add(long delta) {
+        this.cells.addAndGet(StripedCounter.index(), delta);
+    }
+
+    /**
+     * Decrements the counter by one.
+     */
+    public void decrement() {
+        this.cells.decrementAndGet(StripedCounter.index());
+    }
+
+    /**
+     * Increments the counter by one.
+     */
+    public void increment() {
+        this.cells.incrementAndGet(StripedCounter.index());
+    }
+
+    /**
+     * Resets the counter to zero. Updates concurrent with the reset may be lost.
+     */
+    public void reset() {
+        for (int i = 0; i < this.cells.length(); i += StripedCounter.PADDING) {
+            this.cells.set(i, 0);
+        }
+    }
+
+    /**
+     * Returns the current value of the counter.
+     * 
+     * @return the sum of the cells
+     */
+    public long sum() {
+        long sum = 0;
+        for (int i = 0; i < this.cells.length(); i += StripedCounter.PADDING) {
+            sum += this.cells.get(i);
+        }
+
+        return sum;
+    }
+
+    @Override
+    public String toString() {
+        return Long.toString(this.sum());
+    }
+}
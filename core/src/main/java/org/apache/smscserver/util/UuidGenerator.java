@@ -0,0 +1,69 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.smscserver.util;
+
+import java.security.SecureRandom;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <strong>Internal class, do not use directly.</strong>
+ * 
+ * Cheap generator of unique identifiers.
+ * <p>
+ * The most significant bits are drawn randomly once per generator, the least significant bits are a counter seeded
+ * with the creation time. Identifiers from a generator are therefore unique and increasing, and generating one costs a
+ * single atomic increment instead of the secure random draw of {@link UUID#randomUUID()}.
+ * <p>
+ * The identifiers carry the version 4 and IETF variant bits of RFC 4122 so that they parse and print as random
+ * UUIDs, but only their most significant bits are random and they are to be treated as opaque.
+ * 
+ * @author hceylan
+ */
+public class UuidGenerator {
+
+    private static final long VERSION_MASK = 0x000000000000F000L;
+
+    private static final long VERSION_4 = 0x0000000000004000L;
+
+    private static final long VARIANT_MASK = 0xC000000000000000L;
+
+    private static final long VARIANT_IETF = 0x8000000000000000L;
+
+    private final long mostSigBits;
+
+    private final AtomicLong leastSigBits;
+
+    public UuidGenerator() {
+        this.mostSigBits = (new SecureRandom().nextLong() & ~UuidGenerator.VERSION_MASK) | UuidGenerator.VERSION_4;
+        this.leastSigBits = new AtomicLong(System.currentTimeMillis() << 20);
+    }
+
+    /**
+     * Returns the next identifier.
+     * 
+     * @return the next identifier
+     */
+    public UUID next() {
+        // the counter seeded with the shifted creation time takes 61 bits, it stays below the variant bits
+        return new UUID(this.mostSigBits, (this.leastSigBits.incrementAndGet() & ~UuidGenerator.VARIANT_MASK)
+                | UuidGenerator.VARIANT_IETF);
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.smscserver.test.clienttests;
+
+import java.net.InetAddress;
+
+import junit.framework.Assert;
+
+import org.apache.smscserver.BanConfigFactory;
+import org.apache.smscserver.SmscServerFactory;
+import org.apache.smscserver.impl.DefaultSmscServerContext;
+import org.apache.smscserver.ipfilter.BanFilter;
+
+/**
+ * 
+ * @author hceylan
+ * 
+ */
+public class BanTest extends ClientTestTemplate {
+
+    private static final String UNKNOWN_PASSWORD = "bar";
+
+    @Override
+    protected SmscServerFactory createServer() throws Exception {
+        SmscServerFactory serverFactory = super.createServer();
+
+        BanConfigFactory banConfig = new BanConfigFactory();
+        banConfig.setThreshold(1);
+
+        serverFactory.setBanConfig(banConfig.createBanConfig());
+
+        return serverFactory;
+    }
+
+    public void testBan() throws Exception {
+        Assert.assertFalse(this.bind(ClientTestTemplate.ADMIN_USERNAME, BanTest.UNKNOWN_PASSWORD)
+                .getCommandStatus() == 0);
+
+        BanFilter banFilter = ((DefaultSmscServerContext) this.server.getServerContext()).getBanFilter();
+        for (int i = 0; i < 100; i++) {
+            if (banFilter.getBanCount() > 0) {
+                break;
+            }
+
+            Thread.sleep(20);
+        }
+
+        Assert.assertEquals(1, banFilter.getBanCount());
+
+        this.disconnect();
+
+        // the connection is closed before the bind is read
+        try {
+            this.connectClient();
+            this.bindTest();
+        } catch (Exception e) {
+            // expected
+        }
+
+        Assert.assertEquals(1, banFilter.getRejectedConnectionCount());
+
+        // lifted, the address can bind again
+        Assert.assertTrue(banFilter.unban(InetAddress.getByName("127.0.0.1")));
+
+        this.connectClient();
+        Assert.assertEquals(0, this.bindTest().getCommandStatus());
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.smscserver.test.clienttests;
+
+import junit.framework.Assert;
+
+import org.apache.smscserver.ConnectionConfigFactory;
+import org.apache.smscserver.ServerSmscStatistics;
+import org.apache.smscserver.SessionCloseReason;
+
+/**
+ * 
+ * @author hceylan
+ * 
+ */
+public class BindFailureTest extends ClientTestTemplate {
+
+    private static final String UNKNOWN_PASSWORD = "bar";
+
+    @Override
+    protected ConnectionConfigFactory createConnectionConfigFactory() {
+        ConnectionConfigFactory factory = super.createConnectionConfigFactory();
+
+        factory.setBindFailureDelay(100);
+        factory.setMaxBindFailures(1);
+
+        return factory;
+    }
+
+    public void testBindFailureClosesSession() throws Exception {
+        Assert.assertFalse(this.bind(ClientTestTemplate.ADMIN_USERNAME, BindFailureTest.UNKNOWN_PASSWORD)
+                .getCommandStatus() == 0);
+
+        ServerSmscStatistics stats = (ServerSmscStatistics) this.server.getServerContext().getSmscStatistics();
+        for (int i = 0; i < 100; i++) {
+            if (stats.getTotalClosedConnectionNumber(SessionCloseReason.BIND_FAILURES) > 0) {
+                break;
+            }
+
+            Thread.sleep(20);
+        }
+
+        Assert.assertEquals(1, stats.getTotalClosedConnectionNumber(SessionCloseReason.BIND_FAILURES));
+    }
+
+    public void testBindFailureDelay() throws Exception {
+        long start = System.currentTimeMillis();
+
+        Assert.assertFalse(this.bind(ClientTestTemplate.ADMIN_USERNAME, BindFailureTest.UNKNOWN_PASSWORD)
+                .getCommandStatus() == 0);
+
+        Assert.assertTrue(System.currentTimeMillis() - start >= 90);
+    }
+}
@@ -22,6 +22,8 @@ package org.apache.smscserver.test.clienttests;
 import ie.omk.smpp.Connection;
 import junit.framework.Assert;
 
+import org.apache.smscserver.impl.DefaultSmscIoSession;
+import org.apache.smscserver.smsclet.SessionRegistry;
 import org.apache.smscserver.smsclet.SmscStatistics;
 
 /**
@@ -108,6 +110,52 @@ public class BindTest extends ClientTestTemplate {
         }
     }
 
+    public void testBindRegistersReceivers() throws Exception {
+        SessionRegistry registry = this.server.getServerContext().getSessionRegistry();
+
+        Connection transmitter = this.createConnection();
+        try {
+            Assert.assertEquals(0, this.bind(transmitter, Connection.TRANSMITTER, ClientTestTemplate.TESTUSER1_USERNAME,
+                    ClientTestTemplate.TESTUSER_PASSWORD).getCommandStatus());
+            Assert.assertEquals(0, this.bind(Connection.RECEIVER, ClientTestTemplate.TESTUSER1_USERNAME,
+                    ClientTestTemplate.TESTUSER_PASSWORD).getCommandStatus());
+
+            // the transmitter is not registered
+            Assert.assertEquals(1, registry.getReceiverCount());
+            Assert.assertEquals(1, registry.getReceivers(ClientTestTemplate.TESTUSER1_USERNAME).size());
+            Assert.assertEquals(0, registry.getReceivers(ClientTestTemplate.ADMIN_USERNAME).size());
+
+            this.connection.unbind();
+
+            Assert.assertEquals(0, registry.getReceiverCount());
+            Assert.assertEquals(0, registry.getReceivers(ClientTestTemplate.TESTUSER1_USERNAME).size());
+        } finally {
+            this.disconnect(transmitter);
+        }
+    }
+
+    public void testBindTimestamps() throws Exception {
+        long before = System.currentTimeMillis();
+        Assert.assertEquals(0, this.bindTest().getCommandStatus());
+        long after = System.currentTimeMillis();
+
+        DefaultSmscIoSession session = (DefaultSmscIoSession) this.getActiveSession();
+
+        long bindTime = session.getBindTimeMillis();
+        Assert.assertTrue((bindTime >= before) && (bindTime <= after));
+        Assert.assertEquals(bindTime, session.getBindTime().getTime());
+
+        long lastAccessTime = session.getLastAccessTimeMillis();
+        Assert.assertTrue((lastAccessTime >= before) && (lastAccessTime <= after));
+        Assert.assertEquals(lastAccessTime, session.getLastAccessTime().getTime());
+
+        Thread.sleep(20);
+        this.connection.enquireLink();
+
+        Assert.assertTrue(session.getLastAccessTimeMillis() > lastAccessTime);
+        Assert.assertEquals(bindTime, session.getBindTimeMillis());
+    }
+
     public void testCommandWithoutBind() throws Exception {
         // TODO: Hasan
     }
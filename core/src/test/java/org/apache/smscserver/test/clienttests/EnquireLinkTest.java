@@ -19,35 +19,230 @@
 
 package org.apache.smscserver.test.clienttests;
 
+import ie.omk.smpp.message.BindTransceiver;
+import ie.omk.smpp.message.EnquireLink;
+import ie.omk.smpp.message.EnquireLinkResp;
+import ie.omk.smpp.message.SMPPPacket;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+
 import junit.framework.Assert;
 
+import org.apache.smscserver.ServerSmscStatistics;
+import org.apache.smscserver.SessionCloseReason;
+import org.apache.smscserver.SmscServerFactory;
+import org.apache.smscserver.listener.ListenerFactory;
+import org.apache.smscserver.smsclet.SmscReply;
+
 /**
+ * Lets bound and unbound sessions go idle and checks that the enquire_link probe keeps responsive clients connected
+ * while the others are closed for the right reason.
  * 
  * @author hceylan
  * 
  */
 public class EnquireLinkTest extends ClientTestTemplate {
 
-    public void testEnquireLinkError() throws Exception {
+    private static final int IDLE_TIMEOUT = 1;
+
+    private static final long CLOSE_WAIT = 10000;
+
+    private void answer(OutputStream out, int[] probe) throws IOException {
+        EnquireLinkResp resp = new EnquireLinkResp();
+        resp.setSequenceNum(probe[2]);
+        resp.writeTo(out);
+        out.flush();
+    }
+
+    private void bind(Socket socket) throws IOException {
+        BindTransceiver bind = new BindTransceiver();
+        bind.setSequenceNum(1);
+        bind.setSystemId(ClientTestTemplate.TESTUSER1_USERNAME);
+        bind.setPassword(ClientTestTemplate.TESTUSER_PASSWORD);
+        bind.setSystemType("default");
+
+        OutputStream out = socket.getOutputStream();
+        bind.writeTo(out);
+        out.flush();
+
+        int[] header = this.read(new DataInputStream(socket.getInputStream()));
+        Assert.assertEquals(SMPPPacket.BIND_TRANSCEIVER_RESP, header[0]);
+        Assert.assertEquals(SmscReply.ErrorCode.ESME_ROK.getCode(), header[1]);
+    }
+
+    @Override
+    protected void connectClient() throws Exception {
+        // the tests use raw sockets
+    }
+
+    @Override
+    protected SmscServerFactory createServer() throws Exception {
+        SmscServerFactory server = super.createServer();
+
+        ListenerFactory listenerFactory = new ListenerFactory();
+        listenerFactory.setPort(0);
+        listenerFactory.setIdleTimeout(EnquireLinkTest.IDLE_TIMEOUT);
+
+        server.addListener("default", listenerFactory.createListener());
+
+        return server;
+    }
+
+    private long getClosed(SessionCloseReason reason) {
+        return ((ServerSmscStatistics) this.server.getServerContext().getSmscStatistics())
+                .getTotalClosedConnectionNumber(reason);
+    }
+
+    /**
+     * Reads a PDU and returns its command id, status and sequence number.
+     */
+    private int[] read(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        int[] header = new int[] { in.readInt(), in.readInt(), in.readInt() };
+        in.readFully(new byte[length - 16]);
+
+        return header;
+    }
+
+    /**
+     * Reads until the server closes the connection.
+     */
+    private void readUntilClosed(Socket socket) throws IOException {
+        socket.setSoTimeout((int) EnquireLinkTest.CLOSE_WAIT);
+        DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
         try {
-            this.bindTest();
+            while (true) {
+                this.read(in);
+            }
+        } catch (EOFException e) {
+            // expected
+        }
+    }
 
-            this.connection.enquireLink();
+    public void testAnsweredProbeKeepsSession() throws Exception {
+        Socket socket = new Socket("localhost", this.getListenerPort());
+        try {
+            this.bind(socket);
 
-            this.disconnect();
-        } catch (Exception e) {
-            Assert.fail("Must not throw");
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+
+            // stay idle for several idle periods, answering every probe
+            int probes = 0;
+            long end = System.currentTimeMillis() + (5000 * EnquireLinkTest.IDLE_TIMEOUT);
+            socket.setSoTimeout(250);
+            while (System.currentTimeMillis() < end) {
+                int[] header;
+                try {
+                    header = this.read(in);
+                } catch (SocketTimeoutException e) {
+                    continue;
+                }
+
+                Assert.assertEquals(SMPPPacket.ENQUIRE_LINK, header[0]);
+                probes++;
+
+                this.answer(out, header);
+            }
+
+            Assert.assertTrue("Expected the idle session to be probed more than once, probed " + probes, probes > 1);
+
+            // still connected
+            socket.setSoTimeout((int) EnquireLinkTest.CLOSE_WAIT);
+            EnquireLink enquireLink = new EnquireLink();
+            enquireLink.setSequenceNum(2);
+            enquireLink.writeTo(out);
+            out.flush();
+
+            int[] header = this.read(in);
+            while (header[0] == SMPPPacket.ENQUIRE_LINK) {
+                // a probe that crossed our request
+                this.answer(out, header);
+                header = this.read(in);
+            }
+
+            Assert.assertEquals(SMPPPacket.ENQUIRE_LINK_RESP, header[0]);
+            Assert.assertEquals(2, header[2]);
+
+            Assert.assertEquals(0, this.getClosed(SessionCloseReason.ENQUIRE_LINK_TIMEOUT));
+            Assert.assertEquals(0, this.getClosed(SessionCloseReason.EXCEPTION));
+        } finally {
+            socket.close();
         }
     }
 
-    public void testEnquireLinkOK() throws Exception {
+    public void testBoundIdleClosedOnEnquireLinkTimeout() throws Exception {
+        Socket socket = new Socket("localhost", this.getListenerPort());
         try {
-            this.connection.enquireLink();
+            this.bind(socket);
 
-            Assert.fail("Must throw");
-        } catch (Exception e) {
-            // OK
+            // never answer the probe
+            this.readUntilClosed(socket);
+        } finally {
+            socket.close();
         }
+
+        this.waitForClosed(SessionCloseReason.ENQUIRE_LINK_TIMEOUT);
+        Assert.assertEquals(1, this.getClosed(SessionCloseReason.ENQUIRE_LINK_TIMEOUT));
+        Assert.assertEquals(0, this.getClosed(SessionCloseReason.IDLE));
     }
 
+    public void testUnboundIdleClosed() throws Exception {
+        Socket socket = new Socket("localhost", this.getListenerPort());
+        try {
+            this.readUntilClosed(socket);
+        } finally {
+            socket.close();
+        }
+
+        this.waitForClosed(SessionCloseReason.IDLE);
+        Assert.assertEquals(1, this.getClosed(SessionCloseReason.IDLE));
+        Assert.assertEquals(0, this.getClosed(SessionCloseReason.ENQUIRE_LINK_TIMEOUT));
+    }
+
+    public void testUnknownCommandIsNacked() throws Exception {
+        Socket socket = new Socket("localhost", this.getListenerPort());
+        try {
+            this.bind(socket);
+
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+
+            // a header only PDU with an unassigned command id
+            out.writeInt(16);
+            out.writeInt(0x00000077);
+            out.writeInt(0);
+            out.writeInt(7);
+            out.flush();
+
+            int[] header = this.read(in);
+            Assert.assertEquals(SMPPPacket.GENERIC_NACK, header[0]);
+            Assert.assertEquals(SmscReply.ErrorCode.ESME_RINVCMDID.getCode(), header[1]);
+            Assert.assertEquals(7, header[2]);
+
+            // the session survives
+            EnquireLink enquireLink = new EnquireLink();
+            enquireLink.setSequenceNum(8);
+            enquireLink.writeTo(out);
+            out.flush();
+
+            Assert.assertEquals(SMPPPacket.ENQUIRE_LINK_RESP, this.read(in)[0]);
+        } finally {
+            socket.close();
+        }
+    }
+
+    private void waitForClosed(SessionCloseReason reason) throws InterruptedException {
+        long end = System.currentTimeMillis() + EnquireLinkTest.CLOSE_WAIT;
+        while ((this.getClosed(reason) == 0) && (System.currentTimeMillis() < end)) {
+            Thread.sleep(10);
+        }
+    }
 }
@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.smscserver.test.clienttests;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import junit.framework.Assert;
+
+/**
+ * 
+ * @author hceylan
+ * 
+ */
+public class JmxTest extends ClientTestTemplate {
+
+    private final MBeanServer mbeanServer = ManagementFactory.getPlatformMBeanServer();
+
+    public void testBindGauges() throws Exception {
+        this.bindTest();
+
+        ObjectName statistics = new ObjectName("org.apache.smscserver:type=Statistics,server=smscserver");
+        ObjectName listener = new ObjectName("org.apache.smscserver:type=Listener,server=smscserver,name=default");
+
+        Assert.assertEquals(1, this.mbeanServer.getAttribute(statistics, "CurrentBindNumber"));
+        Assert.assertEquals(1, this.mbeanServer.getAttribute(listener, "BoundSessionCount"));
+        Assert.assertEquals(1, ((String[]) this.mbeanServer.getAttribute(statistics, "CommandCounts")).length);
+    }
+
+    public void testSuspendResume() throws Exception {
+        ObjectName server = new ObjectName("org.apache.smscserver:type=Server,name=smscserver");
+        ObjectName deliveryManager = new ObjectName("org.apache.smscserver:type=DeliveryManager,server=smscserver");
+
+        this.mbeanServer.invoke(server, "suspend", null, null);
+        Assert.assertEquals(Boolean.TRUE, this.mbeanServer.getAttribute(server, "Suspended"));
+        Assert.assertEquals(Boolean.TRUE, this.mbeanServer.getAttribute(deliveryManager, "Suspended"));
+
+        this.mbeanServer.invoke(server, "resume", null, null);
+        Assert.assertEquals(Boolean.FALSE, this.mbeanServer.getAttribute(server, "Suspended"));
+        Assert.assertEquals(Boolean.FALSE, this.mbeanServer.getAttribute(deliveryManager, "Suspended"));
+    }
+
+    public void testUnregisteredOnStop() throws Exception {
+        ObjectName pattern = new ObjectName("org.apache.smscserver:server=smscserver,*");
+        Assert.assertFalse(this.mbeanServer.queryNames(pattern, null).isEmpty());
+
+        this.server.stop();
+        this.server = null;
+
+        Assert.assertTrue(this.mbeanServer.queryNames(pattern, null).isEmpty());
+        Assert.assertFalse(this.mbeanServer.isRegistered(new ObjectName(
+                "org.apache.smscserver:type=Server,name=smscserver")));
+    }
+}
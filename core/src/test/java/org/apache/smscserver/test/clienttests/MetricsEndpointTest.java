@@ -0,0 +1,86 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.smscserver.test.clienttests;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+
+import junit.framework.Assert;
+
+import org.apache.smscserver.MetricsConfigFactory;
+import org.apache.smscserver.SmscServerFactory;
+import org.apache.smscserver.impl.DefaultSmscServer;
+
+/**
+ * 
+ * @author hceylan
+ * 
+ */
+public class MetricsEndpointTest extends ClientTestTemplate {
+
+    @Override
+    protected SmscServerFactory createServer() throws Exception {
+        SmscServerFactory serverFactory = super.createServer();
+
+        MetricsConfigFactory metricsConfig = new MetricsConfigFactory();
+        metricsConfig.setEnabled(true);
+        metricsConfig.setAddress("localhost");
+        metricsConfig.setPort(0);
+
+        serverFactory.setMetricsConfig(metricsConfig.createMetricsConfig());
+
+        return serverFactory;
+    }
+
+    private HttpURLConnection open(String path) throws Exception {
+        int port = ((DefaultSmscServer) this.server).getMetricsEndpoint().getPort();
+
+        return (HttpURLConnection) new URL("http://localhost:" + port + path).openConnection();
+    }
+
+    public void testMetrics() throws Exception {
+        this.bindTest();
+
+        HttpURLConnection connection = this.open("/metrics");
+        Assert.assertEquals(200, connection.getResponseCode());
+        Assert.assertTrue(connection.getContentType().startsWith("text/plain; version=0.0.4"));
+
+        InputStream in = connection.getInputStream();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        for (int read = in.read(buffer); read != -1; read = in.read(buffer)) {
+            out.write(buffer, 0, read);
+        }
+        in.close();
+
+        String metrics = out.toString("US-ASCII");
+        Assert.assertTrue(metrics, metrics.contains("\nsmsc_binds 1\n"));
+        Assert.assertTrue(metrics, metrics.contains("\nsmsc_connections_total 1\n"));
+        Assert.assertTrue(metrics, metrics.contains("smsc_listener_sessions{listener=\"default\"} 1\n"));
+        Assert.assertTrue(metrics, metrics.contains("smsc_thread_pool_threads{pool=\"request\"}"));
+        Assert.assertTrue(metrics, metrics.contains("_count{command=\"bind_"));
+    }
+
+    public void testUnknownPath() throws Exception {
+        Assert.assertEquals(404, this.open("/other").getResponseCode());
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.smscserver.test.clienttests;
+
+import ie.omk.smpp.message.BindTransceiver;
+import ie.omk.smpp.message.EnquireLink;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Socket;
+
+import junit.framework.Assert;
+
+import org.apache.mina.core.session.IoSessionConfig;
+import org.apache.smscserver.SmscServerFactory;
+import org.apache.smscserver.listener.ListenerFactory;
+import org.apache.smscserver.listener.SocketConfiguration;
+import org.apache.smscserver.listener.SocketConfigurationFactory;
+
+/**
+ * Pipelines enquire_link PDUs over a raw socket to check the read buffers of the sessions adapt to the traffic.
+ * 
+ * @author hceylan
+ * 
+ */
+public class PipeliningTest extends ClientTestTemplate {
+
+    private static final int PDU_COUNT = 5000;
+
+    private volatile IOException writeError;
+
+    private Socket connect(int port) throws Exception {
+        Socket socket = new Socket("localhost", port);
+        socket.setTcpNoDelay(true);
+
+        BindTransceiver bind = new BindTransceiver();
+        bind.setSequenceNum(1);
+        bind.setSystemId(ClientTestTemplate.TESTUSER1_USERNAME);
+        bind.setPassword(ClientTestTemplate.TESTUSER_PASSWORD);
+        bind.setSystemType("default");
+
+        bind.writeTo(socket.getOutputStream());
+        Assert.assertEquals(0, this.readStatus(new DataInputStream(socket.getInputStream())));
+
+        return socket;
+    }
+
+    /**
+     * Pipelines {@link #PDU_COUNT} PDUs and returns the largest read buffer size of the session seen while they are in
+     * flight, each within the bounds of the session.
+     */
+    private int pipeline(Socket socket, IoSessionConfig config) throws Exception {
+        final OutputStream out = new BufferedOutputStream(socket.getOutputStream(), 8192);
+        DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+
+        Thread writer = new Thread("pipeline-writer") {
+
+            @Override
+            public void run() {
+                try {
+                    EnquireLink enquireLink = new EnquireLink();
+                    for (int i = 0; i < PipeliningTest.PDU_COUNT; i++) {
+                        enquireLink.setSequenceNum(i + 2);
+                        enquireLink.writeTo(out);
+                    }
+                    out.flush();
+                } catch (IOException e) {
+                    PipeliningTest.this.writeError = e;
+                }
+            }
+        };
+
+        writer.start();
+
+        int largest = 0;
+        for (int i = 0; i < PipeliningTest.PDU_COUNT; i++) {
+            Assert.assertEquals(0, this.readStatus(in));
+
+            int readBufferSize = config.getReadBufferSize();
+            Assert.assertTrue(readBufferSize >= config.getMinReadBufferSize());
+            Assert.assertTrue(readBufferSize <= config.getMaxReadBufferSize());
+
+            largest = Math.max(largest, readBufferSize);
+        }
+
+        writer.join();
+        if (this.writeError != null) {
+            throw this.writeError;
+        }
+
+        return largest;
+    }
+
+    private int readStatus(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        in.readInt(); // command id
+        int status = in.readInt();
+        in.readInt(); // sequence number
+        in.readFully(new byte[length - 16]);
+
+        return status;
+    }
+
+    /**
+     * Replaces the server of the test with one listening with the socket configuration.
+     */
+    private void startServer(SocketConfiguration socketConfiguration) throws Exception {
+        // the listeners bind to the same port
+        this.server.stop();
+
+        SmscServerFactory serverFactory = this.createServer();
+
+        ListenerFactory listenerFactory = new ListenerFactory();
+        listenerFactory.setPort(0);
+        listenerFactory.setSocketConfiguration(socketConfiguration);
+        serverFactory.addListener("default", listenerFactory.createListener());
+
+        this.server = serverFactory.createServer();
+        this.server.start();
+    }
+
+    public void testReadBufferGrows() throws Exception {
+        SocketConfigurationFactory factory = new SocketConfigurationFactory();
+        factory.setReadBufferSize(64);
+        factory.setMinReadBufferSize(64);
+        factory.setMaxReadBufferSize(4096);
+
+        this.startServer(factory.createSocketConfiguration());
+
+        Socket socket = this.connect(this.getListenerPort());
+        try {
+            IoSessionConfig config = this.getActiveSession().getConfig();
+
+            Assert.assertEquals(64, config.getMinReadBufferSize());
+            Assert.assertEquals(4096, config.getMaxReadBufferSize());
+
+            // the buffer may shrink back once the burst is over, it is watched while the PDUs are in flight
+            Assert.assertTrue(this.pipeline(socket, config) > 64);
+        } finally {
+            socket.close();
+        }
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.smscserver.test.clienttests;
+
+import ie.omk.smpp.Address;
+import ie.omk.smpp.message.BindTransceiver;
+import ie.omk.smpp.message.QuerySM;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.Assert;
+
+import org.apache.smscserver.ConnectionConfigFactory;
+import org.apache.smscserver.SmscServerFactory;
+import org.apache.smscserver.packet.impl.SmscStatusReplyImpl;
+import org.apache.smscserver.smsclet.DefaultSmsclet;
+import org.apache.smscserver.smsclet.QuerySMRequest;
+import org.apache.smscserver.smsclet.Smsclet;
+import org.apache.smscserver.smsclet.SmscReply;
+import org.apache.smscserver.smsclet.SmscSession;
+
+/**
+ * Pipelines more requests than the request window over a raw socket. The requests beyond the window must be held back
+ * rather than throttled.
+ * 
+ * @author hceylan
+ * 
+ */
+public class RequestWindowTest extends ClientTestTemplate {
+
+    /**
+     * Answers query_sm after a delay, keeping track of the number of requests in progress.
+     */
+    private static class SlowSmsclet extends DefaultSmsclet {
+
+        private final AtomicInteger inProgress = new AtomicInteger();
+        private final AtomicInteger maxInProgress = new AtomicInteger();
+
+        @Override
+        public SmscReply onQuerySM(SmscSession session, QuerySMRequest request) {
+            int current = this.inProgress.incrementAndGet();
+            try {
+                int max = this.maxInProgress.get();
+                while ((current > max) && !this.maxInProgress.compareAndSet(max, current)) {
+                    max = this.maxInProgress.get();
+                }
+
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                this.inProgress.decrementAndGet();
+            }
+
+            return new SmscStatusReplyImpl(request, SmscReply.ErrorCode.ESME_ROK);
+        }
+    }
+
+    private static final int WINDOW_SIZE = 3;
+
+    private static final int REQUEST_COUNT = 200;
+
+    private final SlowSmsclet smsclet = new SlowSmsclet();
+
+    @Override
+    protected ConnectionConfigFactory createConnectionConfigFactory() {
+        ConnectionConfigFactory factory = super.createConnectionConfigFactory();
+        factory.setRequestWindowSize(RequestWindowTest.WINDOW_SIZE);
+
+        return factory;
+    }
+
+    @Override
+    protected SmscServerFactory createServer() throws Exception {
+        SmscServerFactory server = super.createServer();
+
+        Map<String, Smsclet> smsclets = new LinkedHashMap<String, Smsclet>();
+        smsclets.put("slow", this.smsclet);
+        server.setSmsclets(smsclets);
+
+        return server;
+    }
+
+    private int readStatus(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        in.readInt(); // command id
+        int status = in.readInt();
+        in.readInt(); // sequence number
+        in.readFully(new byte[length - 16]);
+
+        return status;
+    }
+
+    public void testOverflowIsHeldBack() throws Exception {
+        Socket socket = new Socket("localhost", this.getListenerPort());
+        try {
+            OutputStream out = new BufferedOutputStream(socket.getOutputStream());
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+
+            BindTransceiver bind = new BindTransceiver();
+            bind.setSequenceNum(1);
+            bind.setSystemId(ClientTestTemplate.TESTUSER1_USERNAME);
+            bind.setPassword(ClientTestTemplate.TESTUSER_PASSWORD);
+            bind.setSystemType("default");
+            bind.writeTo(out);
+            out.flush();
+
+            Assert.assertEquals(0, this.readStatus(in));
+
+            // all in one go, well beyond the window
+            QuerySM query = new QuerySM();
+            query.setMessageId("1");
+            query.setSource(new Address(0, 0, "1"));
+            for (int i = 0; i < RequestWindowTest.REQUEST_COUNT; i++) {
+                query.setSequenceNum(i + 2);
+                query.writeTo(out);
+            }
+            out.flush();
+
+            for (int i = 0; i < RequestWindowTest.REQUEST_COUNT; i++) {
+                Assert.assertEquals(SmscReply.ErrorCode.ESME_ROK.getCode(), this.readStatus(in));
+            }
+
+            Assert.assertEquals(RequestWindowTest.WINDOW_SIZE, this.smsclet.maxInProgress.get());
+        } finally {
+            socket.close();
+        }
+    }
+}
@@ -41,6 +41,8 @@ public class UnlimitedMaxBindTest extends ClientTestTemplate {
         ConnectionConfigFactory ccFactory = new ConnectionConfigFactory();
 
         ccFactory.setMaxBindFailures(0);
+        // keep the escalating bind failure delay short
+        ccFactory.setBindFailureDelay(10);
 
         server.setConnectionConfig(ccFactory.createConnectionConfig());
         return server;
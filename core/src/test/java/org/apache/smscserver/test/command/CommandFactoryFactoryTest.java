@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.smscserver.test.command;
+
+import ie.omk.smpp.message.SMPPPacket;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.apache.smscserver.SmscServerContext;
+import org.apache.smscserver.command.Command;
+import org.apache.smscserver.command.CommandFactory;
+import org.apache.smscserver.command.CommandFactoryFactory;
+import org.apache.smscserver.command.CommandInterceptor;
+import org.apache.smscserver.command.impl.EnquireLinkCommand;
+import org.apache.smscserver.command.impl.SubmitSMCommand;
+import org.apache.smscserver.impl.DefaultSmscIoSession;
+import org.apache.smscserver.smsclet.SmscReply;
+import org.apache.smscserver.smsclet.SmscRequest;
+
+/**
+ * 
+ * @author hceylan
+ * 
+ */
+public class CommandFactoryFactoryTest extends TestCase {
+
+    private static class RecordingInterceptor implements CommandInterceptor {
+
+        private final String name;
+
+        private final List<String> calls;
+
+        public RecordingInterceptor(String name, List<String> calls) {
+            this.name = name;
+            this.calls = calls;
+        }
+
+        public SmscReply intercept(DefaultSmscIoSession session, SmscServerContext context, SmscRequest request,
+                Command next) {
+            this.calls.add(this.name);
+
+            return next.execute(session, context, request);
+        }
+    }
+
+    private static class RecordingCommand implements Command {
+
+        private final List<String> calls;
+
+        public RecordingCommand(List<String> calls) {
+            this.calls = calls;
+        }
+
+        public SmscReply execute(DefaultSmscIoSession session, SmscServerContext context, SmscRequest request) {
+            this.calls.add("command");
+
+            return null;
+        }
+    }
+
+    public void testDefaultCommands() {
+        CommandFactory factory = new CommandFactoryFactory().createCommandFactory();
+
+        assertSame(EnquireLinkCommand.SINGLETON, factory.getCommand(SMPPPacket.ENQUIRE_LINK));
+        assertSame(SubmitSMCommand.SINGLETON, factory.getCommand(SMPPPacket.SUBMIT_SM));
+        assertNotNull(factory.getInterceptedCommand(SMPPPacket.SUBMIT_SM));
+        assertNull(factory.getCommand(SMPPPacket.DATA_SM));
+        assertNull(factory.getInterceptedCommand(SMPPPacket.DATA_SM));
+        assertNull(factory.getCommand(-1));
+    }
+
+    public void testExtendedCommand() {
+        List<String> calls = new ArrayList<String>();
+
+        CommandFactoryFactory factoryFactory = new CommandFactoryFactory();
+        factoryFactory.addCommand(0x10200, new RecordingCommand(calls));
+
+        CommandFactory factory = factoryFactory.createCommandFactory();
+
+        assertNotNull(factory.getCommand(0x10200));
+        assertNotNull(factory.getInterceptedCommand(0x10200));
+        assertNull(factory.getCommand(0x10201));
+    }
+
+    public void testInterceptorOrder() {
+        List<String> calls = new ArrayList<String>();
+
+        CommandFactoryFactory factoryFactory = new CommandFactoryFactory();
+        factoryFactory.setInterceptors(new ArrayList<CommandInterceptor>());
+        factoryFactory.addCommand(SMPPPacket.QUERY_SM, new RecordingCommand(calls));
+        factoryFactory.addInterceptor(SMPPPacket.QUERY_SM, new RecordingInterceptor("specific", calls));
+        factoryFactory.addInterceptor(new RecordingInterceptor("first", calls));
+        factoryFactory.addInterceptor(new RecordingInterceptor("second", calls));
+
+        CommandFactory factory = factoryFactory.createCommandFactory();
+        factory.getInterceptedCommand(SMPPPacket.QUERY_SM).execute(null, null, null);
+
+        assertEquals(4, calls.size());
+        assertEquals("first", calls.get(0));
+        assertEquals("second", calls.get(1));
+        assertEquals("specific", calls.get(2));
+        assertEquals("command", calls.get(3));
+
+        calls.clear();
+        factory.getCommand(SMPPPacket.QUERY_SM).execute(null, null, null);
+        assertEquals(1, calls.size());
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.smscserver.test.impl;
+
+import java.net.InetAddress;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+import org.apache.smscserver.ConnectionConfigFactory;
+import org.apache.smscserver.impl.BindFailureTracker;
+
+/**
+ * 
+ * @author hceylan
+ * 
+ */
+public class BindFailureTrackerTest extends TestCase {
+
+    private BindFailureTracker tracker;
+
+    private InetAddress address;
+
+    @Override
+    protected void setUp() throws Exception {
+        ConnectionConfigFactory factory = new ConnectionConfigFactory();
+        factory.setBindFailureDelay(100);
+
+        this.tracker = new BindFailureTracker(factory.createConnectionConfig());
+        this.address = InetAddress.getByName("10.0.0.1");
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        this.tracker.dispose();
+    }
+
+    public void testEscalation() {
+        TestCase.assertEquals(100, this.tracker.bindFailed(this.address));
+        TestCase.assertEquals(200, this.tracker.bindFailed(this.address));
+        TestCase.assertEquals(400, this.tracker.bindFailed(this.address));
+
+        for (int i = 0; i < 10; i++) {
+            this.tracker.bindFailed(this.address);
+        }
+
+        TestCase.assertEquals(100 << BindFailureTracker.MAX_ESCALATION, this.tracker.bindFailed(this.address));
+        TestCase.assertEquals(14, this.tracker.getFailures(this.address));
+
+        this.tracker.bindSucceeded(this.address);
+
+        TestCase.assertEquals(0, this.tracker.getFailures(this.address));
+        TestCase.assertEquals(100, this.tracker.bindFailed(this.address));
+    }
+
+    public void testNoAddress() {
+        TestCase.assertEquals(100, this.tracker.bindFailed(null));
+        TestCase.assertEquals(100, this.tracker.bindFailed(null));
+        TestCase.assertEquals(0, this.tracker.getOffenderCount());
+    }
+
+    public void testSchedule() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(1);
+
+        long start = System.nanoTime();
+        this.tracker.schedule(new Runnable() {
+
+            public void run() {
+                latch.countDown();
+            }
+        }, 100);
+
+        TestCase.assertTrue(latch.await(5, TimeUnit.SECONDS));
+        TestCase.assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 90);
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.smscserver.test.impl;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.ConcurrentHashMap;
+
+import junit.framework.TestCase;
+
+import org.apache.smscserver.impl.DefaultSessionRegistry;
+import org.apache.smscserver.smsclet.SmscIoSession;
+import org.apache.smscserver.smsclet.User;
+
+/**
+ * 
+ * @author hceylan
+ * 
+ */
+public class DefaultSessionRegistryTest extends TestCase {
+
+    private static SmscIoSession createSession(final String systemId) {
+        final ConcurrentHashMap<Object, Object> attributes = new ConcurrentHashMap<Object, Object>();
+
+        final User user = (User) Proxy.newProxyInstance(User.class.getClassLoader(), new Class<?>[] { User.class },
+                new InvocationHandler() {
+
+                    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                        if ("getName".equals(method.getName())) {
+                            return systemId;
+                        }
+
+                        return null;
+                    }
+                });
+
+        return (SmscIoSession) Proxy.newProxyInstance(SmscIoSession.class.getClassLoader(),
+                new Class<?>[] { SmscIoSession.class }, new InvocationHandler() {
+
+                    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                        if ("getUser".equals(method.getName())) {
+                            return user;
+                        }
+                        if ("isConnected".equals(method.getName())) {
+                            return Boolean.TRUE;
+                        }
+                        if ("isClosing".equals(method.getName())) {
+                            return Boolean.FALSE;
+                        }
+                        if ("setAttributeIfAbsent".equals(method.getName()) && (args.length == 2)) {
+                            return attributes.putIfAbsent(args[0], args[1]);
+                        }
+                        if ("removeAttribute".equals(method.getName()) && (args.length == 1)) {
+                            return attributes.remove(args[0]);
+                        }
+                        if ("hashCode".equals(method.getName())) {
+                            return System.identityHashCode(proxy);
+                        }
+                        if ("equals".equals(method.getName())) {
+                            return proxy == args[0];
+                        }
+
+                        return null;
+                    }
+                });
+    }
+
+    private final DefaultSessionRegistry registry = new DefaultSessionRegistry();
+
+    public void testAddressRange() throws Exception {
+        SmscIoSession session1 = DefaultSessionRegistryTest.createSession("user1");
+        SmscIoSession session2 = DefaultSessionRegistryTest.createSession("user2");
+        SmscIoSession session3 = DefaultSessionRegistryTest.createSession("user3");
+
+        this.registry.register(session1, "4412345");
+        this.registry.register(session2, "^44[0-9]+$");
+        this.registry.register(session3, "");
+
+        assertEquals(2, this.registry.getReceiversForAddress("4412345").size());
+        assertEquals(1, this.registry.getReceiversForAddress("4400000").size());
+        assertSame(session2, this.registry.getReceiversForAddress("4400000").get(0));
+        assertEquals(0, this.registry.getReceiversForAddress("9012345").size());
+
+        this.registry.unregister(session2);
+
+        assertEquals(1, this.registry.getReceiversForAddress("4412345").size());
+        assertEquals(0, this.registry.getReceiversForAddress("4400000").size());
+    }
+
+    public void testAddressRangeSyntax() throws Exception {
+        SmscIoSession session1 = DefaultSessionRegistryTest.createSession("user1");
+        SmscIoSession session2 = DefaultSessionRegistryTest.createSession("user2");
+        SmscIoSession session3 = DefaultSessionRegistryTest.createSession("user3");
+
+        this.registry.register(session1, "\\+44.1?[^0-4]*");
+        this.registry.register(session2, "[a-c]+x$");
+        this.registry.register(session3, "^.*9");
+
+        assertEquals(1, this.registry.getReceiversForAddress("+44055").size());
+        assertEquals(1, this.registry.getReceiversForAddress("+440").size());
+        assertEquals(0, this.registry.getReceiversForAddress("+44005").size());
+        assertEquals(0, this.registry.getReceiversForAddress("44055").size());
+        assertEquals(1, this.registry.getReceiversForAddress("abcax").size());
+        assertEquals(0, this.registry.getReceiversForAddress("x").size());
+        assertEquals(2, this.registry.getReceiversForAddress("+44199").size());
+    }
+
+    public void testHostileAddressRange() throws Exception {
+        SmscIoSession session1 = DefaultSessionRegistryTest.createSession("user1");
+        SmscIoSession session2 = DefaultSessionRegistryTest.createSession("user2");
+        SmscIoSession session3 = DefaultSessionRegistryTest.createSession("user3");
+
+        // the nested quantifiers are rejected, the ranges longer than the address_range parameter as well
+        this.registry.register(session1, "(a+)+$");
+        this.registry.register(session2, "[0-9]*[0-9]*[0-9]*[0-9]*[0-9]*[0-9]*[0-9]*x");
+        this.registry.register(session3, ".*.*.*.*.*.*.*.*.*.*.*.*.*.*.*.*x");
+
+        assertEquals(1, this.registry.getReceivers("user1").size());
+        assertEquals(1, this.registry.getReceivers("user2").size());
+
+        StringBuilder address = new StringBuilder();
+        for (int i = 0; i < 10000; i++) {
+            address.append('a');
+        }
+
+        // would backtrack for ages as a regular expression
+        assertEquals(0, this.registry.getReceiversForAddress(address.append('!').toString()).size());
+        assertEquals(1, this.registry.getReceiversForAddress(address.append('x').toString()).size());
+    }
+
+    public void testInvalidAddressRange() throws Exception {
+        SmscIoSession session = DefaultSessionRegistryTest.createSession("user1");
+
+        // still registered by the system id
+        this.registry.register(session, "[44");
+
+        assertEquals(1, this.registry.getReceivers("user1").size());
+        assertEquals(0, this.registry.getReceiversForAddress("44").size());
+    }
+
+    public void testRegister() throws Exception {
+        SmscIoSession session1 = DefaultSessionRegistryTest.createSession("user1");
+        SmscIoSession session2 = DefaultSessionRegistryTest.createSession("user1");
+        SmscIoSession session3 = DefaultSessionRegistryTest.createSession("user2");
+
+        this.registry.register(session1, null);
+        this.registry.register(session2, null);
+        this.registry.register(session3, null);
+        // registering twice has no effect
+        this.registry.register(session1, null);
+
+        assertEquals(3, this.registry.getReceiverCount());
+        assertEquals(2, this.registry.getReceivers("user1").size());
+        assertEquals(1, this.registry.getReceivers("user2").size());
+        assertEquals(0, this.registry.getReceivers("user3").size());
+
+        this.registry.unregister(session1);
+        // unregistering twice has no effect
+        this.registry.unregister(session1);
+
+        assertEquals(2, this.registry.getReceiverCount());
+        assertEquals(1, this.registry.getReceivers("user1").size());
+        assertSame(session2, this.registry.getReceivers("user1").get(0));
+
+        this.registry.unregister(session2);
+        this.registry.unregister(session3);
+
+        assertEquals(0, this.registry.getReceiverCount());
+        assertEquals(0, this.registry.getReceivers("user1").size());
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.smscserver.test.impl;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+import junit.framework.TestCase;
+
+import org.apache.mina.core.session.DummySession;
+import org.apache.smscserver.ConnectionConfigFactory;
+import org.apache.smscserver.SmscServerContext;
+import org.apache.smscserver.impl.DefaultSmscIoSession;
+
+/**
+ * 
+ * @author hceylan
+ * 
+ */
+public class DefaultSmscIoSessionTest extends TestCase {
+
+    private DefaultSmscIoSession session;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+
+        SmscServerContext context = (SmscServerContext) Proxy.newProxyInstance(
+                SmscServerContext.class.getClassLoader(), new Class<?>[] { SmscServerContext.class },
+                new InvocationHandler() {
+
+                    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                        if ("getConnectionConfig".equals(method.getName())) {
+                            return new ConnectionConfigFactory().createConnectionConfig();
+                        }
+
+                        return null;
+                    }
+                });
+
+        this.session = new DefaultSmscIoSession(new DummySession(), context);
+    }
+
+    public void testDeliveryRoundTrip() {
+        this.session.addPendingDelivery(1, 100);
+        this.session.addPendingDelivery(2, 200);
+        assertEquals(2, this.session.getPendingDeliveryCount());
+
+        assertEquals(200, this.session.removePendingDelivery(2));
+        assertEquals(0, this.session.removePendingDelivery(2));
+        assertEquals(0, this.session.removePendingDelivery(3));
+        assertEquals(1, this.session.getPendingDeliveryCount());
+    }
+
+    public void testLostDeliveriesAreReplaced() {
+        // the responses of the first 1024 deliveries never arrive
+        for (int i = 1; i <= 1024; i++) {
+            this.session.addPendingDelivery(i, i);
+        }
+        assertEquals(1024, this.session.getPendingDeliveryCount());
+
+        // the later deliveries are still tracked
+        for (int i = 1025; i <= 2048; i++) {
+            this.session.addPendingDelivery(i, i);
+            assertEquals(i, this.session.removePendingDelivery(i));
+        }
+
+        // the lost deliveries are forgotten
+        assertEquals(0, this.session.getPendingDeliveryCount());
+        assertEquals(0, this.session.removePendingDelivery(1));
+    }
+}
@@ -0,0 +1,446 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.smscserver.test.impl;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import junit.framework.TestCase;
+
+import org.apache.smscserver.SessionCloseReason;
+import org.apache.smscserver.StatisticsObserver;
+import org.apache.smscserver.impl.DefaultSmscStatistics;
+import org.apache.smscserver.smsclet.RateCounter;
+import org.apache.smscserver.smsclet.SmscCommandId;
+import org.apache.smscserver.smsclet.SmscIoSession;
+import org.apache.smscserver.smsclet.SmscStatistics;
+import org.apache.smscserver.smsclet.User;
+
+/**
+ * 
+ * @author hceylan
+ * 
+ */
+public class DefaultSmscStatisticsTest extends TestCase {
+
+    private static SmscIoSession createSession(final User user, final InetAddress address) {
+        return DefaultSmscStatisticsTest.createSession(new AtomicReference<User>(user), address, new AtomicBoolean(
+                true));
+    }
+
+    /**
+     * Creates a session whose user and connection state can be changed.
+     */
+    private static SmscIoSession createSession(final AtomicReference<User> user, final InetAddress address,
+            final AtomicBoolean connected) {
+        final Map<Object, Object> attributes = new ConcurrentHashMap<Object, Object>();
+
+        return (SmscIoSession) Proxy.newProxyInstance(SmscIoSession.class.getClassLoader(),
+                new Class<?>[] { SmscIoSession.class }, new InvocationHandler() {
+
+                    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                        if ("getUser".equals(method.getName())) {
+                            return user.get();
+                        }
+                        if ("isConnected".equals(method.getName())) {
+                            return connected.get();
+                        }
+                        if ("isClosing".equals(method.getName())) {
+                            return !connected.get();
+                        }
+                        if ("getRemoteAddress".equals(method.getName())) {
+                            return new InetSocketAddress(address, 2775);
+                        }
+                        if ("getAttribute".equals(method.getName()) && (args.length == 1)) {
+                            return attributes.get(args[0]);
+                        }
+                        if ("setAttribute".equals(method.getName()) && (args.length == 2)) {
+                            return attributes.put(args[0], args[1]);
+                        }
+                        if ("removeAttribute".equals(method.getName()) && (args.length == 1)) {
+                            return attributes.remove(args[0]);
+                        }
+
+                        return null;
+                    }
+                });
+    }
+
+    private static int countObserverThreads() {
+        int count = 0;
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if ("SmscServer-Observer".equals(thread.getName()) && thread.isAlive()) {
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+    private static User createUser(final String name) {
+        return (User) Proxy.newProxyInstance(User.class.getClassLoader(), new Class<?>[] { User.class },
+                new InvocationHandler() {
+
+                    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                        if ("getName".equals(method.getName())) {
+                            return name;
+                        }
+
+                        return null;
+                    }
+                });
+    }
+
+    private final DefaultSmscStatistics stats = new DefaultSmscStatistics();
+
+    public void testBindTable() throws Exception {
+        InetAddress address1 = InetAddress.getByName("10.0.0.1");
+        InetAddress address2 = InetAddress.getByName("10.0.0.2");
+        User user = DefaultSmscStatisticsTest.createUser("user");
+
+        SmscIoSession session = DefaultSmscStatisticsTest.createSession(user, address1);
+        this.stats.setBind(session);
+        this.stats.setBind(DefaultSmscStatisticsTest.createSession(user, address1));
+        this.stats.setBind(DefaultSmscStatisticsTest.createSession(user, address2));
+
+        assertEquals(3, this.stats.getCurrentBindNumber());
+        assertEquals(3, this.stats.getCurrentUserBindNumber(user));
+        assertEquals(2, this.stats.getCurrentUserBindNumber(user, address1));
+        assertEquals(1, this.stats.getCurrentUserBindNumber(user, address2));
+
+        this.stats.setUnbind(session);
+        // a session unbinds once, whether it unbinds or closes
+        this.stats.setUnbind(session);
+        this.stats.setUnbind(DefaultSmscStatisticsTest.createSession(user, address1));
+
+        assertEquals(2, this.stats.getCurrentBindNumber());
+        assertEquals(2, this.stats.getCurrentUserBindNumber(user));
+        assertEquals(1, this.stats.getCurrentUserBindNumber(user, address1));
+        assertEquals(3, this.stats.getTotalBindNumber());
+        assertEquals(0, this.stats.getCurrentUserBindNumber(DefaultSmscStatisticsTest.createUser("other")));
+    }
+
+    public void testBindChurnConcurrent() throws Exception {
+        final User user = DefaultSmscStatisticsTest.createUser("user");
+        final InetAddress address = InetAddress.getByName("10.0.0.1");
+        final AtomicInteger failed = new AtomicInteger();
+        final CountDownLatch start = new CountDownLatch(1);
+
+        // the user and address entries are removed and taken again as the binds come and go
+        Thread[] threads = new Thread[8];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread() {
+
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+
+                    for (int j = 0; j < 10000; j++) {
+                        SmscIoSession session = DefaultSmscStatisticsTest.createSession(user, address);
+                        if (!DefaultSmscStatisticsTest.this.stats.reserveBind(session, user, 0, 0)) {
+                            failed.incrementAndGet();
+                        }
+                        DefaultSmscStatisticsTest.this.stats.setBind(session);
+                        DefaultSmscStatisticsTest.this.stats.setUnbind(session);
+                    }
+                }
+            };
+            threads[i].start();
+        }
+
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(0, failed.get());
+        assertEquals(0, this.stats.getCurrentBindNumber());
+        assertEquals(0, this.stats.getCurrentUserBindNumber(user));
+        assertEquals(0, this.stats.getCurrentUserBindNumber(user, address));
+        assertTrue(this.stats.reserveBind(DefaultSmscStatisticsTest.createSession(user, address), user, 1, 1));
+        assertEquals(1, this.stats.getCurrentUserBindNumber(user, address));
+    }
+
+    public void testCommandLatency() throws Exception {
+        SmscIoSession session = DefaultSmscStatisticsTest.createSession(DefaultSmscStatisticsTest.createUser("user"),
+                InetAddress.getByName("10.0.0.1"));
+
+        this.stats.setCommandLatency(session, SmscCommandId.SUBMIT_SM, 1000000);
+        this.stats.setCommandLatency(session, SmscCommandId.SUBMIT_SM, 3000000);
+        this.stats.setCommandLatency(session, 0x80000004, 3000000);
+
+        assertEquals(2, this.stats.getCommandLatency(SmscCommandId.SUBMIT_SM).getCount());
+        assertEquals(3000, this.stats.getCommandLatency(SmscCommandId.SUBMIT_SM).getMax());
+        assertEquals(0, this.stats.getCommandLatency(SmscCommandId.QUERY_SM).getCount());
+
+        // per user latencies are disabled by default
+        assertEquals(0, this.stats.getCommandLatency("user", SmscCommandId.SUBMIT_SM).getCount());
+
+        this.stats.setUserLatencyEnabled(true);
+        this.stats.setCommandLatency(session, SmscCommandId.SUBMIT_SM, 1000000);
+
+        assertEquals(1, this.stats.getCommandLatency("user", SmscCommandId.SUBMIT_SM).getCount());
+        assertEquals(3, this.stats.getCommandLatency(SmscCommandId.SUBMIT_SM).getCount());
+
+        this.stats.resetLatencyHistograms();
+
+        assertEquals(0, this.stats.getCommandLatency(SmscCommandId.SUBMIT_SM).getCount());
+        assertEquals(0, this.stats.getCommandLatency("user", SmscCommandId.SUBMIT_SM).getCount());
+    }
+
+    public void testConnections() throws Exception {
+        SmscIoSession session = DefaultSmscStatisticsTest.createSession(null, InetAddress.getByName("10.0.0.1"));
+
+        this.stats.setOpenConnection(session);
+        this.stats.setCloseConnection(session, SessionCloseReason.IDLE);
+        this.stats.setCloseConnection(session, SessionCloseReason.IDLE);
+
+        assertEquals(0, this.stats.getCurrentConnectionNumber());
+        assertEquals(1, this.stats.getTotalConnectionNumber());
+        assertEquals(2, this.stats.getTotalClosedConnectionNumber(SessionCloseReason.IDLE));
+
+        this.stats.resetStatisticsCounters();
+        assertEquals(0, this.stats.getTotalConnectionNumber());
+    }
+
+    public void testDisposeStopsObservers() throws Exception {
+        StatisticsObserver observer = (StatisticsObserver) Proxy.newProxyInstance(
+                StatisticsObserver.class.getClassLoader(), new Class<?>[] { StatisticsObserver.class },
+                new InvocationHandler() {
+
+                    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                        return null;
+                    }
+                });
+
+        int observerThreads = DefaultSmscStatisticsTest.countObserverThreads();
+        this.stats.setObserver(observer);
+        assertEquals(observerThreads + 1, DefaultSmscStatisticsTest.countObserverThreads());
+
+        this.stats.dispose();
+        assertEquals(observerThreads, DefaultSmscStatisticsTest.countObserverThreads());
+
+        // the observers set after the dispose do not start a new dispatcher
+        this.stats.setObserver(observer);
+        this.stats.addObserver(observer);
+        this.stats.setMessageObserver(null);
+        assertEquals(observerThreads, DefaultSmscStatisticsTest.countObserverThreads());
+    }
+
+    public void testMessageManagerLatency() throws Exception {
+        this.stats.setMessageManagerLatency("submitSM", 5000);
+        this.stats.setDeliverRoundTrip(null, 7000);
+
+        assertEquals(1, this.stats.getMessageManagerLatency("submitSM").getCount());
+        assertEquals(0, this.stats.getMessageManagerLatency("cancelSM").getCount());
+        assertEquals(7, this.stats.getDeliverRoundTripLatency().getMax());
+
+        this.stats.resetStatisticsCounters();
+
+        assertEquals(0, this.stats.getMessageManagerLatency("submitSM").getCount());
+        assertEquals(0, this.stats.getDeliverRoundTripLatency().getCount());
+    }
+
+    public void testReserveBind() throws Exception {
+        InetAddress address1 = InetAddress.getByName("10.0.0.1");
+        InetAddress address2 = InetAddress.getByName("10.0.0.2");
+        User user = DefaultSmscStatisticsTest.createUser("user");
+
+        SmscIoSession session1 = DefaultSmscStatisticsTest.createSession(user, address1);
+        SmscIoSession session2 = DefaultSmscStatisticsTest.createSession(user, address1);
+        SmscIoSession session3 = DefaultSmscStatisticsTest.createSession(user, address2);
+
+        assertTrue(this.stats.reserveBind(session1, user, 2, 1));
+        // one bind per address
+        assertFalse(this.stats.reserveBind(session2, user, 2, 1));
+        assertTrue(this.stats.reserveBind(session3, user, 2, 1));
+        assertEquals(2, this.stats.getCurrentUserBindNumber(user));
+
+        this.stats.setBind(session1);
+        this.stats.setBind(session3);
+        assertEquals(2, this.stats.getCurrentUserBindNumber(user));
+
+        this.stats.setUnbind(session1);
+        assertEquals(1, this.stats.getCurrentUserBindNumber(user));
+        assertEquals(0, this.stats.getCurrentUserBindNumber(user, address1));
+
+        assertTrue(this.stats.reserveBind(session2, user, 2, 1));
+        assertEquals(2, this.stats.getCurrentUserBindNumber(user));
+    }
+
+    public void testCloseAfterAuthenticate() throws Exception {
+        InetAddress address = InetAddress.getByName("10.0.0.1");
+        User user = DefaultSmscStatisticsTest.createUser("user");
+        AtomicReference<User> sessionUser = new AtomicReference<User>();
+        AtomicBoolean connected = new AtomicBoolean(true);
+        SmscIoSession session = DefaultSmscStatisticsTest.createSession(sessionUser, address, connected);
+
+        // the session closes after the slot is reserved, but before the user is set
+        assertTrue(this.stats.reserveBind(session, user, 1, 1));
+        connected.set(false);
+        this.stats.setUnbind(session);
+
+        sessionUser.set(user);
+        this.stats.setBind(session);
+
+        assertEquals(0, this.stats.getCurrentBindNumber());
+        assertEquals(0, this.stats.getCurrentUserBindNumber(user));
+        assertEquals(0, this.stats.getCurrentUserBindNumber(user, address));
+        assertTrue(this.stats.reserveBind(DefaultSmscStatisticsTest.createSession(user, address), user, 1, 1));
+    }
+
+    public void testCloseDuringAuthenticate() throws Exception {
+        InetAddress address = InetAddress.getByName("10.0.0.1");
+        User user = DefaultSmscStatisticsTest.createUser("user");
+        AtomicReference<User> sessionUser = new AtomicReference<User>();
+        AtomicBoolean connected = new AtomicBoolean(true);
+        SmscIoSession session = DefaultSmscStatisticsTest.createSession(sessionUser, address, connected);
+
+        // the session closes after the user is set, but before the bind is counted
+        assertTrue(this.stats.reserveBind(session, user, 1, 1));
+        sessionUser.set(user);
+        connected.set(false);
+        this.stats.setBind(session);
+        this.stats.setUnbind(session);
+
+        assertEquals(0, this.stats.getCurrentBindNumber());
+        assertEquals(0, this.stats.getCurrentUserBindNumber(user));
+        assertEquals(0, this.stats.getCurrentUserBindNumber(user, address));
+        assertTrue(this.stats.reserveBind(DefaultSmscStatisticsTest.createSession(user, address), user, 1, 1));
+    }
+
+    public void testCloseRacingBind() throws Exception {
+        final InetAddress address = InetAddress.getByName("10.0.0.1");
+        final User user = DefaultSmscStatisticsTest.createUser("user");
+
+        for (int i = 0; i < 1000; i++) {
+            final AtomicBoolean connected = new AtomicBoolean(true);
+            final SmscIoSession session = DefaultSmscStatisticsTest.createSession(new AtomicReference<User>(user),
+                    address, connected);
+            assertTrue(this.stats.reserveBind(session, user, 1, 1));
+
+            Thread closer = new Thread() {
+
+                @Override
+                public void run() {
+                    connected.set(false);
+                    DefaultSmscStatisticsTest.this.stats.setUnbind(session);
+                }
+            };
+            closer.start();
+            this.stats.setBind(session);
+            closer.join();
+
+            // whichever came first, the close gives the slot back
+            assertEquals(0, this.stats.getCurrentBindNumber());
+            assertEquals(0, this.stats.getCurrentUserBindNumber(user));
+        }
+    }
+
+    public void testReserveBindConcurrent() throws Exception {
+        final User user = DefaultSmscStatisticsTest.createUser("user");
+        final InetAddress address = InetAddress.getByName("10.0.0.1");
+        final AtomicInteger reserved = new AtomicInteger();
+        final CountDownLatch start = new CountDownLatch(1);
+
+        Thread[] threads = new Thread[8];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread() {
+
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+
+                    for (int j = 0; j < 100; j++) {
+                        SmscIoSession session = DefaultSmscStatisticsTest.createSession(user, address);
+                        if (DefaultSmscStatisticsTest.this.stats.reserveBind(session, user, 5, 0)) {
+                            reserved.incrementAndGet();
+                        }
+                    }
+                }
+            };
+            threads[i].start();
+        }
+
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(5, reserved.get());
+        assertEquals(5, this.stats.getCurrentUserBindNumber(user));
+    }
+
+    public void testMessageCounters() throws Exception {
+        SmscIoSession session = DefaultSmscStatisticsTest.createSession(null, InetAddress.getByName("10.0.0.1"));
+
+        this.stats.setMessageReceived(session, null);
+        this.stats.setMessageReceived(session, null);
+        this.stats.setMessageSent(session, null);
+
+        assertEquals(2, this.stats.getTotalMessageReceivedNumber());
+        assertEquals(1, this.stats.getTotalMessageSentNumber());
+    }
+
+    public void testRates() throws Exception {
+        SmscIoSession session = DefaultSmscStatisticsTest.createSession(null, InetAddress.getByName("10.0.0.1"));
+
+        for (int i = 0; i < 30; i++) {
+            this.stats.setMessageReceived(session, null);
+        }
+        this.stats.setSubmitFail(session);
+
+        // the second being counted is not reported
+        long second = System.currentTimeMillis() / 1000;
+        while ((System.currentTimeMillis() / 1000) == second) {
+            Thread.sleep(10);
+        }
+
+        long[] counts = this.stats.getPerSecondCounts(RateCounter.MESSAGE_RECEIVED);
+        assertEquals(SmscStatistics.RATE_SECONDS, counts.length);
+
+        long received = counts[counts.length - 1] + counts[counts.length - 2];
+        assertEquals(30, received);
+        assertEquals(30.0, this.stats.getRecentRate(RateCounter.MESSAGE_RECEIVED, 2) * 2, 0.001);
+        assertEquals(1, this.stats.getPerSecondCounts(RateCounter.SUBMIT_FAILED)[counts.length - 1]
+                + this.stats.getPerSecondCounts(RateCounter.SUBMIT_FAILED)[counts.length - 2]);
+        assertEquals(0.0, this.stats.getRecentRate(RateCounter.DELIVERY, 60), 0.001);
+
+        this.stats.resetStatisticsCounters();
+        assertEquals(0.0, this.stats.getRecentRate(RateCounter.MESSAGE_RECEIVED, 2), 0.001);
+    }
+}
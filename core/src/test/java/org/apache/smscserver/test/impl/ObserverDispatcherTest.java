@@ -0,0 +1,209 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.smscserver.test.impl;
+
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+import org.apache.smscserver.ObserverConfigFactory;
+import org.apache.smscserver.ObserverOverflowPolicy;
+import org.apache.smscserver.StatisticsObserver;
+import org.apache.smscserver.impl.ObserverDispatcher;
+
+/**
+ * 
+ * @author hceylan
+ * 
+ */
+public class ObserverDispatcherTest extends TestCase {
+
+    private static class RecordingObserver implements StatisticsObserver {
+
+        private final List<InetAddress> addresses = Collections.synchronizedList(new ArrayList<InetAddress>());
+
+        private final CountDownLatch entered = new CountDownLatch(1);
+
+        private final CountDownLatch release;
+
+        private RecordingObserver(boolean blocked) {
+            this.release = new CountDownLatch(blocked ? 1 : 0);
+        }
+
+        public void notifyBind(InetAddress address) {
+            // noop
+        }
+
+        public void notifyBindFail(InetAddress address) {
+            this.entered.countDown();
+
+            try {
+                this.release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            this.addresses.add(address);
+        }
+
+        public void notifyCloseConnection() {
+            // noop
+        }
+
+        public void notifyMessageReceived() {
+            // noop
+        }
+
+        public void notifyMessageSent() {
+            // noop
+        }
+
+        public void notifyOpenConnection() {
+            // noop
+        }
+
+        public void notifyUnbind() {
+            // noop
+        }
+    }
+
+    private static InetAddress address(int i) throws Exception {
+        return InetAddress.getByAddress(new byte[] { 10, 0, 0, (byte) i });
+    }
+
+    private static ObserverDispatcher createDispatcher(int queueSize, ObserverOverflowPolicy policy) {
+        ObserverConfigFactory config = new ObserverConfigFactory();
+        config.setQueueSize(queueSize);
+        config.setOverflowPolicy(policy);
+        config.setBatchSize(2);
+
+        ObserverDispatcher dispatcher = new ObserverDispatcher(config.createObserverConfig());
+        dispatcher.start();
+
+        return dispatcher;
+    }
+
+    public void testBlock() throws Exception {
+        final ObserverDispatcher dispatcher = ObserverDispatcherTest.createDispatcher(2,
+                ObserverOverflowPolicy.BLOCK);
+        RecordingObserver observer = new RecordingObserver(true);
+        dispatcher.setStatisticsObserver(observer);
+
+        dispatcher.notifyBindFail(ObserverDispatcherTest.address(0));
+        assertTrue(observer.entered.await(5, TimeUnit.SECONDS));
+
+        final CountDownLatch published = new CountDownLatch(1);
+        Thread publisher = new Thread() {
+
+            @Override
+            public void run() {
+                try {
+                    for (int i = 1; i <= 10; i++) {
+                        dispatcher.notifyBindFail(ObserverDispatcherTest.address(i));
+                    }
+                } catch (Exception e) {
+                    // not expected
+                }
+
+                published.countDown();
+            }
+        };
+        publisher.start();
+
+        // the publisher waits for room
+        assertFalse(published.await(200, TimeUnit.MILLISECONDS));
+
+        observer.release.countDown();
+        assertTrue(published.await(5, TimeUnit.SECONDS));
+
+        dispatcher.stop();
+
+        assertEquals(11, observer.addresses.size());
+        for (int i = 0; i <= 10; i++) {
+            assertEquals(ObserverDispatcherTest.address(i), observer.addresses.get(i));
+        }
+        assertEquals(0, dispatcher.getDroppedCount());
+    }
+
+    public void testDropOldest() throws Exception {
+        ObserverDispatcher dispatcher = ObserverDispatcherTest.createDispatcher(4,
+                ObserverOverflowPolicy.DROP_OLDEST);
+        RecordingObserver observer = new RecordingObserver(true);
+        dispatcher.setStatisticsObserver(observer);
+
+        dispatcher.notifyBindFail(ObserverDispatcherTest.address(0));
+        assertTrue(observer.entered.await(5, TimeUnit.SECONDS));
+
+        // the observer is stuck, the publisher is not
+        for (int i = 1; i <= 10; i++) {
+            dispatcher.notifyBindFail(ObserverDispatcherTest.address(i));
+        }
+
+        assertEquals(4, dispatcher.getQueuedCount());
+        assertEquals(6, dispatcher.getDroppedCount());
+
+        observer.release.countDown();
+        dispatcher.stop();
+
+        assertEquals(5, observer.addresses.size());
+        assertEquals(ObserverDispatcherTest.address(0), observer.addresses.get(0));
+        assertEquals(ObserverDispatcherTest.address(7), observer.addresses.get(1));
+        assertEquals(ObserverDispatcherTest.address(10), observer.addresses.get(4));
+    }
+
+    public void testNotObserved() throws Exception {
+        ObserverDispatcher dispatcher = ObserverDispatcherTest.createDispatcher(4,
+                ObserverOverflowPolicy.DROP_OLDEST);
+
+        for (int i = 0; i < 10; i++) {
+            dispatcher.notifyBind(null);
+        }
+
+        assertEquals(0, dispatcher.getQueuedCount());
+        assertEquals(0, dispatcher.getDroppedCount());
+
+        dispatcher.stop();
+    }
+
+    public void testStopDrainsQueue() throws Exception {
+        ObserverDispatcher dispatcher = ObserverDispatcherTest.createDispatcher(64,
+                ObserverOverflowPolicy.DROP_OLDEST);
+        RecordingObserver observer = new RecordingObserver(false);
+        dispatcher.setStatisticsObserver(observer);
+
+        for (int i = 0; i < 50; i++) {
+            dispatcher.notifyBindFail(ObserverDispatcherTest.address(i));
+        }
+
+        dispatcher.stop();
+
+        assertEquals(50, observer.addresses.size());
+        assertEquals(0, dispatcher.getQueuedCount());
+
+        // events after the stop are discarded
+        dispatcher.notifyBindFail(ObserverDispatcherTest.address(50));
+        assertEquals(0, dispatcher.getQueuedCount());
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.smscserver.test.impl;
+
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.apache.smscserver.impl.SessionRequestPipeline;
+import org.apache.smscserver.impl.SessionRequestPipeline.Admission;
+import org.apache.smscserver.impl.SessionRequestPipeline.PendingRequest;
+
+/**
+ * 
+ * @author hceylan
+ * 
+ */
+public class SessionRequestPipelineTest extends TestCase {
+
+    public void testConcurrentUpToWindow() {
+        SessionRequestPipeline pipeline = new SessionRequestPipeline(2);
+
+        assertEquals(Admission.ADMITTED, pipeline.admit(null, false));
+        assertEquals(Admission.ADMITTED, pipeline.admit(null, false));
+        assertEquals(Admission.SUSPEND, pipeline.admit(null, false));
+        assertTrue(pipeline.isSuspended());
+
+        // queued beyond the window, released once one completes
+        assertEquals(1, pipeline.complete(false).size());
+        assertEquals(2, pipeline.getInProgress());
+        assertTrue(pipeline.resume());
+        assertFalse(pipeline.resume());
+
+        assertTrue(pipeline.complete(false).isEmpty());
+        assertEquals(Admission.ADMITTED, pipeline.admit(null, false));
+        assertEquals(2, pipeline.getInProgress());
+    }
+
+    public void testSuspendsOnceUntilDrained() {
+        SessionRequestPipeline pipeline = new SessionRequestPipeline(1);
+
+        assertEquals(Admission.ADMITTED, pipeline.admit(null, false));
+        assertEquals(Admission.SUSPEND, pipeline.admit(null, false));
+        assertEquals(Admission.QUEUED, pipeline.admit(null, false));
+        assertEquals(Admission.QUEUED, pipeline.admit(null, false));
+        assertEquals(3, pipeline.getQueued());
+
+        for (int i = 0; i < 2; i++) {
+            assertEquals(1, pipeline.complete(false).size());
+            assertFalse(pipeline.resume());
+        }
+
+        // the last queued request is released, the backlog is drained
+        assertEquals(1, pipeline.complete(false).size());
+        assertTrue(pipeline.resume());
+        assertFalse(pipeline.isSuspended());
+
+        assertTrue(pipeline.complete(false).isEmpty());
+        assertEquals(0, pipeline.getInProgress());
+    }
+
+    public void testSerialWaitsForInProgress() {
+        SessionRequestPipeline pipeline = new SessionRequestPipeline(5);
+
+        assertEquals(Admission.ADMITTED, pipeline.admit(null, false));
+        assertEquals(Admission.QUEUED, pipeline.admit(null, true));
+        assertEquals(Admission.QUEUED, pipeline.admit(null, false));
+
+        List<PendingRequest> released = pipeline.complete(false);
+        assertEquals(1, released.size());
+        assertTrue(released.get(0).isSerial());
+
+        released = pipeline.complete(true);
+        assertEquals(1, released.size());
+        assertFalse(released.get(0).isSerial());
+        assertEquals(1, pipeline.getInProgress());
+    }
+
+    public void testSerialBlocksFollowingRequests() {
+        SessionRequestPipeline pipeline = new SessionRequestPipeline(1);
+
+        assertEquals(Admission.ADMITTED, pipeline.admit(null, true));
+        assertEquals(Admission.SUSPEND, pipeline.admit(null, false));
+        assertEquals(Admission.QUEUED, pipeline.admit(null, false));
+
+        assertEquals(1, pipeline.complete(true).size());
+        assertEquals(1, pipeline.complete(false).size());
+        assertTrue(pipeline.complete(false).isEmpty());
+        assertTrue(pipeline.resume());
+        assertEquals(0, pipeline.getInProgress());
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.smscserver.test.ipfilter;
+
+import java.net.InetAddress;
+
+import junit.framework.TestCase;
+
+import org.apache.smscserver.ipfilter.BanFilter;
+
+/**
+ * 
+ * @author hceylan
+ * 
+ */
+public class BanFilterTest extends TestCase {
+
+    public void testBan() throws Exception {
+        BanFilter filter = new BanFilter(3, 60000, 60000, 100, 100);
+        InetAddress address = InetAddress.getByName("10.0.0.1");
+
+        filter.bindFailed(address);
+        filter.bindFailed(address);
+        assertFalse(filter.isBanned(address));
+
+        filter.bindFailed(address);
+        assertTrue(filter.isBanned(address));
+        assertFalse(filter.isBanned(InetAddress.getByName("10.0.0.2")));
+        assertEquals(1, filter.getBanCount());
+        assertEquals(1, filter.getTotalBanCount());
+
+        assertTrue(filter.unban(address));
+        assertFalse(filter.isBanned(address));
+    }
+
+    public void testBanForgetsFailures() throws Exception {
+        BanFilter filter = new BanFilter(3, 50, 60000, 100, 100);
+        InetAddress address = InetAddress.getByName("10.0.0.1");
+
+        for (int i = 0; i < 3; i++) {
+            filter.bindFailed(address);
+        }
+        assertTrue(filter.isBanned(address));
+
+        Thread.sleep(100);
+
+        // the failures before the ban do not count again once it expires
+        filter.bindFailed(address);
+        filter.bindFailed(address);
+        assertFalse(filter.isBanned(address));
+
+        filter.bindFailed(address);
+        assertTrue(filter.isBanned(address));
+    }
+
+    public void testBanExpires() throws Exception {
+        BanFilter filter = new BanFilter(1, 50, 60000, 100, 100);
+        InetAddress address = InetAddress.getByName("2001:db8::1");
+
+        filter.bindFailed(address);
+        assertTrue(filter.isBanned(address));
+
+        Thread.sleep(100);
+
+        assertFalse(filter.isBanned(address));
+        assertEquals(0, filter.getBanCount());
+    }
+
+    public void testBindForgetsFailures() throws Exception {
+        BanFilter filter = new BanFilter(3, 60000, 60000, 100, 100);
+        InetAddress address = InetAddress.getByName("10.0.0.1");
+
+        filter.bindFailed(address);
+        filter.bindFailed(address);
+        filter.bindSucceeded(address);
+
+        filter.bindFailed(address);
+        filter.bindFailed(address);
+        assertFalse(filter.isBanned(address));
+    }
+
+    public void testCollisionsDoNotBan() throws Exception {
+        BanFilter filter = new BanFilter(3, 60000, 60000, 1000, 10);
+
+        // a distributed brute force from far more addresses than expected saturates the counters
+        for (int i = 0; i < 100000; i++) {
+            filter.bindFailed(InetAddress.getByAddress(new byte[] { 10, (byte) (i >> 16), (byte) (i >> 8),
+                    (byte) i }));
+        }
+        assertEquals(0, filter.getTotalBanCount());
+
+        // the legitimate clients failing once are not banned for the failures of the colliding addresses
+        for (int i = 0; i < 1000; i++) {
+            InetAddress address = InetAddress.getByAddress(new byte[] { (byte) 192, (byte) 168, (byte) (i >> 8),
+                    (byte) i });
+            filter.bindFailed(address);
+            assertFalse(filter.isBanned(address));
+        }
+        assertEquals(0, filter.getTotalBanCount());
+    }
+
+    public void testDecay() throws Exception {
+        BanFilter filter = new BanFilter(4, 60000, 50, 100, 100);
+        InetAddress address = InetAddress.getByName("10.0.0.1");
+
+        filter.bindFailed(address);
+        filter.bindFailed(address);
+        filter.bindFailed(address);
+
+        // halved at least twice, the earlier failures no longer count
+        Thread.sleep(120);
+
+        filter.bindFailed(address);
+        assertFalse(filter.isBanned(address));
+    }
+
+    public void testMaxBans() throws Exception {
+        BanFilter filter = new BanFilter(1, 60000, 60000, 10, 10);
+
+        for (int i = 0; i < 20; i++) {
+            filter.bindFailed(InetAddress.getByName("10.0.1." + i));
+        }
+
+        assertEquals(10, filter.getBanCount());
+        assertEquals(10, filter.getDroppedBanCount());
+        assertFalse(filter.isBanned(InetAddress.getByName("10.0.1.19")));
+    }
+
+    public void testSketchIsBounded() throws Exception {
+        BanFilter filter = new BanFilter(50, 60000, 60000, 100, 100);
+
+        // many distinct addresses failing a few times each are not mistaken for a repeated offender
+        for (int i = 0; i < 10000; i++) {
+            InetAddress address = InetAddress.getByAddress(new byte[] { 10, (byte) (i >> 16), (byte) (i >> 8),
+                    (byte) i });
+            filter.bindFailed(address);
+            filter.bindFailed(address);
+        }
+
+        assertEquals(0, filter.getTotalBanCount());
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.smscserver.test.ipfilter;
+
+import java.net.InetAddress;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.apache.smscserver.ipfilter.IpFilterType;
+import org.apache.smscserver.ipfilter.RemoteIpFilter;
+import org.apache.smscserver.ipfilter.SubnetTrie;
+
+/**
+ * 
+ * @author hceylan
+ * 
+ */
+public class SubnetTrieTest extends TestCase {
+
+    private static final int LOOKUPS = 2000;
+
+    private static boolean inSubnet(byte[] address, byte[] subnet, int prefixLength) {
+        for (int i = 0; i < prefixLength; i++) {
+            int mask = 0x80 >>> (i & 7);
+            if ((address[i >>> 3] & mask) != (subnet[i >>> 3] & mask)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static byte[] random(Random random, int length) {
+        byte[] address = new byte[length];
+        random.nextBytes(address);
+
+        return address;
+    }
+
+    public void testContains() throws Exception {
+        SubnetTrie trie = SubnetTrie.EMPTY.add(InetAddress.getByName("10.0.0.0"), 8)
+                .add(InetAddress.getByName("192.168.1.77"), 24).add(InetAddress.getByName("192.168.2.1"), 32)
+                .add(InetAddress.getByName("2001:db8::"), 32);
+
+        assertEquals(4, trie.size());
+        assertTrue(trie.contains(InetAddress.getByName("10.1.2.3")));
+        assertTrue(trie.contains(InetAddress.getByName("192.168.1.1")));
+        assertTrue(trie.contains(InetAddress.getByName("192.168.2.1")));
+        assertTrue(trie.contains(InetAddress.getByName("2001:db8:1::1")));
+
+        assertFalse(trie.contains(InetAddress.getByName("11.0.0.1")));
+        assertFalse(trie.contains(InetAddress.getByName("192.168.2.2")));
+        assertFalse(trie.contains(InetAddress.getByName("2001:db9::1")));
+        // IPv4 and IPv6 subnets do not match each other
+        assertFalse(trie.contains(InetAddress.getByName("::a00:1")));
+    }
+
+    public void testAdd() throws Exception {
+        SubnetTrie trie = SubnetTrie.EMPTY.add(InetAddress.getByName("192.168.1.0"), 24);
+
+        // the host bits are ignored
+        assertSame(trie, trie.add(InetAddress.getByName("192.168.1.1"), 24));
+
+        // a shorter subnet covering the existing one
+        SubnetTrie wider = trie.add(InetAddress.getByName("192.168.0.0"), 16);
+        assertEquals(2, wider.size());
+        assertTrue(wider.contains(InetAddress.getByName("192.168.5.5")));
+
+        // the original trie is left untouched
+        assertEquals(1, trie.size());
+        assertFalse(trie.contains(InetAddress.getByName("192.168.5.5")));
+
+        assertTrue(SubnetTrie.EMPTY.add(InetAddress.getByName("0.0.0.0"), 0).contains(
+                InetAddress.getByName("1.2.3.4")));
+
+        try {
+            trie.add(InetAddress.getByName("192.168.1.0"), 33);
+            fail("Prefix length must be validated");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    public void testMatchesLinearScan() throws Exception {
+        int count = 1000;
+        Random random = new Random(count);
+
+        byte[][] subnets = new byte[count][];
+        int[] prefixLengths = new int[count];
+
+        SubnetTrie trie = SubnetTrie.EMPTY;
+        for (int i = 0; i < count; i++) {
+            // mix of IPv4 and IPv6 subnets, biased to long prefixes like customer whitelists
+            subnets[i] = SubnetTrieTest.random(random, ((i & 3) == 0) ? 16 : 4);
+            prefixLengths[i] = (subnets[i].length << 3) - random.nextInt(subnets[i].length << 1);
+            trie = trie.add(InetAddress.getByAddress(subnets[i]), prefixLengths[i]);
+        }
+
+        // half of the lookups hit a subnet, each is verified against a linear scan
+        for (int i = 0; i < SubnetTrieTest.LOOKUPS; i++) {
+            byte[] address = ((i & 1) == 0) ? subnets[random.nextInt(count)].clone() : SubnetTrieTest.random(random,
+                    ((i & 6) == 0) ? 16 : 4);
+
+            boolean expected = false;
+            for (int j = 0; j < count; j++) {
+                if ((subnets[j].length == address.length)
+                        && SubnetTrieTest.inSubnet(address, subnets[j], prefixLengths[j])) {
+                    expected = true;
+                    break;
+                }
+            }
+
+            InetAddress inetAddress = InetAddress.getByAddress(address);
+            assertEquals(inetAddress.toString(), expected, trie.contains(inetAddress));
+            if ((i & 1) == 0) {
+                assertTrue(expected);
+            }
+        }
+    }
+
+    public void testReplace() throws Exception {
+        RemoteIpFilter filter = new RemoteIpFilter(IpFilterType.DENY, "10.0.0.0/8, 2001:db8::/32 192.168.1.1");
+        assertEquals(3, filter.size());
+        assertTrue(filter.add("10.1.0.0/16"));
+        assertFalse(filter.add("10.1.2.3/16"));
+
+        filter.replace("172.16.0.0/12");
+        assertEquals(1, filter.size());
+        assertEquals("[172.16.0.0/12]", filter.toString());
+
+        try {
+            filter.replace("172.16.0.0/12 10.0.0.0/40");
+            fail("Invalid prefix length must be rejected");
+        } catch (Exception e) {
+            // expected
+        }
+
+        // left unchanged
+        assertEquals("[172.16.0.0/12]", filter.toString());
+    }
+}
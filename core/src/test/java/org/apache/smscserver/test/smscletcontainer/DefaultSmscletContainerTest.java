@@ -0,0 +1,366 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.smscserver.test.smscletcontainer;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import junit.framework.TestCase;
+
+import org.apache.smscserver.smscletcontainer.SmscletFallback;
+import org.apache.smscserver.smscletcontainer.SmscletMetrics;
+import org.apache.smscserver.smscletcontainer.SmscletPolicyFactory;
+import org.apache.smscserver.smscletcontainer.impl.DefaultSmscletContainer;
+import org.apache.smscserver.smsclet.AsyncSmsclet;
+import org.apache.smscserver.smsclet.DataSMRequest;
+import org.apache.smscserver.smsclet.DefaultSmsclet;
+import org.apache.smscserver.smsclet.SmscCommandId;
+import org.apache.smscserver.smsclet.SmscReply;
+import org.apache.smscserver.smsclet.SmscReplyFuture;
+import org.apache.smscserver.smsclet.SmscRequest;
+import org.apache.smscserver.smsclet.SmscSession;
+import org.apache.smscserver.smsclet.Smsclet;
+import org.apache.smscserver.smsclet.SmscletTimeoutException;
+import org.apache.smscserver.smsclet.SubmitSMRequest;
+
+/**
+ * 
+ * @author hceylan
+ * 
+ */
+public class DefaultSmscletContainerTest extends TestCase {
+
+    private static class CountingSmsclet extends DefaultSmsclet {
+
+        private int calls;
+
+        @Override
+        public SmscReply onDataSM(SmscSession session, DataSMRequest request) {
+            this.calls++;
+
+            return null;
+        }
+    }
+
+    /**
+     * Replies after a delay from a scheduler thread, a delay of zero never replies.
+     */
+    private static class DelayedSmsclet extends DefaultSmsclet implements AsyncSmsclet {
+
+        private final AtomicInteger calls = new AtomicInteger();
+        private final long delay;
+        private final SmscReply reply;
+        private final ScheduledExecutorService scheduler;
+
+        private DelayedSmsclet(ScheduledExecutorService scheduler, long delay, SmscReply reply) {
+            this.scheduler = scheduler;
+            this.delay = delay;
+            this.reply = reply;
+        }
+
+        public SmscReplyFuture onRequestAsync(SmscSession session, SmscRequest request) {
+            final SmscReplyFuture future = new SmscReplyFuture();
+            this.calls.incrementAndGet();
+
+            if (this.delay > 0) {
+                this.scheduler.schedule(new Runnable() {
+
+                    public void run() {
+                        future.setReply(DelayedSmsclet.this.reply);
+                    }
+                }, this.delay, TimeUnit.MILLISECONDS);
+            }
+
+            return future;
+        }
+    }
+
+    private static final SmscReply REPLY = DefaultSmscletContainerTest.createPacket(SmscReply.class, 0x80000004);
+
+    private static <T> T createPacket(Class<T> type, final int commandId) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type },
+                new InvocationHandler() {
+
+                    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                        if ("getCommandId".equals(method.getName())) {
+                            return commandId;
+                        }
+                        if (method.getReturnType() == Integer.TYPE) {
+                            return 0;
+                        }
+
+                        return null;
+                    }
+                }));
+    }
+
+    private CountingSmsclet counting;
+
+    private DefaultSmscletContainer container;
+
+    private ScheduledExecutorService scheduler;
+
+    @Override
+    protected void setUp() throws Exception {
+        this.counting = new CountingSmsclet();
+
+        Map<String, Smsclet> smsclets = new LinkedHashMap<String, Smsclet>();
+        smsclets.put("counting", this.counting);
+        smsclets.put("submit", new DefaultSmsclet() {
+
+            @Override
+            public SmscReply onSubmitSM(SmscSession session, SubmitSMRequest request) {
+                return DefaultSmscletContainerTest.REPLY;
+            }
+        });
+
+        this.container = new DefaultSmscletContainer(smsclets);
+        this.container.init(null);
+
+        this.scheduler = Executors.newScheduledThreadPool(1);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        this.scheduler.shutdownNow();
+    }
+
+    public void testAsyncSmscletsDoNotBlock() throws Exception {
+        Map<String, Smsclet> smsclets = new LinkedHashMap<String, Smsclet>();
+        DelayedSmsclet async = new DelayedSmsclet(this.scheduler, 20, null);
+        smsclets.put("async", async);
+        smsclets.put("counting", this.counting);
+        DefaultSmscletContainer container = new DefaultSmscletContainer(smsclets);
+        container.init(null);
+
+        DataSMRequest request = DefaultSmscletContainerTest.createPacket(DataSMRequest.class, SmscCommandId.DATA_SM);
+
+        List<SmscReplyFuture> futures = new ArrayList<SmscReplyFuture>();
+        for (int i = 0; i < 50; i++) {
+            futures.add(container.onRequestAsync(null, request));
+        }
+
+        for (SmscReplyFuture future : futures) {
+            assertNull(future.await());
+        }
+
+        assertEquals(50, async.calls.get());
+
+        // the next smsclet of the pipeline is called once the asynchronous one passes
+        assertEquals(50, this.counting.calls);
+    }
+
+    public void testContinueFallback() throws Exception {
+        Map<String, Smsclet> smsclets = new LinkedHashMap<String, Smsclet>();
+        smsclets.put("failing", new DefaultSmsclet() {
+
+            @Override
+            public SmscReply onSubmitSM(SmscSession session, SubmitSMRequest request) {
+                throw new IllegalStateException("failing");
+            }
+        });
+        smsclets.put("submit", new DefaultSmsclet() {
+
+            @Override
+            public SmscReply onSubmitSM(SmscSession session, SubmitSMRequest request) {
+                return DefaultSmscletContainerTest.REPLY;
+            }
+        });
+
+        SmscletPolicyFactory policy = new SmscletPolicyFactory();
+        policy.setThreads(1);
+        policy.setFallback(SmscletFallback.CONTINUE);
+
+        DefaultSmscletContainer container = new DefaultSmscletContainer(smsclets, Collections.singletonMap("failing",
+                policy.createSmscletPolicy()));
+        container.init(null);
+
+        SubmitSMRequest request = DefaultSmscletContainerTest.createPacket(SubmitSMRequest.class,
+                SmscCommandId.SUBMIT_SM);
+
+        try {
+            assertSame(DefaultSmscletContainerTest.REPLY, container.onRequestAsync(null, request).await());
+        } finally {
+            container.destroy();
+        }
+
+        SmscletMetrics metrics = container.getSmscletMetrics().get("failing");
+        assertEquals(1, metrics.getCallCount());
+        assertEquals(1, metrics.getFailureCount());
+    }
+
+    public void testDataSMReachesDataSMCallback() throws Exception {
+        DataSMRequest request = DefaultSmscletContainerTest.createPacket(DataSMRequest.class, SmscCommandId.DATA_SM);
+
+        assertNull(this.container.onRequest(null, request));
+        assertEquals(1, this.counting.calls);
+    }
+
+    public void testDedicatedThreadsAreBounded() throws Exception {
+        Map<String, Smsclet> smsclets = new LinkedHashMap<String, Smsclet>();
+        smsclets.put("silent", new DelayedSmsclet(this.scheduler, 0, DefaultSmscletContainerTest.REPLY));
+
+        // no concurrency limit, the requests waiting for the thread are bounded regardless
+        SmscletPolicyFactory policy = new SmscletPolicyFactory();
+        policy.setThreads(1);
+
+        DefaultSmscletContainer container = new DefaultSmscletContainer(smsclets, Collections.singletonMap("silent",
+                policy.createSmscletPolicy()));
+        container.init(null);
+
+        SubmitSMRequest request = DefaultSmscletContainerTest.createPacket(SubmitSMRequest.class,
+                SmscCommandId.SUBMIT_SM);
+
+        for (int i = 0; i < 64; i++) {
+            assertFalse(container.onRequestAsync(null, request).isDone());
+        }
+
+        SmscReply reply = container.onRequestAsync(null, request).getReply();
+        assertEquals(SmscReply.ErrorCode.ESME_RTHROTTLED.getCode(), reply.getCommandStatus());
+        assertEquals(1, container.getSmscletMetrics().get("silent").getRejectedCount());
+
+        container.destroy();
+    }
+
+    public void testMaxConcurrency() throws Exception {
+        Map<String, Smsclet> smsclets = new LinkedHashMap<String, Smsclet>();
+        smsclets.put("silent", new DelayedSmsclet(this.scheduler, 0, DefaultSmscletContainerTest.REPLY));
+
+        SmscletPolicyFactory policy = new SmscletPolicyFactory();
+        policy.setMaxConcurrency(1);
+
+        DefaultSmscletContainer container = new DefaultSmscletContainer(smsclets, Collections.singletonMap("silent",
+                policy.createSmscletPolicy()));
+        container.init(null);
+
+        SubmitSMRequest request = DefaultSmscletContainerTest.createPacket(SubmitSMRequest.class,
+                SmscCommandId.SUBMIT_SM);
+
+        assertFalse(container.onRequestAsync(null, request).isDone());
+
+        SmscReply reply = container.onRequestAsync(null, request).getReply();
+        assertEquals(SmscReply.ErrorCode.ESME_RTHROTTLED.getCode(), reply.getCommandStatus());
+        assertEquals(1, container.getSmscletMetrics().get("silent").getRejectedCount());
+
+        container.destroy();
+    }
+
+    public void testOnlyOverridingSmscletsAreCalled() throws Exception {
+        SubmitSMRequest request = DefaultSmscletContainerTest.createPacket(SubmitSMRequest.class,
+                SmscCommandId.SUBMIT_SM);
+
+        assertSame(DefaultSmscletContainerTest.REPLY, this.container.onRequest(null, request));
+        assertEquals(0, this.counting.calls);
+    }
+
+    public void testTimeout() throws Exception {
+        Map<String, Smsclet> smsclets = new LinkedHashMap<String, Smsclet>();
+        smsclets.put("silent", new DelayedSmsclet(this.scheduler, 0, DefaultSmscletContainerTest.REPLY));
+        SmscletPolicyFactory policy = new SmscletPolicyFactory();
+        policy.setTimeout(50);
+        policy.setFallback(SmscletFallback.DISCONNECT);
+
+        DefaultSmscletContainer container = new DefaultSmscletContainer(smsclets, Collections.singletonMap("silent",
+                policy.createSmscletPolicy()));
+        container.init(null);
+
+        SubmitSMRequest request = DefaultSmscletContainerTest.createPacket(SubmitSMRequest.class,
+                SmscCommandId.SUBMIT_SM);
+
+        try {
+            container.onRequestAsync(null, request).await();
+            fail("Must time out");
+        } catch (SmscletTimeoutException e) {
+            // expected
+        } finally {
+            container.destroy();
+        }
+
+        assertEquals(1, container.getSmscletMetrics().get("silent").getTimeoutCount());
+    }
+
+    public void testTimeoutReleasesCaller() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicReference<Thread> called = new AtomicReference<Thread>();
+
+        Map<String, Smsclet> smsclets = new LinkedHashMap<String, Smsclet>();
+        smsclets.put("blocking", new DefaultSmsclet() {
+
+            @Override
+            public SmscReply onSubmitSM(SmscSession session, SubmitSMRequest request) {
+                called.set(Thread.currentThread());
+
+                try {
+                    // bounded, so that a blocked caller fails the test rather than hangs it
+                    release.await(2, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+
+                return DefaultSmscletContainerTest.REPLY;
+            }
+        });
+
+        // a synchronous smsclet with a timeout but no dedicated threads
+        SmscletPolicyFactory policy = new SmscletPolicyFactory();
+        policy.setTimeout(50);
+
+        DefaultSmscletContainer container = new DefaultSmscletContainer(smsclets, Collections.singletonMap("blocking",
+                policy.createSmscletPolicy()));
+        container.init(null);
+
+        SubmitSMRequest request = DefaultSmscletContainerTest.createPacket(SubmitSMRequest.class,
+                SmscCommandId.SUBMIT_SM);
+
+        try {
+            // returns while the smsclet is still blocked, then times out
+            SmscReplyFuture future = container.onRequestAsync(null, request);
+            assertFalse(future.isDone());
+
+            SmscReply reply = future.await();
+            assertEquals(SmscReply.ErrorCode.ESME_RSYSERR.getCode(), reply.getCommandStatus());
+            assertEquals(1, release.getCount());
+            assertNotSame(Thread.currentThread(), called.get());
+        } finally {
+            release.countDown();
+            container.destroy();
+        }
+
+        assertEquals(1, container.getSmscletMetrics().get("blocking").getTimeoutCount());
+    }
+
+    public void testUnknownCommandReturnsNull() throws Exception {
+        SmscRequest request = DefaultSmscletContainerTest.createPacket(SmscRequest.class, 0x7fffffff);
+
+        assertNull(this.container.onRequest(null, request));
+    }
+}
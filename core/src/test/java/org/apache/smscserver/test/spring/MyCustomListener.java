@@ -27,6 +27,7 @@ import org.apache.mina.filter.firewall.Subnet;
 import org.apache.smscserver.SmscServerContext;
 import org.apache.smscserver.ipfilter.SessionFilter;
 import org.apache.smscserver.listener.Listener;
+import org.apache.smscserver.listener.SocketConfiguration;
 import org.apache.smscserver.smsclet.SmscIoSession;
 import org.apache.smscserver.ssl.SslConfiguration;
 
@@ -68,6 +69,10 @@ public class MyCustomListener implements Listener {
         return null;
     }
 
+    public SocketConfiguration getSocketConfiguration() {
+        return null;
+    }
+
     public SslConfiguration getSslConfiguration() {
         return null;
     }
@@ -76,6 +81,10 @@ public class MyCustomListener implements Listener {
         return false;
     }
 
+    public boolean isIoThreadDispatch() {
+        return false;
+    }
+
     public boolean isStopped() {
         return false;
     }
@@ -29,6 +29,7 @@ import org.apache.smscserver.command.impl.BindCommand;
 import org.apache.smscserver.command.impl.EnquireLinkCommand;
 import org.apache.smscserver.impl.DefaultSmscServer;
 import org.apache.smscserver.listener.Listener;
+import org.apache.smscserver.listener.SocketConfiguration;
 import org.springframework.beans.factory.xml.XmlBeanFactory;
 import org.springframework.core.io.FileSystemResource;
 
@@ -60,7 +61,7 @@ public class SpringConfigTest extends TestCase {
         Assert.assertEquals(1000, server.getServerContext().getSessionLockTimeout());
 
         Map<String, Listener> listeners = server.getServerContext().getListeners();
-        Assert.assertEquals(3, listeners.size());
+        Assert.assertEquals(4, listeners.size());
 
         Listener listener = listeners.get("listener1");
         Assert.assertNotNull(listener);
@@ -72,6 +73,19 @@ public class SpringConfigTest extends TestCase {
         Assert.assertTrue(listener instanceof MyCustomListener);
         Assert.assertEquals(2224, listener.getPort());
 
+        listener = listeners.get("listener3");
+        Assert.assertNotNull(listener);
+
+        SocketConfiguration socket = listener.getSocketConfiguration();
+        Assert.assertFalse(socket.isTcpNoDelay());
+        Assert.assertEquals(65536, socket.getSendBufferSize());
+        Assert.assertEquals(131072, socket.getReceiveBufferSize());
+        Assert.assertEquals(200, socket.getBacklog());
+        Assert.assertEquals(2, socket.getProcessorCount());
+        Assert.assertEquals(4096, socket.getReadBufferSize());
+        Assert.assertEquals(512, socket.getMinReadBufferSize());
+        Assert.assertEquals(131072, socket.getMaxReadBufferSize());
+
         CommandFactory cf = server.getCommandFactory();
         Assert.assertTrue(cf.getCommand(9) instanceof BindCommand);
         Assert.assertTrue(cf.getCommand(21) instanceof EnquireLinkCommand);
@@ -0,0 +1,154 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.smscserver.test.usermanager.impl;
+
+import java.sql.Connection;
+import java.sql.Statement;
+
+import junit.framework.Assert;
+
+import org.apache.smscserver.smsclet.AuthenticationFailedException;
+import org.apache.smscserver.smsclet.SmscException;
+import org.apache.smscserver.usermanager.DbUserManagerFactory;
+import org.apache.smscserver.usermanager.Md5PasswordEncryptor;
+import org.apache.smscserver.usermanager.PasswordEncryptor;
+import org.apache.smscserver.usermanager.UserManagerFactory;
+import org.apache.smscserver.usermanager.UsernamePasswordAuthentication;
+import org.apache.smscserver.usermanager.impl.AbstractUserManager;
+import org.apache.smscserver.usermanager.impl.BaseUser;
+import org.h2.jdbcx.JdbcDataSource;
+
+/**
+ * 
+ * @author hceylan
+ * 
+ */
+public class CachedDbUserManagerTest extends DbUserManagerTest {
+
+    /**
+     * Runs a task while the stored password is being matched, that is between reading the user and caching it.
+     */
+    private static class HookedPasswordEncryptor implements PasswordEncryptor {
+
+        private final PasswordEncryptor delegate = new Md5PasswordEncryptor();
+
+        private Runnable hook;
+
+        public String encrypt(String password) {
+            return this.delegate.encrypt(password);
+        }
+
+        public boolean matches(String passwordToCheck, String storedPassword) {
+            Runnable hook = this.hook;
+            this.hook = null;
+            if (hook != null) {
+                hook.run();
+            }
+
+            return this.delegate.matches(passwordToCheck, storedPassword);
+        }
+    }
+
+    private final HookedPasswordEncryptor passwordEncryptor = new HookedPasswordEncryptor();
+
+    @Override
+    protected UserManagerFactory createUserManagerFactory() throws SmscException {
+        DbUserManagerFactory manager = (DbUserManagerFactory) super.createUserManagerFactory();
+
+        manager.setPasswordEncryptor(this.passwordEncryptor);
+        manager.setCacheTtl(60);
+        manager.setCacheSize(2);
+
+        return manager;
+    }
+
+    /**
+     * Executes the statement on a connection of its own to the database of the user manager.
+     */
+    private void execute(String sql) throws Exception {
+        JdbcDataSource ds = new JdbcDataSource();
+        ds.setURL("jdbc:h2:mem:smscd");
+        ds.setUser("sa");
+        ds.setPassword("");
+
+        Connection connection = ds.getConnection();
+        try {
+            Statement stm = connection.createStatement();
+            stm.execute(sql);
+        } finally {
+            connection.close();
+        }
+    }
+
+    public void testCachedAuthentication() throws Exception {
+        Assert.assertNotNull(this.userManager.authenticate(new UsernamePasswordAuthentication(null, "user1", "pw1")));
+
+        // change the password behind the user manager
+        this.execute("UPDATE SMSC_USER SET userpassword='' WHERE systemid='user1'");
+
+        Assert.assertNotNull(this.userManager.authenticate(new UsernamePasswordAuthentication(null, "user1", "pw1")));
+
+        ((AbstractUserManager) this.userManager).invalidateCache();
+
+        try {
+            this.userManager.authenticate(new UsernamePasswordAuthentication(null, "user1", "pw1"));
+            Assert.fail("Must throw AuthenticationFailedException");
+        } catch (AuthenticationFailedException e) {
+            // ok
+        }
+    }
+
+    public void testConcurrentChangeIsNotCached() throws Exception {
+        // the password is changed after the authentication read the stored password, but before it was cached
+        this.passwordEncryptor.hook = new Runnable() {
+
+            public void run() {
+                try {
+                    BaseUser user = (BaseUser) CachedDbUserManagerTest.this.userManager.getUserByName("user1");
+                    user.setPassword("changed");
+                    CachedDbUserManagerTest.this.userManager.save(user);
+                } catch (SmscException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        };
+
+        Assert.assertNotNull(this.userManager.authenticate(new UsernamePasswordAuthentication(null, "user1", "pw1")));
+
+        // the stale password must not have been cached
+        try {
+            this.userManager.authenticate(new UsernamePasswordAuthentication(null, "user1", "pw1"));
+            Assert.fail("Must throw AuthenticationFailedException");
+        } catch (AuthenticationFailedException e) {
+            // ok
+        }
+
+        Assert.assertNotNull(this.userManager.authenticate(new UsernamePasswordAuthentication(null, "user1",
+                "changed")));
+    }
+
+    public void testCacheSize() throws Exception {
+        this.userManager.getUserByName("user1");
+        this.userManager.getUserByName("user2");
+        this.userManager.getUserByName("user3");
+
+        Assert.assertTrue(((AbstractUserManager) this.userManager).getCacheSize() <= 2);
+    }
+}
@@ -28,11 +28,13 @@ import java.util.Properties;
 
 import junit.framework.Assert;
 
+import org.apache.smscserver.impl.DefaultSmscServerContext;
 import org.apache.smscserver.smsclet.SmscException;
 import org.apache.smscserver.smsclet.User;
 import org.apache.smscserver.usermanager.ClearTextPasswordEncryptor;
 import org.apache.smscserver.usermanager.PropertiesUserManagerFactory;
 import org.apache.smscserver.usermanager.UserManagerFactory;
+import org.apache.smscserver.usermanager.UsernamePasswordAuthentication;
 import org.apache.smscserver.usermanager.impl.PropertiesUserManager;
 import org.apache.smscserver.util.IoUtils;
 
@@ -115,4 +117,84 @@ public class PropertiesUserManagerTest extends UserManagerTestTemplate {
         Assert.assertEquals("Enable flag should have reset back to \"" + originalSetting
                 + "\" after second call to refresh().", originalSetting, modifiedUser.getEnabled());
     }
+
+    public void testGetAllUserNames() throws Exception {
+        String[] names = this.userManager.getAllUserNames();
+
+        Assert.assertEquals(3, names.length);
+        Assert.assertEquals("user1", names[0]);
+        Assert.assertEquals("user2", names[1]);
+        Assert.assertEquals("user3", names[2]);
+    }
+
+    public void testContextDisposeStopsWatcher() throws Exception {
+        PropertiesUserManager pum = (PropertiesUserManager) this.userManager;
+        pum.watch(10);
+        Assert.assertTrue(this.isWatcherRunning());
+
+        DefaultSmscServerContext context = new DefaultSmscServerContext();
+        context.setUserManager(pum);
+        context.dispose();
+
+        for (int i = 0; (i < 200) && this.isWatcherRunning(); i++) {
+            Thread.sleep(10);
+        }
+
+        Assert.assertFalse(this.isWatcherRunning());
+    }
+
+    private boolean isWatcherRunning() {
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if ("SmscServer-UserWatcher".equals(thread.getName()) && thread.isAlive()) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    public void testRefreshInterval() throws Exception {
+        PropertiesUserManagerFactory factory = (PropertiesUserManagerFactory) this.createUserManagerFactory();
+        factory.setRefreshInterval(1);
+        PropertiesUserManager pum = (PropertiesUserManager) factory.createUserManager();
+        try {
+            Assert.assertFalse(pum.getUserByName("user2").getEnabled());
+
+            Properties users = new Properties();
+            users.load(new FileInputStream(PropertiesUserManagerTest.USERS_FILE));
+            users.setProperty("smscserver.user.user2.enableflag", "true");
+            users.setProperty("smscserver.user.user5.userpassword", "pw5");
+            users.store(new FileOutputStream(PropertiesUserManagerTest.USERS_FILE), null);
+
+            for (int i = 0; (i < 300) && !pum.doesExist("user5"); i++) {
+                Thread.sleep(10);
+            }
+
+            Assert.assertTrue(pum.doesExist("user5"));
+            Assert.assertTrue(pum.getUserByName("user2").getEnabled());
+        } finally {
+            pum.dispose();
+        }
+    }
+
+    public void testWatch() throws Exception {
+        PropertiesUserManager pum = (PropertiesUserManager) this.userManager;
+        pum.watch(10);
+
+        Properties users = new Properties();
+        users.load(new FileInputStream(PropertiesUserManagerTest.USERS_FILE));
+        users.setProperty("smscserver.user.user4.userpassword", "pw4");
+        users.remove("smscserver.user.user1.userpassword");
+        users.store(new FileOutputStream(PropertiesUserManagerTest.USERS_FILE), null);
+
+        for (int i = 0; (i < 200) && !pum.doesExist("user4"); i++) {
+            Thread.sleep(10);
+        }
+
+        Assert.assertTrue(pum.doesExist("user4"));
+        Assert.assertFalse(pum.doesExist("user1"));
+        Assert.assertNotNull(pum.authenticate(new UsernamePasswordAuthentication(null, "user4", "pw4")));
+
+        pum.dispose();
+    }
 }
@@ -47,4 +47,20 @@ public class SaltedPasswordEncryptorTest extends ClearTextPasswordEncryptorTest
 
         Assert.assertFalse(encryptor.matches("foo", "bar:bar"));
     }
+
+    public void testMatchesVerified() {
+        SaltedPasswordEncryptor encryptor = new SaltedPasswordEncryptor();
+
+        String stored = encryptor.encrypt("foo");
+
+        Assert.assertTrue(encryptor.matches("foo", stored));
+        // served from the verified matches
+        Assert.assertTrue(encryptor.matches("foo", stored));
+        Assert.assertFalse(encryptor.matches("bar", stored));
+
+        encryptor.setVerifiedTtl(0);
+
+        Assert.assertTrue(encryptor.matches("foo", stored));
+        Assert.assertFalse(encryptor.matches("bar", stored));
+    }
 }
@@ -0,0 +1,96 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.smscserver.test.util;
+
+import junit.framework.TestCase;
+
+import org.apache.smscserver.smsclet.LatencySnapshot;
+import org.apache.smscserver.util.LatencyHistogram;
+
+/**
+ * 
+ * @author hceylan
+ * 
+ */
+public class LatencyHistogramTest extends TestCase {
+
+    public void testEmpty() {
+        LatencySnapshot snapshot = new LatencyHistogram().snapshot();
+
+        assertEquals(0, snapshot.getCount());
+        assertEquals(0, snapshot.getP99());
+    }
+
+    public void testExactSmallValues() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 8; i++) {
+            histogram.record(i);
+        }
+
+        LatencySnapshot snapshot = histogram.snapshot();
+        assertEquals(8, snapshot.getCount());
+        assertEquals(3, snapshot.getP50());
+        assertEquals(7, snapshot.getMax());
+        assertEquals(3.5, snapshot.getMean(), 0.001);
+    }
+
+    public void testHugeValue() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(Long.MAX_VALUE / 2);
+
+        assertEquals(Long.MAX_VALUE / 2, histogram.snapshot().getMax());
+        assertEquals(Long.MAX_VALUE / 2, histogram.snapshot().getP50());
+    }
+
+    public void testPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 10000; i++) {
+            histogram.record(i);
+        }
+
+        LatencySnapshot snapshot = histogram.snapshot();
+        assertEquals(10000, snapshot.getCount());
+        assertEquals(10000, snapshot.getMax());
+        this.assertWithinBucket(5000, snapshot.getP50());
+        this.assertWithinBucket(9000, snapshot.getP90());
+        this.assertWithinBucket(9900, snapshot.getP99());
+        this.assertWithinBucket(9990, snapshot.getP999());
+    }
+
+    public void testSnapshotAndReset() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.recordNanos(2000000);
+
+        LatencySnapshot snapshot = histogram.snapshotAndReset();
+        assertEquals(1, snapshot.getCount());
+        assertEquals(2000, snapshot.getMax());
+
+        assertEquals(0, histogram.snapshot().getCount());
+
+        histogram.record(10);
+        assertEquals(10, histogram.snapshot().getMax());
+        assertEquals(10.0, histogram.snapshot().getMean(), 0.001);
+    }
+
+    private void assertWithinBucket(long expected, long actual) {
+        assertTrue(actual + " is below " + expected, actual >= expected);
+        assertTrue(actual + " is too far from " + expected, actual <= (expected + (expected / 8)));
+    }
+}
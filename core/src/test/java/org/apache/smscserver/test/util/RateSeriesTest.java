@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.smscserver.test.util;
+
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+import org.apache.smscserver.util.RateSeries;
+
+/**
+ * 
+ * @author hceylan
+ * 
+ */
+public class RateSeriesTest extends TestCase {
+
+    private static final long NOW = 1300000000000L;
+
+    public void testConcurrentIncrements() throws Exception {
+        final RateSeries series = new RateSeries(10, 1000);
+
+        Thread[] threads = new Thread[16];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread() {
+
+                @Override
+                public void run() {
+                    for (int j = 0; j < 10000; j++) {
+                        series.increment(RateSeriesTest.NOW);
+                    }
+                }
+            };
+            threads[i].start();
+        }
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(16 * 10000, series.sum(RateSeriesTest.NOW + 1000, 1));
+    }
+
+    public void testCounts() {
+        RateSeries series = new RateSeries(3, 1000);
+
+        series.increment(RateSeriesTest.NOW);
+        series.increment(RateSeriesTest.NOW + 1000);
+        series.increment(RateSeriesTest.NOW + 1999);
+        series.increment(RateSeriesTest.NOW + 3000);
+
+        // the current bucket is not reported
+        assertEquals("[1, 2, 0]", Arrays.toString(series.counts(RateSeriesTest.NOW + 3000)));
+        assertEquals("[2, 0, 1]", Arrays.toString(series.counts(RateSeriesTest.NOW + 4000)));
+        assertEquals(1, series.sum(RateSeriesTest.NOW + 4000, 1));
+        assertEquals(3, series.sum(RateSeriesTest.NOW + 4000, 10));
+    }
+
+    public void testExpiredBuckets() {
+        RateSeries series = new RateSeries(3, 1000);
+
+        series.increment(RateSeriesTest.NOW);
+        series.increment(RateSeriesTest.NOW);
+
+        // the slot is reused four buckets later and restarts the count
+        series.increment(RateSeriesTest.NOW + 4000);
+
+        assertEquals("[0, 0, 1]", Arrays.toString(series.counts(RateSeriesTest.NOW + 5000)));
+        assertEquals(0, series.sum(RateSeriesTest.NOW + 9000, 3));
+    }
+
+    public void testReset() {
+        RateSeries series = new RateSeries(3, 1000);
+
+        series.increment(RateSeriesTest.NOW);
+        series.reset();
+
+        assertEquals(0, series.sum(RateSeriesTest.NOW + 1000, 3));
+    }
+}
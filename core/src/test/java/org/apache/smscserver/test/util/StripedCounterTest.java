@@ -0,0 +1,76 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.smscserver.test.util;
+
+import junit.framework.TestCase;
+
+import org.apache.smscserver.util.StripedCounter;
+
+/**
+ * 
+ * @author hceylan
+ * 
+ */
+public class StripedCounterTest extends TestCase {
+
+    public void testConcurrentIncrements() throws Exception {
+        final StripedCounter counter = new StripedCounter();
+
+        Thread[] threads = new Thread[32];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread() {
+
+                @Override
+                public void run() {
+                    for (int j = 0; j < 10000; j++) {
+                        counter.increment();
+                    }
+                }
+            };
+            threads[i].start();
+        }
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(32 * 10000, counter.sum());
+    }
+
+    public void testExceedsInteger() {
+        StripedCounter counter = new StripedCounter();
+
+        counter.add(Integer.MAX_VALUE);
+        counter.increment();
+
+        assertEquals(Integer.MAX_VALUE + 1L, counter.sum());
+    }
+
+    public void testReset() {
+        StripedCounter counter = new StripedCounter();
+
+        counter.add(5);
+        counter.decrement();
+        assertEquals(4, counter.sum());
+
+        counter.reset();
+        assertEquals(0, counter.sum());
+    }
+}
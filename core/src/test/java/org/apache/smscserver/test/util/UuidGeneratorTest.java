@@ -0,0 +1,76 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.smscserver.test.util;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+import junit.framework.TestCase;
+
+import org.apache.smscserver.util.UuidGenerator;
+
+/**
+ * 
+ * @author hceylan
+ * 
+ */
+public class UuidGeneratorTest extends TestCase {
+
+    public void testFormat() {
+        UUID uuid = new UuidGenerator().next();
+
+        assertEquals(4, uuid.version());
+        assertEquals(2, uuid.variant());
+        assertEquals(uuid, UUID.fromString(uuid.toString()));
+    }
+
+    public void testUnique() throws Exception {
+        final UuidGenerator generator = new UuidGenerator();
+        final Set<UUID> uuids = new HashSet<UUID>();
+
+        Thread[] threads = new Thread[8];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread() {
+
+                @Override
+                public void run() {
+                    for (int j = 0; j < 10000; j++) {
+                        UUID uuid = generator.next();
+                        synchronized (uuids) {
+                            uuids.add(uuid);
+                        }
+                    }
+                }
+            };
+            threads[i].start();
+        }
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(8 * 10000, uuids.size());
+
+        // the identifiers of different generators differ too
+        assertFalse(new UuidGenerator().next().equals(new UuidGenerator().next()));
+    }
+}
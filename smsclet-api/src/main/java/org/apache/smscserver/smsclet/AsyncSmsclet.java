@@ -0,0 +1,48 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.smscserver.smsclet;
+
+import java.io.IOException;
+
+/**
+ * A smsclet that replies to requests asynchronously. Instead of blocking the calling thread while, for example, an
+ * external service is consulted the smsclet returns a {@link SmscReplyFuture} and completes it later from any thread.
+ * 
+ * Completing the future with a null reply passes the request on to the next smsclet, exactly like returning null
+ * from {@link Smsclet#onRequest(SmscSession, SmscRequest)}.
+ * 
+ * @author hceylan
+ */
+public interface AsyncSmsclet extends Smsclet {
+
+    /**
+     * Called by the smsclet container after a request has been received by the server. The container calls this method
+     * instead of {@link Smsclet#onRequest(SmscSession, SmscRequest)}.
+     * 
+     * @param session
+     *            The current session
+     * @param request
+     *            The current request
+     * @return the future of the reply that will be sent for this command, never null.
+     * @throws SmscException
+     * @throws IOException
+     */
+    SmscReplyFuture onRequestAsync(SmscSession session, SmscRequest request) throws SmscException, IOException;
+}
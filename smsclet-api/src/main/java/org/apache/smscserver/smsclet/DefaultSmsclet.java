@@ -91,37 +91,40 @@ public class DefaultSmsclet implements Smsclet {
     }
 
     public final SmscReply onRequest(SmscSession session, SmscRequest request) throws SmscException, IOException {
-        if (request instanceof AlertNotificationRequest) {
+        switch (request.getCommandId()) {
+        case SmscCommandId.ALERT_NOTIFICATION:
             return this.onAlertNotification(session, (AlertNotificationRequest) request);
-        } else if (request instanceof BindRequest) {
+        case SmscCommandId.BIND_RECEIVER:
+        case SmscCommandId.BIND_TRANSCEIVER:
+        case SmscCommandId.BIND_TRANSMITTER:
             return this.onBind(session, (BindRequest) request);
-        } else if (request instanceof CancelSMRequest) {
+        case SmscCommandId.CANCEL_SM:
             return this.onCancelSM(session, (CancelSMRequest) request);
-        } else if (request instanceof CancelSMRequest) {
+        case SmscCommandId.DATA_SM:
             return this.onDataSM(session, (DataSMRequest) request);
-        } else if (request instanceof DeliverSMRequest) {
+        case SmscCommandId.DELIVER_SM:
             return this.onDeliverSM(session, (DeliverSMRequest) request);
-        } else if (request instanceof EnquireLinkRequest) {
+        case SmscCommandId.ENQUIRE_LINK:
             return this.onEnquireLink(session, (EnquireLinkRequest) request);
-        } else if (request instanceof OutbindRequest) {
+        case SmscCommandId.OUTBIND:
             return this.onOutbind(session, (OutbindRequest) request);
-        } else if (request instanceof ParamRetrieveRequest) {
+        case SmscCommandId.PARAM_RETRIEVE:
             return this.onParamRetrieveRequest(session, (ParamRetrieveRequest) request);
-        } else if (request instanceof QueryLastMsgsRequest) {
+        case SmscCommandId.QUERY_LAST_MSGS:
             return this.onQueryLastMsgs(session, (QueryLastMsgsRequest) request);
-        } else if (request instanceof QueryMsgDetailsRequest) {
+        case SmscCommandId.QUERY_MSG_DETAILS:
             return this.onQueryMsgDetails(session, (QueryMsgDetailsRequest) request);
-        } else if (request instanceof QuerySMRequest) {
+        case SmscCommandId.QUERY_SM:
             return this.onQuerySM(session, (QuerySMRequest) request);
-        } else if (request instanceof ReplaceSMRequest) {
+        case SmscCommandId.REPLACE_SM:
             return this.onReplaceSM(session, (ReplaceSMRequest) request);
-        } else if (request instanceof SubmitMultiRequest) {
+        case SmscCommandId.SUBMIT_MULTI:
             return this.onSubmitMulti(session, (SubmitMultiRequest) request);
-        } else if (request instanceof SubmitSMRequest) {
+        case SmscCommandId.SUBMIT_SM:
             return this.onSubmitSM(session, (SubmitSMRequest) request);
-        } else if (request instanceof UnbindRequest) {
+        case SmscCommandId.UNBIND:
             return this.onUnbind(session, (UnbindRequest) request);
-        } else {
+        default:
             // TODO should we call a catch all?
             return null;
         }
@@ -0,0 +1,136 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.smscserver.smsclet;
+
+/**
+ * An immutable summary of the latencies recorded over an interval. All values are in microseconds, percentiles are
+ * reported as the upper bound of the bucket they fall into, hence are accurate to within an eighth of the value.
+ * 
+ * @author hceylan
+ */
+public class LatencySnapshot {
+
+    /**
+     * The snapshot of an interval with no recordings.
+     */
+    public static final LatencySnapshot EMPTY = new LatencySnapshot(0, 0, 0, 0, 0, 0, 0, 0);
+
+    private final long count;
+    private final long max;
+    private final double mean;
+    private final long p50;
+    private final long p75;
+    private final long p90;
+    private final long p99;
+    private final long p999;
+
+    public LatencySnapshot(long count, double mean, long max, long p50, long p75, long p90, long p99, long p999) {
+        this.count = count;
+        this.mean = mean;
+        this.max = max;
+        this.p50 = p50;
+        this.p75 = p75;
+        this.p90 = p90;
+        this.p99 = p99;
+        this.p999 = p999;
+    }
+
+    /**
+     * Returns the number of recordings.
+     * 
+     * @return the number of recordings
+     */
+    public long getCount() {
+        return this.count;
+    }
+
+    /**
+     * Returns the maximum latency.
+     * 
+     * @return the maximum latency in microseconds
+     */
+    public long getMax() {
+        return this.max;
+    }
+
+    /**
+     * Returns the mean latency.
+     * 
+     * @return the mean latency in microseconds
+     */
+    public double getMean() {
+        return this.mean;
+    }
+
+    /**
+     * Returns the median latency.
+     * 
+     * @return the median latency in microseconds
+     */
+    public long getP50() {
+        return this.p50;
+    }
+
+    /**
+     * Returns the 75th percentile latency.
+     * 
+     * @return the 75th percentile latency in microseconds
+     */
+    public long getP75() {
+        return this.p75;
+    }
+
+    /**
+     * Returns the 90th percentile latency.
+     * 
+     * @return the 90th percentile latency in microseconds
+     */
+    public long getP90() {
+        return this.p90;
+    }
+
+    /**
+     * Returns the 99th percentile latency.
+     * 
+     * @return the 99th percentile latency in microseconds
+     */
+    public long getP99() {
+        return this.p99;
+    }
+
+    /**
+     * Returns the 99.9th percentile latency.
+     * 
+     * @return the 99.9th percentile latency in microseconds
+     */
+    public long getP999() {
+        return this.p999;
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     */
+    @Override
+    public String toString() {
+        return "count=" + this.count + ", mean=" + Math.round(this.mean) + "us, p50=" + this.p50 + "us, p90="
+                + this.p90 + "us, p99=" + this.p99 + "us, p999=" + this.p999 + "us, max=" + this.max + "us";
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.smscserver.smsclet;
+
+/**
+ * The events counted over time by the {@link SmscStatistics}.
+ * 
+ * @author hceylan
+ */
+public enum RateCounter {
+
+    /**
+     * A request has been received.
+     */
+    MESSAGE_RECEIVED,
+
+    /**
+     * A reply has been sent.
+     */
+    MESSAGE_SENT,
+
+    /**
+     * A short message could not be stored.
+     */
+    SUBMIT_FAILED,
+
+    /**
+     * A session has bound.
+     */
+    BIND,
+
+    /**
+     * A short message has been delivered to a bound session.
+     */
+    DELIVERY,
+
+    /**
+     * A short message has expired before it could be delivered.
+     */
+    EXPIRY
+}
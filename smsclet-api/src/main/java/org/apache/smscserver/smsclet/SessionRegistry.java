@@ -0,0 +1,69 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.smscserver.smsclet;
+
+import java.util.List;
+
+/**
+ * The registry of the sessions bound to receive short messages, that is the receiver and the transceiver sessions.
+ * <p>
+ * The sessions are indexed by the system id of their user and by the address range given in the bind request, the
+ * routing key of the session. The registry is updated as the sessions bind, unbind and close, the lookups do not lock
+ * and return an immutable snapshot.
+ * 
+ * @author hceylan
+ */
+public interface SessionRegistry {
+
+    /**
+     * Returns the number of receiver and transceiver sessions bound.
+     * 
+     * @return the number of sessions
+     */
+    int getReceiverCount();
+
+    /**
+     * Returns all the receiver and transceiver sessions bound.
+     * 
+     * @return the sessions, empty if none
+     */
+    List<SmscIoSession> getReceivers();
+
+    /**
+     * Returns the receiver and transceiver sessions bound by the system id.
+     * 
+     * @param systemId
+     *            the system id
+     * @return the sessions, empty if none
+     */
+    List<SmscIoSession> getReceivers(String systemId);
+
+    /**
+     * Returns the receiver and transceiver sessions whose address range matches the destination address. An address
+     * range without regular expression meta characters matches the address equal to it, otherwise the address range is
+     * matched as a regular expression restricted to the atoms, the bracket expressions and the <code>*</code>,
+     * <code>+</code> and <code>?</code> quantifiers. The other address ranges are ignored.
+     * 
+     * @param destinationAddress
+     *            the destination address
+     * @return the sessions, empty if none
+     */
+    List<SmscIoSession> getReceiversForAddress(String destinationAddress);
+}
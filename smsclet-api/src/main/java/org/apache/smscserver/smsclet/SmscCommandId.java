@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.smscserver.smsclet;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * SMPP command ids of the requests delivered to smsclets, as returned by {@link SmscRequest#getCommandId()}.
+ * 
+ * @author hceylan
+ */
+public final class SmscCommandId {
+
+    public static final int ALERT_NOTIFICATION = 0x00000102;
+
+    public static final int BIND_RECEIVER = 0x00000001;
+
+    public static final int BIND_TRANSCEIVER = 0x00000009;
+
+    public static final int BIND_TRANSMITTER = 0x00000002;
+
+    public static final int CANCEL_SM = 0x00000008;
+
+    public static final int DATA_SM = 0x00000103;
+
+    public static final int DELIVER_SM = 0x00000005;
+
+    public static final int ENQUIRE_LINK = 0x00000015;
+
+    public static final int OUTBIND = 0x0000000b;
+
+    public static final int PARAM_RETRIEVE = 0x00000022;
+
+    public static final int QUERY_LAST_MSGS = 0x00000023;
+
+    public static final int QUERY_MSG_DETAILS = 0x00000024;
+
+    public static final int QUERY_SM = 0x00000003;
+
+    public static final int REPLACE_SM = 0x00000007;
+
+    public static final int SUBMIT_MULTI = 0x00000021;
+
+    public static final int SUBMIT_SM = 0x00000004;
+
+    public static final int UNBIND = 0x00000006;
+
+    private static final Map<String, Integer> COMMANDS;
+
+    static {
+        Map<String, Integer> commands = new TreeMap<String, Integer>();
+        for (Field field : SmscCommandId.class.getFields()) {
+            if (Modifier.isStatic(field.getModifiers()) && (field.getType() == Integer.TYPE)) {
+                try {
+                    commands.put(field.getName(), field.getInt(null));
+                } catch (IllegalAccessException e) {
+                    // public constant, cannot happen
+                }
+            }
+        }
+
+        COMMANDS = Collections.unmodifiableMap(commands);
+    }
+
+    /**
+     * Returns the command ids by the names of the constants of this class, sorted by name.
+     * 
+     * @return the command ids by name
+     */
+    public static Map<String, Integer> getCommands() {
+        return SmscCommandId.COMMANDS;
+    }
+
+    private SmscCommandId() {
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.smscserver.smsclet;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The result of an asynchronous smsclet callback. The future is completed exactly once, either with a reply (which may
+ * be null) or with an exception, subsequent completions are ignored.
+ * 
+ * @author hceylan
+ */
+public class SmscReplyFuture {
+
+    /**
+     * Returns a future that is already completed with the reply.
+     * 
+     * @param reply
+     *            The reply, may be null
+     * @return the completed future
+     */
+    public static SmscReplyFuture completed(SmscReply reply) {
+        SmscReplyFuture future = new SmscReplyFuture();
+        future.setReply(reply);
+
+        return future;
+    }
+
+    private boolean done;
+    private Throwable exception;
+    private List<SmscReplyFutureListener> listeners;
+    private SmscReply reply;
+
+    /**
+     * Adds a listener that is notified when the future completes. If the future is already complete the listener is
+     * notified immediately on the calling thread.
+     * 
+     * @param listener
+     *            The listener
+     */
+    public void addListener(SmscReplyFutureListener listener) {
+        synchronized (this) {
+            if (!this.done) {
+                if (this.listeners == null) {
+                    this.listeners = new ArrayList<SmscReplyFutureListener>(1);
+                }
+
+                this.listeners.add(listener);
+
+                return;
+            }
+        }
+
+        listener.operationComplete(this);
+    }
+
+    /**
+     * Waits for the future to complete.
+     * 
+     * @return the reply
+     * @throws InterruptedException
+     *             If the current thread is interrupted while waiting
+     * @throws SmscException
+     *             If the future completed with an exception
+     */
+    public synchronized SmscReply await() throws InterruptedException, SmscException {
+        while (!this.done) {
+            this.wait();
+        }
+
+        return this.getReply();
+    }
+
+    private boolean complete(SmscReply reply, Throwable exception) {
+        List<SmscReplyFutureListener> listeners;
+
+        synchronized (this) {
+            if (this.done) {
+                return false;
+            }
+
+            this.reply = reply;
+            this.exception = exception;
+            this.done = true;
+            this.notifyAll();
+
+            listeners = this.listeners;
+            this.listeners = null;
+        }
+
+        if (listeners != null) {
+            for (SmscReplyFutureListener listener : listeners) {
+                listener.operationComplete(this);
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Returns the exception the future completed with.
+     * 
+     * @return the exception or null if the future is not complete or completed with a reply
+     */
+    public synchronized Throwable getException() {
+        return this.exception;
+    }
+
+    /**
+     * Returns the reply of a completed future.
+     * 
+     * @return the reply, null if the future is not complete
+     * @throws SmscException
+     *             If the future completed with an exception
+     */
+    public synchronized SmscReply getReply() throws SmscException {
+        if (this.exception instanceof SmscException) {
+            throw (SmscException) this.exception;
+        }
+        if (this.exception != null) {
+            throw new SmscException(this.exception);
+        }
+
+        return this.reply;
+    }
+
+    /**
+     * Returns if the future is complete.
+     * 
+     * @return true if the future is complete
+     */
+    public synchronized boolean isDone() {
+        return this.done;
+    }
+
+    /**
+     * Completes the future with the exception.
+     * 
+     * @param exception
+     *            The exception
+     * @return false if the future was already complete
+     */
+    public boolean setException(Throwable exception) {
+        return this.complete(null, exception);
+    }
+
+    /**
+     * Completes the future with the reply.
+     * 
+     * @param reply
+     *            The reply, null to pass the request on to the next smsclet
+     * @return false if the future was already complete
+     */
+    public boolean setReply(SmscReply reply) {
+        return this.complete(reply, null);
+    }
+}
@@ -29,6 +29,38 @@ import java.util.Date;
  */
 public interface SmscStatistics {
 
+    /**
+     * The number of the completed minutes the per minute counts are retained for.
+     */
+    int RATE_MINUTES = 60;
+
+    /**
+     * The number of the completed seconds the per second counts are retained for.
+     */
+    int RATE_SECONDS = 60;
+
+    /**
+     * Get the latency of the command since the last reset of the latency histograms, measured from the start of the
+     * command execution till the reply is produced.
+     * 
+     * @param commandId
+     *            The id of the command as listed in {@link SmscCommandId}
+     * @return The latency snapshot of the command
+     */
+    LatencySnapshot getCommandLatency(int commandId);
+
+    /**
+     * Get the latency of the command for the user since the last reset of the latency histograms. Per user latencies
+     * are only recorded if enabled at the server.
+     * 
+     * @param systemId
+     *            The system id of the user
+     * @param commandId
+     *            The id of the command as listed in {@link SmscCommandId}
+     * @return The latency snapshot of the command for the user
+     */
+    LatencySnapshot getCommandLatency(String systemId, int commandId);
+
     /**
      * Get current bind number
      * 
@@ -63,6 +95,54 @@ public interface SmscStatistics {
      */
     int getCurrentUserBindNumber(User user, InetAddress ipAddress);
 
+    /**
+     * Get the round trip time of the deliver_sm requests since the last reset of the latency histograms, measured from
+     * the write of the request till the receipt of its response.
+     * 
+     * @return The latency snapshot of the deliver_sm round trips
+     */
+    LatencySnapshot getDeliverRoundTripLatency();
+
+    /**
+     * Get the latency of the {@link MessageManager} operation since the last reset of the latency histograms.
+     * 
+     * @param operation
+     *            The name of the {@link MessageManager} method
+     * @return The latency snapshot of the operation
+     */
+    LatencySnapshot getMessageManagerLatency(String operation);
+
+    /**
+     * Get the number of events counted in each of the last {@link #RATE_MINUTES} completed minutes.
+     * 
+     * @param counter
+     *            The counter
+     * @return The counts of the minutes, oldest first
+     */
+    long[] getPerMinuteCounts(RateCounter counter);
+
+    /**
+     * Get the number of events counted in each of the last {@link #RATE_SECONDS} completed seconds.
+     * 
+     * @param counter
+     *            The counter
+     * @return The counts of the seconds, oldest first
+     */
+    long[] getPerSecondCounts(RateCounter counter);
+
+    /**
+     * Get the average number of events per second over the recent completed seconds. Periods up to
+     * {@link #RATE_SECONDS} seconds are measured by the second, longer periods are rounded up to whole minutes and
+     * limited to {@link #RATE_MINUTES} minutes.
+     * 
+     * @param counter
+     *            The counter
+     * @param seconds
+     *            The length of the period in seconds
+     * @return The events per second
+     */
+    double getRecentRate(RateCounter counter, int seconds);
+
     /**
      * Get the server start time.
      * 
@@ -75,33 +155,33 @@ public interface SmscStatistics {
      * 
      * @return The total number of binds
      */
-    int getTotalBindNumber();
+    long getTotalBindNumber();
 
     /**
      * Get total number of connections
      * 
      * @return The total number of connections
      */
-    int getTotalConnectionNumber();
+    long getTotalConnectionNumber();
 
     /**
      * Get total failed bind number.
      * 
      * @return The total number of failed binds
      */
-    int getTotalFailedBindNumber();
+    long getTotalFailedBindNumber();
 
     /**
      * Get number of message received.
      * 
      * @return The total number of messages received
      */
-    int getTotalMessageReceivedNumber();
+    long getTotalMessageReceivedNumber();
 
     /**
      * Get number of message sent.
      * 
      * @return The total number of messages sent
      */
-    int getTotalMessageSentNumber();
+    long getTotalMessageSentNumber();
 }
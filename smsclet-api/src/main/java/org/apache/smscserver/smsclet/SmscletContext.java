@@ -28,6 +28,13 @@ package org.apache.smscserver.smsclet;
  */
 public interface SmscletContext {
 
+    /**
+     * Get the registry of the sessions bound to receive short messages.
+     * 
+     * @return The {@link SessionRegistry}
+     */
+    SessionRegistry getSessionRegistry();
+
     /**
      * Get Smsclet.
      * 
@@ -0,0 +1,60 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.smscserver.smsclet;
+
+/**
+ * Exception thrown when a smsclet does not reply in the configured time.
+ * 
+ * @author hceylan
+ */
+public class SmscletTimeoutException extends SmscException {
+
+    private static final long serialVersionUID = 3346823390581432275L;
+
+    /**
+     * 
+     */
+    public SmscletTimeoutException() {
+        super();
+    }
+
+    /**
+     * @param msg
+     */
+    public SmscletTimeoutException(String msg) {
+        super(msg);
+    }
+
+    /**
+     * @param msg
+     * @param th
+     */
+    public SmscletTimeoutException(String msg, Throwable th) {
+        super(msg, th);
+    }
+
+    /**
+     * @param th
+     */
+    public SmscletTimeoutException(Throwable th) {
+        super(th);
+    }
+
+}